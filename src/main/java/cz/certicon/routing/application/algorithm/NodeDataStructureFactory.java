@@ -0,0 +1,26 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm;
+
+/**
+ * Factory for the {@link NodeDataStructure}. Allows the algorithms (and the
+ * preprocessor) to be configured with a concrete priority queue
+ * implementation.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ * @param <T> node type
+ */
+public interface NodeDataStructureFactory<T> {
+
+    /**
+     * Creates and returns a new empty data structure able to hold nodes of a
+     * graph with the given amount of nodes.
+     *
+     * @param nodeCount amount of nodes in the graph
+     * @return new data structure
+     */
+    public NodeDataStructure<T> createNodeDataStructure( int nodeCount );
+}
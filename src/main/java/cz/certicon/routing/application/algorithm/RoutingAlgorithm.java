@@ -31,4 +31,18 @@ public interface RoutingAlgorithm<G> {
      * two points, see the {@link RouteNotFoundException} for more information
      */
     public <R> R route( RouteBuilder<R, G> routeBuilder, Map<Integer, Float> from, Map<Integer, Float> to ) throws RouteNotFoundException;
+
+    /**
+     * Finds the shortest distance between a set of source points and a set of
+     * target points (including their initial distances). Unlike the
+     * {@link #route(RouteBuilder, Map, Map) route}, no predecessors are
+     * recorded and no route is built.
+     *
+     * @param from a set of source points (and their initial distances)
+     * @param to a set of target points (and their initial distances)
+     * @return the shortest distance
+     * @throws RouteNotFoundException thrown when no route was found between the
+     * two points, see the {@link RouteNotFoundException} for more information
+     */
+    public float calculateDistance( Map<Integer, Float> from, Map<Integer, Float> to ) throws RouteNotFoundException;
 }
@@ -0,0 +1,25 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm;
+
+/**
+ * Factory for the {@link RoutingAlgorithm}. Each created instance holds its own
+ * per-query state (arrays, priority queues), while the graph (and the
+ * preprocessed data) should be shared among the instances. See
+ * {@link RoutingEngine}.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ * @param <G> the graph class to be routed upon
+ */
+public interface RoutingAlgorithmFactory<G> {
+
+    /**
+     * Creates and returns a new routing algorithm instance
+     *
+     * @return new routing algorithm
+     */
+    public RoutingAlgorithm<G> createRoutingAlgorithm();
+}
@@ -0,0 +1,189 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import com.google.common.util.concurrent.MoreExecutors;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Thread-safe facade for concurrent routing. The engine keeps a pool of
+ * {@link RoutingAlgorithm} instances (query contexts) created by the given
+ * {@link RoutingAlgorithmFactory} - the factory is expected to share a single
+ * graph (and preprocessed data) among the instances, so that only the
+ * per-query state is duplicated. Each query acquires a permit (waits when all
+ * the permits are taken), borrows an idle instance from the pool or creates a
+ * new one, and returns both afterwards. The instances are thus created lazily,
+ * at most the pool size of them. A failed creation releases its permit, so it
+ * never blocks the waiting queries.
+ *
+ * The route builder is not shared - each query must be given its own builder.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ * @param <G> the graph class to be routed upon
+ */
+public class RoutingEngine<G> implements AutoCloseable {
+
+    private final RoutingAlgorithmFactory<G> routingAlgorithmFactory;
+    private final BlockingQueue<RoutingAlgorithm<G>> pool;
+    private final Semaphore permits;
+    private final int poolSize;
+    private final ListeningExecutorService executor;
+    private final boolean ownsExecutor;
+
+    /**
+     * Constructor, creates its own fixed thread pool for the asynchronous
+     * queries with the size of the algorithm pool. The thread pool is shut
+     * down by {@link #close()}.
+     *
+     * @param routingAlgorithmFactory factory for the query contexts
+     * @param poolSize maximal amount of concurrently running queries
+     */
+    public RoutingEngine( RoutingAlgorithmFactory<G> routingAlgorithmFactory, int poolSize ) {
+        this( routingAlgorithmFactory, poolSize, Executors.newFixedThreadPool( poolSize ), true );
+    }
+
+    /**
+     * Constructor
+     *
+     * @param routingAlgorithmFactory factory for the query contexts
+     * @param poolSize maximal amount of concurrently running queries
+     * @param executor executor for the asynchronous queries, it is not shut
+     * down by this engine
+     */
+    public RoutingEngine( RoutingAlgorithmFactory<G> routingAlgorithmFactory, int poolSize, ExecutorService executor ) {
+        this( routingAlgorithmFactory, poolSize, executor, false );
+    }
+
+    private RoutingEngine( RoutingAlgorithmFactory<G> routingAlgorithmFactory, int poolSize, ExecutorService executor, boolean ownsExecutor ) {
+        if ( poolSize < 1 ) {
+            throw new IllegalArgumentException( "Pool size must be positive: " + poolSize );
+        }
+        this.routingAlgorithmFactory = routingAlgorithmFactory;
+        this.poolSize = poolSize;
+        this.pool = new LinkedBlockingQueue<>();
+        this.permits = new Semaphore( poolSize );
+        this.executor = MoreExecutors.listeningDecorator( executor );
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    /**
+     * Finds the shortest route in the calling thread, blocks until a query
+     * context is available. See
+     * {@link RoutingAlgorithm#route(RouteBuilder, Map, Map) route}.
+     *
+     * @param <R> route return type, see {@link RouteBuilder}
+     * @param routeBuilder builder for the result route, exclusive for this
+     * query
+     * @param from a set of source points (and their initial distances)
+     * @param to a set of target points (and their initial distances)
+     * @return the shortest route of type R
+     * @throws RouteNotFoundException thrown when no route was found between the
+     * two points
+     */
+    public <R> R route( RouteBuilder<R, G> routeBuilder, Map<Integer, Float> from, Map<Integer, Float> to ) throws RouteNotFoundException {
+        RoutingAlgorithm<G> routingAlgorithm = borrow();
+        try {
+            return routingAlgorithm.route( routeBuilder, from, to );
+        } finally {
+            giveBack( routingAlgorithm );
+        }
+    }
+
+    /**
+     * Finds the shortest distance in the calling thread (no route is built),
+     * blocks until a query context is available. See
+     * {@link RoutingAlgorithm#calculateDistance(Map, Map) calculateDistance}.
+     *
+     * @param from a set of source points (and their initial distances)
+     * @param to a set of target points (and their initial distances)
+     * @return the shortest distance
+     * @throws RouteNotFoundException thrown when no route was found between the
+     * two points
+     */
+    public float calculateDistance( Map<Integer, Float> from, Map<Integer, Float> to ) throws RouteNotFoundException {
+        RoutingAlgorithm<G> routingAlgorithm = borrow();
+        try {
+            return routingAlgorithm.calculateDistance( from, to );
+        } finally {
+            giveBack( routingAlgorithm );
+        }
+    }
+
+    /**
+     * Finds the shortest route asynchronously using the executor. The future
+     * fails with the {@link RouteNotFoundException} when no route was found.
+     *
+     * @param <R> route return type, see {@link RouteBuilder}
+     * @param routeBuilder builder for the result route, exclusive for this
+     * query
+     * @param from a set of source points (and their initial distances)
+     * @param to a set of target points (and their initial distances)
+     * @return future of the shortest route of type R
+     */
+    public <R> ListenableFuture<R> routeAsync( final RouteBuilder<R, G> routeBuilder, final Map<Integer, Float> from, final Map<Integer, Float> to ) {
+        return executor.submit( new Callable<R>() {
+            @Override
+            public R call() throws Exception {
+                return route( routeBuilder, from, to );
+            }
+        } );
+    }
+
+    /**
+     * Returns the maximal amount of concurrently running queries
+     *
+     * @return pool size
+     */
+    public int getPoolSize() {
+        return poolSize;
+    }
+
+    /**
+     * Shuts down the executor if it was created by this engine
+     */
+    @Override
+    public void close() {
+        if ( ownsExecutor ) {
+            executor.shutdown();
+        }
+    }
+
+    private RoutingAlgorithm<G> borrow() {
+        try {
+            permits.acquire();
+        } catch ( InterruptedException ex ) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException( "Interrupted while waiting for a routing algorithm.", ex );
+        }
+        // the other permit holders use at most pool size - 1 instances, so creating one when none is idle stays within the pool size
+        boolean success = false;
+        try {
+            RoutingAlgorithm<G> routingAlgorithm = pool.poll();
+            if ( routingAlgorithm == null ) {
+                routingAlgorithm = routingAlgorithmFactory.createRoutingAlgorithm();
+            }
+            success = true;
+            return routingAlgorithm;
+        } finally {
+            if ( !success ) {
+                permits.release();
+            }
+        }
+    }
+
+    private void giveBack( RoutingAlgorithm<G> routingAlgorithm ) {
+        pool.add( routingAlgorithm );
+        permits.release();
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm.algorithms;
+
+import static cz.certicon.routing.GlobalOptions.MEASURE_STATS;
+import static cz.certicon.routing.GlobalOptions.MEASURE_TIME;
+import cz.certicon.routing.application.algorithm.NodeDataStructure;
+import cz.certicon.routing.application.algorithm.NodeDataStructureFactory;
+import cz.certicon.routing.application.algorithm.RouteBuilder;
+import cz.certicon.routing.application.algorithm.RouteNotFoundException;
+import cz.certicon.routing.application.algorithm.RoutingAlgorithm;
+import cz.certicon.routing.application.algorithm.common.SearchState;
+import cz.certicon.routing.application.algorithm.datastructures.JgraphtFibonacciDataStructureFactory;
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.alt.LandmarkData;
+import cz.certicon.routing.utils.measuring.StatsLogger;
+import cz.certicon.routing.utils.measuring.TimeLogger;
+import java.util.Map;
+
+/**
+ * ALT (A*, landmarks, triangle inequality) implementation of the routing
+ * algorithm. Works as the {@link AstarRoutingAlgorithm}, but the heuristic
+ * function is the lower bound given by the precomputed distances to and from
+ * the landmarks (see {@link LandmarkData}), which is valid for any metric.
+ * Requires the landmark preprocessing, see
+ * {@link cz.certicon.routing.application.algorithm.preprocessing.alt.LandmarkPreprocessor}.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class AltRoutingAlgorithm implements RoutingAlgorithm<Graph> {
+
+    private final Graph graph;
+    private final LandmarkData landmarkData;
+    private final SearchState searchState;
+    private final float[] nodeLowerBoundArray;
+    private final NodeDataStructure<Integer> nodeDataStructure;
+    private double finalDistance;
+
+    public AltRoutingAlgorithm( Graph graph, LandmarkData landmarkData ) {
+        this( graph, landmarkData, new JgraphtFibonacciDataStructureFactory<Integer>() );
+    }
+
+    /**
+     * Constructor
+     *
+     * @param graph graph to be routed upon
+     * @param landmarkData landmark data for the given graph
+     * @param nodeDataStructureFactory factory for the priority queue
+     */
+    public AltRoutingAlgorithm( Graph graph, LandmarkData landmarkData, NodeDataStructureFactory<Integer> nodeDataStructureFactory ) {
+        if ( landmarkData.getNodeCount() != graph.getNodeCount() ) {
+            throw new IllegalArgumentException( "Landmark data do not match the graph: " + landmarkData.getNodeCount() + " nodes, expected " + graph.getNodeCount() );
+        }
+        this.graph = graph;
+        this.landmarkData = landmarkData;
+        this.searchState = new SearchState( graph.getNodeCount() );
+        this.nodeLowerBoundArray = new float[graph.getNodeCount()];
+        this.nodeDataStructure = nodeDataStructureFactory.createNodeDataStructure( graph.getNodeCount() );
+    }
+
+    @Override
+    public <R> R route( RouteBuilder<R, Graph> routeBuilder, Map<Integer, Float> from, Map<Integer, Float> to ) throws RouteNotFoundException {
+        routeBuilder.clear();
+        if ( MEASURE_STATS ) {
+            StatsLogger.log( StatsLogger.Statistic.NODES_EXAMINED, StatsLogger.Command.RESET );
+            StatsLogger.log( StatsLogger.Statistic.EDGES_EXAMINED, StatsLogger.Command.RESET );
+        }
+        if ( MEASURE_TIME ) {
+            TimeLogger.log( TimeLogger.Event.ROUTING, TimeLogger.Command.START );
+        }
+        int finalNode = search( from, to, true );
+        if ( MEASURE_TIME ) {
+            TimeLogger.log( TimeLogger.Event.ROUTING, TimeLogger.Command.STOP );
+        }
+        if ( MEASURE_TIME ) {
+            TimeLogger.log( TimeLogger.Event.ROUTE_BUILDING, TimeLogger.Command.START );
+        }
+        // if the final node has been found, build route from predecessors and return
+        if ( finalNode != -1 ) {
+            routeBuilder.setTargetNode( graph, graph.getNodeOrigId( finalNode ) );
+            int pred = searchState.getPredecessor( finalNode );
+            int currentNode = finalNode;
+            while ( graph.isValidPredecessor( pred ) ) {
+                routeBuilder.addEdgeAsFirst( graph, graph.getEdgeOrigId( pred ) );
+                currentNode = graph.getOtherNode( pred, currentNode );
+                pred = searchState.getPredecessor( currentNode );
+            }
+        } else {
+            throw new RouteNotFoundException();
+        }
+        if ( MEASURE_TIME ) {
+            TimeLogger.log( TimeLogger.Event.ROUTE_BUILDING, TimeLogger.Command.STOP );
+        }
+        return routeBuilder.build();
+    }
+
+    @Override
+    public float calculateDistance( Map<Integer, Float> from, Map<Integer, Float> to ) throws RouteNotFoundException {
+        if ( search( from, to, false ) == -1 ) {
+            throw new RouteNotFoundException();
+        }
+        return (float) finalDistance;
+    }
+
+    // returns the final node or -1 if not found, sets the final distance
+    private int search( Map<Integer, Float> from, Map<Integer, Float> to, boolean predecessors ) {
+        searchState.clear();
+        nodeDataStructure.clear();
+
+        // set the source points (add to the queue)
+        for ( Map.Entry<Integer, Float> entry : from.entrySet() ) {
+            int node = entry.getKey();
+            float distance = entry.getValue();
+            if ( searchState.touch( node ) ) {
+                nodeLowerBoundArray[node] = calculateLowerBound( node, to );
+            }
+            searchState.setDistance( node, distance );
+            nodeDataStructure.add( node, (double) distance + nodeLowerBoundArray[node] );
+        }
+        int finalNode = -1;
+        finalDistance = Double.MAX_VALUE;
+        while ( !nodeDataStructure.isEmpty() ) {
+            // the heuristic is consistent, nothing shorter can be found once the estimate reaches the found distance
+            if ( finalDistance <= nodeDataStructure.minValue() ) {
+                break;
+            }
+            int node = nodeDataStructure.extractMin();
+            if ( MEASURE_STATS ) {
+                StatsLogger.log( StatsLogger.Statistic.NODES_EXAMINED, StatsLogger.Command.INCREMENT );
+            }
+            float distance = searchState.getDistance( node );
+            searchState.setClosed( node );
+            if ( to.containsKey( node ) ) {
+                double nodeDistance = distance + to.get( node );
+                if ( nodeDistance < finalDistance ) {
+                    finalNode = node;
+                    finalDistance = nodeDistance;
+                }
+            }
+            int outgoingEdgesCount = graph.getOutgoingEdgesCount( node );
+            for ( int i = 0; i < outgoingEdgesCount; i++ ) {
+                int edge = graph.getOutgoingEdge( node, i );
+                int target = graph.getOtherNode( edge, node );
+                if ( !searchState.isClosed( target ) ) {
+                    if ( MEASURE_STATS ) {
+                        StatsLogger.log( StatsLogger.Statistic.EDGES_EXAMINED, StatsLogger.Command.INCREMENT );
+                    }
+                    // the heuristic is calculated once, when the node is reached for the first time
+                    if ( searchState.touch( target ) ) {
+                        nodeLowerBoundArray[target] = calculateLowerBound( target, to );
+                    }
+                    float alternativeDistance = distance + graph.getLength( edge );
+                    if ( alternativeDistance < searchState.getDistance( target ) ) {
+                        if ( predecessors ) {
+                            searchState.update( target, alternativeDistance, edge );
+                        } else {
+                            searchState.setDistance( target, alternativeDistance );
+                        }
+                        nodeDataStructure.notifyDataChange( target, (double) alternativeDistance + nodeLowerBoundArray[target] );
+                    }
+                }
+            }
+        }
+        return finalNode;
+    }
+
+    // lower bound of the distance to the set of target nodes (including their initial distances)
+    private float calculateLowerBound( int node, Map<Integer, Float> target ) {
+        float min = Float.MAX_VALUE;
+        for ( Map.Entry<Integer, Float> entry : target.entrySet() ) {
+            float bound = landmarkData.getLowerBound( node, entry.getKey() ) + entry.getValue();
+            if ( bound < min ) {
+                min = bound;
+            }
+        }
+        return min;
+    }
+}
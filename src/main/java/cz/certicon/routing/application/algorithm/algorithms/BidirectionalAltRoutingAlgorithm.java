@@ -0,0 +1,224 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm.algorithms;
+
+import static cz.certicon.routing.GlobalOptions.MEASURE_STATS;
+import static cz.certicon.routing.GlobalOptions.MEASURE_TIME;
+import cz.certicon.routing.application.algorithm.NodeDataStructure;
+import cz.certicon.routing.application.algorithm.NodeDataStructureFactory;
+import cz.certicon.routing.application.algorithm.RouteBuilder;
+import cz.certicon.routing.application.algorithm.RouteNotFoundException;
+import cz.certicon.routing.application.algorithm.RoutingAlgorithm;
+import cz.certicon.routing.application.algorithm.common.SearchState;
+import cz.certicon.routing.application.algorithm.datastructures.JgraphtFibonacciDataStructureFactory;
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.alt.LandmarkData;
+import cz.certicon.routing.utils.measuring.StatsLogger;
+import cz.certicon.routing.utils.measuring.TimeLogger;
+import java.util.Map;
+
+/**
+ * Bidirectional ALT (A*, landmarks, triangle inequality) implementation of the
+ * routing algorithm. Works as the {@link BidirectionalDijkstraRoutingAlgorithm},
+ * but both searches are goal directed by the average potential: p(v) = (lower
+ * bound of d(v, target) - lower bound of d(source, v)) / 2 for the forward
+ * search and -p(v) for the backward one, the lower bounds given by the
+ * {@link LandmarkData}. Both searches then work with the same consistent
+ * reduced lengths and the search stops once the sum of the minimal keys in
+ * both queues reaches the upper bound.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class BidirectionalAltRoutingAlgorithm implements RoutingAlgorithm<Graph> {
+
+    private final Graph graph;
+    private final LandmarkData landmarkData;
+    private final SearchState nodeFromSearchState;
+    private final NodeDataStructure<Integer> nodeFromDataStructure;
+    private final SearchState nodeToSearchState;
+    private final NodeDataStructure<Integer> nodeToDataStructure;
+    // potential of the forward search (the distance), calculated once per node and query
+    private final SearchState potentialCache;
+    private double finalDistance;
+    private int finalNode;
+
+    public BidirectionalAltRoutingAlgorithm( Graph graph, LandmarkData landmarkData ) {
+        this( graph, landmarkData, new JgraphtFibonacciDataStructureFactory<Integer>() );
+    }
+
+    /**
+     * Constructor
+     *
+     * @param graph graph to be routed upon
+     * @param landmarkData landmark data for the given graph
+     * @param nodeDataStructureFactory factory for the priority queues
+     */
+    public BidirectionalAltRoutingAlgorithm( Graph graph, LandmarkData landmarkData, NodeDataStructureFactory<Integer> nodeDataStructureFactory ) {
+        if ( landmarkData.getNodeCount() != graph.getNodeCount() ) {
+            throw new IllegalArgumentException( "Landmark data do not match the graph: " + landmarkData.getNodeCount() + " nodes, expected " + graph.getNodeCount() );
+        }
+        this.graph = graph;
+        this.landmarkData = landmarkData;
+        this.nodeFromSearchState = new SearchState( graph.getNodeCount() );
+        this.nodeFromDataStructure = nodeDataStructureFactory.createNodeDataStructure( graph.getNodeCount() );
+        this.nodeToSearchState = new SearchState( graph.getNodeCount() );
+        this.nodeToDataStructure = nodeDataStructureFactory.createNodeDataStructure( graph.getNodeCount() );
+        this.potentialCache = new SearchState( graph.getNodeCount() );
+    }
+
+    @Override
+    public <R> R route( RouteBuilder<R, Graph> routeBuilder, Map<Integer, Float> from, Map<Integer, Float> to ) throws RouteNotFoundException {
+        routeBuilder.clear();
+        if ( MEASURE_STATS ) {
+            StatsLogger.log( StatsLogger.Statistic.NODES_EXAMINED, StatsLogger.Command.RESET );
+            StatsLogger.log( StatsLogger.Statistic.EDGES_EXAMINED, StatsLogger.Command.RESET );
+        }
+        if ( MEASURE_TIME ) {
+            TimeLogger.log( TimeLogger.Event.ROUTING, TimeLogger.Command.START );
+        }
+        search( from, to, true );
+        if ( MEASURE_TIME ) {
+            TimeLogger.log( TimeLogger.Event.ROUTING, TimeLogger.Command.STOP );
+        }
+        if ( MEASURE_TIME ) {
+            TimeLogger.log( TimeLogger.Event.ROUTE_BUILDING, TimeLogger.Command.START );
+        }
+        if ( finalNode != -1 ) {
+            // set target to final, then add as first for the "from" search, then add as last for the "to" search
+            routeBuilder.setTargetNode( graph, graph.getNodeOrigId( finalNode ) );
+            int pred = nodeFromSearchState.getPredecessor( finalNode );
+            int currentNode = finalNode;
+            while ( graph.isValidPredecessor( pred ) ) {
+                routeBuilder.addEdgeAsFirst( graph, graph.getEdgeOrigId( pred ) );
+                currentNode = graph.getOtherNode( pred, currentNode );
+                pred = nodeFromSearchState.getPredecessor( currentNode );
+            }
+            currentNode = finalNode;
+            pred = nodeToSearchState.getPredecessor( finalNode );
+            while ( graph.isValidPredecessor( pred ) ) {
+                routeBuilder.addEdgeAsLast( graph, graph.getEdgeOrigId( pred ) );
+                currentNode = graph.getOtherNode( pred, currentNode );
+                pred = nodeToSearchState.getPredecessor( currentNode );
+            }
+        } else {
+            throw new RouteNotFoundException();
+        }
+        if ( MEASURE_TIME ) {
+            TimeLogger.log( TimeLogger.Event.ROUTE_BUILDING, TimeLogger.Command.STOP );
+        }
+        return routeBuilder.build();
+    }
+
+    @Override
+    public float calculateDistance( Map<Integer, Float> from, Map<Integer, Float> to ) throws RouteNotFoundException {
+        search( from, to, false );
+        if ( finalNode == -1 ) {
+            throw new RouteNotFoundException();
+        }
+        return (float) finalDistance;
+    }
+
+    // sets the final (meeting) node, -1 if not found, and the final distance
+    private void search( Map<Integer, Float> from, Map<Integer, Float> to, boolean predecessors ) {
+        nodeFromSearchState.clear();
+        nodeToSearchState.clear();
+        nodeFromDataStructure.clear();
+        nodeToDataStructure.clear();
+        potentialCache.clear();
+        finalNode = -1;
+        finalDistance = Double.MAX_VALUE;
+
+        // add source points for the "from" search
+        for ( Map.Entry<Integer, Float> entry : from.entrySet() ) {
+            int node = entry.getKey();
+            float distance = entry.getValue();
+            nodeFromSearchState.setDistance( node, distance );
+            nodeFromDataStructure.add( node, (double) distance + getPotential( node, from, to ) );
+        }
+        // add target points for the "to" search, the points present in both are the first candidates
+        for ( Map.Entry<Integer, Float> entry : to.entrySet() ) {
+            int node = entry.getKey();
+            float distance = entry.getValue();
+            nodeToSearchState.setDistance( node, distance );
+            nodeToDataStructure.add( node, (double) distance - getPotential( node, from, to ) );
+            if ( nodeFromSearchState.isTouched( node ) ) {
+                updateFinal( node, nodeFromSearchState.getDistance( node ) + distance );
+            }
+        }
+        boolean forward = true;
+        while ( !nodeFromDataStructure.isEmpty() && !nodeToDataStructure.isEmpty() ) {
+            // stopping criterion, the potentials cancel out, the paths through the unsettled nodes cannot be shorter
+            if ( nodeFromDataStructure.minValue() + nodeToDataStructure.minValue() >= finalDistance ) {
+                break;
+            }
+            if ( forward ) {
+                expand( nodeFromSearchState, nodeFromDataStructure, nodeToSearchState, true, predecessors, from, to );
+            } else {
+                expand( nodeToSearchState, nodeToDataStructure, nodeFromSearchState, false, predecessors, from, to );
+            }
+            forward = !forward;
+        }
+    }
+
+    // settles the minimal node of the given search and relaxes its edges
+    private void expand( SearchState searchState, NodeDataStructure<Integer> nodeDataStructure, SearchState oppositeSearchState, boolean forward, boolean predecessors, Map<Integer, Float> from, Map<Integer, Float> to ) {
+        int node = nodeDataStructure.extractMin();
+        if ( MEASURE_STATS ) {
+            StatsLogger.log( StatsLogger.Statistic.NODES_EXAMINED, StatsLogger.Command.INCREMENT );
+        }
+        float distance = searchState.getDistance( node );
+        searchState.setClosed( node );
+        int edgesCount = forward ? graph.getOutgoingEdgesCount( node ) : graph.getIncomingEdgesCount( node );
+        for ( int i = 0; i < edgesCount; i++ ) {
+            int edge = forward ? graph.getOutgoingEdge( node, i ) : graph.getIncomingEdge( node, i );
+            int otherNode = graph.getOtherNode( edge, node );
+            if ( !searchState.isClosed( otherNode ) ) {
+                if ( MEASURE_STATS ) {
+                    StatsLogger.log( StatsLogger.Statistic.EDGES_EXAMINED, StatsLogger.Command.INCREMENT );
+                }
+                float alternativeDistance = distance + graph.getLength( edge );
+                if ( alternativeDistance < searchState.getDistance( otherNode ) ) {
+                    if ( predecessors ) {
+                        searchState.update( otherNode, alternativeDistance, edge );
+                    } else {
+                        searchState.setDistance( otherNode, alternativeDistance );
+                    }
+                    float potential = getPotential( otherNode, from, to );
+                    nodeDataStructure.notifyDataChange( otherNode, (double) alternativeDistance + ( forward ? potential : -potential ) );
+                    // the node has been reached by the opposite search, a candidate path
+                    if ( oppositeSearchState.isTouched( otherNode ) ) {
+                        updateFinal( otherNode, alternativeDistance + oppositeSearchState.getDistance( otherNode ) );
+                    }
+                }
+            }
+        }
+    }
+
+    private void updateFinal( int node, double distance ) {
+        if ( distance < finalDistance ) {
+            finalDistance = distance;
+            finalNode = node;
+        }
+    }
+
+    // average potential of the forward search: (lower bound to the targets - lower bound from the sources) / 2
+    private float getPotential( int node, Map<Integer, Float> from, Map<Integer, Float> to ) {
+        if ( potentialCache.isTouched( node ) ) {
+            return potentialCache.getDistance( node );
+        }
+        float toTarget = Float.MAX_VALUE;
+        for ( Map.Entry<Integer, Float> entry : to.entrySet() ) {
+            toTarget = Math.min( toTarget, landmarkData.getLowerBound( node, entry.getKey() ) + entry.getValue() );
+        }
+        float fromSource = Float.MAX_VALUE;
+        for ( Map.Entry<Integer, Float> entry : from.entrySet() ) {
+            fromSource = Math.min( fromSource, landmarkData.getLowerBound( entry.getKey(), node ) + entry.getValue() );
+        }
+        float potential = ( toTarget - fromSource ) / 2;
+        potentialCache.setDistance( node, potential );
+        return potential;
+    }
+}
@@ -0,0 +1,193 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm.algorithms;
+
+import static cz.certicon.routing.GlobalOptions.MEASURE_STATS;
+import static cz.certicon.routing.GlobalOptions.MEASURE_TIME;
+import cz.certicon.routing.application.algorithm.NodeDataStructure;
+import cz.certicon.routing.application.algorithm.NodeDataStructureFactory;
+import cz.certicon.routing.application.algorithm.RouteBuilder;
+import cz.certicon.routing.application.algorithm.RouteNotFoundException;
+import cz.certicon.routing.application.algorithm.RoutingAlgorithm;
+import cz.certicon.routing.application.algorithm.common.SearchState;
+import cz.certicon.routing.application.algorithm.datastructures.JgraphtFibonacciDataStructureFactory;
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.utils.measuring.StatsLogger;
+import cz.certicon.routing.utils.measuring.TimeLogger;
+import java.util.Map;
+
+/**
+ * Optimal routing algorithm using the bidirectional Dijkstra on the plain
+ * graph (no preprocessing required). One Dijkstra runs from the source along
+ * the outgoing edges, the other one from the target along the incoming edges,
+ * the two searches alternate. Whenever a node is reached by both of them, the
+ * sum of the distances is a candidate (upper bound) for the shortest distance.
+ * The search stops once the sum of the minimal distances in both queues
+ * reaches the upper bound - no shorter path can be found then.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class BidirectionalDijkstraRoutingAlgorithm implements RoutingAlgorithm<Graph> {
+
+    private final Graph graph;
+    private final SearchState nodeFromSearchState;
+    private final NodeDataStructure<Integer> nodeFromDataStructure;
+    private final SearchState nodeToSearchState;
+    private final NodeDataStructure<Integer> nodeToDataStructure;
+    private double finalDistance;
+    private int finalNode;
+
+    public BidirectionalDijkstraRoutingAlgorithm( Graph graph ) {
+        this( graph, new JgraphtFibonacciDataStructureFactory<Integer>() );
+    }
+
+    /**
+     * Constructor
+     *
+     * @param graph graph to be routed upon
+     * @param nodeDataStructureFactory factory for the priority queues
+     */
+    public BidirectionalDijkstraRoutingAlgorithm( Graph graph, NodeDataStructureFactory<Integer> nodeDataStructureFactory ) {
+        this.graph = graph;
+        this.nodeFromSearchState = new SearchState( graph.getNodeCount() );
+        this.nodeFromDataStructure = nodeDataStructureFactory.createNodeDataStructure( graph.getNodeCount() );
+        this.nodeToSearchState = new SearchState( graph.getNodeCount() );
+        this.nodeToDataStructure = nodeDataStructureFactory.createNodeDataStructure( graph.getNodeCount() );
+    }
+
+    @Override
+    public <R> R route( RouteBuilder<R, Graph> routeBuilder, Map<Integer, Float> from, Map<Integer, Float> to ) throws RouteNotFoundException {
+        routeBuilder.clear();
+        if ( MEASURE_STATS ) {
+            StatsLogger.log( StatsLogger.Statistic.NODES_EXAMINED, StatsLogger.Command.RESET );
+            StatsLogger.log( StatsLogger.Statistic.EDGES_EXAMINED, StatsLogger.Command.RESET );
+        }
+        if ( MEASURE_TIME ) {
+            TimeLogger.log( TimeLogger.Event.ROUTING, TimeLogger.Command.START );
+        }
+        search( from, to, true );
+        if ( MEASURE_TIME ) {
+            TimeLogger.log( TimeLogger.Event.ROUTING, TimeLogger.Command.STOP );
+        }
+        if ( MEASURE_TIME ) {
+            TimeLogger.log( TimeLogger.Event.ROUTE_BUILDING, TimeLogger.Command.START );
+        }
+        if ( finalNode != -1 ) {
+            // set target to final, then add as first for the "from" search, then add as last for the "to" search
+            routeBuilder.setTargetNode( graph, graph.getNodeOrigId( finalNode ) );
+            int pred = nodeFromSearchState.getPredecessor( finalNode );
+            int currentNode = finalNode;
+            while ( graph.isValidPredecessor( pred ) ) {
+                routeBuilder.addEdgeAsFirst( graph, graph.getEdgeOrigId( pred ) );
+                currentNode = graph.getOtherNode( pred, currentNode );
+                pred = nodeFromSearchState.getPredecessor( currentNode );
+            }
+            currentNode = finalNode;
+            pred = nodeToSearchState.getPredecessor( finalNode );
+            while ( graph.isValidPredecessor( pred ) ) {
+                routeBuilder.addEdgeAsLast( graph, graph.getEdgeOrigId( pred ) );
+                currentNode = graph.getOtherNode( pred, currentNode );
+                pred = nodeToSearchState.getPredecessor( currentNode );
+            }
+        } else {
+            throw new RouteNotFoundException();
+        }
+        if ( MEASURE_TIME ) {
+            TimeLogger.log( TimeLogger.Event.ROUTE_BUILDING, TimeLogger.Command.STOP );
+        }
+        return routeBuilder.build();
+    }
+
+    @Override
+    public float calculateDistance( Map<Integer, Float> from, Map<Integer, Float> to ) throws RouteNotFoundException {
+        search( from, to, false );
+        if ( finalNode == -1 ) {
+            throw new RouteNotFoundException();
+        }
+        return (float) finalDistance;
+    }
+
+    // sets the final (meeting) node, -1 if not found, and the final distance
+    private void search( Map<Integer, Float> from, Map<Integer, Float> to, boolean predecessors ) {
+        nodeFromSearchState.clear();
+        nodeToSearchState.clear();
+        nodeFromDataStructure.clear();
+        nodeToDataStructure.clear();
+        finalNode = -1;
+        finalDistance = Double.MAX_VALUE;
+
+        // add source points for the "from" Dijkstra
+        for ( Map.Entry<Integer, Float> entry : from.entrySet() ) {
+            int node = entry.getKey();
+            float distance = entry.getValue();
+            nodeFromSearchState.setDistance( node, distance );
+            nodeFromDataStructure.add( node, distance );
+        }
+        // add target points for the "to" Dijkstra, the points present in both are the first candidates
+        for ( Map.Entry<Integer, Float> entry : to.entrySet() ) {
+            int node = entry.getKey();
+            float distance = entry.getValue();
+            nodeToSearchState.setDistance( node, distance );
+            nodeToDataStructure.add( node, distance );
+            if ( nodeFromSearchState.isTouched( node ) ) {
+                updateFinal( node, nodeFromSearchState.getDistance( node ) + distance );
+            }
+        }
+        boolean forward = true;
+        while ( !nodeFromDataStructure.isEmpty() && !nodeToDataStructure.isEmpty() ) {
+            // stopping criterion, the paths through the unsettled nodes cannot be shorter
+            if ( nodeFromDataStructure.minValue() + nodeToDataStructure.minValue() >= finalDistance ) {
+                break;
+            }
+            if ( forward ) {
+                expand( nodeFromSearchState, nodeFromDataStructure, nodeToSearchState, true, predecessors );
+            } else {
+                expand( nodeToSearchState, nodeToDataStructure, nodeFromSearchState, false, predecessors );
+            }
+            forward = !forward;
+        }
+    }
+
+    // settles the minimal node of the given search and relaxes its edges
+    private void expand( SearchState searchState, NodeDataStructure<Integer> nodeDataStructure, SearchState oppositeSearchState, boolean forward, boolean predecessors ) {
+        int node = nodeDataStructure.extractMin();
+        if ( MEASURE_STATS ) {
+            StatsLogger.log( StatsLogger.Statistic.NODES_EXAMINED, StatsLogger.Command.INCREMENT );
+        }
+        float distance = searchState.getDistance( node );
+        searchState.setClosed( node );
+        int edgesCount = forward ? graph.getOutgoingEdgesCount( node ) : graph.getIncomingEdgesCount( node );
+        for ( int i = 0; i < edgesCount; i++ ) {
+            int edge = forward ? graph.getOutgoingEdge( node, i ) : graph.getIncomingEdge( node, i );
+            int otherNode = graph.getOtherNode( edge, node );
+            if ( !searchState.isClosed( otherNode ) ) {
+                if ( MEASURE_STATS ) {
+                    StatsLogger.log( StatsLogger.Statistic.EDGES_EXAMINED, StatsLogger.Command.INCREMENT );
+                }
+                float alternativeDistance = distance + graph.getLength( edge );
+                if ( alternativeDistance < searchState.getDistance( otherNode ) ) {
+                    if ( predecessors ) {
+                        searchState.update( otherNode, alternativeDistance, edge );
+                    } else {
+                        searchState.setDistance( otherNode, alternativeDistance );
+                    }
+                    nodeDataStructure.notifyDataChange( otherNode, alternativeDistance );
+                    // the node has been reached by the opposite search, a candidate path
+                    if ( oppositeSearchState.isTouched( otherNode ) ) {
+                        updateFinal( otherNode, alternativeDistance + oppositeSearchState.getDistance( otherNode ) );
+                    }
+                }
+            }
+        }
+    }
+
+    private void updateFinal( int node, double distance ) {
+        if ( distance < finalDistance ) {
+            finalDistance = distance;
+            finalNode = node;
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm.algorithms;
+
+import cz.certicon.routing.application.algorithm.NodeDataStructureFactory;
+import cz.certicon.routing.application.algorithm.common.ChUpwardSearch;
+import cz.certicon.routing.application.algorithm.datastructures.JgraphtFibonacciDataStructureFactory;
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.ch.ChSearchGraph;
+import cz.certicon.routing.model.entity.ch.PreprocessedData;
+import cz.certicon.routing.utils.ParallelUtils;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Many-to-many (distance table) computation on the Contraction Hierarchies
+ * using the bucket scanning. First, a backward upward search is run from each
+ * target, each settled node gets an entry (target, distance) into its bucket.
+ * Then a forward upward search is run from each source, the buckets of the
+ * settled nodes are scanned and the table row of the source is updated with
+ * the sum of the forward and the bucket distance. Thus a |S|x|T| table
+ * requires |S|+|T| upward searches instead of |S|x|T| bidirectional queries.
+ *
+ * The searches may run in parallel on a given executor, see
+ * {@link #ContractionHierarchiesManyToManyAlgorithm(Graph, ChSearchGraph, NodeDataStructureFactory, ExecutorService, int)}.
+ * Each thread (a thread of the executor or a calling thread) creates its
+ * upward search once and reuses it for all the following searches and calls,
+ * the search is kept for the lifetime of this instance. Otherwise the instance
+ * holds no per-query state and can be shared among threads.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class ContractionHierarchiesManyToManyAlgorithm {
+
+    private final Graph graph;
+    private final ExecutorService executor;
+    private final int threads;
+    private final ThreadLocal<ChUpwardSearch> searches;
+
+    public ContractionHierarchiesManyToManyAlgorithm( Graph graph, PreprocessedData preprocessedData ) {
+        this( graph, new ChSearchGraph( graph, preprocessedData ), new JgraphtFibonacciDataStructureFactory<Integer>() );
+    }
+
+    /**
+     * Constructor, allows sharing the search graph with the other CH
+     * algorithms
+     *
+     * @param graph graph to be routed upon
+     * @param searchGraph upward search graph built from the given graph and CH
+     * data
+     * @param nodeDataStructureFactory factory for the priority queues
+     */
+    public ContractionHierarchiesManyToManyAlgorithm( Graph graph, ChSearchGraph searchGraph, NodeDataStructureFactory<Integer> nodeDataStructureFactory ) {
+        this( graph, searchGraph, nodeDataStructureFactory, null, 1 );
+    }
+
+    /**
+     * Constructor for the parallel searches. The targets (and then the
+     * sources) are split into contiguous ranges, each range is run as a single
+     * task on the executor, the result does not depend on the amount of
+     * ranges.
+     *
+     * @param graph graph to be routed upon
+     * @param searchGraph upward search graph built from the given graph and CH
+     * data
+     * @param nodeDataStructureFactory factory for the priority queues
+     * @param executor executor for the searches, it is not shut down by this
+     * algorithm, null for searching in the calling thread
+     * @param threads amount of ranges, positive, typically the amount of
+     * threads of the executor
+     */
+    public ContractionHierarchiesManyToManyAlgorithm( final Graph graph, final ChSearchGraph searchGraph, final NodeDataStructureFactory<Integer> nodeDataStructureFactory, ExecutorService executor, int threads ) {
+        if ( threads < 1 ) {
+            throw new IllegalArgumentException( "Amount of threads must be positive: " + threads );
+        }
+        this.graph = graph;
+        this.executor = executor;
+        this.threads = threads;
+        this.searches = new ThreadLocal<ChUpwardSearch>() {
+            @Override
+            protected ChUpwardSearch initialValue() {
+                return new ChUpwardSearch( searchGraph, graph.getNodeCount(), nodeDataStructureFactory );
+            }
+        };
+    }
+
+    /**
+     * Calculates the table of the shortest distances between each source and
+     * each target. Each source (target) is given as a set of nodes and their
+     * initial distances, the same way as in
+     * {@link cz.certicon.routing.application.algorithm.RoutingAlgorithm#calculateDistance(java.util.Map, java.util.Map) calculateDistance}.
+     *
+     * @param from list of the sources
+     * @param to list of the targets
+     * @return dense table [source][target] of the shortest distances,
+     * {@link Graph#DISTANCE_DEFAULT} where no route exists
+     */
+    public float[][] calculateDistances( final List<Map<Integer, Float>> from, final List<Map<Integer, Float>> to ) {
+        // backward searches, collect the settled nodes of each target
+        final int[][] targetNodes = new int[to.size()][];
+        final float[][] targetDistances = new float[to.size()][];
+        execute( to.size(), new RangeTask() {
+            @Override
+            public void run( ChUpwardSearch search, int begin, int end ) {
+                for ( int target = begin; target < end; target++ ) {
+                    search.run( to.get( target ), false );
+                    int settledCount = search.getSettledCount();
+                    targetNodes[target] = new int[settledCount];
+                    targetDistances[target] = new float[settledCount];
+                    for ( int i = 0; i < settledCount; i++ ) {
+                        int node = search.getSettledNode( i );
+                        targetNodes[target][i] = node;
+                        targetDistances[target][i] = search.getDistance( node );
+                    }
+                }
+            }
+        } );
+        // buckets, grouped by node (counting sort)
+        int nodeCount = graph.getNodeCount();
+        final int[] bucketOffsets = new int[nodeCount + 1];
+        for ( int[] nodes : targetNodes ) {
+            for ( int node : nodes ) {
+                bucketOffsets[node + 1]++;
+            }
+        }
+        for ( int node = 0; node < nodeCount; node++ ) {
+            bucketOffsets[node + 1] += bucketOffsets[node];
+        }
+        final int[] bucketTargets = new int[bucketOffsets[nodeCount]];
+        final float[] bucketDistances = new float[bucketOffsets[nodeCount]];
+        int[] positions = Arrays.copyOf( bucketOffsets, nodeCount );
+        for ( int target = 0; target < targetNodes.length; target++ ) {
+            int[] nodes = targetNodes[target];
+            for ( int i = 0; i < nodes.length; i++ ) {
+                int position = positions[nodes[i]]++;
+                bucketTargets[position] = target;
+                bucketDistances[position] = targetDistances[target][i];
+            }
+        }
+        // forward searches, scan the buckets
+        final float[][] result = new float[from.size()][to.size()];
+        execute( from.size(), new RangeTask() {
+            @Override
+            public void run( ChUpwardSearch search, int begin, int end ) {
+                for ( int source = begin; source < end; source++ ) {
+                    float[] row = result[source];
+                    Arrays.fill( row, Graph.DISTANCE_DEFAULT );
+                    search.run( from.get( source ), true );
+                    int settledCount = search.getSettledCount();
+                    for ( int j = 0; j < settledCount; j++ ) {
+                        int node = search.getSettledNode( j );
+                        float distance = search.getDistance( node );
+                        int bucketEnd = bucketOffsets[node + 1];
+                        for ( int i = bucketOffsets[node]; i < bucketEnd; i++ ) {
+                            float candidate = distance + bucketDistances[i];
+                            if ( candidate < row[bucketTargets[i]] ) {
+                                row[bucketTargets[i]] = candidate;
+                            }
+                        }
+                    }
+                }
+            }
+        } );
+        return result;
+    }
+
+    private void execute( int count, final RangeTask task ) {
+        ParallelUtils.executeInRanges( executor, threads, count, new ParallelUtils.RangeTask() {
+            @Override
+            public void run( int chunk, int begin, int end ) {
+                task.run( searches.get(), begin, end );
+            }
+        } );
+    }
+
+    private interface RangeTask {
+
+        void run( ChUpwardSearch search, int begin, int end );
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm.algorithms;
+
+import cz.certicon.routing.application.algorithm.NodeDataStructureFactory;
+import cz.certicon.routing.application.algorithm.common.ChDownwardSweep;
+import cz.certicon.routing.application.algorithm.datastructures.JgraphtFibonacciDataStructureFactory;
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.ch.ChSearchGraph;
+import cz.certicon.routing.model.entity.ch.PreprocessedData;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One-to-all distance computation on the Contraction Hierarchies (PHAST).
+ * First, an upward search is run from the source, then all the nodes are swept
+ * in the descending order of their ranks, each node takes the minimum over its
+ * incoming downward edges (from the higher ranked nodes), see
+ * {@link ChDownwardSweep}. Multiple sources can be processed in a single
+ * sweep, see {@link #calculateDistances(java.util.List)} - the distances of
+ * the sources are interleaved per node.
+ *
+ * Not thread-safe (holds the per-query state), the search graph can be shared
+ * among the instances.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class ContractionHierarchiesPhastAlgorithm {
+
+    private final Graph graph;
+    private final ChDownwardSweep downwardSweep;
+
+    public ContractionHierarchiesPhastAlgorithm( Graph graph, PreprocessedData preprocessedData ) {
+        this( graph, preprocessedData, new ChSearchGraph( graph, preprocessedData ), new JgraphtFibonacciDataStructureFactory<Integer>() );
+    }
+
+    /**
+     * Constructor, allows sharing the search graph with the other CH
+     * algorithms
+     *
+     * @param graph graph to be routed upon
+     * @param preprocessedData CH data for the given graph
+     * @param searchGraph upward search graph built from the given graph and CH
+     * data
+     * @param nodeDataStructureFactory factory for the priority queue of the
+     * upward search
+     */
+    public ContractionHierarchiesPhastAlgorithm( Graph graph, PreprocessedData preprocessedData, ChSearchGraph searchGraph, NodeDataStructureFactory<Integer> nodeDataStructureFactory ) {
+        this.graph = graph;
+        int[] nodes = new int[graph.getNodeCount()];
+        for ( int node = 0; node < nodes.length; node++ ) {
+            nodes[node] = node;
+        }
+        this.downwardSweep = new ChDownwardSweep( graph, preprocessedData, searchGraph, nodeDataStructureFactory, nodes );
+    }
+
+    /**
+     * Calculates the shortest distances from the source to all the nodes
+     *
+     * @param from the source as a set of nodes and their initial distances
+     * @return array of the shortest distances indexed by node,
+     * {@link Graph#DISTANCE_DEFAULT} for the unreachable nodes
+     */
+    public float[] calculateDistances( Map<Integer, Float> from ) {
+        return calculateDistances( Collections.singletonList( from ) )[0];
+    }
+
+    /**
+     * Calculates the shortest distances from each of the sources to all the
+     * nodes, using a single sweep for all the sources (large batches are split
+     * into multiple sweeps, so that the interleaved distances fit into an
+     * array)
+     *
+     * @param from list of the sources, each as a set of nodes and their
+     * initial distances
+     * @return table [source][node] of the shortest distances,
+     * {@link Graph#DISTANCE_DEFAULT} for the unreachable nodes
+     */
+    public float[][] calculateDistances( List<Map<Integer, Float>> from ) {
+        int nodeCount = graph.getNodeCount();
+        float[][] result = new float[from.size()][nodeCount];
+        int chunk = downwardSweep.getMaxBatchSize();
+        for ( int begin = 0; begin < from.size(); begin += chunk ) {
+            int end = Math.min( from.size(), begin + chunk );
+            downwardSweep.sweep( from.subList( begin, end ) );
+            for ( int node = 0; node < nodeCount; node++ ) {
+                int position = downwardSweep.getPosition( node );
+                for ( int source = begin; source < end; source++ ) {
+                    result[source][node] = downwardSweep.getDistance( position, source - begin );
+                }
+            }
+        }
+        return result;
+    }
+}
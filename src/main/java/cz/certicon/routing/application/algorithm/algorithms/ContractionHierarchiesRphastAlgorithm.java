@@ -0,0 +1,163 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm.algorithms;
+
+import cz.certicon.routing.application.algorithm.NodeDataStructureFactory;
+import cz.certicon.routing.application.algorithm.common.ChDownwardSweep;
+import cz.certicon.routing.application.algorithm.datastructures.JgraphtFibonacciDataStructureFactory;
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.ch.ChSearchGraph;
+import cz.certicon.routing.model.entity.ch.PreprocessedData;
+import gnu.trove.list.array.TIntArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Restricted PHAST: one-to-many distance computation on the Contraction
+ * Hierarchies for a fixed set of targets. The target selection is done once,
+ * in the constructor - all the nodes reachable from the targets via the
+ * backward upward edges are selected (these are the only nodes the downward
+ * sweep can reach the targets through). Each query then runs an upward search
+ * from the source and sweeps only the selected subgraph, using the same
+ * {@link ChDownwardSweep} as the {@link ContractionHierarchiesPhastAlgorithm}.
+ * Multiple sources can be processed in a single sweep, see
+ * {@link #calculateDistances(java.util.List)}.
+ *
+ * Not thread-safe (holds the per-query state).
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class ContractionHierarchiesRphastAlgorithm {
+
+    private final ChDownwardSweep downwardSweep;
+    // positions and initial distances of the nodes of each target
+    private final int[] targetOffsets;
+    private final int[] targetPositions;
+    private final float[] targetDistances;
+
+    /**
+     * Constructor, selects the subgraph for the given targets
+     *
+     * @param graph graph to be routed upon
+     * @param preprocessedData CH data for the given graph
+     * @param to list of the targets, each as a set of nodes and their initial
+     * distances
+     */
+    public ContractionHierarchiesRphastAlgorithm( Graph graph, PreprocessedData preprocessedData, List<Map<Integer, Float>> to ) {
+        this( graph, preprocessedData, new ChSearchGraph( graph, preprocessedData ), new JgraphtFibonacciDataStructureFactory<Integer>(), to );
+    }
+
+    /**
+     * Constructor, selects the subgraph for the given targets, allows sharing
+     * the search graph with the other CH algorithms
+     *
+     * @param graph graph to be routed upon
+     * @param preprocessedData CH data for the given graph
+     * @param searchGraph upward search graph built from the given graph and CH
+     * data
+     * @param nodeDataStructureFactory factory for the priority queue of the
+     * upward search
+     * @param to list of the targets, each as a set of nodes and their initial
+     * distances
+     */
+    public ContractionHierarchiesRphastAlgorithm( Graph graph, PreprocessedData preprocessedData, ChSearchGraph searchGraph, NodeDataStructureFactory<Integer> nodeDataStructureFactory, List<Map<Integer, Float>> to ) {
+        // select the nodes reachable from the targets via the backward upward edges
+        boolean[] selectedNodes = new boolean[graph.getNodeCount()];
+        TIntArrayList selected = new TIntArrayList();
+        for ( Map<Integer, Float> target : to ) {
+            for ( int node : target.keySet() ) {
+                if ( !selectedNodes[node] ) {
+                    selectedNodes[node] = true;
+                    selected.add( node );
+                }
+            }
+        }
+        for ( int i = 0; i < selected.size(); i++ ) {
+            int node = selected.get( i );
+            int end = searchGraph.getBackwardEnd( node );
+            for ( int j = searchGraph.getBackwardBegin( node ); j < end; j++ ) {
+                int otherNode = searchGraph.getBackwardNode( j );
+                if ( !selectedNodes[otherNode] ) {
+                    selectedNodes[otherNode] = true;
+                    selected.add( otherNode );
+                }
+            }
+        }
+        this.downwardSweep = new ChDownwardSweep( graph, preprocessedData, searchGraph, nodeDataStructureFactory, selected.toArray() );
+        // targets
+        this.targetOffsets = new int[to.size() + 1];
+        for ( int target = 0; target < to.size(); target++ ) {
+            targetOffsets[target + 1] = targetOffsets[target] + to.get( target ).size();
+        }
+        this.targetPositions = new int[targetOffsets[to.size()]];
+        this.targetDistances = new float[targetOffsets[to.size()]];
+        for ( int target = 0; target < to.size(); target++ ) {
+            int index = targetOffsets[target];
+            for ( Map.Entry<Integer, Float> entry : to.get( target ).entrySet() ) {
+                targetPositions[index] = downwardSweep.getPosition( entry.getKey() );
+                targetDistances[index] = entry.getValue();
+                index++;
+            }
+        }
+    }
+
+    /**
+     * Returns amount of the nodes of the restricted subgraph
+     *
+     * @return amount of the selected nodes
+     */
+    public int getSelectedNodeCount() {
+        return downwardSweep.getNodeCount();
+    }
+
+    /**
+     * Calculates the shortest distances from the source to all the targets
+     *
+     * @param from the source as a set of nodes and their initial distances
+     * @return array of the shortest distances indexed by target,
+     * {@link Graph#DISTANCE_DEFAULT} for the unreachable targets
+     */
+    public float[] calculateDistances( Map<Integer, Float> from ) {
+        return calculateDistances( Collections.singletonList( from ) )[0];
+    }
+
+    /**
+     * Calculates the shortest distances from each of the sources to all the
+     * targets, using a single sweep for all the sources (large batches are
+     * split into multiple sweeps, so that the interleaved distances fit into an
+     * array)
+     *
+     * @param from list of the sources, each as a set of nodes and their
+     * initial distances
+     * @return table [source][target] of the shortest distances,
+     * {@link Graph#DISTANCE_DEFAULT} for the unreachable targets
+     */
+    public float[][] calculateDistances( List<Map<Integer, Float>> from ) {
+        int targetCount = targetOffsets.length - 1;
+        float[][] result = new float[from.size()][targetCount];
+        for ( float[] row : result ) {
+            Arrays.fill( row, Graph.DISTANCE_DEFAULT );
+        }
+        int chunk = downwardSweep.getMaxBatchSize();
+        for ( int begin = 0; begin < from.size(); begin += chunk ) {
+            int end = Math.min( from.size(), begin + chunk );
+            downwardSweep.sweep( from.subList( begin, end ) );
+            for ( int target = 0; target < targetCount; target++ ) {
+                for ( int i = targetOffsets[target]; i < targetOffsets[target + 1]; i++ ) {
+                    for ( int source = begin; source < end; source++ ) {
+                        float distance = downwardSweep.getDistance( targetPositions[i], source - begin ) + targetDistances[i];
+                        if ( distance < result[source][target] ) {
+                            result[source][target] = distance;
+                        }
+                    }
+                }
+            }
+        }
+        return result;
+    }
+}
@@ -8,21 +8,19 @@ package cz.certicon.routing.application.algorithm.algorithms;
 import static cz.certicon.routing.GlobalOptions.MEASURE_STATS;
 import static cz.certicon.routing.GlobalOptions.MEASURE_TIME;
 import cz.certicon.routing.application.algorithm.NodeDataStructure;
-import cz.certicon.routing.application.algorithm.datastructures.JgraphtFibonacciDataStructure;
+import cz.certicon.routing.application.algorithm.NodeDataStructureFactory;
+import cz.certicon.routing.application.algorithm.datastructures.JgraphtFibonacciDataStructureFactory;
 import cz.certicon.routing.application.algorithm.RouteBuilder;
 import cz.certicon.routing.application.algorithm.RouteNotFoundException;
 import cz.certicon.routing.application.algorithm.RoutingAlgorithm;
+import cz.certicon.routing.application.algorithm.common.SearchState;
 import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.ch.ChSearchGraph;
 import cz.certicon.routing.model.entity.ch.PreprocessedData;
-import cz.certicon.routing.utils.efficient.BitArray;
-import cz.certicon.routing.utils.efficient.LongBitArray;
+import cz.certicon.routing.model.entity.ch.ShortcutUnpacker;
 import cz.certicon.routing.utils.measuring.StatsLogger;
 import cz.certicon.routing.utils.measuring.TimeLogger;
-import gnu.trove.iterator.TIntIterator;
-import gnu.trove.list.TIntList;
 import gnu.trove.list.array.TIntArrayList;
-import gnu.trove.list.linked.TIntLinkedList;
-import java.util.Iterator;
 import java.util.Map;
 
 /**
@@ -42,37 +40,81 @@ import java.util.Map;
  */
 public class ContractionHierarchiesUbRoutingAlgorithm implements RoutingAlgorithm<Graph> {
 
-    private static final double ARRAY_COPY_RATIO = 0.01;
-
     private final Graph graph;
-    private final int[] nodeFromPredecessorArray;
-    private final float[] nodeFromDistanceArray;
-    private final BitArray nodeFromClosedArray;
+    private final SearchState nodeFromSearchState;
     private final NodeDataStructure<Integer> nodeFromDataStructure;
-    private final int[] nodeToPredecessorArray;
-    private final float[] nodeToDistanceArray;
-    private final BitArray nodeToClosedArray;
+    private final SearchState nodeToSearchState;
     private final NodeDataStructure<Integer> nodeToDataStructure;
     private final PreprocessedData preprocessedData;
+    private final ChSearchGraph searchGraph;
+    private boolean stallOnDemand = false;
+    private ShortcutUnpacker shortcutUnpacker;
+    private final TIntArrayList unpackedEdges = new TIntArrayList();
+    private double finalDistance;
+    private int meetingNode = -1;
 
     public ContractionHierarchiesUbRoutingAlgorithm( Graph graph, PreprocessedData preprocessedData ) {
+        this( graph, preprocessedData, new JgraphtFibonacciDataStructureFactory<Integer>() );
+    }
+
+    /**
+     * Constructor
+     *
+     * @param graph graph to be routed upon
+     * @param preprocessedData CH data for the given graph
+     * @param nodeDataStructureFactory factory for the priority queues
+     */
+    public ContractionHierarchiesUbRoutingAlgorithm( Graph graph, PreprocessedData preprocessedData, NodeDataStructureFactory<Integer> nodeDataStructureFactory ) {
+        this( graph, preprocessedData, new ChSearchGraph( graph, preprocessedData ), nodeDataStructureFactory );
+    }
+
+    /**
+     * Constructor, allows sharing the search graph among multiple instances
+     * (e.g. the instances of a {@link cz.certicon.routing.application.algorithm.RoutingEngine})
+     *
+     * @param graph graph to be routed upon
+     * @param preprocessedData CH data for the given graph
+     * @param searchGraph upward search graph built from the given graph and CH
+     * data
+     * @param nodeDataStructureFactory factory for the priority queues
+     */
+    public ContractionHierarchiesUbRoutingAlgorithm( Graph graph, PreprocessedData preprocessedData, ChSearchGraph searchGraph, NodeDataStructureFactory<Integer> nodeDataStructureFactory ) {
         this.graph = graph;
-        this.nodeFromPredecessorArray = new int[graph.getNodeCount()];
-        this.nodeFromDistanceArray = new float[graph.getNodeCount()];
-        this.nodeFromClosedArray = new LongBitArray( graph.getNodeCount() );
-        this.nodeFromDataStructure = new JgraphtFibonacciDataStructure();
-        this.nodeToPredecessorArray = new int[graph.getNodeCount()];
-        this.nodeToDistanceArray = new float[graph.getNodeCount()];
-        this.nodeToClosedArray = new LongBitArray( graph.getNodeCount() );
-        this.nodeToDataStructure = new JgraphtFibonacciDataStructure();
+        this.searchGraph = searchGraph;
+        this.nodeFromSearchState = new SearchState( graph.getNodeCount() );
+        this.nodeFromDataStructure = nodeDataStructureFactory.createNodeDataStructure( graph.getNodeCount() );
+        this.nodeToSearchState = new SearchState( graph.getNodeCount() );
+        this.nodeToDataStructure = nodeDataStructureFactory.createNodeDataStructure( graph.getNodeCount() );
         this.preprocessedData = preprocessedData;
+        this.shortcutUnpacker = new ShortcutUnpacker( graph, preprocessedData );
+
+    }
 
-        graph.resetNodeDistanceArray( nodeFromDistanceArray );
-        graph.resetNodePredecessorArray( nodeFromPredecessorArray );
-        graph.resetNodeClosedArray( nodeFromClosedArray );
-        graph.resetNodeDistanceArray( nodeToDistanceArray );
-        graph.resetNodePredecessorArray( nodeToPredecessorArray );
-        graph.resetNodeClosedArray( nodeToClosedArray );
+    /**
+     * Enables (or disables) the stall-on-demand pruning: before relaxing the
+     * edges of a settled node, the edges from the higher ranked nodes are
+     * checked - if the node can be reached with a shorter distance via an
+     * already reached higher ranked node, it is stalled (its edges are not
+     * relaxed). Reduces the amount of settled nodes. Disabled by default.
+     *
+     * @param stallOnDemand true to enable the stall-on-demand, false to
+     * disable it
+     */
+    public void setStallOnDemand( boolean stallOnDemand ) {
+        this.stallOnDemand = stallOnDemand;
+    }
+
+    /**
+     * Sets the unpacker of the shortcuts used for building the route, an
+     * unpacker without cache by default. Use an unpacker with cache (see
+     * {@link ShortcutUnpacker#ShortcutUnpacker(cz.certicon.routing.model.entity.Graph, cz.certicon.routing.model.entity.ch.PreprocessedData, int) ShortcutUnpacker(graph, data, cacheSize)})
+     * to speed up the long routes. The unpacker must not be shared among
+     * threads.
+     *
+     * @param shortcutUnpacker unpacker for the given graph and CH data
+     */
+    public void setShortcutUnpacker( ShortcutUnpacker shortcutUnpacker ) {
+        this.shortcutUnpacker = shortcutUnpacker;
     }
 
     @Override
@@ -85,25 +127,88 @@ public class ContractionHierarchiesUbRoutingAlgorithm implements RoutingAlgorith
         if ( MEASURE_TIME ) {
             TimeLogger.log( TimeLogger.Event.ROUTING, TimeLogger.Command.START );
         }
-        TIntList nodesFromVisited = new TIntArrayList();
-        TIntList nodesToVisited = new TIntArrayList();
+        int finalNode = search( from, to, true );
+        if ( MEASURE_TIME ) {
+            TimeLogger.log( TimeLogger.Event.ROUTING, TimeLogger.Command.STOP );
+        }
+        if ( MEASURE_TIME ) {
+            TimeLogger.log( TimeLogger.Event.ROUTE_BUILDING, TimeLogger.Command.START );
+        }
+        if ( finalNode != -1 ) {
+//            System.out.println( "final node = " + finalNode );
+            // set target to final, then add as first, then add as last for the "to" dijkstra
+            routeBuilder.setTargetNode( graph, graph.getNodeOrigId( finalNode ) );
+            int pred = nodeFromSearchState.getPredecessor( finalNode );
+            int currentNode = finalNode;
+            while ( graph.isValidPredecessor( pred ) ) {
+//                System.out.println( "F: pred = " + pred );
+                int node = addEdgeAsFirst( routeBuilder, pred, currentNode );
+//                System.out.println( "F: node = " + node );
+                pred = nodeFromSearchState.getPredecessor( node );
+                currentNode = node;
+            }
+            currentNode = finalNode;
+            pred = nodeToSearchState.getPredecessor( finalNode );
+            while ( graph.isValidPredecessor( pred ) ) {
+//                System.out.println( "T: pred = " + pred );
+                int node = addEdgeAsLast( routeBuilder, pred, currentNode );
+//                System.out.println( "T: node = " + node );
+                pred = nodeToSearchState.getPredecessor( node );
+                currentNode = node;
+            }
+        } else {
+            throw new RouteNotFoundException();
+        }
+        if ( MEASURE_TIME ) {
+            TimeLogger.log( TimeLogger.Event.ROUTE_BUILDING, TimeLogger.Command.STOP );
+        }
+
+        return routeBuilder.build();
+    }
+
+    @Override
+    public float calculateDistance( Map<Integer, Float> from, Map<Integer, Float> to ) throws RouteNotFoundException {
+        meetingNode = search( from, to, false );
+        if ( meetingNode == -1 ) {
+            throw new RouteNotFoundException();
+        }
+        return (float) finalDistance;
+    }
+
+    /**
+     * Returns the node, where the searches met in the last
+     * {@link #calculateDistance(java.util.Map, java.util.Map) calculateDistance}
+     * query (the highest ranked node of the shortest path)
+     *
+     * @return meeting node or -1 if no route was found
+     */
+    public int getMeetingNode() {
+        return meetingNode;
+    }
+
+    // returns the final (meeting) node or -1 if not found, sets the final distance
+    private int search( Map<Integer, Float> from, Map<Integer, Float> to, boolean predecessors ) {
+        nodeFromSearchState.clear();
+        nodeToSearchState.clear();
+        nodeFromDataStructure.clear();
+        nodeToDataStructure.clear();
 
         // add source points for the "from" Dijkstra
         for ( Map.Entry<Integer, Float> entry : from.entrySet() ) {
             int node = entry.getKey();
             float distance = entry.getValue();
-            nodeFromDistanceArray[node] = distance;
+            nodeFromSearchState.setDistance( node, distance );
             nodeFromDataStructure.add( node, distance );
         }
         // add target points for the "to" Dijkstra
         for ( Map.Entry<Integer, Float> entry : to.entrySet() ) {
             int node = entry.getKey();
             float distance = entry.getValue();
-            nodeToDistanceArray[node] = distance;
+            nodeToSearchState.setDistance( node, distance );
             nodeToDataStructure.add( node, distance );
         }
         int finalNode = -1;
-        double finalDistance = Double.MAX_VALUE;
+        finalDistance = Double.MAX_VALUE;
         while ( !nodeFromDataStructure.isEmpty() || !nodeToDataStructure.isEmpty() ) {
             if ( !nodeFromDataStructure.isEmpty() ) {
                 // extract node S with the minimal distance
@@ -112,47 +217,43 @@ public class ContractionHierarchiesUbRoutingAlgorithm implements RoutingAlgorith
                 if ( MEASURE_STATS ) {
                     StatsLogger.log( StatsLogger.Statistic.NODES_EXAMINED, StatsLogger.Command.INCREMENT );
                 }
-                nodeFromClosedArray.set( currentNode, true );
-                nodesFromVisited.add( currentNode );
-                int sourceRank = preprocessedData.getRank( currentNode );
-                float currentDistance = nodeFromDistanceArray[currentNode];
+                nodeFromSearchState.setClosed( currentNode );
+                float currentDistance = nodeFromSearchState.getDistance( currentNode );
 //                System.out.println( "F: distance = " + currentDistance );
 
                 // check against the upper bound
                 if ( finalDistance < currentDistance ) {
                     // end this part, everything else can only be worse
-                    Iterator<Integer> it = nodeFromDataStructure.iterator();
-                    while ( it.hasNext() ) {
-                        nodesFromVisited.add( it.next() );
-                    }
                     nodeFromDataStructure.clear();
                 } else {
                     // check if the node is a meeting node, update upper bound if necessary
-                    if ( nodeToClosedArray.get( currentNode ) ) {
-                        float nodeDistance = currentDistance + nodeToDistanceArray[currentNode];
+                    if ( nodeToSearchState.isClosed( currentNode ) ) {
+                        float nodeDistance = currentDistance + nodeToSearchState.getDistance( currentNode );
                         if ( nodeDistance < finalDistance ) {
 //                            System.out.println( "F: UB = " + nodeDistance );
                             finalDistance = nodeDistance;
                             finalNode = currentNode;
                         }
                     }
-                    // foreach neighbour T of node S with rank higher than the current rank
-                    TIntIterator outgoingEdgesIterator = preprocessedData.getOutgoingEdgesIterator( currentNode, graph );
-                    while ( outgoingEdgesIterator.hasNext() ) {
-                        int edge = outgoingEdgesIterator.next();
-                        int otherNode = preprocessedData.getOtherNode( edge, currentNode, graph );
-                        if ( preprocessedData.getRank( otherNode ) > sourceRank ) {
+                    // stall-on-demand: skip the relaxation if the node is dominated via a higher ranked node
+                    if ( !stallOnDemand || !isFromStalled( currentNode, currentDistance ) ) {
+                        // foreach neighbour T of node S with rank higher than the current rank (upward edges only)
+                        int end = searchGraph.getForwardEnd( currentNode );
+                        for ( int i = searchGraph.getForwardBegin( currentNode ); i < end; i++ ) {
+                            int otherNode = searchGraph.getForwardNode( i );
                             if ( MEASURE_STATS ) {
                                 StatsLogger.log( StatsLogger.Statistic.EDGES_EXAMINED, StatsLogger.Command.INCREMENT );
                             }
                             // calculate it's distance S + path from S to T
-                            float otherNodeDistance = nodeFromDistanceArray[otherNode];
-                            float distance = currentDistance + preprocessedData.getLength( edge, graph );
+                            float otherNodeDistance = nodeFromSearchState.getDistance( otherNode );
+                            float distance = currentDistance + searchGraph.getForwardLength( i );
                             // replace if lower than actual
                             if ( distance < otherNodeDistance ) {
-                                nodeFromDistanceArray[otherNode] = distance;
-//                                System.out.println( "F: pred for " + otherNode + " = " + edge );
-                                nodeFromPredecessorArray[otherNode] = edge;
+                                if ( predecessors ) {
+                                    nodeFromSearchState.update( otherNode, distance, searchGraph.getForwardEdge( i ) );
+                                } else {
+                                    nodeFromSearchState.setDistance( otherNode, distance );
+                                }
                                 nodeFromDataStructure.notifyDataChange( otherNode, distance );
                             }
                         }
@@ -166,24 +267,18 @@ public class ContractionHierarchiesUbRoutingAlgorithm implements RoutingAlgorith
                 if ( MEASURE_STATS ) {
                     StatsLogger.log( StatsLogger.Statistic.NODES_EXAMINED, StatsLogger.Command.INCREMENT );
                 }
-                nodeToClosedArray.set( currentNode, true );
-                int sourceRank = preprocessedData.getRank( currentNode );
-                float currentDistance = nodeToDistanceArray[currentNode];
-                nodesToVisited.add( currentNode );
+                nodeToSearchState.setClosed( currentNode );
+                float currentDistance = nodeToSearchState.getDistance( currentNode );
 //                System.out.println( "T: distance = " + currentDistance );
 
                 // check against the upper bound
                 if ( finalDistance < currentDistance ) {
                     // end this part, everything else can only be worse
-                    Iterator<Integer> it = nodeToDataStructure.iterator();
-                    while ( it.hasNext() ) {
-                        nodesToVisited.add( it.next() );
-                    }
                     nodeToDataStructure.clear();
                 } else {
                     // check if the node is a meeting node, update upper bound if necessary
-                    if ( nodeFromClosedArray.get( currentNode ) ) {
-                        float nodeDistance = currentDistance + nodeFromDistanceArray[currentNode];
+                    if ( nodeFromSearchState.isClosed( currentNode ) ) {
+                        float nodeDistance = currentDistance + nodeFromSearchState.getDistance( currentNode );
                         if ( nodeDistance < finalDistance ) {
 //                            System.out.println( "T: UB = " + nodeDistance );
                             finalDistance = nodeDistance;
@@ -191,23 +286,25 @@ public class ContractionHierarchiesUbRoutingAlgorithm implements RoutingAlgorith
                         }
                     }
 
-                    // foreach neighbour T of node S with rank higher than the current rank
-                    TIntIterator incomingEdgesIterator = preprocessedData.getIncomingEdgesIterator( currentNode, graph );
-                    while ( incomingEdgesIterator.hasNext() ) {
-                        int edge = incomingEdgesIterator.next();
-                        int otherNode = preprocessedData.getOtherNode( edge, currentNode, graph );
-                        if ( preprocessedData.getRank( otherNode ) > sourceRank ) {
+                    // stall-on-demand: skip the relaxation if the node is dominated via a higher ranked node
+                    if ( !stallOnDemand || !isToStalled( currentNode, currentDistance ) ) {
+                        // foreach neighbour T of node S with rank higher than the current rank (upward edges only)
+                        int end = searchGraph.getBackwardEnd( currentNode );
+                        for ( int i = searchGraph.getBackwardBegin( currentNode ); i < end; i++ ) {
+                            int otherNode = searchGraph.getBackwardNode( i );
                             if ( MEASURE_STATS ) {
                                 StatsLogger.log( StatsLogger.Statistic.EDGES_EXAMINED, StatsLogger.Command.INCREMENT );
                             }
                             // calculate it's distance S + path from S to T
-                            float otherNodeDistance = nodeToDistanceArray[otherNode];
-                            float distance = currentDistance + preprocessedData.getLength( edge, graph );
+                            float otherNodeDistance = nodeToSearchState.getDistance( otherNode );
+                            float distance = currentDistance + searchGraph.getBackwardLength( i );
                             // replace if lower than actual
                             if ( distance < otherNodeDistance ) {
-                                nodeToDistanceArray[otherNode] = distance;
-//                                System.out.println( "F: pred for " + otherNode + " = " + edge );
-                                nodeToPredecessorArray[otherNode] = edge;
+                                if ( predecessors ) {
+                                    nodeToSearchState.update( otherNode, distance, searchGraph.getBackwardEdge( i ) );
+                                } else {
+                                    nodeToSearchState.setDistance( otherNode, distance );
+                                }
                                 nodeToDataStructure.notifyDataChange( otherNode, distance );
                             }
                         }
@@ -216,100 +313,52 @@ public class ContractionHierarchiesUbRoutingAlgorithm implements RoutingAlgorith
             }
         }
 
-        if ( MEASURE_TIME ) {
-            TimeLogger.log( TimeLogger.Event.ROUTING, TimeLogger.Command.PAUSE );
-        }
-        if ( MEASURE_TIME ) {
-            TimeLogger.log( TimeLogger.Event.ROUTE_BUILDING, TimeLogger.Command.START );
-        }
-        if ( finalNode != -1 ) {
-//            System.out.println( "final node = " + finalNode );
-            // set target to final, then add as first, then add as last for the "to" dijkstra
-            routeBuilder.setTargetNode( graph, graph.getNodeOrigId( finalNode ) );
-            int pred = nodeFromPredecessorArray[finalNode];
-            int currentNode = finalNode;
-            while ( graph.isValidPredecessor( pred ) ) {
-//                System.out.println( "F: pred = " + pred );
-                int node = addEdgeAsFirst( routeBuilder, pred, currentNode );
-//                System.out.println( "F: node = " + node );
-                pred = nodeFromPredecessorArray[node];
-                currentNode = node;
-            }
-            currentNode = finalNode;
-            pred = nodeToPredecessorArray[finalNode];
-            while ( graph.isValidPredecessor( pred ) ) {
-//                System.out.println( "T: pred = " + pred );
-                int node = addEdgeAsLast( routeBuilder, pred, currentNode );
-//                System.out.println( "T: node = " + node );
-                pred = nodeToPredecessorArray[node];
-                currentNode = node;
-            }
-        } else {
-            throw new RouteNotFoundException();
-        }
-        if ( MEASURE_TIME ) {
-            TimeLogger.log( TimeLogger.Event.ROUTE_BUILDING, TimeLogger.Command.STOP );
-        }
-
-        if ( MEASURE_TIME ) {
-            TimeLogger.log( TimeLogger.Event.ROUTING, TimeLogger.Command.CONTINUE );
-        }
-        if ( nodesFromVisited.size() < graph.getNodeCount() * ARRAY_COPY_RATIO ) {
-            TIntIterator it = nodesFromVisited.iterator();
-            while ( it.hasNext() ) {
-                int node = it.next();
-                nodeFromDistanceArray[node] = Graph.DISTANCE_DEFAULT;
-                nodeFromPredecessorArray[node] = Graph.PREDECESSOR_DEFAULT;
-                nodeFromClosedArray.set( node, Graph.CLOSED_DEFAULT );
-            }
-        } else {
-            graph.resetNodeDistanceArray( nodeFromDistanceArray );
-            graph.resetNodePredecessorArray( nodeFromPredecessorArray );
-            graph.resetNodeClosedArray( nodeFromClosedArray );
-        }
-        if ( nodesToVisited.size() < graph.getNodeCount() * ARRAY_COPY_RATIO ) {
-            TIntIterator it = nodesToVisited.iterator();
-            while ( it.hasNext() ) {
-                int node = it.next();
-                nodeToDistanceArray[node] = Graph.DISTANCE_DEFAULT;
-                nodeToPredecessorArray[node] = Graph.PREDECESSOR_DEFAULT;
-                nodeToClosedArray.set( node, Graph.CLOSED_DEFAULT );
-            }
-        } else {
-            graph.resetNodeDistanceArray( nodeToDistanceArray );
-            graph.resetNodePredecessorArray( nodeToPredecessorArray );
-            graph.resetNodeClosedArray( nodeToClosedArray );
-        }
-        if ( MEASURE_TIME ) {
-            TimeLogger.log( TimeLogger.Event.ROUTING, TimeLogger.Command.STOP );
-        }
-
-        return routeBuilder.build();
+        return finalNode;
     }
 
     private <R> int addEdgeAsFirst( RouteBuilder<R, Graph> routeBuilder, int edge, int currentNode ) {
+        unpackedEdges.resetQuick();
+        shortcutUnpacker.unpack( edge, unpackedEdges );
+        for ( int i = unpackedEdges.size() - 1; i >= 0; i-- ) {
+            routeBuilder.addEdgeAsFirst( graph, graph.getEdgeOrigId( unpackedEdges.get( i ) ) );
+        }
         if ( edge < graph.getEdgeCount() ) { // edge
-            routeBuilder.addEdgeAsFirst( graph, graph.getEdgeOrigId( edge ) );
             return graph.getOtherNode( edge, currentNode );
-        } else { // shortcut
-            edge -= graph.getEdgeCount();
-            addEdgeAsFirst( routeBuilder, preprocessedData.getEndEdge( edge ), currentNode );
-            addEdgeAsFirst( routeBuilder, preprocessedData.getStartEdge( edge ), currentNode );
-            return preprocessedData.getSource( edge );
         }
+        return preprocessedData.getSource( edge - graph.getEdgeCount() );
     }
 
     private <R> int addEdgeAsLast( RouteBuilder<R, Graph> routeBuilder, int edge, int currentNode ) {
+        unpackedEdges.resetQuick();
+        shortcutUnpacker.unpack( edge, unpackedEdges );
+        for ( int i = 0; i < unpackedEdges.size(); i++ ) {
+            routeBuilder.addEdgeAsLast( graph, graph.getEdgeOrigId( unpackedEdges.get( i ) ) );
+        }
         if ( edge < graph.getEdgeCount() ) { // edge
-//            System.out.println( "edge: " + edge );
-            routeBuilder.addEdgeAsLast( graph, graph.getEdgeOrigId( edge ) );
             return graph.getOtherNode( edge, currentNode );
-        } else { // shortcut
-            edge -= graph.getEdgeCount();
-//            System.out.println( "shortcut: " + edge );
-            addEdgeAsLast( routeBuilder, preprocessedData.getStartEdge( edge ), currentNode );
-            addEdgeAsLast( routeBuilder, preprocessedData.getEndEdge( edge ), currentNode );
-            return preprocessedData.getTarget( edge );
         }
+        return preprocessedData.getTarget( edge - graph.getEdgeCount() );
+    }
+
+    // the node is stalled, if it is reached cheaper from a higher ranked node of the "from" search (via its incoming upward edge)
+    private boolean isFromStalled( int node, float distance ) {
+        int end = searchGraph.getBackwardEnd( node );
+        for ( int i = searchGraph.getBackwardBegin( node ); i < end; i++ ) {
+            if ( nodeFromSearchState.getDistance( searchGraph.getBackwardNode( i ) ) + searchGraph.getBackwardLength( i ) < distance ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // the node is stalled, if it is reached cheaper from a higher ranked node of the "to" search (via its outgoing upward edge)
+    private boolean isToStalled( int node, float distance ) {
+        int end = searchGraph.getForwardEnd( node );
+        for ( int i = searchGraph.getForwardBegin( node ); i < end; i++ ) {
+            if ( nodeToSearchState.getDistance( searchGraph.getForwardNode( i ) ) + searchGraph.getForwardLength( i ) < distance ) {
+                return true;
+            }
+        }
+        return false;
     }
 }
@@ -8,16 +8,15 @@ package cz.certicon.routing.application.algorithm.algorithms;
 import static cz.certicon.routing.GlobalOptions.MEASURE_STATS;
 import static cz.certicon.routing.GlobalOptions.MEASURE_TIME;
 import cz.certicon.routing.application.algorithm.NodeDataStructure;
-import cz.certicon.routing.application.algorithm.datastructures.JgraphtFibonacciDataStructure;
+import cz.certicon.routing.application.algorithm.NodeDataStructureFactory;
+import cz.certicon.routing.application.algorithm.datastructures.JgraphtFibonacciDataStructureFactory;
 import cz.certicon.routing.application.algorithm.RouteBuilder;
 import cz.certicon.routing.application.algorithm.RouteNotFoundException;
 import cz.certicon.routing.application.algorithm.RoutingAlgorithm;
+import cz.certicon.routing.application.algorithm.common.SearchState;
 import cz.certicon.routing.model.entity.Graph;
-import cz.certicon.routing.utils.efficient.BitArray;
-import cz.certicon.routing.utils.efficient.LongBitArray;
 import cz.certicon.routing.utils.measuring.StatsLogger;
 import cz.certicon.routing.utils.measuring.TimeLogger;
-import gnu.trove.iterator.TIntIterator;
 import java.util.Map;
 
 /**
@@ -28,17 +27,24 @@ import java.util.Map;
 public class DijkstraRoutingAlgorithm implements RoutingAlgorithm<Graph> {
 
     private final Graph graph;
-    private final int[] nodePredecessorArray;
-    private final float[] nodeDistanceArray;
-    private final BitArray nodeClosedArray;
+    private final SearchState searchState;
     private final NodeDataStructure<Integer> nodeDataStructure;
+    private double finalDistance;
 
     public DijkstraRoutingAlgorithm( Graph graph ) {
+        this( graph, new JgraphtFibonacciDataStructureFactory<Integer>() );
+    }
+
+    /**
+     * Constructor
+     *
+     * @param graph graph to be routed upon
+     * @param nodeDataStructureFactory factory for the priority queue
+     */
+    public DijkstraRoutingAlgorithm( Graph graph, NodeDataStructureFactory<Integer> nodeDataStructureFactory ) {
         this.graph = graph;
-        this.nodePredecessorArray = new int[graph.getNodeCount()];
-        this.nodeDistanceArray = new float[graph.getNodeCount()];
-        this.nodeClosedArray = new LongBitArray( graph.getNodeCount() );
-        this.nodeDataStructure = new JgraphtFibonacciDataStructure();
+        this.searchState = new SearchState( graph.getNodeCount() );
+        this.nodeDataStructure = nodeDataStructureFactory.createNodeDataStructure( graph.getNodeCount() );
     }
 
     @Override
@@ -51,22 +57,60 @@ public class DijkstraRoutingAlgorithm implements RoutingAlgorithm<Graph> {
         if ( MEASURE_TIME ) {
             TimeLogger.log( TimeLogger.Event.ROUTING, TimeLogger.Command.START );
         }
+        int finalNode = search( from, to, true );
+        if ( MEASURE_TIME ) {
+            TimeLogger.log( TimeLogger.Event.ROUTING, TimeLogger.Command.STOP );
+        }
+        if ( MEASURE_TIME ) {
+            TimeLogger.log( TimeLogger.Event.ROUTE_BUILDING, TimeLogger.Command.START );
+        }
+        // if the final node has been found, build route from predecessors and return
+        if ( finalNode != -1 ) {
+//            System.out.println( "orig node as target: " + graph.getNodeOrigId( finalNode ) );
+            routeBuilder.setTargetNode( graph, graph.getNodeOrigId( finalNode ) );
+            int pred = searchState.getPredecessor( finalNode );
+            int currentNode = finalNode;
+            while ( graph.isValidPredecessor( pred ) ) {
+//                System.out.println( "predecessor: " + pred + ", source = " + graph.getNodeOrigId( graph.getSource( pred ) ) + ", target = " + graph.getNodeOrigId( graph.getTarget( pred ) ) );
+                routeBuilder.addEdgeAsFirst( graph, graph.getEdgeOrigId( pred ) );
+                int node = graph.getOtherNode( pred, currentNode );
+//                System.out.println( "node = " + graph.getNodeOrigId( node ) );
+                pred = searchState.getPredecessor( node );
+                currentNode = node;
+            }
+        } else {
+            throw new RouteNotFoundException();
+        }
+        if ( MEASURE_TIME ) {
+            TimeLogger.log( TimeLogger.Event.ROUTE_BUILDING, TimeLogger.Command.STOP );
+        }
+        return routeBuilder.build();
+    }
+
+    @Override
+    public float calculateDistance( Map<Integer, Float> from, Map<Integer, Float> to ) throws RouteNotFoundException {
+        if ( search( from, to, false ) == -1 ) {
+            throw new RouteNotFoundException();
+        }
+        return (float) finalDistance;
+    }
+
+    // returns the final node or -1 if not found, sets the final distance
+    private int search( Map<Integer, Float> from, Map<Integer, Float> to, boolean predecessors ) {
         // clear the data
-        graph.resetNodeClosedArray( nodeClosedArray );
-        graph.resetNodeDistanceArray( nodeDistanceArray );
-        graph.resetNodePredecessorArray( nodePredecessorArray );
+        searchState.clear();
         nodeDataStructure.clear();
 
         // set the source points (add to the queue)
         for ( Map.Entry<Integer, Float> entry : from.entrySet() ) {
             int node = entry.getKey();
             float distance = entry.getValue();
-            nodeDistanceArray[node] = distance;
+            searchState.setDistance( node, distance );
             nodeDataStructure.add( node, distance );
 //            System.out.println( "adding: " + node + " with distance: " + distance );
         }
         int finalNode = -1;
-        double finalDistance = Double.MAX_VALUE;
+        finalDistance = Double.MAX_VALUE;
         // while the data structure is not empty (or while the target node is not found)
         while ( !nodeDataStructure.isEmpty() ) {
             // extract node S with the minimal distance
@@ -74,8 +118,8 @@ public class DijkstraRoutingAlgorithm implements RoutingAlgorithm<Graph> {
             if ( MEASURE_STATS ) {
                 StatsLogger.log( StatsLogger.Statistic.NODES_EXAMINED, StatsLogger.Command.INCREMENT );
             }
-            float distance = nodeDistanceArray[node];
-            nodeClosedArray.set( node, true );
+            float distance = searchState.getDistance( node );
+            searchState.setClosed( node );
 //            System.out.println( "Extracted: " + node + " with distance: " + distance );
             if ( finalDistance < distance ) {
                 break;
@@ -91,54 +135,31 @@ public class DijkstraRoutingAlgorithm implements RoutingAlgorithm<Graph> {
             }
 //            System.out.println( "outgoing array: " + Arrays.toString( graph.getOutgoingEdges( node ) ) );
             // foreach neighbour T of node S
-            TIntIterator it = graph.getOutgoingEdgesIterator( node );
-            while ( it.hasNext() ) {
-                int edge = it.next();
+            int outgoingEdgesCount = graph.getOutgoingEdgesCount( node );
+            for ( int i = 0; i < outgoingEdgesCount; i++ ) {
+                int edge = graph.getOutgoingEdge( node, i );
                 int target = graph.getOtherNode( edge, node );
 //                System.out.println( "edge = " + edge + ", target = " + target );
-                if ( !nodeClosedArray.get( target ) ) {
+                if ( !searchState.isClosed( target ) ) {
                     if ( MEASURE_STATS ) {
                         StatsLogger.log( StatsLogger.Statistic.EDGES_EXAMINED, StatsLogger.Command.INCREMENT );
                     }
                     // calculate it's distance S + path from S to T
-                    float targetDistance = nodeDistanceArray[target];
+                    float targetDistance = searchState.getDistance( target );
                     float alternativeDistance = distance + graph.getLength( edge );
                     // replace if lower than actual
                     if ( alternativeDistance < targetDistance ) {
-                        nodeDistanceArray[target] = alternativeDistance;
-                        nodePredecessorArray[target] = edge;
+                        if ( predecessors ) {
+                            searchState.update( target, alternativeDistance, edge );
+                        } else {
+                            searchState.setDistance( target, alternativeDistance );
+                        }
                         nodeDataStructure.notifyDataChange( target, alternativeDistance );
                     }
                 }
             }
         }
-        if ( MEASURE_TIME ) {
-            TimeLogger.log( TimeLogger.Event.ROUTING, TimeLogger.Command.STOP );
-        }
-        if ( MEASURE_TIME ) {
-            TimeLogger.log( TimeLogger.Event.ROUTE_BUILDING, TimeLogger.Command.START );
-        }
-        // if the final node has been found, build route from predecessors and return
-        if ( finalNode != -1 ) {
-//            System.out.println( "orig node as target: " + graph.getNodeOrigId( finalNode ) );
-            routeBuilder.setTargetNode( graph, graph.getNodeOrigId( finalNode ) );
-            int pred = nodePredecessorArray[finalNode];
-            int currentNode = finalNode;
-            while ( graph.isValidPredecessor( pred ) ) {
-//                System.out.println( "predecessor: " + pred + ", source = " + graph.getNodeOrigId( graph.getSource( pred ) ) + ", target = " + graph.getNodeOrigId( graph.getTarget( pred ) ) );
-                routeBuilder.addEdgeAsFirst( graph, graph.getEdgeOrigId( pred ) );
-                int node = graph.getOtherNode( pred, currentNode );
-//                System.out.println( "node = " + graph.getNodeOrigId( node ) );
-                pred = nodePredecessorArray[node];
-                currentNode = node;
-            }
-        } else {
-            throw new RouteNotFoundException();
-        }
-        if ( MEASURE_TIME ) {
-            TimeLogger.log( TimeLogger.Event.ROUTE_BUILDING, TimeLogger.Command.STOP );
-        }
-        return routeBuilder.build();
+        return finalNode;
     }
 
 }
@@ -0,0 +1,216 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm.common;
+
+import cz.certicon.routing.application.algorithm.NodeDataStructureFactory;
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.ch.ChSearchGraph;
+import cz.certicon.routing.model.entity.ch.PreprocessedData;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Downward sweep of the PHAST algorithm over a subgraph of the Contraction
+ * Hierarchies. The subgraph is given by its nodes (all the nodes for PHAST,
+ * the nodes selected for the targets for RPHAST), it must contain the sources
+ * of the incoming downward edges of each of its nodes. The nodes are
+ * renumbered by the descending rank (positions), their incoming downward
+ * edges are stored by position, so that the sweep reads the distances and the
+ * edges sequentially.
+ *
+ * A sweep runs an upward search from each source of the batch, then each
+ * position takes the minimum over its incoming downward edges. The distances
+ * of the sources are interleaved per position, the batch size is limited by
+ * {@link #getMaxBatchSize()}.
+ *
+ * Not thread-safe (holds the per-query state).
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class ChDownwardSweep {
+
+    // maximal size of the interleaved distance array (safe array length)
+    private static final int MAX_BUFFER_SIZE = Integer.MAX_VALUE - 8;
+
+    private final ChUpwardSearch upwardSearch;
+    // position of each node in the descending rank order, -1 if not in the subgraph
+    private final int[] positions;
+    // downward edges incoming to the node at the position (by position)
+    private final int[] downwardOffsets;
+    private final int[] downwardSources;
+    private final float[] downwardLengths;
+    private float[] distances = new float[0];
+    private int batch = 0;
+
+    /**
+     * Constructor, builds the downward subgraph
+     *
+     * @param graph graph to be routed upon
+     * @param preprocessedData CH data for the given graph
+     * @param searchGraph upward search graph built from the given graph and CH
+     * data
+     * @param nodeDataStructureFactory factory for the priority queue of the
+     * upward search
+     * @param nodes nodes of the subgraph, closed under the backward upward
+     * edges
+     */
+    public ChDownwardSweep( Graph graph, PreprocessedData preprocessedData, ChSearchGraph searchGraph, NodeDataStructureFactory<Integer> nodeDataStructureFactory, int[] nodes ) {
+        int nodeCount = graph.getNodeCount();
+        this.upwardSearch = new ChUpwardSearch( searchGraph, nodeCount, nodeDataStructureFactory );
+        int[] order = orderByRank( preprocessedData, nodes );
+        this.positions = new int[nodeCount];
+        Arrays.fill( positions, -1 );
+        for ( int position = 0; position < order.length; position++ ) {
+            positions[order[position]] = position;
+        }
+        // the backward upward edges of a node are exactly its incoming downward edges
+        this.downwardOffsets = new int[order.length + 1];
+        for ( int position = 0; position < order.length; position++ ) {
+            int node = order[position];
+            downwardOffsets[position + 1] = downwardOffsets[position] + searchGraph.getBackwardEnd( node ) - searchGraph.getBackwardBegin( node );
+        }
+        this.downwardSources = new int[downwardOffsets[order.length]];
+        this.downwardLengths = new float[downwardOffsets[order.length]];
+        for ( int position = 0; position < order.length; position++ ) {
+            int node = order[position];
+            int index = downwardOffsets[position];
+            int end = searchGraph.getBackwardEnd( node );
+            for ( int i = searchGraph.getBackwardBegin( node ); i < end; i++ ) {
+                int source = positions[searchGraph.getBackwardNode( i )];
+                if ( source == -1 ) {
+                    throw new IllegalArgumentException( "The subgraph is not closed under the backward upward edges, missing node: " + searchGraph.getBackwardNode( i ) );
+                }
+                downwardSources[index] = source;
+                downwardLengths[index] = searchGraph.getBackwardLength( i );
+                index++;
+            }
+        }
+    }
+
+    /**
+     * Returns amount of the nodes of the subgraph
+     *
+     * @return amount of the nodes
+     */
+    public int getNodeCount() {
+        return downwardOffsets.length - 1;
+    }
+
+    /**
+     * Returns position of the given node in the sweep order
+     *
+     * @param node the node
+     * @return position of the node, -1 if it is not in the subgraph
+     */
+    public int getPosition( int node ) {
+        return positions[node];
+    }
+
+    /**
+     * Returns maximal amount of the sources of a single sweep, so that the
+     * interleaved distances fit into an array
+     *
+     * @return maximal batch size
+     */
+    public int getMaxBatchSize() {
+        return Math.max( 1, MAX_BUFFER_SIZE / Math.max( 1, getNodeCount() ) );
+    }
+
+    /**
+     * Runs the upward searches and the downward sweep for the given sources,
+     * the distances are then available via {@link #getDistance(int, int)}
+     *
+     * @param from list of the sources, each as a set of nodes and their
+     * initial distances, at most {@link #getMaxBatchSize()}
+     */
+    public void sweep( List<Map<Integer, Float>> from ) {
+        if ( from.size() > getMaxBatchSize() ) {
+            throw new IllegalArgumentException( "Too many sources for a single sweep: " + from.size() + ", maximum: " + getMaxBatchSize() );
+        }
+        int nodeCount = getNodeCount();
+        batch = from.size();
+        int size = nodeCount * batch;
+        if ( distances.length < size ) {
+            distances = new float[size];
+        }
+        Arrays.fill( distances, 0, size, Graph.DISTANCE_DEFAULT );
+        // upward searches, only the nodes of the subgraph are of interest
+        for ( int source = 0; source < batch; source++ ) {
+            upwardSearch.run( from.get( source ), true );
+            int settledCount = upwardSearch.getSettledCount();
+            for ( int i = 0; i < settledCount; i++ ) {
+                int node = upwardSearch.getSettledNode( i );
+                if ( positions[node] != -1 ) {
+                    distances[positions[node] * batch + source] = upwardSearch.getDistance( node );
+                }
+            }
+        }
+        // downward sweep in the descending rank order
+        for ( int position = 0; position < nodeCount; position++ ) {
+            int base = position * batch;
+            int end = downwardOffsets[position + 1];
+            for ( int i = downwardOffsets[position]; i < end; i++ ) {
+                int sourceBase = downwardSources[i] * batch;
+                float length = downwardLengths[i];
+                for ( int source = 0; source < batch; source++ ) {
+                    float distance = distances[sourceBase + source] + length;
+                    if ( distance < distances[base + source] ) {
+                        distances[base + source] = distance;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the distance found by the last sweep
+     *
+     * @param position position of the node
+     * @param source index of the source within the last sweep
+     * @return the shortest distance, {@link Graph#DISTANCE_DEFAULT} if
+     * unreachable
+     */
+    public float getDistance( int position, int source ) {
+        return distances[position * batch + source];
+    }
+
+    // orders the nodes by rank, descending
+    private static int[] orderByRank( PreprocessedData preprocessedData, int[] nodes ) {
+        int[] ranks = new int[nodes.length];
+        int minRank = Integer.MAX_VALUE;
+        int maxRank = Integer.MIN_VALUE;
+        for ( int i = 0; i < nodes.length; i++ ) {
+            ranks[i] = preprocessedData.getRank( nodes[i] );
+            minRank = Math.min( minRank, ranks[i] );
+            maxRank = Math.max( maxRank, ranks[i] );
+        }
+        // consecutive ranks (all the nodes for PHAST) - place each node directly, O(n)
+        int[] order = new int[nodes.length];
+        if ( nodes.length > 0 && (long) maxRank - minRank + 1 == nodes.length ) {
+            Arrays.fill( order, -1 );
+            boolean distinct = true;
+            for ( int i = 0; i < nodes.length && distinct; i++ ) {
+                int position = maxRank - ranks[i];
+                distinct = order[position] == -1;
+                order[position] = nodes[i];
+            }
+            if ( distinct ) {
+                return order;
+            }
+        }
+        // a subset (RPHAST) - sort the packed (rank, node) pairs
+        long[] keys = new long[nodes.length];
+        for ( int i = 0; i < nodes.length; i++ ) {
+            keys[i] = ( (long) ranks[i] << 32 ) | nodes[i];
+        }
+        Arrays.sort( keys );
+        for ( int i = 0; i < keys.length; i++ ) {
+            order[keys.length - 1 - i] = (int) keys[i];
+        }
+        return order;
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm.common;
+
+import cz.certicon.routing.application.algorithm.NodeDataStructure;
+import cz.certicon.routing.application.algorithm.NodeDataStructureFactory;
+import cz.certicon.routing.model.entity.ch.ChSearchGraph;
+import java.util.Map;
+
+/**
+ * Exhaustive upward Dijkstra search (no stopping criterion) on the
+ * {@link ChSearchGraph}, either forward or backward. Shared by the one-to-many
+ * and many-to-many CH algorithms, which need the whole upward search space of
+ * a source (target). All the touched nodes are settled after the search, see
+ * {@link #getSettledCount()}.
+ *
+ * Not thread-safe (holds the per-search state), use one instance per thread.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class ChUpwardSearch {
+
+    private final ChSearchGraph searchGraph;
+    private final SearchState searchState;
+    private final NodeDataStructure<Integer> nodeDataStructure;
+
+    /**
+     * Constructor
+     *
+     * @param searchGraph upward search graph
+     * @param nodeCount amount of nodes of the graph
+     * @param nodeDataStructureFactory factory for the priority queue
+     */
+    public ChUpwardSearch( ChSearchGraph searchGraph, int nodeCount, NodeDataStructureFactory<Integer> nodeDataStructureFactory ) {
+        this.searchGraph = searchGraph;
+        this.searchState = new SearchState( nodeCount );
+        this.nodeDataStructure = nodeDataStructureFactory.createNodeDataStructure( nodeCount );
+    }
+
+    /**
+     * Runs the search from the given nodes
+     *
+     * @param points set of the initial nodes and their initial distances
+     * @param forward true for the forward upward edges, false for the
+     * backward upward edges
+     */
+    public void run( Map<Integer, Float> points, boolean forward ) {
+        searchState.clear();
+        nodeDataStructure.clear();
+        for ( Map.Entry<Integer, Float> entry : points.entrySet() ) {
+            int node = entry.getKey();
+            float distance = entry.getValue();
+            if ( distance < searchState.getDistance( node ) ) {
+                searchState.setDistance( node, distance );
+                nodeDataStructure.notifyDataChange( node, distance );
+            }
+        }
+        while ( !nodeDataStructure.isEmpty() ) {
+            int currentNode = nodeDataStructure.extractMin();
+            searchState.setClosed( currentNode );
+            float currentDistance = searchState.getDistance( currentNode );
+            int end = forward ? searchGraph.getForwardEnd( currentNode ) : searchGraph.getBackwardEnd( currentNode );
+            for ( int i = forward ? searchGraph.getForwardBegin( currentNode ) : searchGraph.getBackwardBegin( currentNode ); i < end; i++ ) {
+                int otherNode = forward ? searchGraph.getForwardNode( i ) : searchGraph.getBackwardNode( i );
+                float distance = currentDistance + ( forward ? searchGraph.getForwardLength( i ) : searchGraph.getBackwardLength( i ) );
+                if ( distance < searchState.getDistance( otherNode ) ) {
+                    searchState.setDistance( otherNode, distance );
+                    nodeDataStructure.notifyDataChange( otherNode, distance );
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns amount of the nodes settled by the last search
+     *
+     * @return amount of the settled nodes
+     */
+    public int getSettledCount() {
+        return searchState.getTouchedCount();
+    }
+
+    /**
+     * Returns the settled node at the given index
+     *
+     * @param index index of the node, [0, settled count)
+     * @return the settled node
+     */
+    public int getSettledNode( int index ) {
+        return searchState.getTouchedNode( index );
+    }
+
+    /**
+     * Returns the distance of the given node found by the last search
+     *
+     * @param node the node
+     * @return the distance, {@link cz.certicon.routing.model.entity.Graph#DISTANCE_DEFAULT}
+     * if not reached
+     */
+    public float getDistance( int node ) {
+        return searchState.getDistance( node );
+    }
+}
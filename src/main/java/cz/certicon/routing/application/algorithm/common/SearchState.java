@@ -0,0 +1,176 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm.common;
+
+import cz.certicon.routing.model.entity.Graph;
+import gnu.trove.list.array.TIntArrayList;
+import java.util.Arrays;
+
+/**
+ * Reusable per-query state of a Dijkstra-like search: distance, predecessor
+ * and closed indicator of each node. Each node carries a stamp of the query
+ * (epoch) in which it was touched, the values of nodes with an older stamp are
+ * considered to be default ({@link Graph#DISTANCE_DEFAULT},
+ * {@link Graph#PREDECESSOR_DEFAULT}, not closed). Thus the {@link #clear()}
+ * method is O(1) (the touched list is cleared) instead of filling the arrays.
+ * The touched nodes are kept in a list, see {@link #getTouchedCount()} and
+ * {@link #getTouchedNode(int)}. Not thread-safe, each algorithm instance holds
+ * its own state.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class SearchState {
+
+    private final float[] distances;
+    private final int[] predecessors;
+    private final int[] stamps;
+    private final int[] closedStamps;
+    private final TIntArrayList touchedNodes;
+    private int epoch;
+
+    /**
+     * Constructor
+     *
+     * @param nodeCount amount of nodes in the graph
+     */
+    public SearchState( int nodeCount ) {
+        this.distances = new float[nodeCount];
+        this.predecessors = new int[nodeCount];
+        this.stamps = new int[nodeCount];
+        this.closedStamps = new int[nodeCount];
+        this.touchedNodes = new TIntArrayList();
+        this.epoch = 1;
+    }
+
+    /**
+     * Resets the state for a new query, all the nodes become untouched.
+     */
+    public void clear() {
+        touchedNodes.resetQuick();
+        if ( epoch == Integer.MAX_VALUE ) {
+            // stamps overflow, reset them once in a long while
+            Arrays.fill( stamps, 0 );
+            Arrays.fill( closedStamps, 0 );
+            epoch = 0;
+        }
+        epoch++;
+    }
+
+    /**
+     * Marks the given node as touched in the current query. The node gets the
+     * default values if it has not been touched yet.
+     *
+     * @param node given node
+     * @return true if the node has not been touched before (in this query),
+     * false otherwise
+     */
+    public boolean touch( int node ) {
+        if ( stamps[node] == epoch ) {
+            return false;
+        }
+        stamps[node] = epoch;
+        distances[node] = Graph.DISTANCE_DEFAULT;
+        predecessors[node] = Graph.PREDECESSOR_DEFAULT;
+        touchedNodes.add( node );
+        return true;
+    }
+
+    /**
+     * Returns true if the given node has been touched in the current query
+     *
+     * @param node given node
+     * @return true if touched, false otherwise
+     */
+    public boolean isTouched( int node ) {
+        return stamps[node] == epoch;
+    }
+
+    /**
+     * Returns distance of the given node or {@link Graph#DISTANCE_DEFAULT} if
+     * untouched
+     *
+     * @param node given node
+     * @return node's distance
+     */
+    public float getDistance( int node ) {
+        return stamps[node] == epoch ? distances[node] : Graph.DISTANCE_DEFAULT;
+    }
+
+    /**
+     * Returns predecessor (edge) of the given node or
+     * {@link Graph#PREDECESSOR_DEFAULT} if untouched
+     *
+     * @param node given node
+     * @return node's predecessor
+     */
+    public int getPredecessor( int node ) {
+        return stamps[node] == epoch ? predecessors[node] : Graph.PREDECESSOR_DEFAULT;
+    }
+
+    /**
+     * Sets distance of the given node, touches the node if necessary
+     *
+     * @param node given node
+     * @param distance node's distance
+     */
+    public void setDistance( int node, float distance ) {
+        touch( node );
+        distances[node] = distance;
+    }
+
+    /**
+     * Sets distance and predecessor of the given node, touches the node if
+     * necessary
+     *
+     * @param node given node
+     * @param distance node's distance
+     * @param predecessor node's predecessor (edge)
+     */
+    public void update( int node, float distance, int predecessor ) {
+        touch( node );
+        distances[node] = distance;
+        predecessors[node] = predecessor;
+    }
+
+    /**
+     * Returns true if the given node is closed (settled) in the current query
+     *
+     * @param node given node
+     * @return true if closed, false otherwise
+     */
+    public boolean isClosed( int node ) {
+        return closedStamps[node] == epoch;
+    }
+
+    /**
+     * Marks the given node as closed (settled), touches the node if necessary
+     *
+     * @param node given node
+     */
+    public void setClosed( int node ) {
+        touch( node );
+        closedStamps[node] = epoch;
+    }
+
+    /**
+     * Returns amount of nodes touched in the current query
+     *
+     * @return amount of touched nodes
+     */
+    public int getTouchedCount() {
+        return touchedNodes.size();
+    }
+
+    /**
+     * Returns touched node at the given position (in the order of touching)
+     *
+     * @param index position in the interval [0, touched count)
+     * @return touched node
+     */
+    public int getTouchedNode( int index ) {
+        return touchedNodes.getQuick( index );
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm.datastructures;
+
+import cz.certicon.routing.application.algorithm.NodeDataStructure;
+import cz.certicon.routing.utils.EffectiveUtils;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * {@link NodeDataStructure} implementation using an indexed d-ary heap over
+ * primitive arrays. Nodes are integers from the interval [0, nodeCount), the
+ * position of each node in the heap is kept in a position array, which makes
+ * the decrease-key (and removal) operation possible without any lookup
+ * structure. All the arrays are allocated once in the constructor, the
+ * operations themselves do not allocate.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class DAryHeapDataStructure implements NodeDataStructure<Integer> {
+
+    /**
+     * Default amount of children of each heap node
+     */
+    public static final int DEFAULT_ARITY = 4;
+
+    private static final int NOT_PRESENT = -1;
+
+    private final int arity;
+    // position -> node
+    private final int[] heap;
+    // position -> key
+    private final float[] keys;
+    // node -> position
+    private final int[] positions;
+    private int size;
+
+    /**
+     * Constructor, uses the {@link #DEFAULT_ARITY default} arity
+     *
+     * @param nodeCount amount of nodes in the graph (maximal node + 1)
+     */
+    public DAryHeapDataStructure( int nodeCount ) {
+        this( nodeCount, DEFAULT_ARITY );
+    }
+
+    /**
+     * Constructor
+     *
+     * @param nodeCount amount of nodes in the graph (maximal node + 1)
+     * @param arity amount of children of each heap node, at least 2
+     */
+    public DAryHeapDataStructure( int nodeCount, int arity ) {
+        if ( arity < 2 ) {
+            throw new IllegalArgumentException( "Arity must be at least 2: " + arity );
+        }
+        this.arity = arity;
+        this.heap = new int[nodeCount];
+        this.keys = new float[nodeCount];
+        this.positions = new int[nodeCount];
+        this.size = 0;
+        EffectiveUtils.fillArray( positions, NOT_PRESENT );
+    }
+
+    @Override
+    public Integer extractMin() {
+        return extractMinNode();
+    }
+
+    /**
+     * Primitive variant of the {@link #extractMin()}, does not box the node.
+     *
+     * @return node with the minimal value
+     */
+    public int extractMinNode() {
+        if ( size == 0 ) {
+            throw new IllegalStateException( "NodeStructure is empty." );
+        }
+        int min = heap[0];
+        removeAt( 0 );
+        return min;
+    }
+
+    @Override
+    public void add( Integer node, double value ) {
+        update( node, value );
+    }
+
+    /**
+     * Primitive variant of the {@link #notifyDataChange(Integer, double)},
+     * inserts the node if not present, changes its value otherwise. Does not
+     * box the node.
+     *
+     * @param node given node
+     * @param value new value of the node
+     */
+    public void update( int node, double value ) {
+        int position = positions[node];
+        if ( position == NOT_PRESENT ) {
+            position = size++;
+            heap[position] = node;
+            keys[position] = (float) value;
+            positions[node] = position;
+            siftUp( position );
+            return;
+        }
+        float key = (float) value;
+        float oldKey = keys[position];
+        keys[position] = key;
+        if ( key < oldKey ) {
+            siftUp( position );
+        } else if ( key > oldKey ) {
+            siftDown( position );
+        }
+    }
+
+    @Override
+    public void remove( Integer node ) {
+        int position = positions[node];
+        if ( position != NOT_PRESENT ) {
+            removeAt( position );
+        }
+    }
+
+    @Override
+    public void notifyDataChange( Integer node, double value ) {
+        update( node, value );
+    }
+
+    @Override
+    public void clear() {
+        for ( int i = 0; i < size; i++ ) {
+            positions[heap[i]] = NOT_PRESENT;
+        }
+        size = 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains( Integer node ) {
+        return positions[node] != NOT_PRESENT;
+    }
+
+    @Override
+    public Integer peek() {
+        if ( size == 0 ) {
+            return null;
+        }
+        return heap[0];
+    }
+
+    @Override
+    public double minValue() {
+        if ( size == 0 ) {
+            return Double.MAX_VALUE;
+        }
+        return keys[0];
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new HeapIterator();
+    }
+
+    private void removeAt( int position ) {
+        positions[heap[position]] = NOT_PRESENT;
+        size--;
+        if ( position == size ) {
+            return;
+        }
+        // move the last element to the freed position and restore the heap property
+        int node = heap[size];
+        float key = keys[size];
+        float oldKey = keys[position];
+        heap[position] = node;
+        keys[position] = key;
+        positions[node] = position;
+        if ( key < oldKey ) {
+            siftUp( position );
+        } else {
+            siftDown( position );
+        }
+    }
+
+    private void siftUp( int position ) {
+        int node = heap[position];
+        float key = keys[position];
+        while ( position > 0 ) {
+            int parent = ( position - 1 ) / arity;
+            if ( keys[parent] <= key ) {
+                break;
+            }
+            move( parent, position );
+            position = parent;
+        }
+        place( node, key, position );
+    }
+
+    private void siftDown( int position ) {
+        int node = heap[position];
+        float key = keys[position];
+        while ( true ) {
+            int firstChild = arity * position + 1;
+            if ( firstChild >= size ) {
+                break;
+            }
+            int lastChild = Math.min( firstChild + arity, size );
+            int minChild = firstChild;
+            float minKey = keys[firstChild];
+            for ( int child = firstChild + 1; child < lastChild; child++ ) {
+                if ( keys[child] < minKey ) {
+                    minChild = child;
+                    minKey = keys[child];
+                }
+            }
+            if ( key <= minKey ) {
+                break;
+            }
+            move( minChild, position );
+            position = minChild;
+        }
+        place( node, key, position );
+    }
+
+    private void move( int from, int to ) {
+        int node = heap[from];
+        heap[to] = node;
+        keys[to] = keys[from];
+        positions[node] = to;
+    }
+
+    private void place( int node, float key, int position ) {
+        heap[position] = node;
+        keys[position] = key;
+        positions[node] = position;
+    }
+
+    private class HeapIterator implements Iterator<Integer> {
+
+        private int position = -1;
+
+        @Override
+        public boolean hasNext() {
+            return position + 1 < size;
+        }
+
+        @Override
+        public Integer next() {
+            if ( !hasNext() ) {
+                throw new NoSuchElementException();
+            }
+            return heap[++position];
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException( "Not supported yet." );
+        }
+
+    }
+}
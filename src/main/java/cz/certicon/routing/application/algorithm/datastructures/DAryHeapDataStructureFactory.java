@@ -0,0 +1,42 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm.datastructures;
+
+import cz.certicon.routing.application.algorithm.NodeDataStructure;
+import cz.certicon.routing.application.algorithm.NodeDataStructureFactory;
+
+/**
+ * {@link NodeDataStructureFactory} creating the {@link DAryHeapDataStructure}.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class DAryHeapDataStructureFactory implements NodeDataStructureFactory<Integer> {
+
+    private final int arity;
+
+    /**
+     * Constructor, uses the {@link DAryHeapDataStructure#DEFAULT_ARITY default}
+     * arity
+     */
+    public DAryHeapDataStructureFactory() {
+        this( DAryHeapDataStructure.DEFAULT_ARITY );
+    }
+
+    /**
+     * Constructor
+     *
+     * @param arity amount of children of each heap node
+     */
+    public DAryHeapDataStructureFactory( int arity ) {
+        this.arity = arity;
+    }
+
+    @Override
+    public NodeDataStructure<Integer> createNodeDataStructure( int nodeCount ) {
+        return new DAryHeapDataStructure( nodeCount, arity );
+    }
+
+}
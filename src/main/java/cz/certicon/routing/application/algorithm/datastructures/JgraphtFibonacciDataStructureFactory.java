@@ -0,0 +1,25 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm.datastructures;
+
+import cz.certicon.routing.application.algorithm.NodeDataStructure;
+import cz.certicon.routing.application.algorithm.NodeDataStructureFactory;
+
+/**
+ * {@link NodeDataStructureFactory} creating the
+ * {@link JgraphtFibonacciDataStructure}.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ * @param <T> node type
+ */
+public class JgraphtFibonacciDataStructureFactory<T> implements NodeDataStructureFactory<T> {
+
+    @Override
+    public NodeDataStructure<T> createNodeDataStructure( int nodeCount ) {
+        return new JgraphtFibonacciDataStructure<>();
+    }
+
+}
@@ -0,0 +1,314 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm.datastructures;
+
+import cz.certicon.routing.application.algorithm.NodeDataStructure;
+import cz.certicon.routing.model.entity.DistanceType;
+import cz.certicon.routing.utils.EffectiveUtils;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * {@link NodeDataStructure} implementation using a radix heap (monotone bucket
+ * queue). Suitable only for monotone searches (Dijkstra-like), where no value
+ * lower than the last extracted one is inserted. A slightly lower value (e.g.
+ * a rounding error) is clamped to the key of the last extracted value and
+ * ordered by its exact value. The values are quantized into integer keys based
+ * on the {@link DistanceType} (see
+ * {@link #getResolution(DistanceType) getResolution}), the nodes are then kept
+ * in buckets based on the highest bit in which their key differs from the key
+ * of the last extracted node. The bucket of the last extracted key is searched
+ * linearly for the exact minimal value, so the order of extraction is the same
+ * as for the exact priority queues. The buckets are intrusive doubly linked
+ * lists over primitive arrays, the operations do not allocate.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class RadixHeapDataStructure implements NodeDataStructure<Integer> {
+
+    private static final int BUCKET_COUNT = Long.SIZE + 1;
+    private static final int NONE = -1;
+
+    private final double resolution;
+    private final int[] bucketHeads;
+    private final int[] bucketSizes;
+    // node -> data
+    private final int[] nodeBuckets;
+    private final int[] nextNodes;
+    private final int[] previousNodes;
+    private final float[] values;
+    private final long[] keys;
+    private long lastKey;
+    private int size;
+
+    /**
+     * Constructor
+     *
+     * @param nodeCount amount of nodes in the graph (maximal node + 1)
+     * @param distanceType metric of the inserted values, determines the
+     * quantization
+     */
+    public RadixHeapDataStructure( int nodeCount, DistanceType distanceType ) {
+        this( nodeCount, getResolution( distanceType ) );
+    }
+
+    /**
+     * Constructor
+     *
+     * @param nodeCount amount of nodes in the graph (maximal node + 1)
+     * @param resolution amount of integer keys per a unit of value (the value
+     * is multiplied by the resolution and truncated)
+     */
+    public RadixHeapDataStructure( int nodeCount, double resolution ) {
+        if ( resolution <= 0 ) {
+            throw new IllegalArgumentException( "Resolution must be positive: " + resolution );
+        }
+        this.resolution = resolution;
+        this.bucketHeads = new int[BUCKET_COUNT];
+        this.bucketSizes = new int[BUCKET_COUNT];
+        this.nodeBuckets = new int[nodeCount];
+        this.nextNodes = new int[nodeCount];
+        this.previousNodes = new int[nodeCount];
+        this.values = new float[nodeCount];
+        this.keys = new long[nodeCount];
+        EffectiveUtils.fillArray( bucketHeads, NONE );
+        EffectiveUtils.fillArray( nodeBuckets, NONE );
+        this.lastKey = 0;
+        this.size = 0;
+    }
+
+    /**
+     * Returns the quantization resolution for the given metric: deciseconds
+     * for the {@link DistanceType#TIME TIME} (stored in seconds) and decimeters
+     * for the {@link DistanceType#LENGTH LENGTH} (stored in meters).
+     *
+     * @param distanceType the metric
+     * @return amount of integer keys per a unit of the metric
+     */
+    public static double getResolution( DistanceType distanceType ) {
+        switch ( distanceType ) {
+            case TIME:
+                return 10;
+            case LENGTH:
+                return 10;
+            default:
+                throw new AssertionError( "Unknown distance type: " + distanceType.name() );
+        }
+    }
+
+    @Override
+    public Integer extractMin() {
+        if ( size == 0 ) {
+            throw new IllegalStateException( "NodeStructure is empty." );
+        }
+        if ( bucketHeads[0] == NONE ) {
+            redistribute();
+        }
+        int min = findMin( 0 );
+        unlink( min );
+        return min;
+    }
+
+    @Override
+    public void add( Integer node, double value ) {
+        if ( nodeBuckets[node] != NONE ) {
+            notifyDataChange( node, value );
+            return;
+        }
+        insert( node, value );
+    }
+
+    @Override
+    public void remove( Integer node ) {
+        if ( nodeBuckets[node] != NONE ) {
+            unlink( node );
+        }
+    }
+
+    @Override
+    public void notifyDataChange( Integer node, double value ) {
+        if ( nodeBuckets[node] != NONE ) {
+            unlink( node );
+        }
+        insert( node, value );
+    }
+
+    @Override
+    public void clear() {
+        for ( int bucket = 0; bucket < BUCKET_COUNT; bucket++ ) {
+            int node = bucketHeads[bucket];
+            while ( node != NONE ) {
+                nodeBuckets[node] = NONE;
+                node = nextNodes[node];
+            }
+            bucketHeads[bucket] = NONE;
+            bucketSizes[bucket] = 0;
+        }
+        lastKey = 0;
+        size = 0;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean contains( Integer node ) {
+        return nodeBuckets[node] != NONE;
+    }
+
+    @Override
+    public Integer peek() {
+        if ( size == 0 ) {
+            return null;
+        }
+        return findMin( firstNonEmptyBucket() );
+    }
+
+    @Override
+    public double minValue() {
+        if ( size == 0 ) {
+            return Double.MAX_VALUE;
+        }
+        return values[findMin( firstNonEmptyBucket() )];
+    }
+
+    @Override
+    public Iterator<Integer> iterator() {
+        return new BucketIterator();
+    }
+
+    private void insert( int node, double value ) {
+        // a slight regression (rounding, inconsistent heuristic) is clamped into the current bucket, the exact values keep the order
+        long key = Math.max( (long) ( value * resolution ), lastKey );
+        values[node] = (float) value;
+        keys[node] = key;
+        link( node, bucketOf( key ) );
+    }
+
+    // moves the content of the first non-empty bucket to the lower buckets based on its minimal key
+    private void redistribute() {
+        int bucket = firstNonEmptyBucket();
+        long minKey = Long.MAX_VALUE;
+        for ( int node = bucketHeads[bucket]; node != NONE; node = nextNodes[node] ) {
+            if ( keys[node] < minKey ) {
+                minKey = keys[node];
+            }
+        }
+        lastKey = minKey;
+        int node = bucketHeads[bucket];
+        bucketHeads[bucket] = NONE;
+        size -= bucketSizes[bucket];
+        bucketSizes[bucket] = 0;
+        while ( node != NONE ) {
+            int next = nextNodes[node];
+            link( node, bucketOf( keys[node] ) );
+            node = next;
+        }
+    }
+
+    // exact minimum within the given bucket
+    private int findMin( int bucket ) {
+        int min = bucketHeads[bucket];
+        for ( int node = nextNodes[min]; node != NONE; node = nextNodes[node] ) {
+            if ( values[node] < values[min] ) {
+                min = node;
+            }
+        }
+        return min;
+    }
+
+    private int firstNonEmptyBucket() {
+        int bucket = 0;
+        while ( bucketHeads[bucket] == NONE ) {
+            bucket++;
+        }
+        return bucket;
+    }
+
+    private int bucketOf( long key ) {
+        if ( key == lastKey ) {
+            return 0;
+        }
+        return Long.SIZE - Long.numberOfLeadingZeros( key ^ lastKey );
+    }
+
+    private void link( int node, int bucket ) {
+        int head = bucketHeads[bucket];
+        nextNodes[node] = head;
+        previousNodes[node] = NONE;
+        if ( head != NONE ) {
+            previousNodes[head] = node;
+        }
+        bucketHeads[bucket] = node;
+        bucketSizes[bucket]++;
+        nodeBuckets[node] = bucket;
+        size++;
+    }
+
+    private void unlink( int node ) {
+        int bucket = nodeBuckets[node];
+        int next = nextNodes[node];
+        int previous = previousNodes[node];
+        if ( previous != NONE ) {
+            nextNodes[previous] = next;
+        } else {
+            bucketHeads[bucket] = next;
+        }
+        if ( next != NONE ) {
+            previousNodes[next] = previous;
+        }
+        bucketSizes[bucket]--;
+        nodeBuckets[node] = NONE;
+        size--;
+    }
+
+    private class BucketIterator implements Iterator<Integer> {
+
+        private int bucket = -1;
+        private int node = NONE;
+
+        @Override
+        public boolean hasNext() {
+            return nextNode() != NONE;
+        }
+
+        @Override
+        public Integer next() {
+            int next = nextNode();
+            if ( next == NONE ) {
+                throw new NoSuchElementException();
+            }
+            node = next;
+            bucket = nodeBuckets[next];
+            return node;
+        }
+
+        private int nextNode() {
+            if ( node != NONE && nextNodes[node] != NONE ) {
+                return nextNodes[node];
+            }
+            for ( int b = bucket + 1; b < BUCKET_COUNT; b++ ) {
+                if ( bucketHeads[b] != NONE ) {
+                    return bucketHeads[b];
+                }
+            }
+            return NONE;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException( "Not supported yet." );
+        }
+
+    }
+}
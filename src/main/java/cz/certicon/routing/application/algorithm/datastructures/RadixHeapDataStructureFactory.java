@@ -0,0 +1,48 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm.datastructures;
+
+import cz.certicon.routing.application.algorithm.NodeDataStructure;
+import cz.certicon.routing.application.algorithm.NodeDataStructureFactory;
+import cz.certicon.routing.model.entity.DistanceType;
+
+/**
+ * {@link NodeDataStructureFactory} creating the {@link RadixHeapDataStructure}.
+ * Use only for monotone searches (Dijkstra, A* with a consistent heuristic,
+ * the contraction hierarchies queries), not for the node ordering during the
+ * preprocessing.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class RadixHeapDataStructureFactory implements NodeDataStructureFactory<Integer> {
+
+    private final double resolution;
+
+    /**
+     * Constructor
+     *
+     * @param distanceType metric of the searched graph, determines the
+     * quantization
+     */
+    public RadixHeapDataStructureFactory( DistanceType distanceType ) {
+        this( RadixHeapDataStructure.getResolution( distanceType ) );
+    }
+
+    /**
+     * Constructor
+     *
+     * @param resolution amount of integer keys per a unit of value
+     */
+    public RadixHeapDataStructureFactory( double resolution ) {
+        this.resolution = resolution;
+    }
+
+    @Override
+    public NodeDataStructure<Integer> createNodeDataStructure( int nodeCount ) {
+        return new RadixHeapDataStructure( nodeCount, resolution );
+    }
+
+}
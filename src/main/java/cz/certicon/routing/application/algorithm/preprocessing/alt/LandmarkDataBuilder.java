@@ -0,0 +1,143 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm.preprocessing.alt;
+
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.alt.LandmarkData;
+import java.util.Arrays;
+
+/**
+ * Builder of the {@link LandmarkData}. Each added landmark gets its distance
+ * tables calculated right away (a forward and a backward one-to-all
+ * Dijkstra), in the layout of the {@link LandmarkData}. The tables of the
+ * landmarks added so far are available during the building, so that a
+ * {@link LandmarkSelectionStrategy} can use them for selecting the next
+ * landmark and then return the data without any further Dijkstra.
+ *
+ * Not thread-safe.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class LandmarkDataBuilder {
+
+    private final int nodeCount;
+    private final int[] landmarks;
+    private final float[] forwardDistances;
+    private final float[] backwardDistances;
+    private final OneToAllDijkstra dijkstra;
+    private int addedCount = 0;
+
+    /**
+     * Constructor
+     *
+     * @param graph the graph
+     * @param landmarkCount amount of the landmarks, at least 1 and at most the
+     * amount of nodes
+     */
+    public LandmarkDataBuilder( Graph graph, int landmarkCount ) {
+        this.nodeCount = graph.getNodeCount();
+        if ( landmarkCount < 1 || landmarkCount > nodeCount ) {
+            throw new IllegalArgumentException( "Invalid amount of landmarks: " + landmarkCount + ", node count: " + nodeCount );
+        }
+        this.landmarks = new int[landmarkCount];
+        this.forwardDistances = new float[nodeCount * landmarkCount];
+        this.backwardDistances = new float[nodeCount * landmarkCount];
+        this.dijkstra = new OneToAllDijkstra( graph );
+    }
+
+    /**
+     * Adds the next landmark and calculates its distance tables
+     *
+     * @param landmark the landmark node
+     */
+    public void addLandmark( int landmark ) {
+        if ( addedCount == landmarks.length ) {
+            throw new IllegalStateException( "All the " + landmarks.length + " landmarks have already been added." );
+        }
+        int landmarkCount = landmarks.length;
+        int index = addedCount;
+        dijkstra.calculate( landmark, true );
+        for ( int node = 0; node < nodeCount; node++ ) {
+            forwardDistances[node * landmarkCount + index] = dijkstra.getDistance( node );
+        }
+        dijkstra.calculate( landmark, false );
+        for ( int node = 0; node < nodeCount; node++ ) {
+            backwardDistances[node * landmarkCount + index] = dijkstra.getDistance( node );
+        }
+        landmarks[index] = landmark;
+        addedCount++;
+    }
+
+    /**
+     * Returns amount of the landmarks added so far
+     *
+     * @return amount of the added landmarks
+     */
+    public int getAddedCount() {
+        return addedCount;
+    }
+
+    /**
+     * Returns the distance from the given added landmark to the given node
+     *
+     * @param node given node
+     * @param landmark index of the landmark, [0, added count)
+     * @return distance d(landmark, node)
+     */
+    public float getForwardDistance( int node, int landmark ) {
+        return forwardDistances[node * landmarks.length + landmark];
+    }
+
+    /**
+     * Returns the distance from the given node to the given added landmark
+     *
+     * @param node given node
+     * @param landmark index of the landmark, [0, added count)
+     * @return distance d(node, landmark)
+     */
+    public float getBackwardDistance( int node, int landmark ) {
+        return backwardDistances[node * landmarks.length + landmark];
+    }
+
+    /**
+     * Returns the lower bound of the distance from the source to the target
+     * given by the landmarks added so far, see
+     * {@link LandmarkData#getLowerBound(int, int)}
+     *
+     * @param source source node
+     * @param target target node
+     * @return lower bound of the distance, 0 if no landmark has been added
+     */
+    public float getLowerBound( int source, int target ) {
+        int count = landmarks.length;
+        int sourceBase = source * count;
+        int targetBase = target * count;
+        float bound = 0;
+        for ( int i = 0; i < addedCount; i++ ) {
+            float backward = backwardDistances[sourceBase + i] - backwardDistances[targetBase + i];
+            if ( backward > bound ) {
+                bound = backward;
+            }
+            float forward = forwardDistances[targetBase + i] - forwardDistances[sourceBase + i];
+            if ( forward > bound ) {
+                bound = forward;
+            }
+        }
+        return bound;
+    }
+
+    /**
+     * Builds the landmark data, all the landmarks must have been added
+     *
+     * @return the landmark data
+     */
+    public LandmarkData build() {
+        if ( addedCount != landmarks.length ) {
+            throw new IllegalStateException( "Only " + addedCount + " of " + landmarks.length + " landmarks have been added." );
+        }
+        return new LandmarkData( Arrays.copyOf( landmarks, landmarks.length ), forwardDistances, backwardDistances );
+    }
+}
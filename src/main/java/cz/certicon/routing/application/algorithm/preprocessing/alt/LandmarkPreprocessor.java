@@ -0,0 +1,61 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm.preprocessing.alt;
+
+import cz.certicon.routing.application.algorithm.preprocessing.alt.strategies.AvoidLandmarkSelectionStrategy;
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.alt.LandmarkData;
+
+/**
+ * Preprocessor of the {@link LandmarkData} for the ALT algorithms. Selects the
+ * landmarks using the {@link LandmarkSelectionStrategy} (the
+ * {@link AvoidLandmarkSelectionStrategy} by default), which calculates the
+ * distances from and to each landmark by a one-to-all Dijkstra (see
+ * {@link LandmarkDataBuilder}) as it goes. Unlike the
+ * Contraction Hierarchies, the preprocessing takes only 2 Dijkstras per
+ * landmark, so it can be repeated right after the edge lengths change.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class LandmarkPreprocessor {
+
+    private LandmarkSelectionStrategy landmarkSelectionStrategy = new AvoidLandmarkSelectionStrategy();
+
+    /**
+     * Sets the strategy selecting the landmarks
+     *
+     * @param landmarkSelectionStrategy the strategy
+     */
+    public void setLandmarkSelectionStrategy( LandmarkSelectionStrategy landmarkSelectionStrategy ) {
+        this.landmarkSelectionStrategy = landmarkSelectionStrategy;
+    }
+
+    /**
+     * Selects the landmarks and calculates their distance tables
+     *
+     * @param graph the graph
+     * @param landmarkCount amount of the landmarks
+     * @return landmark data for the given graph
+     */
+    public LandmarkData preprocess( Graph graph, int landmarkCount ) {
+        return landmarkSelectionStrategy.selectLandmarks( graph, landmarkCount );
+    }
+
+    /**
+     * Calculates the distance tables of the given landmarks
+     *
+     * @param graph the graph
+     * @param landmarks the landmark nodes
+     * @return landmark data for the given graph
+     */
+    public LandmarkData preprocess( Graph graph, int[] landmarks ) {
+        LandmarkDataBuilder landmarkDataBuilder = new LandmarkDataBuilder( graph, landmarks.length );
+        for ( int landmark : landmarks ) {
+            landmarkDataBuilder.addLandmark( landmark );
+        }
+        return landmarkDataBuilder.build();
+    }
+}
@@ -0,0 +1,32 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm.preprocessing.alt;
+
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.alt.LandmarkData;
+
+/**
+ * Strategy selecting the landmarks for the {@link LandmarkPreprocessor}. Good
+ * landmarks lie "behind" the typical targets (on the border of the graph), so
+ * that the triangle inequality gives tight lower bounds. The selection itself
+ * needs the distance tables of the already selected landmarks, so the strategy
+ * returns the complete {@link LandmarkData} (built by the
+ * {@link LandmarkDataBuilder}) and the tables are not calculated twice.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public interface LandmarkSelectionStrategy {
+
+    /**
+     * Selects the given amount of distinct landmarks and calculates their
+     * distance tables
+     *
+     * @param graph the graph
+     * @param landmarkCount amount of the landmarks, at most the amount of nodes
+     * @return landmark data of the selected landmarks
+     */
+    public LandmarkData selectLandmarks( Graph graph, int landmarkCount );
+}
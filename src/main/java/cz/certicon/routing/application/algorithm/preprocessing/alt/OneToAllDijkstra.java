@@ -0,0 +1,116 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm.preprocessing.alt;
+
+import cz.certicon.routing.application.algorithm.datastructures.DAryHeapDataStructure;
+import cz.certicon.routing.model.entity.Graph;
+import gnu.trove.list.array.TIntArrayList;
+import java.util.Arrays;
+
+/**
+ * Exhaustive one-to-all Dijkstra used by the landmark preprocessing. Keeps the
+ * distances, the shortest path tree (parent node of each node) and the order
+ * in which the nodes were settled. Runs either along the outgoing edges
+ * (distances from the source) or along the incoming edges (distances to the
+ * source). Not thread-safe, the arrays are reused by the following search.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class OneToAllDijkstra {
+
+    private final Graph graph;
+    private final float[] distances;
+    private final int[] parents;
+    private final TIntArrayList settledNodes;
+    private final DAryHeapDataStructure heap;
+
+    /**
+     * Constructor
+     *
+     * @param graph the graph
+     */
+    public OneToAllDijkstra( Graph graph ) {
+        this.graph = graph;
+        this.distances = new float[graph.getNodeCount()];
+        this.parents = new int[graph.getNodeCount()];
+        this.settledNodes = new TIntArrayList( graph.getNodeCount() );
+        this.heap = new DAryHeapDataStructure( graph.getNodeCount() );
+    }
+
+    /**
+     * Calculates the shortest distances from (or to) the given source to all
+     * the nodes
+     *
+     * @param source the source node
+     * @param forward true for the distances from the source (outgoing edges),
+     * false for the distances to the source (incoming edges)
+     */
+    public void calculate( int source, boolean forward ) {
+        Arrays.fill( distances, Graph.DISTANCE_DEFAULT );
+        Arrays.fill( parents, -1 );
+        settledNodes.resetQuick();
+        heap.clear();
+        distances[source] = 0;
+        heap.update( source, 0 );
+        while ( !heap.isEmpty() ) {
+            int node = heap.extractMinNode();
+            settledNodes.add( node );
+            float distance = distances[node];
+            int edgesCount = forward ? graph.getOutgoingEdgesCount( node ) : graph.getIncomingEdgesCount( node );
+            for ( int i = 0; i < edgesCount; i++ ) {
+                int edge = forward ? graph.getOutgoingEdge( node, i ) : graph.getIncomingEdge( node, i );
+                int otherNode = graph.getOtherNode( edge, node );
+                float otherDistance = distance + graph.getLength( edge );
+                if ( otherDistance < distances[otherNode] ) {
+                    distances[otherNode] = otherDistance;
+                    parents[otherNode] = node;
+                    heap.update( otherNode, otherDistance );
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the distance of the given node in the last search
+     *
+     * @param node given node
+     * @return distance or {@link Graph#DISTANCE_DEFAULT} if unreachable
+     */
+    public float getDistance( int node ) {
+        return distances[node];
+    }
+
+    /**
+     * Returns the parent of the given node in the shortest path tree of the
+     * last search
+     *
+     * @param node given node
+     * @return parent node or -1 for the source and the unreachable nodes
+     */
+    public int getParent( int node ) {
+        return parents[node];
+    }
+
+    /**
+     * Returns amount of the nodes settled (reached) in the last search
+     *
+     * @return amount of the settled nodes
+     */
+    public int getSettledCount() {
+        return settledNodes.size();
+    }
+
+    /**
+     * Returns the settled node at the given position, in the order of settling
+     * (non-decreasing distance)
+     *
+     * @param index position in the interval [0, settled count)
+     * @return settled node
+     */
+    public int getSettledNode( int index ) {
+        return settledNodes.getQuick( index );
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm.preprocessing.alt.strategies;
+
+import cz.certicon.routing.application.algorithm.preprocessing.alt.LandmarkDataBuilder;
+import cz.certicon.routing.application.algorithm.preprocessing.alt.LandmarkSelectionStrategy;
+import cz.certicon.routing.application.algorithm.preprocessing.alt.OneToAllDijkstra;
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.alt.LandmarkData;
+import java.util.Random;
+
+/**
+ * Avoid implementation of the {@link LandmarkSelectionStrategy} (Goldberg and
+ * Werneck). The first landmark is the node farthest from a random node. For
+ * each following landmark, a shortest path tree is built from a random root
+ * and each node gets a weight - the difference between its distance from the
+ * root and the lower bound given by the already selected landmarks (how badly
+ * the node is covered). The size of a node is the sum of the weights in its
+ * subtree, or zero if the subtree contains a landmark. Starting at the root,
+ * the child with the maximal size is followed down to a leaf, which becomes
+ * the new landmark. The lower bounds come from the tables of the
+ * {@link LandmarkDataBuilder}, which are returned as the result.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class AvoidLandmarkSelectionStrategy implements LandmarkSelectionStrategy {
+
+    private final Random random;
+
+    public AvoidLandmarkSelectionStrategy() {
+        this( new Random() );
+    }
+
+    /**
+     * Constructor
+     *
+     * @param random source of the random roots
+     */
+    public AvoidLandmarkSelectionStrategy( Random random ) {
+        this.random = random;
+    }
+
+    @Override
+    public LandmarkData selectLandmarks( Graph graph, int landmarkCount ) {
+        LandmarkDataBuilder landmarkDataBuilder = new LandmarkDataBuilder( graph, landmarkCount );
+        int nodeCount = graph.getNodeCount();
+        OneToAllDijkstra dijkstra = new OneToAllDijkstra( graph );
+        boolean[] isLandmark = new boolean[nodeCount];
+        double[] sizes = new double[nodeCount];
+        int[] bestChildren = new int[nodeCount];
+        boolean[] containsLandmark = new boolean[nodeCount];
+        // the farthest node from a random node, the last settled one
+        dijkstra.calculate( random.nextInt( nodeCount ), true );
+        int landmark = dijkstra.getSettledNode( dijkstra.getSettledCount() - 1 );
+        for ( int i = 0; i < landmarkCount; i++ ) {
+            if ( i > 0 ) {
+                landmark = selectNext( dijkstra, landmarkDataBuilder, isLandmark, sizes, bestChildren, containsLandmark );
+            }
+            isLandmark[landmark] = true;
+            landmarkDataBuilder.addLandmark( landmark );
+        }
+        return landmarkDataBuilder.build();
+    }
+
+    private int selectNext( OneToAllDijkstra dijkstra, LandmarkDataBuilder landmarkDataBuilder, boolean[] isLandmark, double[] sizes, int[] bestChildren, boolean[] containsLandmark ) {
+        int root = randomNonLandmark( isLandmark );
+        dijkstra.calculate( root, true );
+        int settledCount = dijkstra.getSettledCount();
+        for ( int i = 0; i < settledCount; i++ ) {
+            int node = dijkstra.getSettledNode( i );
+            sizes[node] = Math.max( 0, dijkstra.getDistance( node ) - landmarkDataBuilder.getLowerBound( root, node ) );
+            bestChildren[node] = -1;
+            containsLandmark[node] = isLandmark[node];
+        }
+        // children are settled after their parents, accumulate in the reverse order
+        for ( int i = settledCount - 1; i > 0; i-- ) {
+            int node = dijkstra.getSettledNode( i );
+            int parent = dijkstra.getParent( node );
+            if ( containsLandmark[node] ) {
+                sizes[node] = 0;
+                containsLandmark[parent] = true;
+            }
+            sizes[parent] += sizes[node];
+            if ( bestChildren[parent] == -1 || sizes[node] > sizes[bestChildren[parent]] ) {
+                bestChildren[parent] = node;
+            }
+        }
+        if ( containsLandmark[root] && sizes[root] == 0 ) {
+            // everything is covered
+            return randomNonLandmark( isLandmark );
+        }
+        int node = root;
+        while ( bestChildren[node] != -1 && sizes[bestChildren[node]] > 0 ) {
+            node = bestChildren[node];
+        }
+        return isLandmark[node] ? randomNonLandmark( isLandmark ) : node;
+    }
+
+    private int randomNonLandmark( boolean[] isLandmark ) {
+        int node;
+        do {
+            node = random.nextInt( isLandmark.length );
+        } while ( isLandmark[node] );
+        return node;
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm.preprocessing.alt.strategies;
+
+import cz.certicon.routing.application.algorithm.preprocessing.alt.LandmarkDataBuilder;
+import cz.certicon.routing.application.algorithm.preprocessing.alt.LandmarkSelectionStrategy;
+import cz.certicon.routing.application.algorithm.preprocessing.alt.OneToAllDijkstra;
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.alt.LandmarkData;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Farthest implementation of the {@link LandmarkSelectionStrategy}. The first
+ * landmark is the node farthest from a random node, each following landmark is
+ * the node farthest from the already selected landmarks (the maximum over the
+ * nodes of the minimal round-trip distance to a landmark). The nodes
+ * unreachable from all the landmarks are preferred, so each component of a
+ * disconnected graph gets a landmark. The round-trip distances are read from
+ * the tables of the {@link LandmarkDataBuilder}, which are returned as the
+ * result.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class FarthestLandmarkSelectionStrategy implements LandmarkSelectionStrategy {
+
+    private final Random random;
+
+    public FarthestLandmarkSelectionStrategy() {
+        this( new Random() );
+    }
+
+    /**
+     * Constructor
+     *
+     * @param random source of the random start node
+     */
+    public FarthestLandmarkSelectionStrategy( Random random ) {
+        this.random = random;
+    }
+
+    @Override
+    public LandmarkData selectLandmarks( Graph graph, int landmarkCount ) {
+        LandmarkDataBuilder landmarkDataBuilder = new LandmarkDataBuilder( graph, landmarkCount );
+        int nodeCount = graph.getNodeCount();
+        // the farthest node from a random node, the last settled one
+        OneToAllDijkstra dijkstra = new OneToAllDijkstra( graph );
+        dijkstra.calculate( random.nextInt( nodeCount ), true );
+        int landmark = dijkstra.getSettledNode( dijkstra.getSettledCount() - 1 );
+        landmarkDataBuilder.addLandmark( landmark );
+        double[] minDistances = new double[nodeCount];
+        Arrays.fill( minDistances, Double.MAX_VALUE );
+        for ( int i = 1; i < landmarkCount; i++ ) {
+            for ( int node = 0; node < nodeCount; node++ ) {
+                double roundTrip = (double) landmarkDataBuilder.getForwardDistance( node, i - 1 ) + landmarkDataBuilder.getBackwardDistance( node, i - 1 );
+                minDistances[node] = Math.min( minDistances[node], roundTrip );
+            }
+            // the selected landmarks are excluded for good
+            minDistances[landmark] = -1;
+            int farthest = -1;
+            for ( int node = 0; node < nodeCount; node++ ) {
+                if ( minDistances[node] >= 0 && ( farthest == -1 || minDistances[node] > minDistances[farthest] ) ) {
+                    farthest = node;
+                }
+            }
+            landmark = farthest;
+            landmarkDataBuilder.addLandmark( landmark );
+        }
+        return landmarkDataBuilder.build();
+    }
+}
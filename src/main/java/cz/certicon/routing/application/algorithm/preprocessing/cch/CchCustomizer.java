@@ -0,0 +1,197 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm.preprocessing.cch;
+
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.cch.CchTopology;
+import cz.certicon.routing.model.entity.ch.ChDataBuilder;
+import cz.certicon.routing.utils.ParallelUtils;
+import gnu.trove.list.array.TIntArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Metric customization of the Customizable Contraction Hierarchies. Applies
+ * the edge lengths of the graph to the {@link CchTopology}: each arc starts
+ * with the shortest parallel edge (in each direction), then the nodes are
+ * processed level by level (see {@link CchTopology#getLevel(int)}) and each
+ * arc of a node is relaxed via its lower triangles - a lower neighbour
+ * connected to both ends of the arc. The nodes of the same level write only
+ * their own arcs and read only the arcs of the lower levels, so they can be
+ * processed in parallel, see {@link #setThreads(int)}.
+ *
+ * The result is a standard CH data ({@link ChDataBuilder}): the ranks and a
+ * shortcut for each arc direction improved by a lower triangle. Thus all the
+ * CH algorithms can be used, e.g. the
+ * {@link cz.certicon.routing.application.algorithm.algorithms.ContractionHierarchiesRoutingAlgorithm}.
+ * A change of the lengths (e.g. traffic or a different vehicle profile)
+ * requires only a new customization of the same topology.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class CchCustomizer {
+
+    private int threads = 1;
+
+    /**
+     * Sets amount of threads used for the customization, 1 by default. The
+     * result does not depend on the amount of threads.
+     *
+     * @param threads amount of threads, positive
+     */
+    public void setThreads( int threads ) {
+        if ( threads < 1 ) {
+            throw new IllegalArgumentException( "Amount of threads must be positive: " + threads );
+        }
+        this.threads = threads;
+    }
+
+    /**
+     * Customizes the topology with the lengths of the given graph
+     *
+     * @param <T> CH data type
+     * @param dataBuilder builder of the CH data
+     * @param graph graph with the lengths to be applied, the topology must
+     * have been built for its nodes and edges
+     * @param topology the topology of the hierarchy
+     * @param minimalShortcutId minimal shortcut ID to be set for new shortcuts
+     * =&gt; current max + 1
+     * @return CH data for the graph
+     */
+    public <T> T customize( ChDataBuilder<T> dataBuilder, Graph graph, final CchTopology topology, long minimalShortcutId ) {
+        int nodeCount = graph.getNodeCount();
+        if ( topology.getNodeCount() != nodeCount ) {
+            throw new IllegalArgumentException( "Topology does not match the graph: " + topology.getNodeCount() + " nodes, expected " + nodeCount );
+        }
+        int arcCount = topology.getArcCount();
+        // upward (tail to head) and downward (head to tail) lengths of the arcs
+        final float[] upwardLengths = new float[arcCount];
+        final float[] downwardLengths = new float[arcCount];
+        // realization of each direction: the edge (middle = -1) or the middle node of the lower triangle
+        final int[] upwardEdges = new int[arcCount];
+        final int[] downwardEdges = new int[arcCount];
+        final int[] upwardMiddles = new int[arcCount];
+        final int[] downwardMiddles = new int[arcCount];
+        Arrays.fill( upwardLengths, Graph.DISTANCE_DEFAULT );
+        Arrays.fill( downwardLengths, Graph.DISTANCE_DEFAULT );
+        Arrays.fill( upwardMiddles, -1 );
+        Arrays.fill( downwardMiddles, -1 );
+        for ( int edge = 0; edge < graph.getEdgeCount(); edge++ ) {
+            int source = graph.getSource( edge );
+            int target = graph.getTarget( edge );
+            float length = graph.getLength( edge );
+            if ( topology.getRank( source ) < topology.getRank( target ) ) {
+                int arc = findArc( topology, source, target );
+                if ( length < upwardLengths[arc] ) {
+                    upwardLengths[arc] = length;
+                    upwardEdges[arc] = edge;
+                }
+            } else if ( topology.getRank( target ) < topology.getRank( source ) ) {
+                int arc = findArc( topology, target, source );
+                if ( length < downwardLengths[arc] ) {
+                    downwardLengths[arc] = length;
+                    downwardEdges[arc] = edge;
+                }
+            }
+        }
+        // nodes grouped by level
+        int levelCount = topology.getLevelCount();
+        TIntArrayList[] levels = new TIntArrayList[levelCount];
+        for ( int level = 0; level < levelCount; level++ ) {
+            levels[level] = new TIntArrayList();
+        }
+        for ( int node = 0; node < nodeCount; node++ ) {
+            levels[topology.getLevel( node )].add( node );
+        }
+        ExecutorService executor = threads > 1 ? Executors.newFixedThreadPool( threads ) : null;
+        try {
+            for ( TIntArrayList level : levels ) {
+                final int[] nodes = level.toArray();
+                ParallelUtils.executeInRanges( executor, threads, nodes.length, new ParallelUtils.RangeTask() {
+                    @Override
+                    public void run( int chunk, int begin, int end ) {
+                        relax( topology, nodes, begin, end, upwardLengths, downwardLengths, upwardMiddles, downwardMiddles );
+                    }
+                } );
+            }
+        } finally {
+            if ( executor != null ) {
+                executor.shutdownNow();
+            }
+        }
+        // CH data, the shortcuts in the rank order of the tails - the parts are always added first
+        int[] order = new int[nodeCount];
+        for ( int node = 0; node < nodeCount; node++ ) {
+            order[topology.getRank( node )] = node;
+            dataBuilder.setRank( graph.getNodeOrigId( node ), topology.getRank( node ) );
+        }
+        dataBuilder.setStartId( minimalShortcutId );
+        long[] upwardIds = new long[arcCount];
+        long[] downwardIds = new long[arcCount];
+        long shortcutId = minimalShortcutId;
+        for ( int tail : order ) {
+            for ( int arc = topology.getUpwardBegin( tail ); arc < topology.getUpwardEnd( tail ); arc++ ) {
+                int head = topology.getHead( arc );
+                if ( upwardMiddles[arc] != -1 ) {
+                    // tail -> middle -> head
+                    int middle = upwardMiddles[arc];
+                    dataBuilder.addShortcut( shortcutId, downwardIds[topology.findArc( middle, tail )], upwardIds[topology.findArc( middle, head )] );
+                    upwardIds[arc] = shortcutId++;
+                } else if ( upwardLengths[arc] < Graph.DISTANCE_DEFAULT ) {
+                    upwardIds[arc] = graph.getEdgeOrigId( upwardEdges[arc] );
+                }
+                if ( downwardMiddles[arc] != -1 ) {
+                    // head -> middle -> tail
+                    int middle = downwardMiddles[arc];
+                    dataBuilder.addShortcut( shortcutId, downwardIds[topology.findArc( middle, head )], upwardIds[topology.findArc( middle, tail )] );
+                    downwardIds[arc] = shortcutId++;
+                } else if ( downwardLengths[arc] < Graph.DISTANCE_DEFAULT ) {
+                    downwardIds[arc] = graph.getEdgeOrigId( downwardEdges[arc] );
+                }
+            }
+        }
+        return dataBuilder.build();
+    }
+
+    // relaxes the arcs of the given nodes via their lower triangles
+    private static void relax( CchTopology topology, int[] nodes, int from, int to, float[] upwardLengths, float[] downwardLengths, int[] upwardMiddles, int[] downwardMiddles ) {
+        for ( int n = from; n < to; n++ ) {
+            int node = nodes[n];
+            for ( int arc = topology.getUpwardBegin( node ); arc < topology.getUpwardEnd( node ); arc++ ) {
+                int head = topology.getHead( arc );
+                for ( int i = topology.getDownwardBegin( node ); i < topology.getDownwardEnd( node ); i++ ) {
+                    int middle = topology.getTail( i );
+                    int lowerArc = topology.getDownwardArc( i );
+                    int otherArc = topology.findArc( middle, head );
+                    if ( otherArc == -1 ) {
+                        continue;
+                    }
+                    // node -> middle -> head
+                    float upward = downwardLengths[lowerArc] + upwardLengths[otherArc];
+                    if ( upward < upwardLengths[arc] ) {
+                        upwardLengths[arc] = upward;
+                        upwardMiddles[arc] = middle;
+                    }
+                    // head -> middle -> node
+                    float downward = downwardLengths[otherArc] + upwardLengths[lowerArc];
+                    if ( downward < downwardLengths[arc] ) {
+                        downwardLengths[arc] = downward;
+                        downwardMiddles[arc] = middle;
+                    }
+                }
+            }
+        }
+    }
+
+    private static int findArc( CchTopology topology, int tail, int head ) {
+        int arc = topology.findArc( tail, head );
+        if ( arc == -1 ) {
+            throw new IllegalArgumentException( "Topology does not match the graph, missing arc: " + tail + " -> " + head );
+        }
+        return arc;
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm.preprocessing.cch;
+
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.cch.CchTopology;
+import gnu.trove.iterator.TIntIterator;
+import gnu.trove.set.hash.TIntHashSet;
+import java.util.Arrays;
+
+/**
+ * Metric-independent preprocessing of the Customizable Contraction
+ * Hierarchies. Orders the nodes by the {@link NestedDissectionOrdering} and
+ * contracts them in this order on the topology only: the higher ranked
+ * neighbours of each contracted node become connected with each other (the
+ * chordal supergraph). The result ({@link CchTopology}) does not depend on the
+ * edge lengths, the lengths are applied by the {@link CchCustomizer}.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class CchPreprocessor {
+
+    private NestedDissectionOrdering ordering = new NestedDissectionOrdering();
+
+    /**
+     * Sets the node ordering
+     *
+     * @param ordering the ordering
+     */
+    public void setOrdering( NestedDissectionOrdering ordering ) {
+        this.ordering = ordering;
+    }
+
+    /**
+     * Orders the nodes and contracts the graph
+     *
+     * @param graph the graph
+     * @return the topology of the hierarchy
+     */
+    public CchTopology preprocess( Graph graph ) {
+        return preprocess( graph, ordering.calculateRanks( graph ) );
+    }
+
+    /**
+     * Contracts the graph in the given order
+     *
+     * @param graph the graph
+     * @param ranks rank of each node, a permutation of [0, node count)
+     * @return the topology of the hierarchy
+     */
+    public CchTopology preprocess( Graph graph, int[] ranks ) {
+        int nodeCount = graph.getNodeCount();
+        if ( ranks.length != nodeCount ) {
+            throw new IllegalArgumentException( "Invalid amount of ranks: " + ranks.length + ", node count: " + nodeCount );
+        }
+        int[] order = new int[nodeCount];
+        Arrays.fill( order, -1 );
+        for ( int node = 0; node < nodeCount; node++ ) {
+            if ( ranks[node] < 0 || ranks[node] >= nodeCount || order[ranks[node]] != -1 ) {
+                throw new IllegalArgumentException( "Ranks are not a permutation, node #" + node + " has rank " + ranks[node] );
+            }
+            order[ranks[node]] = node;
+        }
+        // higher ranked neighbours (undirected)
+        TIntHashSet[] upwardNeighbours = new TIntHashSet[nodeCount];
+        for ( int node = 0; node < nodeCount; node++ ) {
+            upwardNeighbours[node] = new TIntHashSet();
+        }
+        for ( int edge = 0; edge < graph.getEdgeCount(); edge++ ) {
+            int source = graph.getSource( edge );
+            int target = graph.getTarget( edge );
+            if ( ranks[source] < ranks[target] ) {
+                upwardNeighbours[source].add( target );
+            } else if ( ranks[target] < ranks[source] ) {
+                upwardNeighbours[target].add( source );
+            }
+        }
+        // contraction, passing the neighbours to the lowest of them is enough
+        // to connect all of them - it passes them on when it is contracted
+        int[] upwardOffsets = new int[nodeCount + 1];
+        for ( int node : order ) {
+            TIntHashSet neighbours = upwardNeighbours[node];
+            upwardOffsets[node + 1] = neighbours.size();
+            int lowest = -1;
+            TIntIterator it = neighbours.iterator();
+            while ( it.hasNext() ) {
+                int neighbour = it.next();
+                if ( lowest == -1 || ranks[neighbour] < ranks[lowest] ) {
+                    lowest = neighbour;
+                }
+            }
+            if ( lowest != -1 ) {
+                it = neighbours.iterator();
+                while ( it.hasNext() ) {
+                    int neighbour = it.next();
+                    if ( neighbour != lowest ) {
+                        upwardNeighbours[lowest].add( neighbour );
+                    }
+                }
+            }
+        }
+        for ( int node = 0; node < nodeCount; node++ ) {
+            upwardOffsets[node + 1] += upwardOffsets[node];
+        }
+        // heads sorted by rank within each tail
+        int[] heads = new int[upwardOffsets[nodeCount]];
+        for ( int node = 0; node < nodeCount; node++ ) {
+            int[] headRanks = new int[upwardNeighbours[node].size()];
+            int i = 0;
+            TIntIterator it = upwardNeighbours[node].iterator();
+            while ( it.hasNext() ) {
+                headRanks[i++] = ranks[it.next()];
+            }
+            Arrays.sort( headRanks );
+            for ( i = 0; i < headRanks.length; i++ ) {
+                heads[upwardOffsets[node] + i] = order[headRanks[i]];
+            }
+            upwardNeighbours[node] = null;
+        }
+        return new CchTopology( ranks, upwardOffsets, heads );
+    }
+}
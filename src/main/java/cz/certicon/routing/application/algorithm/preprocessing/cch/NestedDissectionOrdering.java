@@ -0,0 +1,147 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm.preprocessing.cch;
+
+import cz.certicon.routing.model.entity.Graph;
+import gnu.trove.list.array.TIntArrayList;
+import java.util.Arrays;
+
+/**
+ * Metric-independent node order for the Customizable Contraction Hierarchies
+ * computed by a nested dissection. Each cell is split by the median of the
+ * coordinate with the larger extent, the boundary nodes of the smaller side
+ * form the separator. The two parts are ordered recursively, the separator
+ * gets the highest ranks of the cell. The cells with at most the leaf size of
+ * nodes are ordered as they are. Uses only the coordinates and the adjacency
+ * of the graph, never the lengths.
+ *
+ * This is a coordinate bisection with a boundary-node separator, not a graph
+ * partitioner - the separators are not minimized (no cut optimization as in
+ * the dedicated partitioners). The separator sizes drive the amount of arcs
+ * of the topology and thus both the customization and the query cost.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class NestedDissectionOrdering {
+
+    /**
+     * Default maximal size of a cell, which is not dissected further
+     */
+    public static final int DEFAULT_LEAF_SIZE = 16;
+
+    private int leafSize = DEFAULT_LEAF_SIZE;
+
+    /**
+     * Sets the maximal size of a cell, which is not dissected further
+     *
+     * @param leafSize the leaf size, positive
+     */
+    public void setLeafSize( int leafSize ) {
+        if ( leafSize < 1 ) {
+            throw new IllegalArgumentException( "Leaf size must be positive: " + leafSize );
+        }
+        this.leafSize = leafSize;
+    }
+
+    /**
+     * Calculates the ranks of the nodes
+     *
+     * @param graph the graph
+     * @return rank of each node, a permutation of [0, node count)
+     */
+    public int[] calculateRanks( Graph graph ) {
+        int nodeCount = graph.getNodeCount();
+        int[] nodes = new int[nodeCount];
+        for ( int node = 0; node < nodeCount; node++ ) {
+            nodes[node] = node;
+        }
+        TIntArrayList order = new TIntArrayList( nodeCount );
+        dissect( graph, nodes, order, new int[nodeCount], new int[]{ 0 } );
+        int[] ranks = new int[nodeCount];
+        for ( int rank = 0; rank < nodeCount; rank++ ) {
+            ranks[order.get( rank )] = rank;
+        }
+        return ranks;
+    }
+
+    private void dissect( Graph graph, int[] nodes, TIntArrayList order, int[] marks, int[] stamp ) {
+        if ( nodes.length <= leafSize ) {
+            order.add( nodes );
+            return;
+        }
+        // split by the median of the coordinate with the larger extent
+        float minLatitude = Float.MAX_VALUE;
+        float maxLatitude = -Float.MAX_VALUE;
+        float minLongitude = Float.MAX_VALUE;
+        float maxLongitude = -Float.MAX_VALUE;
+        for ( int node : nodes ) {
+            minLatitude = Math.min( minLatitude, graph.getLatitude( node ) );
+            maxLatitude = Math.max( maxLatitude, graph.getLatitude( node ) );
+            minLongitude = Math.min( minLongitude, graph.getLongitude( node ) );
+            maxLongitude = Math.max( maxLongitude, graph.getLongitude( node ) );
+        }
+        boolean byLatitude = maxLatitude - minLatitude >= maxLongitude - minLongitude;
+        // sort the packed (coordinate, node) pairs, the float bits are mapped to an int of the same order
+        long[] keys = new long[nodes.length];
+        for ( int i = 0; i < nodes.length; i++ ) {
+            int bits = Float.floatToIntBits( byLatitude ? graph.getLatitude( nodes[i] ) : graph.getLongitude( nodes[i] ) );
+            bits ^= ( bits >> 31 ) & Integer.MAX_VALUE;
+            keys[i] = ( (long) bits << 32 ) | nodes[i];
+        }
+        Arrays.sort( keys );
+        int[] sorted = new int[nodes.length];
+        for ( int i = 0; i < keys.length; i++ ) {
+            sorted[i] = (int) keys[i];
+        }
+        int half = nodes.length / 2;
+        int leftStamp = ++stamp[0];
+        int rightStamp = ++stamp[0];
+        for ( int i = 0; i < sorted.length; i++ ) {
+            marks[sorted[i]] = i < half ? leftStamp : rightStamp;
+        }
+        // boundary nodes of both sides, the smaller one is the separator
+        TIntArrayList leftBoundary = new TIntArrayList();
+        TIntArrayList rightBoundary = new TIntArrayList();
+        for ( int i = 0; i < sorted.length; i++ ) {
+            int node = sorted[i];
+            if ( isBoundary( graph, node, i < half ? rightStamp : leftStamp, marks ) ) {
+                ( i < half ? leftBoundary : rightBoundary ).add( node );
+            }
+        }
+        TIntArrayList separator = leftBoundary.size() <= rightBoundary.size() ? leftBoundary : rightBoundary;
+        int separatorStamp = ++stamp[0];
+        for ( int i = 0; i < separator.size(); i++ ) {
+            marks[separator.get( i )] = separatorStamp;
+        }
+        TIntArrayList left = new TIntArrayList( half );
+        TIntArrayList right = new TIntArrayList( nodes.length - half );
+        for ( int i = 0; i < sorted.length; i++ ) {
+            int node = sorted[i];
+            if ( marks[node] != separatorStamp ) {
+                ( i < half ? left : right ).add( node );
+            }
+        }
+        dissect( graph, left.toArray(), order, marks, stamp );
+        dissect( graph, right.toArray(), order, marks, stamp );
+        order.addAll( separator );
+    }
+
+    private static boolean isBoundary( Graph graph, int node, int otherStamp, int[] marks ) {
+        int outgoingCount = graph.getOutgoingEdgesCount( node );
+        for ( int i = 0; i < outgoingCount; i++ ) {
+            if ( marks[graph.getOtherNode( graph.getOutgoingEdge( node, i ), node )] == otherStamp ) {
+                return true;
+            }
+        }
+        int incomingCount = graph.getIncomingEdgesCount( node );
+        for ( int i = 0; i < incomingCount; i++ ) {
+            if ( marks[graph.getOtherNode( graph.getIncomingEdge( node, i ), node )] == otherStamp ) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
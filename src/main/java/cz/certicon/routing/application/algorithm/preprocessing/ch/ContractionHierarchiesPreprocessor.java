@@ -6,18 +6,19 @@
 package cz.certicon.routing.application.algorithm.preprocessing.ch;
 
 import cz.certicon.routing.application.algorithm.NodeDataStructure;
-import cz.certicon.routing.application.algorithm.datastructures.JgraphtFibonacciDataStructure;
+import cz.certicon.routing.application.algorithm.NodeDataStructureFactory;
+import cz.certicon.routing.application.algorithm.datastructures.JgraphtFibonacciDataStructureFactory;
 import cz.certicon.routing.application.algorithm.preprocessing.ch.calculators.BasicEdgeDifferenceCalculator;
+import cz.certicon.routing.application.algorithm.preprocessing.ch.strategies.MinimumExtractionPolicy;
 import cz.certicon.routing.application.algorithm.preprocessing.ch.strategies.NeighboursOnlyRecalculationStrategy;
 import cz.certicon.routing.model.entity.DistanceType;
 import cz.certicon.routing.model.entity.Graph;
 import cz.certicon.routing.model.entity.ch.PreprocessedData;
-import cz.certicon.routing.model.basic.Pair;
-import cz.certicon.routing.model.basic.Trinity;
 import cz.certicon.routing.model.entity.ch.ChDataBuilder;
 import cz.certicon.routing.model.utility.ProgressListener;
 import cz.certicon.routing.model.utility.progress.EmptyProgressListener;
-import cz.certicon.routing.utils.DoubleComparator;
+import cz.certicon.routing.utils.EffectiveUtils;
+import cz.certicon.routing.utils.ParallelUtils;
 import cz.certicon.routing.utils.efficient.BitArray;
 import cz.certicon.routing.utils.efficient.LongBitArray;
 import gnu.trove.iterator.TIntIterator;
@@ -26,11 +27,9 @@ import gnu.trove.list.TIntList;
 import gnu.trove.list.array.TFloatArrayList;
 import gnu.trove.list.array.TIntArrayList;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * {@link Preprocessor} for Contraction Hierarchies. Principle: Each node gets
@@ -50,14 +49,15 @@ public class ContractionHierarchiesPreprocessor implements Preprocessor<Preproce
 //    public List<Pair<Integer, String>> shortcutCounts = new ArrayList<>();
 //    public int nodeOfInterest = -1;
 //    public Graph graph;
-    private static final int THREADS = 8;
-
     private static final double INIT_NODE_RANKING = 0.1;
 
-    private static final double PRECISION = 10E-3;
-
     private NodeRecalculationStrategy nodeRecalculationStrategy;
     private EdgeDifferenceCalculator edgeDifferenceCalculator;
+    private NodeDataStructureFactory<Integer> nodeDataStructureFactory = new JgraphtFibonacciDataStructureFactory<>();
+    private NodeExtractionPolicy nodeExtractionPolicy = new MinimumExtractionPolicy();
+    private int threads = 1;
+    private int hopLimit = WitnessSearch.UNLIMITED;
+    private int settledNodesLimit = WitnessSearch.UNLIMITED;
 
     /**
      * Constructor, initializes {@link EdgeDifferenceCalculator} and
@@ -84,12 +84,39 @@ public class ContractionHierarchiesPreprocessor implements Preprocessor<Preproce
     public ContractionHierarchiesPreprocessor( NodeRecalculationStrategy nodeRecalculationStrategy ) {
         this.nodeRecalculationStrategy = nodeRecalculationStrategy;
         this.edgeDifferenceCalculator = nodeRecalculationStrategy.getEdgeDifferenceCalculator();
+        if ( nodeRecalculationStrategy instanceof NodeExtractionPolicy ) {
+            this.nodeExtractionPolicy = (NodeExtractionPolicy) nodeRecalculationStrategy;
+        }
     }
 
+    /**
+     * Sets the node recalculation strategy. If the strategy is also a
+     * {@link NodeExtractionPolicy} (such as the lazy update strategy), it is
+     * set as the extraction policy as well, otherwise the extraction policy is
+     * reset to the {@link MinimumExtractionPolicy}.
+     *
+     * @param nodeRecalculationStrategy strategy for node recalculation
+     */
     @Override
     public void setNodeRecalculationStrategy( NodeRecalculationStrategy nodeRecalculationStrategy ) {
         this.nodeRecalculationStrategy = nodeRecalculationStrategy;
         this.nodeRecalculationStrategy.setEdgeDifferenceCalculator( edgeDifferenceCalculator );
+        if ( nodeRecalculationStrategy instanceof NodeExtractionPolicy ) {
+            this.nodeExtractionPolicy = (NodeExtractionPolicy) nodeRecalculationStrategy;
+        } else {
+            this.nodeExtractionPolicy = new MinimumExtractionPolicy();
+        }
+    }
+
+    /**
+     * Sets the policy extracting the next node to be contracted, the
+     * {@link MinimumExtractionPolicy} by default. Used by the sequential
+     * contraction only, see {@link #setThreads(int)}.
+     *
+     * @param nodeExtractionPolicy policy for node extraction
+     */
+    public void setNodeExtractionPolicy( NodeExtractionPolicy nodeExtractionPolicy ) {
+        this.nodeExtractionPolicy = nodeExtractionPolicy;
     }
 
     @Override
@@ -102,6 +129,56 @@ public class ContractionHierarchiesPreprocessor implements Preprocessor<Preproce
 //        }
     }
 
+    /**
+     * Sets factory for the node ordering priority queue (the witness search
+     * uses its own primitive heap, see {@link WitnessSearch})
+     *
+     * @param nodeDataStructureFactory factory for the priority queue
+     */
+    public void setNodeDataStructureFactory( NodeDataStructureFactory<Integer> nodeDataStructureFactory ) {
+        this.nodeDataStructureFactory = nodeDataStructureFactory;
+    }
+
+    /**
+     * Sets limits of the witness searches, see
+     * {@link WitnessSearch#setHopLimit(int)} and
+     * {@link WitnessSearch#setSettledNodesLimit(int)}. Tighter limits speed up
+     * the preprocessing at the cost of additional shortcuts.
+     *
+     * @param hopLimit maximal amount of hops of a witness path or
+     * {@link WitnessSearch#UNLIMITED}
+     * @param settledNodesLimit maximal amount of nodes settled by a single
+     * search or {@link WitnessSearch#UNLIMITED}
+     */
+    public void setWitnessSearchLimits( int hopLimit, int settledNodesLimit ) {
+        if ( hopLimit < 1 || settledNodesLimit < 1 ) {
+            throw new IllegalArgumentException( "Witness search limits must be positive: " + hopLimit + ", " + settledNodesLimit );
+        }
+        this.hopLimit = hopLimit;
+        this.settledNodesLimit = settledNodesLimit;
+    }
+
+    /**
+     * Sets amount of threads used for the contraction. With a single thread
+     * (default), the nodes are contracted one by one in the order of their
+     * priority. With more threads, each round contracts an independent set of
+     * nodes in parallel - the nodes with the lowest priority in their 2-hop
+     * neighbourhood (ties broken by the lower node). The witness searches of
+     * the round are thread-local and they avoid all the nodes of the round,
+     * the shortcuts are merged in the order of the nodes, so the resulting node
+     * order and shortcuts do not depend on the amount of threads or on the
+     * scheduling. The neighbours of the contracted nodes are recalculated after
+     * each round (as with the {@link NeighboursOnlyRecalculationStrategy}).
+     *
+     * @param threads amount of threads, positive
+     */
+    public void setThreads( int threads ) {
+        if ( threads < 1 ) {
+            throw new IllegalArgumentException( "Amount of threads must be positive: " + threads );
+        }
+        this.threads = threads;
+    }
+
     @Override
     public PreprocessedData preprocess( ChDataBuilder<PreprocessedData> dataBuilder, Graph graph, DistanceType distanceType, long startId ) {
         return preprocess( dataBuilder, graph, distanceType, startId, new EmptyProgressListener() );
@@ -114,13 +191,8 @@ public class ContractionHierarchiesPreprocessor implements Preprocessor<Preproce
 //        this.nodeRecalculationStrategy.setEdgeDifferenceCalculator( edgeDifferenceCalculator );
 
         int nodeCount = graph.getNodeCount();
-        NodeDataStructure<Integer> priorityQueue = new JgraphtFibonacciDataStructure<>();
-        NodeDataStructure<Integer> dijkstraPriorityQueue = new JgraphtFibonacciDataStructure<>();
-        float[] nodeDistanceArray = new float[nodeCount];
-        graph.resetNodeDistanceArray( nodeDistanceArray );
         ProcessingData data = new ProcessingData( graph );
         BitArray removedNodes = new LongBitArray( graph.getNodeCount() );
-        BitArray calculatedNodes = new LongBitArray( graph.getNodeCount() );
         int[] nodeDegrees = new int[graph.getNodeCount()];
 //
         progressListener.init( nodeCount, INIT_NODE_RANKING );
@@ -142,13 +214,21 @@ public class ContractionHierarchiesPreprocessor implements Preprocessor<Preproce
 //            }
 //        } );
         // DEBUG
+        if ( threads > 1 ) {
+            contractInParallel( dataBuilder, graph, data, nodeDegrees, removedNodes, progressListener );
+            addShortcuts( dataBuilder, data, startId );
+            return dataBuilder.build();
+        }
+        NodeDataStructure<Integer> priorityQueue = nodeDataStructureFactory.createNodeDataStructure( nodeCount );
+        WitnessSearch witnessSearch = createWitnessSearch( nodeCount );
+        BitArray calculatedNodes = new LongBitArray( graph.getNodeCount() );
         // determine order of nodes based on their edge difference (based on the concrete calculator)
         for ( int node = 0; node < nodeCount; node++ ) {
 //        for ( int i = 0; i < nodeCount; i++ ) {
 //            int node = sortedNodes.get( i ).a;
 //            out.println("node#" + node + " = " + graph.getNodeOrigId( node ));
-            int numberOfShortcuts = calculateShortcuts( data, removedNodes, node, dijkstraPriorityQueue, nodeDistanceArray, graph );
-            int ed = nodeRecalculationStrategy.getEdgeDifferenceCalculator().calculate( -1, nodeDegrees, node, numberOfShortcuts );
+            int numberOfShortcuts = calculateShortcuts( data, removedNodes, node, witnessSearch );
+            double ed = nodeRecalculationStrategy.getEdgeDifferenceCalculator().calculate( data, -1, nodeDegrees, node, numberOfShortcuts, witnessSearch.getShortcutsOriginalEdges() );
 //            System.out.println( "#" + node + " = " + ed );
             priorityQueue.add( node, ed );
             progressListener.nextStep();
@@ -171,13 +251,14 @@ public class ContractionHierarchiesPreprocessor implements Preprocessor<Preproce
 //        if ( true ) {
 //            return dataBuilder.build();
 //        }
+        NodeExtractionPolicy.PriorityEvaluator priorityEvaluator = new ShortcutsPriorityEvaluator( data, removedNodes, nodeDegrees, witnessSearch );
+        nodeExtractionPolicy.init();
         int rank = 1;
         progressListener.init( priorityQueue.size(), 1.0 - INIT_NODE_RANKING );
         // foreach node based on the priority queue
         while ( !priorityQueue.isEmpty() ) {
             // extract node with the lowest number ("lowest importance")
-            Pair<Integer, Double> extractMin = extractMin( priorityQueue, graph );
-            int node = extractMin.a;
+            int node = nodeExtractionPolicy.extractNode( priorityQueue, priorityEvaluator );
             // DEBUG
 //            if ( graph.getNodeOrigId( node ) == nodeOfInterest ) {
 //                break;
@@ -185,7 +266,7 @@ public class ContractionHierarchiesPreprocessor implements Preprocessor<Preproce
             // shortcuts
 //            System.out.println( "contracting: " + node );
             // contract the node
-            contractNode( data, nodeDegrees, removedNodes, node, dijkstraPriorityQueue, nodeDistanceArray );
+            contractNode( data, nodeDegrees, removedNodes, node, witnessSearch );
 
             // foreach relevant node (might be neighbor, might be the next in queue, etc.) recalculate the nodes order
             TIntIterator it = nodeRecalculationStrategy.recalculationIterator( graph, data, node, priorityQueue );
@@ -209,8 +290,8 @@ public class ContractionHierarchiesPreprocessor implements Preprocessor<Preproce
 //                System.out.println( "#" + node + " - iterated to: " + n );
                 // if not calculated yet and not removed yet
                 if ( !calculatedNodes.get( n ) && !removedNodes.get( n ) ) {
-                    int numberOfShortcuts = calculateShortcuts( data, removedNodes, n, dijkstraPriorityQueue, nodeDistanceArray, graph );
-                    nodeRecalculationStrategy.onShortcutsCalculated( graph, nodeDegrees, n, priorityQueue, numberOfShortcuts, node );
+                    int numberOfShortcuts = calculateShortcuts( data, removedNodes, n, witnessSearch );
+                    nodeRecalculationStrategy.onShortcutsCalculated( graph, data, nodeDegrees, n, priorityQueue, numberOfShortcuts, witnessSearch.getShortcutsOriginalEdges(), node );
                     calculatedNodes.set( n, true );
                 }
             }
@@ -222,11 +303,7 @@ public class ContractionHierarchiesPreprocessor implements Preprocessor<Preproce
             dataBuilder.setRank( graph.getNodeOrigId( node ), rank++ );
             progressListener.nextStep();
         }
-        for ( int i = 0; i < data.size(); i++ ) {
-            // DEBUG
-//            System.out.println( "adding shortcut: #" + ( startId + i ) + " where i = " + i  + ", startEdge = " + data.startEdges.get( i ) + ", endEdge = " + data.endEdges.get( i ) );
-            dataBuilder.addShortcut( startId + i, data.getEdgeOrigId( data.startEdges.get( i ), startId ), data.getEdgeOrigId( data.endEdges.get( i ), startId ) );
-        }
+        addShortcuts( dataBuilder, data, startId );
         // DEBUG
 //        out.flush();
         return dataBuilder.build();
@@ -234,166 +311,26 @@ public class ContractionHierarchiesPreprocessor implements Preprocessor<Preproce
 
     /**
      * Calculates number of shortcuts created, should the node be removed
-     * (contracted).
+     * (contracted). The total number of their original edges is available via
+     * {@link WitnessSearch#getShortcutsOriginalEdges()} afterwards.
      *
      * @param data currently processed data so far
      * @param removedNodes array indicating already contracted/removed nodes
      * @param node the current node
-     * @param dijkstraPriorityQueue prepared queue object
-     * @param nodeDistanceArray prepared distance object
-     * @param graph the original graph
+     * @param witnessSearch prepared witness search engine
      * @return number of shortcuts required
      */
-    private int calculateShortcuts( ProcessingData data, BitArray removedNodes, int node, NodeDataStructure<Integer> dijkstraPriorityQueue, float[] nodeDistanceArray, Graph graph ) {
+    private int calculateShortcuts( ProcessingData data, BitArray removedNodes, int node, WitnessSearch witnessSearch ) {
         if ( removedNodes.get( node ) ) {
             return 0;
         }
-        // DEBUG
-//        if ( graph.getNodeOrigId( node ) == nodeOfInterest || nodeOfInterest < 0 ) {
-//            out.println( "shortcut for #" + graph.getNodeOrigId( node ) );
-//        }
-        removedNodes.set( node, true );
-        Set<Integer> sources = new HashSet<>();
-        Set<Integer> targets = new HashSet<>();
-        Map<Integer, Float> upperBounds = new HashMap<>();
-        Map<Pair<Integer, Integer>, Trinity<Integer, Integer, Float>> fromToDistanceMap = new HashMap<>();
-        // for each pair of edges going through node:
-        TIntIterator incomingIterator = data.getIncomingEdgesIterator( node );
-        while ( incomingIterator.hasNext() ) {
-            int incomingEdge = incomingIterator.next();
-            int sourceNode = data.getSource( incomingEdge );
-            if ( removedNodes.get( sourceNode ) ) {
-                continue;
-            }
-            TIntIterator outgoingIterator = data.getOutgoingEdgesIterator( node );
-            while ( outgoingIterator.hasNext() ) {
-                int outgoingEdge = outgoingIterator.next();
-                if ( incomingEdge != outgoingEdge ) {
-                    int targetNode = data.getTarget( outgoingEdge );
-                    //   calculate shortest distance
-                    if ( !removedNodes.get( targetNode ) && sourceNode != targetNode ) {
-                        Pair<Integer, Integer> pair = new Pair<>( sourceNode, targetNode );
-                        float newDistance = data.getLength( incomingEdge ) + data.getLength( outgoingEdge );
-                        if ( !fromToDistanceMap.containsKey( pair ) || DoubleComparator.isLowerThan( newDistance, fromToDistanceMap.get( pair ).c, PRECISION ) ) {
-                            fromToDistanceMap.put( pair, new Trinity<>( incomingEdge, outgoingEdge, newDistance ) );
-                            //   collect sources in a set
-                            sources.add( sourceNode );
-                            //   collect targets in a set
-                            targets.add( targetNode );
-//                            System.out.println( "#" + node + " - neighbours: " + sourceNode + " -> " + targetNode + " = " + newDistance );
-                        }
-//                        if ( !upperBounds.containsKey( sourceNode ) || upperBounds.get( sourceNode ) < newDistance ) {
-//                            upperBounds.put( sourceNode, newDistance );
-//                        }
-                    }
-                }
-            }
-        }
-        //   find the longest distance for each source
-        for ( Map.Entry<Pair<Integer, Integer>, Trinity<Integer, Integer, Float>> entry : fromToDistanceMap.entrySet() ) {
-            int from = entry.getKey().a;
-            float distance = entry.getValue().c;
-            if ( !upperBounds.containsKey( from ) || DoubleComparator.isLowerThan( upperBounds.get( from ), distance, PRECISION ) ) {
-                upperBounds.put( from, distance );
-            }
-        }
-
-        // DEBUG
-//        List<Integer> sources = new ArrayList<>( sourceSet );
-//        Collections.sort( sources );
-//        List<Integer> targets = new ArrayList<>( targetSet );
-//        Collections.sort( targets );
-//        if ( graph.getNodeOrigId( node ) == nodeOfInterest || nodeOfInterest < 0 ) {
-//            for ( int from : sources ) {
-//                out.println( "#" + graph.getNodeOrigId( node ) + "-neighbour incoming: #" + graph.getNodeOrigId( from ) );
-//            }
-//            for ( int to : targets ) {
-//                out.println( "#" + graph.getNodeOrigId( node ) + "-neighbour outgoing: #" + graph.getNodeOrigId( to ) );
-//            }
-//            for ( Map.Entry<Pair<Integer, Integer>, Trinity<Integer, Integer, Float>> entry : fromToDistanceMap.entrySet() ) {
-//                out.println( "#" + graph.getNodeOrigId( node ) + "-path: from #" + graph.getNodeOrigId( entry.getKey().a ) + " to #" + graph.getNodeOrigId( entry.getKey().b ) + " in " + entry.getValue().c );
-//            }
-//        }
-        Set<Integer> visitedNodes = new HashSet<>();
-        List<Pair<Integer, Integer>> addedShortcuts = new ArrayList<>();
-        // for each source calculate Dijkstra to all the targets {without using the node)
-        for ( int from : sources ) {
-            float upperBound = upperBounds.get( from );
-            nodeDistanceArray[from] = 0;
-            visitedNodes.add( from );
-            dijkstraPriorityQueue.add( from, 0 );
-            // DEBUG
-//            if ( graph.getNodeOrigId( node ) == nodeOfInterest || nodeOfInterest < 0 ) {
-//                out.println( "#" + graph.getNodeOrigId( node ) + "-Dijkstra for #" + graph.getNodeOrigId( from ) + ", upper bound = " + upperBound );
-//            }
-            while ( !dijkstraPriorityQueue.isEmpty() ) {
-                int currentNode = dijkstraPriorityQueue.extractMin();
-                float currentDistance = nodeDistanceArray[currentNode];
-                // DEBUG
-//                if ( graph.getNodeOrigId( node ) == nodeOfInterest || nodeOfInterest < 0 ) {
-//                    out.println( "#" + graph.getNodeOrigId( node ) + "-extracted #" + graph.getNodeOrigId( currentNode ) + " -> " + currentDistance );
-//                }
-                //   use the longest distance as an upper bound
-                if ( DoubleComparator.isLowerThan( upperBound, currentDistance, PRECISION ) ) {
-                    dijkstraPriorityQueue.clear();
-                    break;
-                }
-                // calculate SP ...
-                TIntIterator it = data.getOutgoingEdgesIterator( currentNode );
-                while ( it.hasNext() ) {
-                    int edge = it.next();
-                    int target = data.getTarget( edge );
-                    float targetDistance = nodeDistanceArray[target];
-                    float newDistance = currentDistance + data.getLength( edge );
-                    // if the target is active (removal simulation)
-                    if ( !removedNodes.get( target ) && DoubleComparator.isLowerThan( newDistance, targetDistance, PRECISION ) ) {
-                        nodeDistanceArray[target] = newDistance;
-                        visitedNodes.add( target );
-                        dijkstraPriorityQueue.notifyDataChange( target, newDistance );
-                    }
-                }
-            }
-            //   for each target compare calculated SP with the shortest distance
-            for ( int to : targets ) {
-                if ( from == to ) {
-                    continue;
-                }
-//                System.out.println( "#" + node + " - path: " + from + " -> " + to );
-                float distance = nodeDistanceArray[to];
-                Trinity<Integer, Integer, Float> shortcutDistanceT = fromToDistanceMap.get( new Pair<>( from, to ) );
-                //   create shortcut if longer
-                if ( DoubleComparator.isLowerThan( shortcutDistanceT.c, distance, PRECISION ) ) {
-                    data.addShortcut( shortcutDistanceT.a, shortcutDistanceT.b );
-                    addedShortcuts.add( new Pair<>( from, to ) );
-                    // DEBUG
-//                    if ( graph.getNodeOrigId( node ) == nodeOfInterest || nodeOfInterest < 0 ) {
-//                        out.println( "#" + graph.getNodeOrigId( node ) + "- adding shortcut #" + graph.getNodeOrigId( from ) + " -> #" + graph.getNodeOrigId( to ) );
-//                    }
-//                    System.out.println( "#" + node + " - creating temporary shortcut: " + from + " -> " + to );
-                }
-            }
-            // reset node distances
-            for ( int visitedNode : visitedNodes ) {
-                nodeDistanceArray[visitedNode] = Float.MAX_VALUE;
-            }
-        }
+        // the shortcuts are added temporarily, so that they serve as witnesses
+        int numberOfShortcuts = witnessSearch.addShortcuts( data, removedNodes, node );
         // delete added shortcuts
-        for ( int i = 0; i < addedShortcuts.size(); i++ ) {
+        for ( int i = 0; i < numberOfShortcuts; i++ ) {
             data.removeLastShortcut();
         }
-//        for ( Pair<Integer, Integer> addedShortcut : addedShortcuts ) {
-//            int source = addedShortcut.a;
-//            int target = addedShortcut.b;
-//            System.out.println( "#" + node + " - removing temporary shortcut: " + source + " -> " + target );
-//            data.removeLastShortcut();
-//        }
-        removedNodes.set( node, false );
-        // DEBUG
-//        if ( graph.getNodeOrigId( node ) == nodeOfInterest || nodeOfInterest < 0 ) {
-//            out.println( "shortcut for #" + graph.getNodeOrigId( node ) + " = " + addedShortcuts.size() );
-//        }
-//        shortcutCounts.add( new Pair<>( (int) graph.getNodeOrigId( node ), "" + addedShortcuts.size() ) );
-        return addedShortcuts.size();
+        return numberOfShortcuts;
     }
 
     /**
@@ -403,190 +340,296 @@ public class ContractionHierarchiesPreprocessor implements Preprocessor<Preproce
      * @param nodeDegrees array of node degrees
      * @param removedNodes array indicating already contracted/removed nodes
      * @param node the current node
-     * @param dijkstraPriorityQueue prepared queue object
-     * @param nodeDistanceArray prepared distance object
+     * @param witnessSearch prepared witness search engine
      */
-    private void contractNode( ProcessingData data, int[] nodeDegrees, BitArray removedNodes, int node, NodeDataStructure<Integer> dijkstraPriorityQueue, float[] nodeDistanceArray ) {
+    private void contractNode( ProcessingData data, int[] nodeDegrees, BitArray removedNodes, int node, WitnessSearch witnessSearch ) {
         // disable node
         removedNodes.set( node, true );
 
-        // DEBUG
-//        if ( graph.getNodeOrigId( node ) == nodeOfInterest || nodeOfInterest < 0 ) {
-//            out.println( "contract for #" + graph.getNodeOrigId( node ) );
-//        }
         // lower neighbour's degree
-        TIntIterator incIt = data.getIncomingEdgesIterator( node );
-        while ( incIt.hasNext() ) {
-            int edge = incIt.next();
+        for ( int i = 0; i < data.getIncomingEdgesCount( node ); i++ ) {
+            int edge = data.getIncomingEdge( node, i );
             int source = data.getOtherNode( edge, node );
             if ( !removedNodes.get( source ) ) {
-                //  DEBUG
-//                if ( graph.getNodeOrigId( source ) == nodeOfInterest || nodeOfInterest < 0 ) {
-//                    out.println( "#" + graph.getNodeOrigId( source ) + "-removing outgoing edge #" + ( ( edge < graph.getEdgeCount() ) ? graph.getEdgeOrigId( edge ) : edge ) );
-//                }
-                nodeDegrees[source]--;
+                removeEdge( data, nodeDegrees, edge, node, source );
             }
         }
-        TIntIterator outIt = data.getOutgoingEdgesIterator( node );
-        while ( outIt.hasNext() ) {
-            int edge = outIt.next();
+        for ( int i = 0; i < data.getOutgoingEdgesCount( node ); i++ ) {
+            int edge = data.getOutgoingEdge( node, i );
             int target = data.getOtherNode( edge, node );
             if ( !removedNodes.get( target ) ) {
-                //  DEBUG
-//                if ( graph.getNodeOrigId( target ) == nodeOfInterest || nodeOfInterest < 0 ) {
-//                    out.println( "#" + graph.getNodeOrigId( target ) + "-removing incoming edge #" + ( ( edge < graph.getEdgeCount() ) ? graph.getEdgeOrigId( edge ) : edge ) );
-//                }
-                nodeDegrees[target]--;
+                removeEdge( data, nodeDegrees, edge, node, target );
             }
         }
-        Set<Integer> sources = new HashSet<>();
-        Set<Integer> targets = new HashSet<>();
-        Map<Integer, Float> upperBounds = new HashMap<>();
-        Map<Pair<Integer, Integer>, Trinity<Integer, Integer, Float>> fromToDistanceMap = new HashMap<>();
-        // for each pair of edges going through node:
-        TIntIterator incomingIterator = data.getIncomingEdgesIterator( node );
-        while ( incomingIterator.hasNext() ) {
-            int incomingEdge = incomingIterator.next();
-            int sourceNode = data.getSource( incomingEdge );
-            if ( removedNodes.get( sourceNode ) ) {
-                continue;
-            }
-            TIntIterator outgoingIterator = data.getOutgoingEdgesIterator( node );
-            while ( outgoingIterator.hasNext() ) {
-                int outgoingEdge = outgoingIterator.next();
-                if ( incomingEdge != outgoingEdge ) {
-                    int targetNode = data.getTarget( outgoingEdge );
-                    //   calculate shortest distance
-                    if ( !removedNodes.get( targetNode ) && sourceNode != targetNode ) {
-
-                        // DEBUG
-//                        if ( graph.getNodeOrigId( sourceNode ) == nodeOfInterest ) {
-//                            out.println( "#" + graph.getNodeOrigId( sourceNode ) + "-removing outgoing edge #-" );
-//                        }
-//                        if ( graph.getNodeOrigId( targetNode ) == nodeOfInterest ) {
-//                            out.println( "#" + graph.getNodeOrigId( targetNode ) + "-removing outgoing edge #-" );
-//                        }
-//                        nodeDegrees[sourceNode]--;
-//                        nodeDegrees[targetNode]--;
-                        Pair<Integer, Integer> pair = new Pair<>( sourceNode, targetNode );
-                        float newDistance = data.getLength( incomingEdge ) + data.getLength( outgoingEdge );
-                        if ( !fromToDistanceMap.containsKey( pair ) || DoubleComparator.isLowerThan( newDistance, fromToDistanceMap.get( pair ).c, PRECISION ) ) {
-                            fromToDistanceMap.put( pair, new Trinity<>( incomingEdge, outgoingEdge, newDistance ) );
-                            //   collect sources in a set
-                            sources.add( sourceNode );
-                            //   collect targets in a set
-                            targets.add( targetNode );
-//                            System.out.println( "#" + node + " - neighbours: " + sourceNode + " -> " + targetNode + " = " + newDistance + "[" + incomingEdge + " -> " + outgoingEdge + "]" );
-                        }
-                        //   find the longest distance for each source
-//                        if ( !upperBounds.containsKey( sourceNode ) || upperBounds.get( sourceNode ) < newDistance ) {
-//                            upperBounds.put( sourceNode, newDistance );
-//                        }
-                    }
-                }
-            }
+        int firstShortcut = data.size();
+        witnessSearch.addShortcuts( data, removedNodes, node );
+        for ( int i = firstShortcut; i < data.size(); i++ ) {
+            nodeDegrees[data.sources.get( i )]++;
+            nodeDegrees[data.targets.get( i )]++;
         }
-        //   find the longest distance for each source
-        for ( Map.Entry<Pair<Integer, Integer>, Trinity<Integer, Integer, Float>> entry : fromToDistanceMap.entrySet() ) {
-            int from = entry.getKey().a;
-            float distance = entry.getValue().c;
-            if ( !upperBounds.containsKey( from ) || DoubleComparator.isLowerThan( upperBounds.get( from ), distance, PRECISION ) ) {
-                upperBounds.put( from, distance );
-            }
+    }
+
+    // the edge between the contracted node and its remaining neighbour disappears
+    private static void removeEdge( ProcessingData data, int[] nodeDegrees, int edge, int node, int neighbour ) {
+        nodeDegrees[neighbour]--;
+        data.originalEdgeDegrees[neighbour] -= data.getOriginalEdgeCount( edge );
+        data.depths[neighbour] = Math.max( data.depths[neighbour], data.depths[node] + 1 );
+        data.maxDepth = Math.max( data.maxDepth, data.depths[neighbour] );
+    }
+
+    private WitnessSearch createWitnessSearch( int nodeCount ) {
+        WitnessSearch witnessSearch = new WitnessSearch( nodeCount );
+        witnessSearch.setHopLimit( hopLimit );
+        witnessSearch.setSettledNodesLimit( settledNodesLimit );
+        return witnessSearch;
+    }
+
+    private void addShortcuts( ChDataBuilder<PreprocessedData> dataBuilder, ProcessingData data, long startId ) {
+        for ( int i = 0; i < data.size(); i++ ) {
+            // DEBUG
+//            System.out.println( "adding shortcut: #" + ( startId + i ) + " where i = " + i  + ", startEdge = " + data.startEdges.get( i ) + ", endEdge = " + data.endEdges.get( i ) );
+            dataBuilder.addShortcut( startId + i, data.getEdgeOrigId( data.startEdges.get( i ), startId ), data.getEdgeOrigId( data.endEdges.get( i ), startId ) );
         }
+    }
 
-        // DEBUG
-//        List<Integer> sources = new ArrayList<>( sourceSet );
-//        Collections.sort( sources );
-//        List<Integer> targets = new ArrayList<>( targetSet );
-//        Collections.sort( targets );
-        Set<Integer> visitedNodes = new HashSet<>();
-        // for each source calculate Dijkstra to all the targets {without using the node)
-        for ( int from : sources ) {
-            float upperBound = upperBounds.get( from );
-            nodeDistanceArray[from] = 0;
-            visitedNodes.add( from );
-            dijkstraPriorityQueue.add( from, 0 );
-            while ( !dijkstraPriorityQueue.isEmpty() ) {
-                int currentNode = dijkstraPriorityQueue.extractMin();
-                float currentDistance = nodeDistanceArray[currentNode];
-                //   use the longest distance as an upper bound
-                if ( DoubleComparator.isLowerThan( upperBound, currentDistance, PRECISION ) ) {
-                    dijkstraPriorityQueue.clear();
-                    break;
+    /**
+     * Contracts all the nodes in rounds, see {@link #setThreads(int)}.
+     *
+     * @param dataBuilder builder receiving the ranks
+     * @param graph the original graph
+     * @param data currently processed data so far
+     * @param nodeDegrees array of node degrees
+     * @param removedNodes array indicating already contracted/removed nodes
+     * @param progressListener progress listener
+     */
+    private void contractInParallel( ChDataBuilder<PreprocessedData> dataBuilder, Graph graph, final ProcessingData data, int[] nodeDegrees, final BitArray removedNodes, ProgressListener progressListener ) {
+        int nodeCount = graph.getNodeCount();
+        EdgeDifferenceCalculator calculator = nodeRecalculationStrategy.getEdgeDifferenceCalculator();
+        // thread-local witness searches
+        final WitnessSearch[] witnessSearches = new WitnessSearch[threads];
+        for ( int i = 0; i < threads; i++ ) {
+            witnessSearches[i] = createWitnessSearch( nodeCount );
+        }
+        final double[] priorities = new double[nodeCount];
+        final TIntList nodes = new TIntArrayList( nodeCount );
+        for ( int node = 0; node < nodeCount; node++ ) {
+            nodes.add( node );
+        }
+        final int[] shortcutCounts = new int[nodeCount];
+        final int[] shortcutsOriginalEdges = new int[nodeCount];
+        ExecutorService executor = Executors.newFixedThreadPool( threads );
+        try {
+            // initial priorities
+            execute( executor, witnessSearches, nodes.size(), new ContractionTask() {
+                @Override
+                public void run( WitnessSearch witnessSearch, int index ) {
+                    int node = nodes.get( index );
+                    shortcutCounts[node] = witnessSearch.findShortcuts( data, removedNodes, node, null );
+                    shortcutsOriginalEdges[node] = witnessSearch.getShortcutsOriginalEdges();
                 }
-                // calculate SP ...
-                TIntIterator it = data.getOutgoingEdgesIterator( currentNode );
-                while ( it.hasNext() ) {
-                    int edge = it.next();
-                    int target = data.getTarget( edge );
-                    float targetDistance = nodeDistanceArray[target];
-                    float newDistance = currentDistance + data.getLength( edge );
-                    // if the target is active (removal simulation)
-                    if ( !removedNodes.get( target ) && DoubleComparator.isLowerThan( newDistance, targetDistance, PRECISION ) ) {
-                        nodeDistanceArray[target] = newDistance;
-                        visitedNodes.add( target );
-                        dijkstraPriorityQueue.notifyDataChange( target, newDistance );
+            } );
+            for ( int node = 0; node < nodeCount; node++ ) {
+                priorities[node] = calculator.calculate( data, -1, nodeDegrees, node, shortcutCounts[node], shortcutsOriginalEdges[node] );
+                progressListener.nextStep();
+            }
+            progressListener.init( nodeCount, 1.0 - INIT_NODE_RANKING );
+            final boolean[] selected = new boolean[nodeCount];
+            int[] contractedNeighbours = new int[nodeCount];
+            EffectiveUtils.fillArray( contractedNeighbours, -1 );
+            int rank = 1;
+            while ( !nodes.isEmpty() ) {
+                // select the independent set
+                execute( executor, witnessSearches, nodes.size(), new ContractionTask() {
+                    @Override
+                    public void run( WitnessSearch witnessSearch, int index ) {
+                        int node = nodes.get( index );
+                        selected[node] = isLocalMinimum( data, removedNodes, priorities, node );
+                    }
+                } );
+                final TIntList independentSet = new TIntArrayList();
+                for ( int i = 0; i < nodes.size(); i++ ) {
+                    int node = nodes.get( i );
+                    if ( selected[node] ) {
+                        independentSet.add( node );
+                        selected[node] = false;
+                        removedNodes.set( node, true );
                     }
                 }
-            }
-            //   for each target compare calculated SP with the shortest distance
-            for ( int to : targets ) {
-                if ( from == to ) {
-                    continue;
+                // calculate shortcuts of the independent set
+                final TIntList[] shortcuts = new TIntList[independentSet.size()];
+                execute( executor, witnessSearches, independentSet.size(), new ContractionTask() {
+                    @Override
+                    public void run( WitnessSearch witnessSearch, int index ) {
+                        shortcuts[index] = new TIntArrayList();
+                        witnessSearch.findShortcuts( data, removedNodes, independentSet.get( index ), shortcuts[index] );
+                    }
+                } );
+                // merge in the order of nodes
+                final TIntList neighbours = new TIntArrayList();
+                for ( int i = 0; i < independentSet.size(); i++ ) {
+                    int node = independentSet.get( i );
+                    TIntIterator incIt = data.getIncomingEdgesIterator( node );
+                    while ( incIt.hasNext() ) {
+                        int edge = incIt.next();
+                        int source = data.getOtherNode( edge, node );
+                        if ( !removedNodes.get( source ) ) {
+                            removeEdge( data, nodeDegrees, edge, node, source );
+                            if ( contractedNeighbours[source] != node ) {
+                                contractedNeighbours[source] = node;
+                                neighbours.add( source );
+                            }
+                        }
+                    }
+                    TIntIterator outIt = data.getOutgoingEdgesIterator( node );
+                    while ( outIt.hasNext() ) {
+                        int edge = outIt.next();
+                        int target = data.getOtherNode( edge, node );
+                        if ( !removedNodes.get( target ) ) {
+                            removeEdge( data, nodeDegrees, edge, node, target );
+                            if ( contractedNeighbours[target] != node ) {
+                                contractedNeighbours[target] = node;
+                                neighbours.add( target );
+                            }
+                        }
+                    }
+                    TIntList nodeShortcuts = shortcuts[i];
+                    for ( int j = 0; j < nodeShortcuts.size(); j += 2 ) {
+                        int startEdge = nodeShortcuts.get( j );
+                        int endEdge = nodeShortcuts.get( j + 1 );
+                        nodeDegrees[data.getSource( startEdge )]++;
+                        nodeDegrees[data.getTarget( endEdge )]++;
+                        data.addShortcut( startEdge, endEdge );
+                    }
+                    dataBuilder.setRank( graph.getNodeOrigId( node ), rank++ );
+                    progressListener.nextStep();
                 }
-//                System.out.println( "#" + node + " - path: " + from + " -> " + to );
-                float distance = nodeDistanceArray[to];
-                Trinity<Integer, Integer, Float> shortcutDistanceT = fromToDistanceMap.get( new Pair<>( from, to ) );
-                //   create shortcut if longer
-                if ( DoubleComparator.isLowerThan( shortcutDistanceT.c, distance, PRECISION ) ) {
-//                    System.out.println( "#" + node + " - creating shortcut: " + from + " -> " + to );
-                    // DEBUG
-//                    if ( graph.getNodeOrigId( from ) == nodeOfInterest || nodeOfInterest < 0 ) {
-//                        out.println( "#" + graph.getNodeOrigId( from ) + "-adding outgoing edge #" + data.shortcutCounter );
-//                    }
-//                    if ( graph.getNodeOrigId( to ) == nodeOfInterest || nodeOfInterest < 0 ) {
-//                        out.println( "#" + graph.getNodeOrigId( to ) + "-adding outgoing edge #" + data.shortcutCounter );
-//                    }
-                    nodeDegrees[from]++;
-                    nodeDegrees[to]++;
-                    data.addShortcut( shortcutDistanceT.a, shortcutDistanceT.b );
-                } else {
-//                    System.out.println( "#" + node + " - found path: " + distance );
+                // recalculate neighbours
+                execute( executor, witnessSearches, neighbours.size(), new ContractionTask() {
+                    @Override
+                    public void run( WitnessSearch witnessSearch, int index ) {
+                        int node = neighbours.get( index );
+                        shortcutCounts[node] = witnessSearch.findShortcuts( data, removedNodes, node, null );
+                        shortcutsOriginalEdges[node] = witnessSearch.getShortcutsOriginalEdges();
+                    }
+                } );
+                for ( int i = 0; i < neighbours.size(); i++ ) {
+                    int node = neighbours.get( i );
+                    priorities[node] = calculator.calculate( data, contractedNeighbours[node], nodeDegrees, node, shortcutCounts[node], shortcutsOriginalEdges[node] );
+                }
+                // keep the remaining nodes
+                int remaining = 0;
+                for ( int i = 0; i < nodes.size(); i++ ) {
+                    int node = nodes.get( i );
+                    if ( !removedNodes.get( node ) ) {
+                        nodes.set( remaining++, node );
+                    }
                 }
+                nodes.remove( remaining, nodes.size() - remaining );
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    // true if the node has the lowest priority (or the lowest id among equal priorities) in its 2-hop neighbourhood
+    private static boolean isLocalMinimum( ProcessingData data, BitArray removedNodes, double[] priorities, int node ) {
+        TIntIterator it = new NeighbourIterator( data, node );
+        while ( it.hasNext() ) {
+            int neighbour = it.next();
+            if ( removedNodes.get( neighbour ) ) {
+                continue;
             }
-            // reset node distances
-            for ( int visitedNode : visitedNodes ) {
-                nodeDistanceArray[visitedNode] = Float.MAX_VALUE;
+            if ( isPreceding( priorities, neighbour, node ) ) {
+                return false;
+            }
+            TIntIterator secondIt = new NeighbourIterator( data, neighbour );
+            while ( secondIt.hasNext() ) {
+                int secondNeighbour = secondIt.next();
+                if ( secondNeighbour != node && !removedNodes.get( secondNeighbour ) && isPreceding( priorities, secondNeighbour, node ) ) {
+                    return false;
+                }
             }
         }
+        return true;
+    }
 
+    private static boolean isPreceding( double[] priorities, int a, int b ) {
+        return priorities[a] < priorities[b] || ( priorities[a] == priorities[b] && a < b );
     }
 
-    // serves for easy comparison
-    private Pair<Integer, Double> extractMin( NodeDataStructure<Integer> priorityQueue, Graph graph ) {
-        double minValue = priorityQueue.minValue();
-        int minNode = priorityQueue.extractMin();
-        // DEBUG
-//        double precision = 0.001;
-//        List<Integer> mins = new ArrayList<>();
-//        int minNode = -1;
-//        while ( DoubleComparator.isEqualTo( priorityQueue.minValue(), minValue, precision ) ) {
-//            int n = priorityQueue.extractMin();
-//            mins.add( n );
-//            if ( minNode == -1 || graph.getNodeOrigId( n ) < graph.getNodeOrigId( minNode ) ) {
-//                minNode = n;
-//            }
-//        }
-//        for ( Integer min : mins ) {
-//            if ( !min.equals( minNode ) ) {
-//                priorityQueue.add( min, minValue );
-//            }
-//        }
-//        if ( graph.getNodeOrigId( minNode ) == nodeOfInterest || nodeOfInterest < 0 ) {
-//            out.println( "extracted: " + graph.getNodeOrigId( minNode ) + ", " + minValue );
-//        }
-        return new Pair<>( minNode, minValue );
+    // runs the task for each index of [0, count), a contiguous chunk per witness search
+    private static void execute( ExecutorService executor, final WitnessSearch[] witnessSearches, int count, final ContractionTask task ) {
+        ParallelUtils.executeInRanges( executor, witnessSearches.length, count, new ParallelUtils.RangeTask() {
+            @Override
+            public void run( int chunk, int begin, int end ) {
+                WitnessSearch witnessSearch = witnessSearches[chunk];
+                for ( int i = begin; i < end; i++ ) {
+                    task.run( witnessSearch, i );
+                }
+            }
+        } );
+    }
+
+    // current edge difference of a remaining node, for the extraction policy
+    private class ShortcutsPriorityEvaluator implements NodeExtractionPolicy.PriorityEvaluator {
+
+        private final ProcessingData data;
+        private final BitArray removedNodes;
+        private final int[] nodeDegrees;
+        private final WitnessSearch witnessSearch;
+
+        public ShortcutsPriorityEvaluator( ProcessingData data, BitArray removedNodes, int[] nodeDegrees, WitnessSearch witnessSearch ) {
+            this.data = data;
+            this.removedNodes = removedNodes;
+            this.nodeDegrees = nodeDegrees;
+            this.witnessSearch = witnessSearch;
+        }
+
+        @Override
+        public double evaluate( int node ) {
+            int numberOfShortcuts = calculateShortcuts( data, removedNodes, node, witnessSearch );
+            return nodeRecalculationStrategy.getEdgeDifferenceCalculator().calculate( data, -1, nodeDegrees, node, numberOfShortcuts, witnessSearch.getShortcutsOriginalEdges() );
+        }
+    }
+
+    // unit of work of a parallel phase, called for each index of the phase
+    private interface ContractionTask {
+
+        void run( WitnessSearch witnessSearch, int index );
+    }
+
+    // neighbours (both directions) of the given node, the removed ones included
+    private static class NeighbourIterator implements TIntIterator {
+
+        private final ProcessingData data;
+        private final int node;
+        private final TIntIterator out;
+        private final TIntIterator in;
+
+        public NeighbourIterator( ProcessingData data, int node ) {
+            this.data = data;
+            this.node = node;
+            this.out = data.getOutgoingEdgesIterator( node );
+            this.in = data.getIncomingEdgesIterator( node );
+        }
+
+        @Override
+        public boolean hasNext() {
+            return out.hasNext() || in.hasNext();
+        }
+
+        @Override
+        public int next() {
+            if ( out.hasNext() ) {
+                return data.getOtherNode( out.next(), node );
+            }
+            return data.getOtherNode( in.next(), node );
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException( "Not supported yet." );
+        }
     }
 
     // primitive array wrapper
@@ -614,6 +657,14 @@ public class ContractionHierarchiesPreprocessor implements Preprocessor<Preproce
         public final TIntList[] incomingShortcuts;
         public final TIntList[] outgoingShortcuts;
         public final TFloatList lengths = new TFloatArrayList();
+        // shortcut -> amount of original edges it represents
+        public final TIntList originalEdgeCounts = new TIntArrayList();
+        // node -> amount of original edges represented by its remaining edges and shortcuts
+        public final int[] originalEdgeDegrees;
+        // node -> hierarchy depth (longest chain of contracted neighbours)
+        public final int[] depths;
+        // maximal hierarchy depth so far
+        public int maxDepth = 0;
         public final Graph graph;
         private int shortcutCounter = 0;
 
@@ -621,6 +672,11 @@ public class ContractionHierarchiesPreprocessor implements Preprocessor<Preproce
             this.graph = graph;
             incomingShortcuts = new TIntArrayList[graph.getNodeCount()];
             outgoingShortcuts = new TIntArrayList[graph.getNodeCount()];
+            originalEdgeDegrees = new int[graph.getNodeCount()];
+            depths = new int[graph.getNodeCount()];
+            for ( int node = 0; node < graph.getNodeCount(); node++ ) {
+                originalEdgeDegrees[node] = graph.getNodeDegree( node );
+            }
         }
 
         public void addShortcut( int startEdge, int endEdge ) {
@@ -643,6 +699,10 @@ public class ContractionHierarchiesPreprocessor implements Preprocessor<Preproce
             endEdges.add( endEdge );
 //            System.out.println( "shortcut - end edges = " + endEdges );
             lengths.add( getLength( startEdge ) + getLength( endEdge ) );
+            int originalEdgeCount = getOriginalEdgeCount( startEdge ) + getOriginalEdgeCount( endEdge );
+            originalEdgeCounts.add( originalEdgeCount );
+            originalEdgeDegrees[source] += originalEdgeCount;
+            originalEdgeDegrees[target] += originalEdgeCount;
             if ( incomingShortcuts[target] == null ) {
                 incomingShortcuts[target] = new TIntArrayList();
             }
@@ -666,6 +726,9 @@ public class ContractionHierarchiesPreprocessor implements Preprocessor<Preproce
             startEdges.removeAt( shortcutCounter );
             endEdges.removeAt( shortcutCounter );
             lengths.removeAt( shortcutCounter );
+            int originalEdgeCount = originalEdgeCounts.removeAt( shortcutCounter );
+            originalEdgeDegrees[source] -= originalEdgeCount;
+            originalEdgeDegrees[target] -= originalEdgeCount;
             outgoingShortcuts[source].removeAt( outgoingShortcuts[source].size() - 1 );
             incomingShortcuts[target].removeAt( incomingShortcuts[target].size() - 1 );
         }
@@ -678,6 +741,30 @@ public class ContractionHierarchiesPreprocessor implements Preprocessor<Preproce
             return edge < ( graph.getEdgeCount() + size() );
         }
 
+        public int getIncomingEdgesCount( int node ) {
+            return graph.getIncomingEdgesCount( node ) + ( incomingShortcuts[node] != null ? incomingShortcuts[node].size() : 0 );
+        }
+
+        public int getIncomingEdge( int node, int index ) {
+            int edgeCount = graph.getIncomingEdgesCount( node );
+            if ( index < edgeCount ) {
+                return graph.getIncomingEdge( node, index );
+            }
+            return incomingShortcuts[node].get( index - edgeCount );
+        }
+
+        public int getOutgoingEdgesCount( int node ) {
+            return graph.getOutgoingEdgesCount( node ) + ( outgoingShortcuts[node] != null ? outgoingShortcuts[node].size() : 0 );
+        }
+
+        public int getOutgoingEdge( int node, int index ) {
+            int edgeCount = graph.getOutgoingEdgesCount( node );
+            if ( index < edgeCount ) {
+                return graph.getOutgoingEdge( node, index );
+            }
+            return outgoingShortcuts[node].get( index - edgeCount );
+        }
+
         public TIntIterator getIncomingEdgesIterator( int node ) {
             return new IncomingIterator( graph, node );
         }
@@ -716,6 +803,13 @@ public class ContractionHierarchiesPreprocessor implements Preprocessor<Preproce
             return targets.get( edge - graph.getEdgeCount() );
         }
 
+        public int getOriginalEdgeCount( int edge ) {
+            if ( edge < graph.getEdgeCount() ) {
+                return 1;
+            }
+            return originalEdgeCounts.get( edge - graph.getEdgeCount() );
+        }
+
         public float getLength( int edge ) {
             if ( edge < graph.getEdgeCount() ) {
                 return graph.getLength( edge );
@@ -736,24 +830,21 @@ public class ContractionHierarchiesPreprocessor implements Preprocessor<Preproce
             }
 
             @Override
-            public boolean hasNext() { // ... see note at NeighbourListGraph
+            public boolean hasNext() { // ... see note at NeighbourListGraph, does not modify the data (concurrent reading)
 //                System.out.println( "#" + node + " - IN counter = " + position );
-                if ( incomingShortcuts[node] == null ) {
-                    incomingShortcuts[node] = new TIntArrayList();
-                }
-//                System.out.println( "#" + node + " - IN comparison: " + ( position + 1 ) + " < " + graph.getIncomingEdges( node ).length + " + " + incomingShortcuts[node].size() );
-//                System.out.println( "#" + node + " - IN has next = " + ( position + 1 < graph.getIncomingEdges( node ).length + incomingShortcuts[node].size() ) );
-                return position + 1 < graph.getIncomingEdges( node ).length + incomingShortcuts[node].size();
+//                System.out.println( "#" + node + " - IN comparison: " + ( position + 1 ) + " < " + graph.getIncomingEdgesCount( node ) + " + " + incomingShortcuts[node].size() );
+//                System.out.println( "#" + node + " - IN has next = " + ( position + 1 < graph.getIncomingEdgesCount( node ) + incomingShortcuts[node].size() ) );
+                return position + 1 < graph.getIncomingEdgesCount( node ) + ( incomingShortcuts[node] != null ? incomingShortcuts[node].size() : 0 );
             }
 
             @Override
             public int next() {
                 int next;
                 position++;
-                if ( position < graph.getIncomingEdges( node ).length ) {
-                    next = graph.getIncomingEdges( node )[position];
+                if ( position < graph.getIncomingEdgesCount( node ) ) {
+                    next = graph.getIncomingEdge( node, position );
                 } else {
-                    next = incomingShortcuts[node].get( position - graph.getIncomingEdges( node ).length );
+                    next = incomingShortcuts[node].get( position - graph.getIncomingEdgesCount( node ) );
                 }
 //                System.out.println( "#" + node + " - next = " + next );
                 return next;
@@ -782,11 +873,8 @@ public class ContractionHierarchiesPreprocessor implements Preprocessor<Preproce
             public boolean hasNext() { // see above, analogically
 //                System.out.println( "#" + node + " - OUT counter = " + position );
                 boolean hasNext;
-                if ( outgoingShortcuts[node] == null ) {
-                    outgoingShortcuts[node] = new TIntArrayList();
-                }
-                hasNext = position + 1 < graph.getOutgoingEdges( node ).length + outgoingShortcuts[node].size();
-//                System.out.println( "#" + node + " - OUT comparison: " + ( position + 1 ) + " < " + graph.getOutgoingEdges( node ).length + " + " + outgoingShortcuts[node].size() );
+                hasNext = position + 1 < graph.getOutgoingEdgesCount( node ) + ( outgoingShortcuts[node] != null ? outgoingShortcuts[node].size() : 0 );
+//                System.out.println( "#" + node + " - OUT comparison: " + ( position + 1 ) + " < " + graph.getOutgoingEdgesCount( node ) + " + " + outgoingShortcuts[node].size() );
 //                System.out.println( "#" + node + " - OUT has next = " + hasNext );
                 return hasNext;
             }
@@ -795,10 +883,10 @@ public class ContractionHierarchiesPreprocessor implements Preprocessor<Preproce
             public int next() {
                 int next;
                 position++;
-                if ( position < graph.getOutgoingEdges( node ).length ) {
-                    next = graph.getOutgoingEdges( node )[position];
+                if ( position < graph.getOutgoingEdgesCount( node ) ) {
+                    next = graph.getOutgoingEdge( node, position );
                 } else {
-                    next = outgoingShortcuts[node].get( position - graph.getOutgoingEdges( node ).length );
+                    next = outgoingShortcuts[node].get( position - graph.getOutgoingEdgesCount( node ) );
                 }
 //                System.out.println( "#" + node + " - next = " + next );
 //                System.out.println( "#" + node + "outgoing shorctus " + outgoingShortcuts[node] );
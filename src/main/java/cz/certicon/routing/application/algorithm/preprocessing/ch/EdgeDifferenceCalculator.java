@@ -5,6 +5,8 @@
  */
 package cz.certicon.routing.application.algorithm.preprocessing.ch;
 
+import cz.certicon.routing.application.algorithm.preprocessing.ch.ContractionHierarchiesPreprocessor.ProcessingData;
+
 /**
  * Edge difference is an indicator used as a part of priority queue key. It
  * helps to determine the next contracted node. This interface offers
@@ -17,14 +19,20 @@ public interface EdgeDifferenceCalculator {
     /**
      * Calculates the ED (edge difference) for the given node N based on the
      * node degrees, number of shortcuts and also previously contracted node.
+     * Further information (original edges represented by the edges and
+     * shortcuts, hierarchy depth of the nodes) is available in the processing
+     * data.
      *
+     * @param data currently processed data so far
      * @param contractedNode the node that was just contracted, input -1 if none
      * was
      * @param nodeDegrees array of node degrees
      * @param node the node N for which the edge difference is calculated
      * @param numberOfShortcuts number of shortcuts for the node N
+     * @param shortcutsOriginalEdges total number of original edges represented
+     * by the shortcuts for the node N
      * @return edge difference of the node N
      */
-    public int calculate( int contractedNode, int[] nodeDegrees, int node, int numberOfShortcuts );
+    public double calculate( ProcessingData data, int contractedNode, int[] nodeDegrees, int node, int numberOfShortcuts, int shortcutsOriginalEdges );
 
 }
@@ -0,0 +1,50 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm.preprocessing.ch;
+
+import cz.certicon.routing.application.algorithm.NodeDataStructure;
+
+/**
+ * Interface determining the next node to be contracted. Principle: the
+ * priority queue contains all the remaining nodes with their (possibly
+ * outdated) priorities, the policy extracts the node to be contracted next. It
+ * may re-evaluate the priorities of the remaining nodes via the supplied
+ * {@link PriorityEvaluator} before the extraction.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public interface NodeExtractionPolicy {
+
+    /**
+     * Resets the state of the policy, called at the start of each contraction
+     */
+    public void init();
+
+    /**
+     * Extracts the next node to be contracted from the priority queue
+     *
+     * @param priorityQueue simple integer priority queue of the remaining
+     * nodes, not empty
+     * @param evaluator evaluator of the current priority of a remaining node
+     * @return node to be contracted (removed from the queue)
+     */
+    public int extractNode( NodeDataStructure<Integer> priorityQueue, PriorityEvaluator evaluator );
+
+    /**
+     * Evaluator of the current priority of a node, supplied by the
+     * preprocessor. Each evaluation performs the witness search for the node.
+     */
+    public interface PriorityEvaluator {
+
+        /**
+         * Calculates the current priority of the given (remaining) node
+         *
+         * @param node the node
+         * @return current priority (edge difference) of the node
+         */
+        public double evaluate( int node );
+    }
+}
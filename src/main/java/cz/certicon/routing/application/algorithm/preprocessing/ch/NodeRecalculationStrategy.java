@@ -19,8 +19,9 @@ import gnu.trove.iterator.TIntIterator;
  * iterator. While iterating the nodes, each should have its shortcuts
  * calculated and after calculation, the onShortcutsCalculated method should be
  * called. This is important to perform BEFORE the iterators next operation,
- * because in can change the following node (see
- * {@link LazyRecalculationStrategy} for example)
+ * because in can change the following node. Strategies updating the nodes
+ * lazily (see {@link LazyRecalculationStrategy}) implement the
+ * {@link NodeExtractionPolicy} as well.
  *
  * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
  */
@@ -43,14 +44,17 @@ public interface NodeRecalculationStrategy {
      * Call when shortcuts get calculated for the node N
      *
      * @param graph an input graph
+     * @param data processing data (graph wrapper)
      * @param nodeDegrees an array of node degrees
      * @param node the node N to be recalculated
      * @param priorityQueue simple integer priority queue
      * @param shortcuts number of shortcuts for this node N
+     * @param shortcutsOriginalEdges total number of original edges represented
+     * by the shortcuts for this node N
      * @param contractedNode recently/last contracted node or -1 if none such
      * exists
      */
-    public void onShortcutsCalculated( Graph graph, int[] nodeDegrees, int node, NodeDataStructure<Integer> priorityQueue, int shortcuts, int contractedNode );
+    public void onShortcutsCalculated( Graph graph, ContractionHierarchiesPreprocessor.ProcessingData data, int[] nodeDegrees, int node, NodeDataStructure<Integer> priorityQueue, int shortcuts, int shortcutsOriginalEdges, int contractedNode );
 
     /**
      * Setter
@@ -0,0 +1,238 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm.preprocessing.ch;
+
+import cz.certicon.routing.application.algorithm.datastructures.DAryHeapDataStructure;
+import cz.certicon.routing.application.algorithm.preprocessing.ch.ContractionHierarchiesPreprocessor.ProcessingData;
+import cz.certicon.routing.utils.DoubleComparator;
+import cz.certicon.routing.utils.EffectiveUtils;
+import cz.certicon.routing.utils.efficient.BitArray;
+import gnu.trove.list.TIntList;
+import gnu.trove.list.array.TFloatArrayList;
+import gnu.trove.list.array.TIntArrayList;
+
+/**
+ * Reusable witness search engine of the Contraction Hierarchies preprocessing.
+ * For the given node determines, which shortcuts have to be inserted should
+ * the node be removed: for each pair of its (non-removed) neighbours, the path
+ * through the node is compared with the shortest path avoiding the node
+ * (witness), found by a Dijkstra search bounded by the longest path through
+ * the node. The search may be further limited by the amount of hops and the
+ * amount of settled nodes - a witness might be missed then, which only adds
+ * (valid) shortcuts.
+ *
+ * All the state is kept in primitive arrays allocated once in the constructor,
+ * only the touched nodes are reset after each search, so the engine does not
+ * allocate per node. Not thread-safe, each thread needs its own instance.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class WitnessSearch {
+
+    /**
+     * Value of the limits, which represents no limit
+     */
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    private static final double PRECISION = 10E-3;
+
+    private final DAryHeapDataStructure queue;
+    private final float[] distances;
+    private final int[] hops;
+    private final TIntArrayList touchedNodes = new TIntArrayList();
+    private final TIntArrayList sourceNodes = new TIntArrayList();
+    private final TIntArrayList sourceEdges = new TIntArrayList();
+    private final TFloatArrayList sourceLengths = new TFloatArrayList();
+    private final TIntArrayList targetNodes = new TIntArrayList();
+    private final TIntArrayList targetEdges = new TIntArrayList();
+    private final TFloatArrayList targetLengths = new TFloatArrayList();
+    private int hopLimit = UNLIMITED;
+    private int settledNodesLimit = UNLIMITED;
+    private int shortcutsOriginalEdges = 0;
+
+    /**
+     * Constructor
+     *
+     * @param nodeCount amount of nodes in the graph
+     */
+    public WitnessSearch( int nodeCount ) {
+        this.queue = new DAryHeapDataStructure( nodeCount );
+        this.distances = new float[nodeCount];
+        this.hops = new int[nodeCount];
+        EffectiveUtils.fillArray( distances, Float.MAX_VALUE );
+    }
+
+    /**
+     * Sets maximal amount of edges (hops) of a witness path, unlimited by
+     * default
+     *
+     * @param hopLimit maximal amount of hops, positive
+     */
+    public void setHopLimit( int hopLimit ) {
+        if ( hopLimit < 1 ) {
+            throw new IllegalArgumentException( "Hop limit must be positive: " + hopLimit );
+        }
+        this.hopLimit = hopLimit;
+    }
+
+    /**
+     * Sets maximal amount of nodes settled by a single search (from a single
+     * neighbour), unlimited by default
+     *
+     * @param settledNodesLimit maximal amount of settled nodes, positive
+     */
+    public void setSettledNodesLimit( int settledNodesLimit ) {
+        if ( settledNodesLimit < 1 ) {
+            throw new IllegalArgumentException( "Settled nodes limit must be positive: " + settledNodesLimit );
+        }
+        this.settledNodesLimit = settledNodesLimit;
+    }
+
+    /**
+     * Finds shortcuts required by the removal of the given node without
+     * modifying the processing data (the shortcuts found for one neighbour are
+     * not used as witnesses for the others). The node itself is always avoided
+     * by the search, regardless of being marked as removed.
+     *
+     * @param data currently processed data so far
+     * @param removedNodes array indicating removed nodes (avoided by the
+     * search)
+     * @param node the contracted node
+     * @param shortcuts output list of pairs (start edge, end edge) or null if
+     * only the number of shortcuts is required
+     * @return number of shortcuts required
+     */
+    public int findShortcuts( ProcessingData data, BitArray removedNodes, int node, TIntList shortcuts ) {
+        return search( data, removedNodes, node, shortcuts, false );
+    }
+
+    /**
+     * Finds shortcuts required by the removal of the given node and adds them
+     * to the processing data immediately, so that they serve as witnesses for
+     * the remaining neighbours. The added shortcuts are the last ones of the
+     * processing data. The node itself is always avoided by the search,
+     * regardless of being marked as removed.
+     *
+     * @param data currently processed data so far
+     * @param removedNodes array indicating removed nodes (avoided by the
+     * search)
+     * @param node the contracted node
+     * @return number of shortcuts added
+     */
+    public int addShortcuts( ProcessingData data, BitArray removedNodes, int node ) {
+        return search( data, removedNodes, node, null, true );
+    }
+
+    /**
+     * Returns total number of original edges represented by the shortcuts
+     * found by the last search
+     *
+     * @return number of original edges
+     */
+    public int getShortcutsOriginalEdges() {
+        return shortcutsOriginalEdges;
+    }
+
+    private int search( ProcessingData data, BitArray removedNodes, int node, TIntList shortcuts, boolean add ) {
+        // the shortest edge from each source and to each target
+        collectNeighbours( data, removedNodes, node, true, sourceNodes, sourceEdges, sourceLengths );
+        collectNeighbours( data, removedNodes, node, false, targetNodes, targetEdges, targetLengths );
+        float maxTargetLength = 0;
+        for ( int i = 0; i < targetLengths.size(); i++ ) {
+            maxTargetLength = Math.max( maxTargetLength, targetLengths.get( i ) );
+        }
+        int count = 0;
+        shortcutsOriginalEdges = 0;
+        for ( int i = 0; i < sourceNodes.size(); i++ ) {
+            int from = sourceNodes.get( i );
+            float sourceLength = sourceLengths.get( i );
+            //   use the longest distance as an upper bound
+            dijkstra( data, removedNodes, node, from, sourceLength + maxTargetLength );
+            //   for each target compare calculated SP with the path through the node
+            for ( int j = 0; j < targetNodes.size(); j++ ) {
+                int to = targetNodes.get( j );
+                if ( from != to && DoubleComparator.isLowerThan( sourceLength + targetLengths.get( j ), distances[to], PRECISION ) ) {
+                    count++;
+                    shortcutsOriginalEdges += data.getOriginalEdgeCount( sourceEdges.get( i ) ) + data.getOriginalEdgeCount( targetEdges.get( j ) );
+                    if ( shortcuts != null ) {
+                        shortcuts.add( sourceEdges.get( i ) );
+                        shortcuts.add( targetEdges.get( j ) );
+                    }
+                    if ( add ) {
+                        data.addShortcut( sourceEdges.get( i ), targetEdges.get( j ) );
+                    }
+                }
+            }
+            reset();
+        }
+        return count;
+    }
+
+    private void dijkstra( ProcessingData data, BitArray removedNodes, int node, int from, float upperBound ) {
+        distances[from] = 0;
+        hops[from] = 0;
+        touchedNodes.add( from );
+        queue.update( from, 0 );
+        int settledNodes = 0;
+        while ( !queue.isEmpty() ) {
+            int currentNode = queue.extractMinNode();
+            float currentDistance = distances[currentNode];
+            if ( DoubleComparator.isLowerThan( upperBound, currentDistance, PRECISION ) || ++settledNodes > settledNodesLimit ) {
+                queue.clear();
+                break;
+            }
+            if ( hops[currentNode] >= hopLimit ) {
+                continue;
+            }
+            int edgesCount = data.getOutgoingEdgesCount( currentNode );
+            for ( int i = 0; i < edgesCount; i++ ) {
+                int edge = data.getOutgoingEdge( currentNode, i );
+                int target = data.getTarget( edge );
+                float newDistance = currentDistance + data.getLength( edge );
+                // if the target is active (removal simulation)
+                if ( target != node && !removedNodes.get( target ) && DoubleComparator.isLowerThan( newDistance, distances[target], PRECISION ) ) {
+                    if ( distances[target] == Float.MAX_VALUE ) {
+                        touchedNodes.add( target );
+                    }
+                    distances[target] = newDistance;
+                    hops[target] = hops[currentNode] + 1;
+                    queue.update( target, newDistance );
+                }
+            }
+        }
+    }
+
+    private void reset() {
+        for ( int i = 0; i < touchedNodes.size(); i++ ) {
+            distances[touchedNodes.get( i )] = Float.MAX_VALUE;
+        }
+        touchedNodes.resetQuick();
+    }
+
+    private static void collectNeighbours( ProcessingData data, BitArray removedNodes, int node, boolean incoming, TIntArrayList nodes, TIntArrayList edges, TFloatArrayList lengths ) {
+        nodes.resetQuick();
+        edges.resetQuick();
+        lengths.resetQuick();
+        int edgesCount = incoming ? data.getIncomingEdgesCount( node ) : data.getOutgoingEdgesCount( node );
+        for ( int i = 0; i < edgesCount; i++ ) {
+            int edge = incoming ? data.getIncomingEdge( node, i ) : data.getOutgoingEdge( node, i );
+            int neighbour = incoming ? data.getSource( edge ) : data.getTarget( edge );
+            if ( neighbour == node || removedNodes.get( neighbour ) ) {
+                continue;
+            }
+            float length = data.getLength( edge );
+            int index = nodes.indexOf( neighbour );
+            if ( index < 0 ) {
+                nodes.add( neighbour );
+                edges.add( edge );
+                lengths.add( length );
+            } else if ( DoubleComparator.isLowerThan( length, lengths.get( index ), PRECISION ) ) {
+                edges.set( index, edge );
+                lengths.set( index, length );
+            }
+        }
+    }
+}
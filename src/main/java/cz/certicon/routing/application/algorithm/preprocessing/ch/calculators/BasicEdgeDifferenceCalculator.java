@@ -5,6 +5,7 @@
  */
 package cz.certicon.routing.application.algorithm.preprocessing.ch.calculators;
 
+import cz.certicon.routing.application.algorithm.preprocessing.ch.ContractionHierarchiesPreprocessor.ProcessingData;
 import cz.certicon.routing.application.algorithm.preprocessing.ch.EdgeDifferenceCalculator;
 
 /**
@@ -16,7 +17,7 @@ import cz.certicon.routing.application.algorithm.preprocessing.ch.EdgeDifference
 public class BasicEdgeDifferenceCalculator implements EdgeDifferenceCalculator {
 
     @Override
-    public int calculate( int contractedNode, int[] nodeDegrees, int node, int numberOfShortcuts ) {
+    public double calculate( ProcessingData data, int contractedNode, int[] nodeDegrees, int node, int numberOfShortcuts, int shortcutsOriginalEdges ) {
         return numberOfShortcuts - nodeDegrees[node];
     }
 
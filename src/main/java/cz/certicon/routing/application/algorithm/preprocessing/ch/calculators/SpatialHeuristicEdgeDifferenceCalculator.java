@@ -5,6 +5,7 @@
  */
 package cz.certicon.routing.application.algorithm.preprocessing.ch.calculators;
 
+import cz.certicon.routing.application.algorithm.preprocessing.ch.ContractionHierarchiesPreprocessor.ProcessingData;
 import cz.certicon.routing.application.algorithm.preprocessing.ch.EdgeDifferenceCalculator;
 import cz.certicon.routing.utils.EffectiveUtils;
 
@@ -30,7 +31,7 @@ public class SpatialHeuristicEdgeDifferenceCalculator implements EdgeDifferenceC
     }
 
     @Override
-    public int calculate( int contractedNode, int[] nodeDegrees, int node, int numberOfShortcuts ) {
+    public double calculate( ProcessingData data, int contractedNode, int[] nodeDegrees, int node, int numberOfShortcuts, int shortcutsOriginalEdges ) {
         if ( contractedNode != -1 ) {
             if ( contractedNode != lastNodeContractedArray[node] ) {
                 contractedNeighboursCountArray[node]++;
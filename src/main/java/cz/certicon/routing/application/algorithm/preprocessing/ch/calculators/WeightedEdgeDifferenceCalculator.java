@@ -0,0 +1,74 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm.preprocessing.ch.calculators;
+
+import cz.certicon.routing.application.algorithm.preprocessing.ch.ContractionHierarchiesPreprocessor.ProcessingData;
+import cz.certicon.routing.application.algorithm.preprocessing.ch.EdgeDifferenceCalculator;
+
+/**
+ * Weighted implementation of the {@link EdgeDifferenceCalculator} interface.
+ * Combines three terms: the edge quotient (number of shortcuts divided by the
+ * degree of the node), the original edges quotient (number of original edges
+ * represented by the shortcuts divided by the number of original edges
+ * represented by the removed edges) and the relative hierarchy depth of the
+ * node (longest chain of contracted neighbours leading to it, divided by the
+ * maximal depth so far plus one). The quotients favor nodes, whose removal
+ * shrinks the graph, the depth spreads the contraction uniformly over the
+ * graph. The depth is normalized to [0, 1), so that it stays on the scale of
+ * the quotients (bounded by the node degree) - the raw depth grows with each
+ * level of the hierarchy and would soon dominate the quotients, which leads
+ * to more shortcuts than the basic edge difference.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class WeightedEdgeDifferenceCalculator implements EdgeDifferenceCalculator {
+
+    /**
+     * Default weight of the edge quotient
+     */
+    public static final double DEFAULT_EDGE_QUOTIENT_WEIGHT = 2;
+    /**
+     * Default weight of the original edges quotient
+     */
+    public static final double DEFAULT_ORIGINAL_EDGES_WEIGHT = 1;
+    /**
+     * Default weight of the relative hierarchy depth
+     */
+    public static final double DEFAULT_DEPTH_WEIGHT = 1;
+
+    private final double edgeQuotientWeight;
+    private final double originalEdgesWeight;
+    private final double depthWeight;
+
+    /**
+     * Constructor, uses the default weights
+     */
+    public WeightedEdgeDifferenceCalculator() {
+        this( DEFAULT_EDGE_QUOTIENT_WEIGHT, DEFAULT_ORIGINAL_EDGES_WEIGHT, DEFAULT_DEPTH_WEIGHT );
+    }
+
+    /**
+     * Constructor
+     *
+     * @param edgeQuotientWeight weight of the edge quotient
+     * @param originalEdgesWeight weight of the original edges quotient
+     * @param depthWeight weight of the relative hierarchy depth
+     */
+    public WeightedEdgeDifferenceCalculator( double edgeQuotientWeight, double originalEdgesWeight, double depthWeight ) {
+        this.edgeQuotientWeight = edgeQuotientWeight;
+        this.originalEdgesWeight = originalEdgesWeight;
+        this.depthWeight = depthWeight;
+    }
+
+    @Override
+    public double calculate( ProcessingData data, int contractedNode, int[] nodeDegrees, int node, int numberOfShortcuts, int shortcutsOriginalEdges ) {
+        double edgeQuotient = (double) numberOfShortcuts / Math.max( 1, nodeDegrees[node] );
+        double originalEdgesQuotient = (double) shortcutsOriginalEdges / Math.max( 1, data.originalEdgeDegrees[node] );
+        double relativeDepth = data.depths[node] / ( 1.0 + data.maxDepth );
+        return edgeQuotientWeight * edgeQuotient + originalEdgesWeight * originalEdgesQuotient + depthWeight * relativeDepth;
+    }
+
+}
@@ -8,67 +8,115 @@ package cz.certicon.routing.application.algorithm.preprocessing.ch.strategies;
 import cz.certicon.routing.application.algorithm.NodeDataStructure;
 import cz.certicon.routing.application.algorithm.preprocessing.ch.ContractionHierarchiesPreprocessor;
 import cz.certicon.routing.application.algorithm.preprocessing.ch.EdgeDifferenceCalculator;
+import cz.certicon.routing.application.algorithm.preprocessing.ch.NodeExtractionPolicy;
 import cz.certicon.routing.application.algorithm.preprocessing.ch.NodeRecalculationStrategy;
 import cz.certicon.routing.application.algorithm.preprocessing.ch.calculators.BasicEdgeDifferenceCalculator;
 import cz.certicon.routing.model.entity.Graph;
 import gnu.trove.iterator.TIntIterator;
+import gnu.trove.list.array.TIntArrayList;
+import java.util.Iterator;
 
 /**
- * Lazy update implementation of the {@link NodeRecalculationStrategy}
- * interface. The node is recalculated on demand, then the evaluation repeats.
- * 
- * @deprecated not working yet
+ * Lazy update implementation of the {@link NodeRecalculationStrategy} and
+ * {@link NodeExtractionPolicy} interfaces. No node is recalculated after the
+ * contraction, instead the extracted candidate gets re-evaluated and if its
+ * priority is no longer minimal, it is returned to the queue and the
+ * extraction repeats. Additionally, all the remaining nodes are re-evaluated
+ * once the amount of nodes contracted since the last full re-evaluation
+ * reaches the given ratio of the remaining nodes (see
+ * {@link #setFullRecalculationRatio(double)}). The preprocessor uses this
+ * strategy as its extraction policy automatically.
  *
  * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
  */
-public class LazyRecalculationStrategy implements NodeRecalculationStrategy, TIntIterator {
+public class LazyRecalculationStrategy implements NodeRecalculationStrategy, NodeExtractionPolicy {
+
+    /**
+     * Default ratio of the full re-evaluation, see
+     * {@link #setFullRecalculationRatio(double)}
+     */
+    public static final double DEFAULT_FULL_RECALCULATION_RATIO = 0.5;
+
     // DEBUG
     public ContractionHierarchiesPreprocessor preprocessor;
 
     private EdgeDifferenceCalculator edgeDifferenceCalculator = new BasicEdgeDifferenceCalculator();
 
-    private NodeDataStructure<Integer> priorityQueue;
-    private ContractionHierarchiesPreprocessor.ProcessingData data;
-    private boolean calculate;
+    private double fullRecalculationRatio = DEFAULT_FULL_RECALCULATION_RATIO;
+    private int contractedSinceRecalculation = 0;
+    private final TIntArrayList remainingNodes = new TIntArrayList();
 
-    @Override
-    public TIntIterator recalculationIterator( Graph graph, ContractionHierarchiesPreprocessor.ProcessingData data, int contractedNode, NodeDataStructure<Integer> priorityQueue ) {
-        this.priorityQueue = priorityQueue;
-        this.data = data;
-        this.calculate = true;
-//        return this;
-        throw new UnsupportedOperationException( "Not supported yet. Does not work with the current concept." ); //To change body of generated methods, choose Tools | Templates.
+    /**
+     * Sets ratio of the full re-evaluation: all the remaining nodes are
+     * re-evaluated once the amount of nodes contracted since the last full
+     * re-evaluation reaches ratio * amount of the remaining nodes. Use
+     * {@link Double#POSITIVE_INFINITY} to disable the full re-evaluation.
+     *
+     * @param fullRecalculationRatio positive ratio
+     */
+    public void setFullRecalculationRatio( double fullRecalculationRatio ) {
+        if ( !( fullRecalculationRatio > 0 ) ) {
+            throw new IllegalArgumentException( "Ratio must be positive: " + fullRecalculationRatio );
+        }
+        this.fullRecalculationRatio = fullRecalculationRatio;
     }
 
     @Override
-    public void onShortcutsCalculated( Graph graph, int[] nodeDegrees, int node, NodeDataStructure<Integer> priorityQueue, int shortcuts, int contractedNode ) {
-        int ed = edgeDifferenceCalculator.calculate( contractedNode, nodeDegrees, node, shortcuts );
-        calculate = ( ed > priorityQueue.minValue() );
-        priorityQueue.add( node, ed );
+    public void init() {
+        contractedSinceRecalculation = 0;
     }
 
     @Override
-    public void setEdgeDifferenceCalculator( EdgeDifferenceCalculator edgeDifferenceCalculator ) {
-        this.edgeDifferenceCalculator = edgeDifferenceCalculator;
+    public int extractNode( NodeDataStructure<Integer> priorityQueue, PriorityEvaluator evaluator ) {
+        if ( contractedSinceRecalculation >= fullRecalculationRatio * priorityQueue.size() ) {
+            // periodic full re-evaluation
+            remainingNodes.resetQuick();
+            Iterator<Integer> it = priorityQueue.iterator();
+            while ( it.hasNext() ) {
+                remainingNodes.add( it.next() );
+            }
+            for ( int i = 0; i < remainingNodes.size(); i++ ) {
+                int node = remainingNodes.get( i );
+                priorityQueue.notifyDataChange( node, evaluator.evaluate( node ) );
+            }
+            contractedSinceRecalculation = 0;
+        }
+        contractedSinceRecalculation++;
+        while ( true ) {
+            int node = priorityQueue.extractMin();
+            if ( priorityQueue.isEmpty() ) {
+                return node;
+            }
+            double priority = evaluator.evaluate( node );
+            if ( priority <= priorityQueue.minValue() ) {
+                return node;
+            }
+            // outdated, try the next one
+            priorityQueue.add( node, priority );
+        }
     }
 
     @Override
-    public EdgeDifferenceCalculator getEdgeDifferenceCalculator() {
-        return edgeDifferenceCalculator;
+    public TIntIterator recalculationIterator( Graph graph, ContractionHierarchiesPreprocessor.ProcessingData data, int contractedNode, NodeDataStructure<Integer> priorityQueue ) {
+        // nothing is recalculated eagerly
+        return new TIntArrayList( 0 ).iterator();
     }
 
     @Override
-    public int next() {
-        return priorityQueue.extractMin();
+    public void onShortcutsCalculated( Graph graph, ContractionHierarchiesPreprocessor.ProcessingData data, int[] nodeDegrees, int node, NodeDataStructure<Integer> priorityQueue, int shortcuts, int shortcutsOriginalEdges, int contractedNode ) {
+        if ( priorityQueue.contains( node ) ) {
+            double ed = edgeDifferenceCalculator.calculate( data, contractedNode, nodeDegrees, node, shortcuts, shortcutsOriginalEdges );
+            priorityQueue.notifyDataChange( node, ed );
+        }
     }
 
     @Override
-    public boolean hasNext() {
-        return !priorityQueue.isEmpty() && calculate;
+    public void setEdgeDifferenceCalculator( EdgeDifferenceCalculator edgeDifferenceCalculator ) {
+        this.edgeDifferenceCalculator = edgeDifferenceCalculator;
     }
 
     @Override
-    public void remove() {
-        throw new UnsupportedOperationException( "Not supported yet." ); //To change body of generated methods, choose Tools | Templates.
+    public EdgeDifferenceCalculator getEdgeDifferenceCalculator() {
+        return edgeDifferenceCalculator;
     }
 }
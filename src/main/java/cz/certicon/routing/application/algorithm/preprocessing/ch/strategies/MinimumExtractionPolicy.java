@@ -0,0 +1,30 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.application.algorithm.preprocessing.ch.strategies;
+
+import cz.certicon.routing.application.algorithm.NodeDataStructure;
+import cz.certicon.routing.application.algorithm.preprocessing.ch.NodeExtractionPolicy;
+
+/**
+ * Default implementation of the {@link NodeExtractionPolicy} interface.
+ * Extracts the node with the lowest priority as it is, relies on the
+ * {@link NeighboursOnlyRecalculationStrategy} (or similar) to keep the
+ * priorities up to date.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class MinimumExtractionPolicy implements NodeExtractionPolicy {
+
+    @Override
+    public void init() {
+    }
+
+    @Override
+    public int extractNode( NodeDataStructure<Integer> priorityQueue, PriorityEvaluator evaluator ) {
+        return priorityQueue.extractMin();
+    }
+
+}
@@ -34,9 +34,9 @@ public class NeighboursOnlyRecalculationStrategy implements NodeRecalculationStr
     }
 
     @Override
-    public void onShortcutsCalculated( Graph graph, int[] nodeDegrees, int node, NodeDataStructure<Integer> priorityQueue, int shortcuts, int contractedNode ) {
+    public void onShortcutsCalculated( Graph graph, ContractionHierarchiesPreprocessor.ProcessingData data, int[] nodeDegrees, int node, NodeDataStructure<Integer> priorityQueue, int shortcuts, int shortcutsOriginalEdges, int contractedNode ) {
         if ( priorityQueue.contains( node ) ) {
-            int ed = edgeDifferenceCalculator.calculate( contractedNode, nodeDegrees, node, shortcuts );
+            double ed = edgeDifferenceCalculator.calculate( data, contractedNode, nodeDegrees, node, shortcuts, shortcutsOriginalEdges );
             // DEBUG
 //            if ( graph.getNodeOrigId( node ) == preprocessor.nodeOfInterest || preprocessor.nodeOfInterest < 0 ) {
 //                preprocessor.out.println( "ED for #" + graph.getNodeOrigId( node ) + " = " + ed );
@@ -0,0 +1,204 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Little-endian memory-mapped file of any size. A single
+ * {@link MappedByteBuffer} is limited to 2 GB (int positions), so the file is
+ * mapped in chunks of a fixed power-of-two size and addressed by long
+ * positions. The values never cross a chunk boundary as long as each value is
+ * aligned to its size (ints and floats to 4 bytes, longs to 8 bytes), which
+ * the binary formats using this class guarantee by their layout.
+ *
+ * The absolute getters are thread-safe, the relative putters (used for the
+ * sequential writing) are not.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class ChunkedMappedBuffer {
+
+    /**
+     * Default size of a chunk in bytes (1 GB)
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1 << 30;
+
+    private final MappedByteBuffer[] chunks;
+    private final long size;
+    private final int chunkShift;
+    private final long chunkMask;
+    private long position = 0;
+
+    private ChunkedMappedBuffer( FileChannel channel, FileChannel.MapMode mapMode, long size, int chunkSize ) throws IOException {
+        if ( chunkSize < 8 || Integer.bitCount( chunkSize ) != 1 ) {
+            throw new IllegalArgumentException( "Chunk size must be a power of two, at least 8: " + chunkSize );
+        }
+        this.size = size;
+        this.chunkShift = Integer.numberOfTrailingZeros( chunkSize );
+        this.chunkMask = chunkSize - 1;
+        this.chunks = new MappedByteBuffer[(int) ( ( size + chunkSize - 1 ) >>> chunkShift )];
+        for ( int i = 0; i < chunks.length; i++ ) {
+            long begin = (long) i << chunkShift;
+            chunks[i] = channel.map( mapMode, begin, Math.min( chunkSize, size - begin ) );
+            chunks[i].order( ByteOrder.LITTLE_ENDIAN );
+        }
+    }
+
+    /**
+     * Maps the whole file for reading, the mapping remains valid after this
+     * method returns (the file itself is closed)
+     *
+     * @param file the file
+     * @return read-only buffer of the file
+     * @throws IOException thrown when an IO exception occurs
+     */
+    public static ChunkedMappedBuffer open( File file ) throws IOException {
+        return open( file, DEFAULT_CHUNK_SIZE );
+    }
+
+    /**
+     * Creates (or overwrites) the file with the given size and maps it for
+     * writing
+     *
+     * @param file the file
+     * @param size size of the file in bytes
+     * @return writable buffer of the file, positioned at 0
+     * @throws IOException thrown when an IO exception occurs
+     */
+    public static ChunkedMappedBuffer create( File file, long size ) throws IOException {
+        return create( file, size, DEFAULT_CHUNK_SIZE );
+    }
+
+    static ChunkedMappedBuffer open( File file, int chunkSize ) throws IOException {
+        try ( RandomAccessFile randomAccessFile = new RandomAccessFile( file, "r" ) ) {
+            return new ChunkedMappedBuffer( randomAccessFile.getChannel(), FileChannel.MapMode.READ_ONLY, randomAccessFile.length(), chunkSize );
+        }
+    }
+
+    static ChunkedMappedBuffer create( File file, long size, int chunkSize ) throws IOException {
+        try ( RandomAccessFile randomAccessFile = new RandomAccessFile( file, "rw" ) ) {
+            randomAccessFile.setLength( size );
+            return new ChunkedMappedBuffer( randomAccessFile.getChannel(), FileChannel.MapMode.READ_WRITE, size, chunkSize );
+        }
+    }
+
+    /**
+     * Returns size of the mapped file
+     *
+     * @return size in bytes
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the int at the given position
+     *
+     * @param position position in bytes, aligned to 4
+     * @return the value
+     */
+    public int getInt( long position ) {
+        return chunks[(int) ( position >>> chunkShift )].getInt( (int) ( position & chunkMask ) );
+    }
+
+    /**
+     * Returns the long at the given position
+     *
+     * @param position position in bytes, aligned to 8
+     * @return the value
+     */
+    public long getLong( long position ) {
+        return chunks[(int) ( position >>> chunkShift )].getLong( (int) ( position & chunkMask ) );
+    }
+
+    /**
+     * Returns the float at the given position
+     *
+     * @param position position in bytes, aligned to 4
+     * @return the value
+     */
+    public float getFloat( long position ) {
+        return chunks[(int) ( position >>> chunkShift )].getFloat( (int) ( position & chunkMask ) );
+    }
+
+    /**
+     * Writes the int at the current position and advances it
+     *
+     * @param value the value
+     */
+    public void putInt( int value ) {
+        chunks[(int) ( position >>> chunkShift )].putInt( (int) ( position & chunkMask ), value );
+        position += 4;
+    }
+
+    /**
+     * Writes the long at the current position and advances it, the position
+     * must be aligned to 8
+     *
+     * @param value the value
+     */
+    public void putLong( long value ) {
+        chunks[(int) ( position >>> chunkShift )].putLong( (int) ( position & chunkMask ), value );
+        position += 8;
+    }
+
+    /**
+     * Writes the float at the current position and advances it
+     *
+     * @param value the value
+     */
+    public void putFloat( float value ) {
+        chunks[(int) ( position >>> chunkShift )].putFloat( (int) ( position & chunkMask ), value );
+        position += 4;
+    }
+
+    /**
+     * Forces the written data onto the storage
+     */
+    public void force() {
+        for ( MappedByteBuffer chunk : chunks ) {
+            chunk.force();
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 3;
+        for ( MappedByteBuffer chunk : chunks ) {
+            hash = 37 * hash + chunk.duplicate().hashCode();
+        }
+        return hash;
+    }
+
+    @Override
+    public boolean equals( Object obj ) {
+        if ( this == obj ) {
+            return true;
+        }
+        if ( obj == null ) {
+            return false;
+        }
+        if ( getClass() != obj.getClass() ) {
+            return false;
+        }
+        final ChunkedMappedBuffer other = (ChunkedMappedBuffer) obj;
+        if ( this.size != other.size || this.chunkShift != other.chunkShift ) {
+            return false;
+        }
+        for ( int i = 0; i < chunks.length; i++ ) {
+            if ( !this.chunks[i].duplicate().equals( other.chunks[i].duplicate() ) ) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.data.alt;
+
+import cz.certicon.routing.model.entity.DistanceType;
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.alt.LandmarkData;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Binary file of the {@link LandmarkData}, stored next to the graph (e.g. its
+ * {@link cz.certicon.routing.data.graph.GraphSnapshot}). Little-endian layout:
+ * magic, version, distance type, node count, landmark count (ints), the
+ * landmark nodes (ints),
+ * the forward and the backward distances (floats, node * landmark count +
+ * landmark). The file size is limited to 2 GB (single mapped buffer).
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class LandmarkFile {
+
+    static final int MAGIC = 0x4C4D524B; // "LMRK"
+    static final int VERSION = 2;
+    static final int HEADER_SIZE = 20;
+
+    private final File file;
+
+    /**
+     * Constructor
+     *
+     * @param file the landmark file
+     */
+    public LandmarkFile( File file ) {
+        this.file = file;
+    }
+
+    /**
+     * Writes the landmark data into the file (overwrites it)
+     *
+     * @param landmarkData the landmark data
+     * @param distanceType distance type the data were calculated for
+     * @throws IOException thrown when an IO exception occurs
+     */
+    public void write( LandmarkData landmarkData, DistanceType distanceType ) throws IOException {
+        int nodeCount = landmarkData.getNodeCount();
+        int landmarkCount = landmarkData.getLandmarkCount();
+        long size = HEADER_SIZE + 4L * landmarkCount + 8L * nodeCount * landmarkCount;
+        if ( size > Integer.MAX_VALUE ) {
+            throw new IOException( "Landmark data too large for the file format: " + size + " bytes" );
+        }
+        try ( RandomAccessFile randomAccessFile = new RandomAccessFile( file, "rw" ) ) {
+            randomAccessFile.setLength( size );
+            MappedByteBuffer buffer = randomAccessFile.getChannel().map( FileChannel.MapMode.READ_WRITE, 0, size );
+            buffer.order( ByteOrder.LITTLE_ENDIAN );
+            buffer.putInt( MAGIC );
+            buffer.putInt( VERSION );
+            buffer.putInt( distanceType.toInt() );
+            buffer.putInt( nodeCount );
+            buffer.putInt( landmarkCount );
+            for ( int i = 0; i < landmarkCount; i++ ) {
+                buffer.putInt( landmarkData.getLandmark( i ) );
+            }
+            for ( int node = 0; node < nodeCount; node++ ) {
+                for ( int i = 0; i < landmarkCount; i++ ) {
+                    buffer.putFloat( landmarkData.getForwardDistance( node, i ) );
+                }
+            }
+            for ( int node = 0; node < nodeCount; node++ ) {
+                for ( int i = 0; i < landmarkCount; i++ ) {
+                    buffer.putFloat( landmarkData.getBackwardDistance( node, i ) );
+                }
+            }
+            buffer.force();
+        }
+    }
+
+    /**
+     * Reads the landmark data from the file, regardless of the distance type
+     *
+     * @return the landmark data
+     * @throws IOException thrown when an IO exception occurs or the file is
+     * not a valid landmark file
+     */
+    public LandmarkData read() throws IOException {
+        return readData( null );
+    }
+
+    /**
+     * Reads the landmark data from the file and checks them against the graph
+     * and the distance type
+     *
+     * @param graph the graph the data should belong to
+     * @param distanceType the distance type the data should be calculated for
+     * @return the landmark data
+     * @throws IOException thrown when an IO exception occurs, the file is not
+     * a valid landmark file or it was created for a different graph or
+     * distance type
+     */
+    public LandmarkData read( Graph graph, DistanceType distanceType ) throws IOException {
+        LandmarkData landmarkData = readData( distanceType );
+        if ( landmarkData.getNodeCount() != graph.getNodeCount() ) {
+            throw new IOException( "Landmark file created for " + landmarkData.getNodeCount() + " nodes, graph has " + graph.getNodeCount() );
+        }
+        return landmarkData;
+    }
+
+    private LandmarkData readData( DistanceType distanceType ) throws IOException {
+        try ( RandomAccessFile randomAccessFile = new RandomAccessFile( file, "r" ) ) {
+            MappedByteBuffer buffer = randomAccessFile.getChannel().map( FileChannel.MapMode.READ_ONLY, 0, randomAccessFile.length() );
+            buffer.order( ByteOrder.LITTLE_ENDIAN );
+            if ( buffer.limit() < HEADER_SIZE || buffer.getInt() != MAGIC ) {
+                throw new IOException( "Invalid landmark file: " + file.getAbsolutePath() );
+            }
+            int version = buffer.getInt();
+            if ( version != VERSION ) {
+                throw new IOException( "Unsupported landmark file version: " + version );
+            }
+            DistanceType fileDistanceType;
+            try {
+                fileDistanceType = DistanceType.fromInt( buffer.getInt() );
+            } catch ( IllegalArgumentException ex ) {
+                throw new IOException( "Invalid landmark file: " + file.getAbsolutePath(), ex );
+            }
+            if ( distanceType != null && fileDistanceType != distanceType ) {
+                throw new IOException( "Landmark file created for " + fileDistanceType + ", expected " + distanceType );
+            }
+            int nodeCount = buffer.getInt();
+            int landmarkCount = buffer.getInt();
+            if ( nodeCount < 0 || landmarkCount < 1 || buffer.limit() != HEADER_SIZE + 4L * landmarkCount + 8L * nodeCount * landmarkCount ) {
+                throw new IOException( "Invalid landmark file: " + file.getAbsolutePath() );
+            }
+            int[] landmarks = new int[landmarkCount];
+            buffer.asIntBuffer().get( landmarks );
+            buffer.position( buffer.position() + 4 * landmarkCount );
+            float[] forwardDistances = new float[nodeCount * landmarkCount];
+            buffer.asFloatBuffer().get( forwardDistances );
+            buffer.position( buffer.position() + 4 * forwardDistances.length );
+            float[] backwardDistances = new float[nodeCount * landmarkCount];
+            buffer.asFloatBuffer().get( backwardDistances );
+            return new LandmarkData( landmarks, forwardDistances, backwardDistances );
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.data.ch.binary;
+
+import cz.certicon.routing.data.ChunkedMappedBuffer;
+import cz.certicon.routing.data.ch.NotPreprocessedException;
+import cz.certicon.routing.model.entity.DistanceType;
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.ch.PreprocessedData;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Binary file of the Contraction Hierarchies data. Unlike the
+ * {@link cz.certicon.routing.data.ch.ContractionHierarchiesDataRW}
+ * implementations, which rebuild the data record by record, the file stores
+ * the {@link PreprocessedData} arrays as they are (including the shortcut
+ * lengths and the CSR adjacency) and reads them by memory mapping the file
+ * (in chunks, see {@link ChunkedMappedBuffer}, so that continent-sized
+ * hierarchies over 2 GB are supported). The mapped data are not loaded onto
+ * the heap, so the startup is fast and the data can be shared among processes
+ * through the page cache. See {@link MappedPreprocessedData} for the layout.
+ *
+ * Note that the CH query algorithms build their
+ * {@link cz.certicon.routing.model.entity.ch.ChSearchGraph} (the upward edges
+ * with their lengths) on the heap from the mapped data, the sharing through
+ * the page cache ends at that copy. Build the search graph once and share it
+ * among the algorithms of a process (see their constructors taking the
+ * search graph).
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class BinaryContractionHierarchiesFile {
+
+    private final File file;
+
+    /**
+     * Constructor
+     *
+     * @param file the binary file
+     */
+    public BinaryContractionHierarchiesFile( File file ) {
+        this.file = file;
+    }
+
+    /**
+     * Writes the CH data into the file (overwrites it)
+     *
+     * @param data CH data
+     * @param graph graph the data were preprocessed upon
+     * @param distanceType distance type of the data
+     * @throws IOException thrown when an IO exception occurs
+     */
+    public void write( PreprocessedData data, Graph graph, DistanceType distanceType ) throws IOException {
+        int nodeCount = graph.getNodeCount();
+        int shortcutCount = data.getShortcutCount();
+        int incomingCount = 0;
+        int outgoingCount = 0;
+        for ( int node = 0; node < nodeCount; node++ ) {
+            incomingCount += data.getIncomingShortcuts( node ).length;
+            outgoingCount += data.getOutgoingShortcuts( node ).length;
+        }
+        long size = MappedPreprocessedData.calculateSize( nodeCount, shortcutCount, incomingCount, outgoingCount );
+        ChunkedMappedBuffer buffer = ChunkedMappedBuffer.create( file, size );
+        buffer.putInt( MappedPreprocessedData.MAGIC );
+        buffer.putInt( MappedPreprocessedData.VERSION );
+        buffer.putInt( distanceType.toInt() );
+        buffer.putInt( nodeCount );
+        buffer.putInt( graph.getEdgeCount() );
+        buffer.putInt( shortcutCount );
+        buffer.putInt( incomingCount );
+        buffer.putInt( outgoingCount );
+        buffer.putLong( data.getStartId() );
+        for ( int node = 0; node < nodeCount; node++ ) {
+            buffer.putInt( data.getRank( node ) );
+        }
+        for ( int i = 0; i < shortcutCount; i++ ) {
+            buffer.putInt( data.getSource( i ) );
+        }
+        for ( int i = 0; i < shortcutCount; i++ ) {
+            buffer.putInt( data.getTarget( i ) );
+        }
+        for ( int i = 0; i < shortcutCount; i++ ) {
+            buffer.putInt( data.getStartEdge( i ) );
+        }
+        for ( int i = 0; i < shortcutCount; i++ ) {
+            buffer.putInt( data.getEndEdge( i ) );
+        }
+        for ( int i = 0; i < shortcutCount; i++ ) {
+            buffer.putFloat( data.getLength( graph.getEdgeCount() + i, graph ) );
+        }
+        writeAdjacency( buffer, data, nodeCount, true );
+        writeAdjacency( buffer, data, nodeCount, false );
+        buffer.force();
+    }
+
+    /**
+     * Opens the CH data from the file via memory mapping
+     *
+     * @return read-only CH data backed by the mapped file
+     * @throws NotPreprocessedException thrown when the file does not exist
+     * @throws IOException thrown when an IO exception occurs or the file is
+     * not a valid binary CH file
+     */
+    public MappedPreprocessedData read() throws NotPreprocessedException, IOException {
+        if ( !file.exists() ) {
+            throw new NotPreprocessedException( "File not found: " + file.getAbsolutePath() );
+        }
+        try {
+            return new MappedPreprocessedData( ChunkedMappedBuffer.open( file ) );
+        } catch ( IllegalArgumentException ex ) {
+            throw new IOException( "Invalid binary CH file: " + file.getAbsolutePath(), ex );
+        }
+    }
+
+    /**
+     * Opens the CH data from the file via memory mapping and checks, whether
+     * they match the given graph and distance type
+     *
+     * @param graph graph the data were preprocessed upon
+     * @param distanceType expected distance type
+     * @return read-only CH data backed by the mapped file
+     * @throws NotPreprocessedException thrown when the file does not exist or
+     * the data do not match
+     * @throws IOException thrown when an IO exception occurs or the file is
+     * not a valid binary CH file
+     */
+    public MappedPreprocessedData read( Graph graph, DistanceType distanceType ) throws NotPreprocessedException, IOException {
+        MappedPreprocessedData data = read();
+        if ( data.getDistanceType() != distanceType || data.getNodeCount() != graph.getNodeCount() || data.getEdgeCount() != graph.getEdgeCount() ) {
+            throw new NotPreprocessedException( "Data do not match the graph: " + data );
+        }
+        return data;
+    }
+
+    private static void writeAdjacency( ChunkedMappedBuffer buffer, PreprocessedData data, int nodeCount, boolean incoming ) {
+        int offset = 0;
+        for ( int node = 0; node < nodeCount; node++ ) {
+            buffer.putInt( offset );
+            offset += ( incoming ? data.getIncomingShortcuts( node ) : data.getOutgoingShortcuts( node ) ).length;
+        }
+        buffer.putInt( offset );
+        for ( int node = 0; node < nodeCount; node++ ) {
+            for ( int shortcut : incoming ? data.getIncomingShortcuts( node ) : data.getOutgoingShortcuts( node ) ) {
+                buffer.putInt( shortcut );
+            }
+        }
+    }
+}
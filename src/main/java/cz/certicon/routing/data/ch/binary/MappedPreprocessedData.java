@@ -0,0 +1,386 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.data.ch.binary;
+
+import cz.certicon.routing.data.ChunkedMappedBuffer;
+import cz.certicon.routing.model.entity.DistanceType;
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.ch.PreprocessedData;
+import gnu.trove.iterator.TIntIterator;
+
+/**
+ * Read-only variant of the {@link PreprocessedData} backed directly by a
+ * memory-mapped file in the binary CH format, see
+ * {@link BinaryContractionHierarchiesFile}. Nothing is copied onto the heap,
+ * the values are read on demand via absolute access (long offsets into the
+ * {@link ChunkedMappedBuffer}, so the size is not limited to 2 GB), which
+ * makes the instance thread-safe and shareable through the page cache. The setters throw
+ * {@link UnsupportedOperationException}, the array getters return copies.
+ *
+ * Layout (little-endian): header (see the offsets below), ranks, shortcut
+ * sources, targets, start edges, end edges, lengths (float), incoming offsets
+ * (nodeCount + 1), incoming shortcuts, outgoing offsets (nodeCount + 1),
+ * outgoing shortcuts.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class MappedPreprocessedData extends PreprocessedData {
+
+    /**
+     * Magic number identifying the binary CH format ("CHBF")
+     */
+    public static final int MAGIC = 0x43484246;
+    /**
+     * Current version of the binary CH format
+     */
+    public static final int VERSION = 1;
+    /**
+     * Size of the header in bytes
+     */
+    public static final int HEADER_SIZE = 40;
+
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int DISTANCE_TYPE_OFFSET = 8;
+    static final int NODE_COUNT_OFFSET = 12;
+    static final int EDGE_COUNT_OFFSET = 16;
+    static final int SHORTCUT_COUNT_OFFSET = 20;
+    static final int INCOMING_COUNT_OFFSET = 24;
+    static final int OUTGOING_COUNT_OFFSET = 28;
+    static final int START_ID_OFFSET = 32;
+
+    private final ChunkedMappedBuffer buffer;
+    private final DistanceType distanceType;
+    private final int nodeCount;
+    private final int edgeCount;
+    private final int shortcutCount;
+    private final long ranksOffset;
+    private final long sourcesOffset;
+    private final long targetsOffset;
+    private final long startEdgesOffset;
+    private final long endEdgesOffset;
+    private final long lengthsOffset;
+    private final long incomingOffsetsOffset;
+    private final long incomingShortcutsOffset;
+    private final long outgoingOffsetsOffset;
+    private final long outgoingShortcutsOffset;
+
+    /**
+     * Constructor
+     *
+     * @param buffer mapped file containing the data in the binary CH format
+     * @throws IllegalArgumentException thrown when the buffer does not contain
+     * valid data of the supported version
+     */
+    public MappedPreprocessedData( ChunkedMappedBuffer buffer ) {
+        super( 0, 0, 0, validate( buffer ).getLong( START_ID_OFFSET ) );
+        this.buffer = buffer;
+        this.distanceType = DistanceType.fromInt( buffer.getInt( DISTANCE_TYPE_OFFSET ) );
+        this.nodeCount = buffer.getInt( NODE_COUNT_OFFSET );
+        this.edgeCount = buffer.getInt( EDGE_COUNT_OFFSET );
+        this.shortcutCount = buffer.getInt( SHORTCUT_COUNT_OFFSET );
+        int incomingCount = buffer.getInt( INCOMING_COUNT_OFFSET );
+        int outgoingCount = buffer.getInt( OUTGOING_COUNT_OFFSET );
+        this.ranksOffset = HEADER_SIZE;
+        if ( nodeCount < 0 || edgeCount < 0 || shortcutCount < 0 || incomingCount < 0 || outgoingCount < 0 ) {
+            throw new IllegalArgumentException( "Invalid header: " + nodeCount + " nodes, " + edgeCount + " edges, " + shortcutCount + " shortcuts, " + incomingCount + " incoming, " + outgoingCount + " outgoing" );
+        }
+        this.sourcesOffset = ranksOffset + 4L * nodeCount;
+        this.targetsOffset = sourcesOffset + 4L * shortcutCount;
+        this.startEdgesOffset = targetsOffset + 4L * shortcutCount;
+        this.endEdgesOffset = startEdgesOffset + 4L * shortcutCount;
+        this.lengthsOffset = endEdgesOffset + 4L * shortcutCount;
+        this.incomingOffsetsOffset = lengthsOffset + 4L * shortcutCount;
+        this.incomingShortcutsOffset = incomingOffsetsOffset + 4L * ( nodeCount + 1 );
+        this.outgoingOffsetsOffset = incomingShortcutsOffset + 4L * incomingCount;
+        this.outgoingShortcutsOffset = outgoingOffsetsOffset + 4L * ( nodeCount + 1 );
+        long expectedSize = calculateSize( nodeCount, shortcutCount, incomingCount, outgoingCount );
+        if ( buffer.size() != expectedSize ) {
+            throw new IllegalArgumentException( "Invalid data size: " + buffer.size() + " bytes, expected " + expectedSize );
+        }
+    }
+
+    /**
+     * Calculates size of the given data in the binary CH format
+     *
+     * @param nodeCount amount of nodes
+     * @param shortcutCount amount of shortcuts
+     * @param incomingCount total amount of incoming shortcuts (sum over nodes)
+     * @param outgoingCount total amount of outgoing shortcuts (sum over nodes)
+     * @return size in bytes
+     */
+    public static long calculateSize( int nodeCount, int shortcutCount, int incomingCount, int outgoingCount ) {
+        return HEADER_SIZE + 4L * nodeCount + 4L * 5 * shortcutCount + 4L * 2 * ( nodeCount + 1 ) + 4L * incomingCount + 4L * outgoingCount;
+    }
+
+    public DistanceType getDistanceType() {
+        return distanceType;
+    }
+
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    @Override
+    public void setRank( int node, int rank ) {
+        throw new UnsupportedOperationException( "Read-only data." );
+    }
+
+    @Override
+    public void setIncomingShortcuts( int node, int[] incomingShortcuts ) {
+        throw new UnsupportedOperationException( "Read-only data." );
+    }
+
+    @Override
+    public void setOutgoingShortcuts( int node, int[] outgoingShortcuts ) {
+        throw new UnsupportedOperationException( "Read-only data." );
+    }
+
+    @Override
+    public void setShortcutSource( int shortcut, int node ) {
+        throw new UnsupportedOperationException( "Read-only data." );
+    }
+
+    @Override
+    public void setShortcutTarget( int shortcut, int node ) {
+        throw new UnsupportedOperationException( "Read-only data." );
+    }
+
+    @Override
+    public void setStartEdge( int shortcut, int edge ) {
+        throw new UnsupportedOperationException( "Read-only data." );
+    }
+
+    @Override
+    public void setEndEdge( int shorcut, int edge ) {
+        throw new UnsupportedOperationException( "Read-only data." );
+    }
+
+    @Override
+    public void calculateLengths( Graph graph ) {
+        // the lengths are stored in the data
+    }
+
+    @Override
+    public int[] getRanks() {
+        return readArray( ranksOffset, nodeCount );
+    }
+
+    @Override
+    public int getRank( int node ) {
+        return buffer.getInt( ranksOffset + 4L * node );
+    }
+
+    @Override
+    public int[][] getIncomingShortcuts() {
+        int[][] shortcuts = new int[nodeCount][];
+        for ( int i = 0; i < nodeCount; i++ ) {
+            shortcuts[i] = getIncomingShortcuts( i );
+        }
+        return shortcuts;
+    }
+
+    @Override
+    public int[] getIncomingShortcuts( int node ) {
+        int from = buffer.getInt( incomingOffsetsOffset + 4L * node );
+        int to = buffer.getInt( incomingOffsetsOffset + 4L * ( node + 1 ) );
+        return readArray( incomingShortcutsOffset + 4L * from, to - from );
+    }
+
+    @Override
+    public int[][] getOutgoingShortcuts() {
+        int[][] shortcuts = new int[nodeCount][];
+        for ( int i = 0; i < nodeCount; i++ ) {
+            shortcuts[i] = getOutgoingShortcuts( i );
+        }
+        return shortcuts;
+    }
+
+    @Override
+    public int[] getOutgoingShortcuts( int node ) {
+        int from = buffer.getInt( outgoingOffsetsOffset + 4L * node );
+        int to = buffer.getInt( outgoingOffsetsOffset + 4L * ( node + 1 ) );
+        return readArray( outgoingShortcutsOffset + 4L * from, to - from );
+    }
+
+    @Override
+    public int[] getSources() {
+        return readArray( sourcesOffset, shortcutCount );
+    }
+
+    @Override
+    public int getShortcutCount() {
+        return shortcutCount;
+    }
+
+    @Override
+    public int getSource( int shortcut ) {
+        return buffer.getInt( sourcesOffset + 4L * shortcut );
+    }
+
+    @Override
+    public int getSource( int edge, Graph graph ) {
+        if ( edge < graph.getEdgeCount() ) {
+            return graph.getSource( edge );
+        }
+        return getSource( edge - graph.getEdgeCount() );
+    }
+
+    @Override
+    public int[] getTargets() {
+        return readArray( targetsOffset, shortcutCount );
+    }
+
+    @Override
+    public int getTarget( int shortcut ) {
+        return buffer.getInt( targetsOffset + 4L * shortcut );
+    }
+
+    @Override
+    public int getTarget( int edge, Graph graph ) {
+        if ( edge < graph.getEdgeCount() ) {
+            return graph.getTarget( edge );
+        }
+        return getTarget( edge - graph.getEdgeCount() );
+    }
+
+    @Override
+    public int getOtherNode( int edge, int node, Graph graph ) {
+        if ( edge < graph.getEdgeCount() ) {
+            return graph.getOtherNode( edge, node );
+        }
+        edge -= graph.getEdgeCount();
+        int target = getTarget( edge );
+        if ( target != node ) {
+            return target;
+        }
+        return getSource( edge );
+    }
+
+    @Override
+    public int getStartEdge( int shortcut ) {
+        return buffer.getInt( startEdgesOffset + 4L * shortcut );
+    }
+
+    @Override
+    public int getEndEdge( int shortcut ) {
+        return buffer.getInt( endEdgesOffset + 4L * shortcut );
+    }
+
+    @Override
+    public float getLength( int shortcut, Graph graph ) {
+        if ( shortcut < graph.getEdgeCount() ) {
+            return graph.getLength( shortcut );
+        }
+        return buffer.getFloat( lengthsOffset + 4L * ( shortcut - graph.getEdgeCount() ) );
+    }
+
+    @Override
+    public TIntIterator getIncomingEdgesIterator( int node, Graph graph ) {
+        return new MappedEdgeIterator( graph, node, true );
+    }
+
+    @Override
+    public TIntIterator getOutgoingEdgesIterator( int node, Graph graph ) {
+        return new MappedEdgeIterator( graph, node, false );
+    }
+
+    private class MappedEdgeIterator implements TIntIterator {
+
+        private final Graph graph;
+        private final int node;
+        private final boolean incoming;
+        private final int edgesCount;
+        private final int shortcutsFrom;
+        private final int shortcutsCount;
+        private int position = -1;
+
+        public MappedEdgeIterator( Graph graph, int node, boolean incoming ) {
+            this.graph = graph;
+            this.node = node;
+            this.incoming = incoming;
+            this.edgesCount = incoming ? graph.getIncomingEdgesCount( node ) : graph.getOutgoingEdgesCount( node );
+            long offsets = incoming ? incomingOffsetsOffset : outgoingOffsetsOffset;
+            this.shortcutsFrom = buffer.getInt( offsets + 4L * node );
+            this.shortcutsCount = buffer.getInt( offsets + 4L * ( node + 1 ) ) - shortcutsFrom;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position + 1 < edgesCount + shortcutsCount;
+        }
+
+        @Override
+        public int next() {
+            position++;
+            if ( position < edgesCount ) {
+                return incoming ? graph.getIncomingEdge( node, position ) : graph.getOutgoingEdge( node, position );
+            }
+            long shortcuts = incoming ? incomingShortcutsOffset : outgoingShortcutsOffset;
+            return buffer.getInt( shortcuts + 4L * ( shortcutsFrom + position - edgesCount ) ) + graph.getEdgeCount();
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException( "Not supported yet." ); //To change body of generated methods, choose Tools | Templates.
+        }
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 5;
+        hash = 71 * hash + this.buffer.hashCode();
+        return hash;
+    }
+
+    @Override
+    public boolean equals( Object obj ) {
+        if ( this == obj ) {
+            return true;
+        }
+        if ( obj == null ) {
+            return false;
+        }
+        if ( getClass() != obj.getClass() ) {
+            return false;
+        }
+        final MappedPreprocessedData other = (MappedPreprocessedData) obj;
+        return this.buffer.equals( other.buffer );
+    }
+
+    @Override
+    public String toString() {
+        return "MappedPreprocessedData{"
+                + "distanceType=" + distanceType
+                + ", nodeCount=" + nodeCount
+                + ", edgeCount=" + edgeCount
+                + ", shortcutCount=" + shortcutCount
+                + ", startId=" + getStartId() + '}';
+    }
+
+    private int[] readArray( long offset, int length ) {
+        int[] array = new int[length];
+        for ( int i = 0; i < length; i++ ) {
+            array[i] = buffer.getInt( offset + 4L * i );
+        }
+        return array;
+    }
+
+    private static ChunkedMappedBuffer validate( ChunkedMappedBuffer buffer ) {
+        if ( buffer.size() < HEADER_SIZE || buffer.getInt( MAGIC_OFFSET ) != MAGIC ) {
+            throw new IllegalArgumentException( "Not a binary CH data file" );
+        }
+        int version = buffer.getInt( VERSION_OFFSET );
+        if ( version != VERSION ) {
+            throw new IllegalArgumentException( "Unsupported version of the binary CH data: " + version + ", expected " + VERSION );
+        }
+        return buffer;
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.data.graph;
+
+import cz.certicon.routing.data.ChunkedMappedBuffer;
+import cz.certicon.routing.model.entity.DistanceType;
+import cz.certicon.routing.model.entity.Graph;
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Binary snapshot of a built {@link Graph} (coordinates, lengths, adjacency and
+ * original ids) in a compact little-endian file. Unlike the
+ * {@link GraphReader} implementations, which rebuild the graph from the data
+ * source on each start, the snapshot is opened by memory mapping the file as a
+ * {@link MappedGraph}, which lives off-heap and can be shared among processes
+ * through the page cache. See {@link MappedGraph} for the layout. The file is
+ * mapped in chunks (see {@link ChunkedMappedBuffer}), so large extracts over
+ * 2 GB are supported.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class GraphSnapshot {
+
+    private final File file;
+
+    /**
+     * Constructor
+     *
+     * @param file the snapshot file
+     */
+    public GraphSnapshot( File file ) {
+        this.file = file;
+    }
+
+    /**
+     * Writes the graph into the snapshot file (overwrites it)
+     *
+     * @param graph the graph
+     * @param distanceType distance type the graph lengths were calculated for
+     * @throws IOException thrown when an IO exception occurs
+     */
+    public void write( Graph graph, DistanceType distanceType ) throws IOException {
+        int nodeCount = graph.getNodeCount();
+        int edgeCount = graph.getEdgeCount();
+        int incomingCount = 0;
+        int outgoingCount = 0;
+        for ( int node = 0; node < nodeCount; node++ ) {
+            incomingCount += graph.getIncomingEdgesCount( node );
+            outgoingCount += graph.getOutgoingEdgesCount( node );
+        }
+        long size = MappedGraph.calculateSize( nodeCount, edgeCount, incomingCount, outgoingCount );
+        ChunkedMappedBuffer buffer = ChunkedMappedBuffer.create( file, size );
+        buffer.putInt( MappedGraph.MAGIC );
+        buffer.putInt( MappedGraph.VERSION );
+        buffer.putInt( distanceType.toInt() );
+        buffer.putInt( nodeCount );
+        buffer.putInt( edgeCount );
+        buffer.putInt( incomingCount );
+        buffer.putInt( outgoingCount );
+        buffer.putInt( 0 ); // padding, keeps the longs aligned
+        for ( int node = 0; node < nodeCount; node++ ) {
+            buffer.putLong( graph.getNodeOrigId( node ) );
+        }
+        for ( int edge = 0; edge < edgeCount; edge++ ) {
+            buffer.putLong( graph.getEdgeOrigId( edge ) );
+        }
+        for ( int node = 0; node < nodeCount; node++ ) {
+            buffer.putFloat( graph.getLatitude( node ) );
+        }
+        for ( int node = 0; node < nodeCount; node++ ) {
+            buffer.putFloat( graph.getLongitude( node ) );
+        }
+        for ( int edge = 0; edge < edgeCount; edge++ ) {
+            buffer.putInt( graph.getSource( edge ) );
+        }
+        for ( int edge = 0; edge < edgeCount; edge++ ) {
+            buffer.putInt( graph.getTarget( edge ) );
+        }
+        for ( int edge = 0; edge < edgeCount; edge++ ) {
+            buffer.putFloat( graph.getLength( edge ) );
+        }
+        writeAdjacency( buffer, graph, true );
+        writeAdjacency( buffer, graph, false );
+        // indices sorted by orig ids for the lookups (the orig ids are unique)
+        long[] nodeOrigIds = new long[nodeCount];
+        for ( int node = 0; node < nodeCount; node++ ) {
+            nodeOrigIds[node] = graph.getNodeOrigId( node );
+        }
+        Arrays.sort( nodeOrigIds );
+        for ( long nodeOrigId : nodeOrigIds ) {
+            buffer.putInt( graph.getNodeByOrigId( nodeOrigId ) );
+        }
+        long[] edgeOrigIds = new long[edgeCount];
+        for ( int edge = 0; edge < edgeCount; edge++ ) {
+            edgeOrigIds[edge] = graph.getEdgeOrigId( edge );
+        }
+        Arrays.sort( edgeOrigIds );
+        for ( long edgeOrigId : edgeOrigIds ) {
+            buffer.putInt( graph.getEdgeByOrigId( edgeOrigId ) );
+        }
+        buffer.force();
+    }
+
+    /**
+     * Opens the graph from the snapshot file via memory mapping
+     *
+     * @return read-only graph backed by the mapped file
+     * @throws IOException thrown when an IO exception occurs or the file is
+     * not a valid snapshot
+     */
+    public MappedGraph read() throws IOException {
+        try {
+            return new MappedGraph( ChunkedMappedBuffer.open( file ) );
+        } catch ( IllegalArgumentException ex ) {
+            throw new IOException( "Invalid graph snapshot: " + file.getAbsolutePath(), ex );
+        }
+    }
+
+    /**
+     * Opens the graph from the snapshot file via memory mapping and checks the
+     * distance type
+     *
+     * @param distanceType expected distance type
+     * @return read-only graph backed by the mapped file
+     * @throws IOException thrown when an IO exception occurs, the file is not a
+     * valid snapshot or it was created for a different distance type
+     */
+    public MappedGraph read( DistanceType distanceType ) throws IOException {
+        MappedGraph graph = read();
+        if ( graph.getDistanceType() != distanceType ) {
+            throw new IOException( "Graph snapshot created for " + graph.getDistanceType() + ", expected " + distanceType );
+        }
+        return graph;
+    }
+
+    private static void writeAdjacency( ChunkedMappedBuffer buffer, Graph graph, boolean incoming ) {
+        int nodeCount = graph.getNodeCount();
+        int offset = 0;
+        for ( int node = 0; node < nodeCount; node++ ) {
+            buffer.putInt( offset );
+            offset += incoming ? graph.getIncomingEdgesCount( node ) : graph.getOutgoingEdgesCount( node );
+        }
+        buffer.putInt( offset );
+        for ( int node = 0; node < nodeCount; node++ ) {
+            int count = incoming ? graph.getIncomingEdgesCount( node ) : graph.getOutgoingEdgesCount( node );
+            for ( int i = 0; i < count; i++ ) {
+                buffer.putInt( incoming ? graph.getIncomingEdge( node, i ) : graph.getOutgoingEdge( node, i ) );
+            }
+        }
+    }
+}
@@ -0,0 +1,381 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.data.graph;
+
+import cz.certicon.routing.data.ChunkedMappedBuffer;
+import cz.certicon.routing.model.entity.DistanceType;
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.utils.EffectiveUtils;
+import cz.certicon.routing.utils.efficient.BitArray;
+import gnu.trove.iterator.TIntIterator;
+
+/**
+ * Read-only implementation of the {@link Graph} interface backed directly by a
+ * memory-mapped file in the graph snapshot format, see {@link GraphSnapshot}.
+ * Nothing is copied onto the heap, the values are read on demand via absolute
+ * access (long offsets into the {@link ChunkedMappedBuffer}, so the size is
+ * not limited to 2 GB), the original ids are looked up by a binary
+ * search over the sorted id indices stored in the snapshot. The setters throw
+ * {@link UnsupportedOperationException}, the methods returning an array create
+ * a copy.
+ *
+ * Layout (little-endian): header (see the offsets below), node orig ids
+ * (long), edge orig ids (long), node latitudes (float), node longitudes
+ * (float), edge sources, edge targets, edge lengths (float), incoming offsets
+ * (nodeCount + 1), incoming edges, outgoing offsets (nodeCount + 1), outgoing
+ * edges, nodes sorted by orig id, edges sorted by orig id.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class MappedGraph implements Graph {
+
+    /**
+     * Magic number identifying the graph snapshot format ("GRSN")
+     */
+    public static final int MAGIC = 0x4752534E;
+    /**
+     * Current version of the graph snapshot format
+     */
+    public static final int VERSION = 1;
+    /**
+     * Size of the header in bytes
+     */
+    public static final int HEADER_SIZE = 32;
+
+    static final int MAGIC_OFFSET = 0;
+    static final int VERSION_OFFSET = 4;
+    static final int DISTANCE_TYPE_OFFSET = 8;
+    static final int NODE_COUNT_OFFSET = 12;
+    static final int EDGE_COUNT_OFFSET = 16;
+    static final int INCOMING_COUNT_OFFSET = 20;
+    static final int OUTGOING_COUNT_OFFSET = 24;
+
+    private final ChunkedMappedBuffer buffer;
+    private final DistanceType distanceType;
+    private final int nodeCount;
+    private final int edgeCount;
+    private final long nodeOrigIdsOffset;
+    private final long edgeOrigIdsOffset;
+    private final long latitudesOffset;
+    private final long longitudesOffset;
+    private final long sourcesOffset;
+    private final long targetsOffset;
+    private final long lengthsOffset;
+    private final long incomingOffsetsOffset;
+    private final long incomingEdgesOffset;
+    private final long outgoingOffsetsOffset;
+    private final long outgoingEdgesOffset;
+    private final long nodeIndexOffset;
+    private final long edgeIndexOffset;
+
+    /**
+     * Constructor
+     *
+     * @param buffer mapped file containing the graph in the snapshot format
+     * @throws IllegalArgumentException thrown when the buffer does not contain
+     * a valid snapshot of the supported version
+     */
+    public MappedGraph( ChunkedMappedBuffer buffer ) {
+        if ( buffer.size() < HEADER_SIZE || buffer.getInt( MAGIC_OFFSET ) != MAGIC ) {
+            throw new IllegalArgumentException( "Not a graph snapshot" );
+        }
+        int version = buffer.getInt( VERSION_OFFSET );
+        if ( version != VERSION ) {
+            throw new IllegalArgumentException( "Unsupported version of the graph snapshot: " + version + ", expected " + VERSION );
+        }
+        this.buffer = buffer;
+        this.distanceType = DistanceType.fromInt( buffer.getInt( DISTANCE_TYPE_OFFSET ) );
+        this.nodeCount = buffer.getInt( NODE_COUNT_OFFSET );
+        this.edgeCount = buffer.getInt( EDGE_COUNT_OFFSET );
+        int incomingCount = buffer.getInt( INCOMING_COUNT_OFFSET );
+        int outgoingCount = buffer.getInt( OUTGOING_COUNT_OFFSET );
+        if ( nodeCount < 0 || edgeCount < 0 || incomingCount < 0 || outgoingCount < 0 ) {
+            throw new IllegalArgumentException( "Invalid header: " + nodeCount + " nodes, " + edgeCount + " edges, " + incomingCount + " incoming, " + outgoingCount + " outgoing" );
+        }
+        this.nodeOrigIdsOffset = HEADER_SIZE;
+        this.edgeOrigIdsOffset = nodeOrigIdsOffset + 8L * nodeCount;
+        this.latitudesOffset = edgeOrigIdsOffset + 8L * edgeCount;
+        this.longitudesOffset = latitudesOffset + 4L * nodeCount;
+        this.sourcesOffset = longitudesOffset + 4L * nodeCount;
+        this.targetsOffset = sourcesOffset + 4L * edgeCount;
+        this.lengthsOffset = targetsOffset + 4L * edgeCount;
+        this.incomingOffsetsOffset = lengthsOffset + 4L * edgeCount;
+        this.incomingEdgesOffset = incomingOffsetsOffset + 4L * ( nodeCount + 1 );
+        this.outgoingOffsetsOffset = incomingEdgesOffset + 4L * incomingCount;
+        this.outgoingEdgesOffset = outgoingOffsetsOffset + 4L * ( nodeCount + 1 );
+        this.nodeIndexOffset = outgoingEdgesOffset + 4L * outgoingCount;
+        this.edgeIndexOffset = nodeIndexOffset + 4L * nodeCount;
+        long expectedSize = calculateSize( nodeCount, edgeCount, incomingCount, outgoingCount );
+        if ( buffer.size() != expectedSize ) {
+            throw new IllegalArgumentException( "Invalid snapshot size: " + buffer.size() + " bytes, expected " + expectedSize );
+        }
+    }
+
+    /**
+     * Calculates size of the given graph in the snapshot format
+     *
+     * @param nodeCount amount of nodes
+     * @param edgeCount amount of edges
+     * @param incomingCount total amount of incoming edges (sum over nodes)
+     * @param outgoingCount total amount of outgoing edges (sum over nodes)
+     * @return size in bytes
+     */
+    public static long calculateSize( int nodeCount, int edgeCount, int incomingCount, int outgoingCount ) {
+        return HEADER_SIZE + 8L * ( nodeCount + edgeCount ) + 4L * 2 * nodeCount + 4L * 3 * edgeCount
+                + 4L * 2 * ( nodeCount + 1 ) + 4L * incomingCount + 4L * outgoingCount + 4L * ( nodeCount + edgeCount );
+    }
+
+    public DistanceType getDistanceType() {
+        return distanceType;
+    }
+
+    @Override
+    public void setEdgeOrigId( int edge, long id ) {
+        throw new UnsupportedOperationException( "Read-only graph." );
+    }
+
+    @Override
+    public void setNodeOrigId( int node, long id ) {
+        throw new UnsupportedOperationException( "Read-only graph." );
+    }
+
+    @Override
+    public void setSource( int edge, int source ) {
+        throw new UnsupportedOperationException( "Read-only graph." );
+    }
+
+    @Override
+    public void setTarget( int edge, int target ) {
+        throw new UnsupportedOperationException( "Read-only graph." );
+    }
+
+    @Override
+    public void setLength( int edge, float length ) {
+        throw new UnsupportedOperationException( "Read-only graph." );
+    }
+
+    @Override
+    public void setIncomingEdges( int node, int[] incomingEdges ) {
+        throw new UnsupportedOperationException( "Read-only graph." );
+    }
+
+    @Override
+    public void setOutgoingEdges( int node, int[] outgoingEdges ) {
+        throw new UnsupportedOperationException( "Read-only graph." );
+    }
+
+    @Override
+    public void setCoordinate( int node, float latitude, float longitude ) {
+        throw new UnsupportedOperationException( "Read-only graph." );
+    }
+
+    @Override
+    public void resetNodePredecessorArray( int[] nodePredecessors ) {
+        EffectiveUtils.fillArray( nodePredecessors, PREDECESSOR_DEFAULT );
+    }
+
+    @Override
+    public void resetNodeDistanceArray( float[] nodeDistances ) {
+        EffectiveUtils.fillArray( nodeDistances, DISTANCE_DEFAULT );
+    }
+
+    @Override
+    public void resetNodeClosedArray( BitArray nodeClosed ) {
+        nodeClosed.clear();
+    }
+
+    @Override
+    public int[] getIncomingEdges( int node ) {
+        int[] edges = new int[getIncomingEdgesCount( node )];
+        for ( int i = 0; i < edges.length; i++ ) {
+            edges[i] = getIncomingEdge( node, i );
+        }
+        return edges;
+    }
+
+    @Override
+    public int[] getOutgoingEdges( int node ) {
+        int[] edges = new int[getOutgoingEdgesCount( node )];
+        for ( int i = 0; i < edges.length; i++ ) {
+            edges[i] = getOutgoingEdge( node, i );
+        }
+        return edges;
+    }
+
+    @Override
+    public int getIncomingEdgesCount( int node ) {
+        return buffer.getInt( incomingOffsetsOffset + 4L * ( node + 1 ) ) - buffer.getInt( incomingOffsetsOffset + 4L * node );
+    }
+
+    @Override
+    public int getIncomingEdge( int node, int index ) {
+        return buffer.getInt( incomingEdgesOffset + 4L * ( buffer.getInt( incomingOffsetsOffset + 4L * node ) + index ) );
+    }
+
+    @Override
+    public int getOutgoingEdgesCount( int node ) {
+        return buffer.getInt( outgoingOffsetsOffset + 4L * ( node + 1 ) ) - buffer.getInt( outgoingOffsetsOffset + 4L * node );
+    }
+
+    @Override
+    public int getOutgoingEdge( int node, int index ) {
+        return buffer.getInt( outgoingEdgesOffset + 4L * ( buffer.getInt( outgoingOffsetsOffset + 4L * node ) + index ) );
+    }
+
+    @Override
+    public int getSource( int edge ) {
+        return buffer.getInt( sourcesOffset + 4L * edge );
+    }
+
+    @Override
+    public int getTarget( int edge ) {
+        return buffer.getInt( targetsOffset + 4L * edge );
+    }
+
+    @Override
+    public int getOtherNode( int edge, int node ) {
+        int target = getTarget( edge );
+        if ( target == node ) {
+            return getSource( edge );
+        }
+        return target;
+    }
+
+    @Override
+    public float getLength( int edge ) {
+        return buffer.getFloat( lengthsOffset + 4L * edge );
+    }
+
+    @Override
+    public long getEdgeOrigId( int edge ) {
+        return buffer.getLong( edgeOrigIdsOffset + 8L * edge );
+    }
+
+    @Override
+    public long getNodeOrigId( int node ) {
+        return buffer.getLong( nodeOrigIdsOffset + 8L * node );
+    }
+
+    @Override
+    public int getNodeByOrigId( long nodeId ) {
+        int node = search( nodeIndexOffset, nodeOrigIdsOffset, nodeCount, nodeId );
+        if ( node < 0 ) {
+            throw new IllegalArgumentException( "Unknown node id: " + nodeId );
+        }
+        return node;
+    }
+
+    @Override
+    public int getEdgeByOrigId( long edgeId ) {
+        int edge = search( edgeIndexOffset, edgeOrigIdsOffset, edgeCount, edgeId );
+        if ( edge < 0 ) {
+            throw new IllegalArgumentException( "Unknown edge id: " + edgeId );
+        }
+        return edge;
+    }
+
+    @Override
+    public float getLatitude( int node ) {
+        return buffer.getFloat( latitudesOffset + 4L * node );
+    }
+
+    @Override
+    public float getLongitude( int node ) {
+        return buffer.getFloat( longitudesOffset + 4L * node );
+    }
+
+    @Override
+    public int getNodeCount() {
+        return nodeCount;
+    }
+
+    @Override
+    public int getEdgeCount() {
+        return edgeCount;
+    }
+
+    @Override
+    public int getNodeDegree( int node ) {
+        return getOutgoingEdgesCount( node ) + getIncomingEdgesCount( node );
+    }
+
+    @Override
+    public TIntIterator getIncomingEdgesIterator( int node ) {
+        return new RangeIterator( incomingEdgesOffset, buffer.getInt( incomingOffsetsOffset + 4L * node ), buffer.getInt( incomingOffsetsOffset + 4L * ( node + 1 ) ) );
+    }
+
+    @Override
+    public TIntIterator getOutgoingEdgesIterator( int node ) {
+        return new RangeIterator( outgoingEdgesOffset, buffer.getInt( outgoingOffsetsOffset + 4L * node ), buffer.getInt( outgoingOffsetsOffset + 4L * ( node + 1 ) ) );
+    }
+
+    @Override
+    public boolean containsEdge( long edgeOrigId ) {
+        return search( edgeIndexOffset, edgeOrigIdsOffset, edgeCount, edgeOrigId ) >= 0;
+    }
+
+    @Override
+    public boolean containsNode( long nodeOrigId ) {
+        return search( nodeIndexOffset, nodeOrigIdsOffset, nodeCount, nodeOrigId ) >= 0;
+    }
+
+    @Override
+    public boolean isValidPredecessor( int predecessor ) {
+        return predecessor != PREDECESSOR_DEFAULT;
+    }
+
+    /**
+     * Binary search over the index sorted by the orig ids
+     *
+     * @return local id or -1 if not found
+     */
+    private int search( long indexOffset, long origIdsOffset, int count, long origId ) {
+        int low = 0;
+        int high = count - 1;
+        while ( low <= high ) {
+            int middle = ( low + high ) >>> 1;
+            int id = buffer.getInt( indexOffset + 4L * middle );
+            long value = buffer.getLong( origIdsOffset + 8L * id );
+            if ( value < origId ) {
+                low = middle + 1;
+            } else if ( value > origId ) {
+                high = middle - 1;
+            } else {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    private class RangeIterator implements TIntIterator {
+
+        private final long edgesOffset;
+        private final int end;
+        private int position;
+
+        public RangeIterator( long edgesOffset, int begin, int end ) {
+            this.edgesOffset = edgesOffset;
+            this.end = end;
+            this.position = begin - 1;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position + 1 < end;
+        }
+
+        @Override
+        public int next() {
+            return buffer.getInt( edgesOffset + 4L * ++position );
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException( "Not supported yet." );
+        }
+
+    }
+}
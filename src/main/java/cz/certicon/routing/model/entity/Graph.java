@@ -131,6 +131,44 @@ public interface Graph {
      */
     public int[] getOutgoingEdges( int node );
 
+    /**
+     * Returns amount of edges incoming to the given node
+     *
+     * @param node given node
+     * @return amount of edges incoming to the given node
+     */
+    public int getIncomingEdgesCount( int node );
+
+    /**
+     * Returns edge incoming to the given node at the given position, see
+     * {@link #getIncomingEdgesCount(int) getIncomingEdgesCount}. Allows
+     * iterating over the edges without creating an iterator or an array.
+     *
+     * @param node given node
+     * @param index position in the interval [0, incoming edges count)
+     * @return id of the edge
+     */
+    public int getIncomingEdge( int node, int index );
+
+    /**
+     * Returns amount of edges outgoing from the given node
+     *
+     * @param node given node
+     * @return amount of edges outgoing from the given node
+     */
+    public int getOutgoingEdgesCount( int node );
+
+    /**
+     * Returns edge outgoing from the given node at the given position, see
+     * {@link #getOutgoingEdgesCount(int) getOutgoingEdgesCount}. Allows
+     * iterating over the edges without creating an iterator or an array.
+     *
+     * @param node given node
+     * @param index position in the interval [0, outgoing edges count)
+     * @return id of the edge
+     */
+    public int getOutgoingEdge( int node, int index );
+
     /**
      * Returns id of the source node of the given edge
      *
@@ -187,6 +225,8 @@ public interface Graph {
      *
      * @param nodeId given global id
      * @return node's local id
+     * @throws IllegalArgumentException when the graph does not contain the
+     * given node
      */
     public int getNodeByOrigId( long nodeId );
 
@@ -195,6 +235,8 @@ public interface Graph {
      *
      * @param edgeId given global id
      * @return edge's local id
+     * @throws IllegalArgumentException when the graph does not contain the
+     * given edge
      */
     public int getEdgeByOrigId( long edgeId );
 
@@ -0,0 +1,156 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.model.entity.alt;
+
+import cz.certicon.routing.model.entity.Graph;
+import java.util.Arrays;
+
+/**
+ * Landmark distance tables for the ALT algorithms (A*, landmarks, triangle
+ * inequality). For each landmark L and each node v, the forward distance
+ * d(L, v) and the backward distance d(v, L) are stored. The distances of a
+ * node are stored next to each other (the index is node * landmark count +
+ * landmark), so the lower bound of a node reads a single contiguous block.
+ * Unreachable pairs hold {@link Graph#DISTANCE_DEFAULT}.
+ *
+ * Immutable, can be shared among threads.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class LandmarkData {
+
+    private final int[] landmarks;
+    private final float[] forwardDistances;
+    private final float[] backwardDistances;
+
+    /**
+     * Constructor
+     *
+     * @param landmarks the landmark nodes
+     * @param forwardDistances distances from the landmarks to the nodes,
+     * indexed by node * landmark count + landmark
+     * @param backwardDistances distances from the nodes to the landmarks,
+     * indexed by node * landmark count + landmark
+     */
+    public LandmarkData( int[] landmarks, float[] forwardDistances, float[] backwardDistances ) {
+        if ( landmarks.length == 0 ) {
+            throw new IllegalArgumentException( "At least one landmark is required." );
+        }
+        if ( forwardDistances.length != backwardDistances.length || forwardDistances.length % landmarks.length != 0 ) {
+            throw new IllegalArgumentException( "Invalid table sizes: landmarks = " + landmarks.length + ", forward = " + forwardDistances.length + ", backward = " + backwardDistances.length );
+        }
+        this.landmarks = landmarks;
+        this.forwardDistances = forwardDistances;
+        this.backwardDistances = backwardDistances;
+    }
+
+    /**
+     * Returns amount of the landmarks
+     *
+     * @return amount of the landmarks
+     */
+    public int getLandmarkCount() {
+        return landmarks.length;
+    }
+
+    /**
+     * Returns amount of the nodes
+     *
+     * @return amount of the nodes
+     */
+    public int getNodeCount() {
+        return forwardDistances.length / landmarks.length;
+    }
+
+    /**
+     * Returns the node of the given landmark
+     *
+     * @param landmark index of the landmark
+     * @return landmark node
+     */
+    public int getLandmark( int landmark ) {
+        return landmarks[landmark];
+    }
+
+    /**
+     * Returns the distance from the given landmark to the given node
+     *
+     * @param node given node
+     * @param landmark index of the landmark
+     * @return distance d(landmark, node)
+     */
+    public float getForwardDistance( int node, int landmark ) {
+        return forwardDistances[node * landmarks.length + landmark];
+    }
+
+    /**
+     * Returns the distance from the given node to the given landmark
+     *
+     * @param node given node
+     * @param landmark index of the landmark
+     * @return distance d(node, landmark)
+     */
+    public float getBackwardDistance( int node, int landmark ) {
+        return backwardDistances[node * landmarks.length + landmark];
+    }
+
+    /**
+     * Returns the lower bound of the distance from the source to the target
+     * given by the triangle inequality: the maximum of d(v, L) - d(t, L) and
+     * d(L, t) - d(L, v) over all the landmarks L, at least 0.
+     *
+     * @param source source node
+     * @param target target node
+     * @return lower bound of the distance
+     */
+    public float getLowerBound( int source, int target ) {
+        int count = landmarks.length;
+        int sourceBase = source * count;
+        int targetBase = target * count;
+        float bound = 0;
+        for ( int i = 0; i < count; i++ ) {
+            float backward = backwardDistances[sourceBase + i] - backwardDistances[targetBase + i];
+            if ( backward > bound ) {
+                bound = backward;
+            }
+            float forward = forwardDistances[targetBase + i] - forwardDistances[sourceBase + i];
+            if ( forward > bound ) {
+                bound = forward;
+            }
+        }
+        return bound;
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 29 * hash + Arrays.hashCode( this.landmarks );
+        hash = 29 * hash + Arrays.hashCode( this.forwardDistances );
+        hash = 29 * hash + Arrays.hashCode( this.backwardDistances );
+        return hash;
+    }
+
+    @Override
+    public boolean equals( Object obj ) {
+        if ( this == obj ) {
+            return true;
+        }
+        if ( obj == null ) {
+            return false;
+        }
+        if ( getClass() != obj.getClass() ) {
+            return false;
+        }
+        final LandmarkData other = (LandmarkData) obj;
+        if ( !Arrays.equals( this.landmarks, other.landmarks ) ) {
+            return false;
+        }
+        if ( !Arrays.equals( this.forwardDistances, other.forwardDistances ) ) {
+            return false;
+        }
+        return Arrays.equals( this.backwardDistances, other.backwardDistances );
+    }
+}
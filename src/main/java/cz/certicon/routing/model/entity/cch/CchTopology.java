@@ -0,0 +1,229 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.model.entity.cch;
+
+/**
+ * Metric-independent part of the Customizable Contraction Hierarchies: the
+ * node ranks and the arcs of the chordal supergraph obtained by contracting
+ * the nodes in the rank order on the topology only (no witness search). Each
+ * arc connects a lower ranked node (tail) with a higher ranked node (head) and
+ * represents both directions - the upward one (tail to head) and the downward
+ * one (head to tail). The arcs are stored in a compressed sparse row structure
+ * by the tail, the heads of each tail are sorted by rank. Each node also keeps
+ * its lower neighbours (the arcs it is the head of) and its level - one more
+ * than the maximal level of its lower neighbours, the nodes of the same level
+ * can be customized in parallel.
+ *
+ * Immutable, can be shared among threads and reused for any metric of the
+ * graph it was built for.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class CchTopology {
+
+    private final int[] ranks;
+    private final int[] upwardOffsets;
+    private final int[] heads;
+    private final int[] downwardOffsets;
+    private final int[] tails;
+    private final int[] downwardArcs;
+    private final int[] levels;
+    private final int levelCount;
+
+    /**
+     * Constructor
+     *
+     * @param ranks rank of each node, a permutation of [0, node count)
+     * @param upwardOffsets offsets of the arcs of each tail (node count + 1)
+     * @param heads head of each arc, sorted by rank within each tail
+     */
+    public CchTopology( int[] ranks, int[] upwardOffsets, int[] heads ) {
+        int nodeCount = ranks.length;
+        if ( upwardOffsets.length != nodeCount + 1 || upwardOffsets[nodeCount] != heads.length ) {
+            throw new IllegalArgumentException( "Invalid arc offsets: " + upwardOffsets.length + " offsets for " + nodeCount + " nodes" );
+        }
+        this.ranks = ranks;
+        this.upwardOffsets = upwardOffsets;
+        this.heads = heads;
+        // lower neighbours, grouped by the head (counting sort)
+        this.downwardOffsets = new int[nodeCount + 1];
+        for ( int head : heads ) {
+            downwardOffsets[head + 1]++;
+        }
+        for ( int node = 0; node < nodeCount; node++ ) {
+            downwardOffsets[node + 1] += downwardOffsets[node];
+        }
+        this.tails = new int[heads.length];
+        this.downwardArcs = new int[heads.length];
+        int[] positions = new int[nodeCount];
+        System.arraycopy( downwardOffsets, 0, positions, 0, nodeCount );
+        for ( int tail = 0; tail < nodeCount; tail++ ) {
+            for ( int arc = upwardOffsets[tail]; arc < upwardOffsets[tail + 1]; arc++ ) {
+                int position = positions[heads[arc]]++;
+                tails[position] = tail;
+                downwardArcs[position] = arc;
+            }
+        }
+        // levels, in the rank order the lower neighbours are done first
+        int[] order = new int[nodeCount];
+        for ( int node = 0; node < nodeCount; node++ ) {
+            order[ranks[node]] = node;
+        }
+        this.levels = new int[nodeCount];
+        int maxLevel = -1;
+        for ( int node : order ) {
+            int level = 0;
+            for ( int i = downwardOffsets[node]; i < downwardOffsets[node + 1]; i++ ) {
+                level = Math.max( level, levels[tails[i]] + 1 );
+            }
+            levels[node] = level;
+            maxLevel = Math.max( maxLevel, level );
+        }
+        this.levelCount = maxLevel + 1;
+    }
+
+    /**
+     * Returns amount of nodes
+     *
+     * @return amount of nodes
+     */
+    public int getNodeCount() {
+        return ranks.length;
+    }
+
+    /**
+     * Returns amount of arcs
+     *
+     * @return amount of arcs
+     */
+    public int getArcCount() {
+        return heads.length;
+    }
+
+    /**
+     * Returns rank of the given node
+     *
+     * @param node given node
+     * @return rank of the node
+     */
+    public int getRank( int node ) {
+        return ranks[node];
+    }
+
+    /**
+     * Returns level of the given node
+     *
+     * @param node given node
+     * @return level of the node
+     */
+    public int getLevel( int node ) {
+        return levels[node];
+    }
+
+    /**
+     * Returns amount of levels
+     *
+     * @return amount of levels
+     */
+    public int getLevelCount() {
+        return levelCount;
+    }
+
+    /**
+     * Returns the first arc of the given tail
+     *
+     * @param node the tail
+     * @return first arc (inclusive)
+     */
+    public int getUpwardBegin( int node ) {
+        return upwardOffsets[node];
+    }
+
+    /**
+     * Returns the last arc of the given tail
+     *
+     * @param node the tail
+     * @return last arc (exclusive)
+     */
+    public int getUpwardEnd( int node ) {
+        return upwardOffsets[node + 1];
+    }
+
+    /**
+     * Returns the (higher ranked) head of the given arc
+     *
+     * @param arc given arc
+     * @return head of the arc
+     */
+    public int getHead( int arc ) {
+        return heads[arc];
+    }
+
+    /**
+     * Returns the first position of the lower neighbours of the given node
+     *
+     * @param node given node
+     * @return first position (inclusive)
+     */
+    public int getDownwardBegin( int node ) {
+        return downwardOffsets[node];
+    }
+
+    /**
+     * Returns the last position of the lower neighbours of the given node
+     *
+     * @param node given node
+     * @return last position (exclusive)
+     */
+    public int getDownwardEnd( int node ) {
+        return downwardOffsets[node + 1];
+    }
+
+    /**
+     * Returns the (lower ranked) tail at the given position
+     *
+     * @param position position of the lower neighbour
+     * @return tail of the arc
+     */
+    public int getTail( int position ) {
+        return tails[position];
+    }
+
+    /**
+     * Returns the arc at the given position of the lower neighbours
+     *
+     * @param position position of the lower neighbour
+     * @return the arc
+     */
+    public int getDownwardArc( int position ) {
+        return downwardArcs[position];
+    }
+
+    /**
+     * Finds the arc between the given nodes
+     *
+     * @param tail lower ranked node
+     * @param head higher ranked node
+     * @return the arc or -1 if the nodes are not connected
+     */
+    public int findArc( int tail, int head ) {
+        int rank = ranks[head];
+        int low = upwardOffsets[tail];
+        int high = upwardOffsets[tail + 1] - 1;
+        while ( low <= high ) {
+            int middle = ( low + high ) >>> 1;
+            int middleRank = ranks[heads[middle]];
+            if ( middleRank < rank ) {
+                low = middle + 1;
+            } else if ( middleRank > rank ) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.model.entity.ch;
+
+import cz.certicon.routing.model.entity.Graph;
+import gnu.trove.iterator.TIntIterator;
+
+/**
+ * Query-time search graph of the Contraction Hierarchies. Contains only the
+ * upward edges (edges and shortcuts leading to a node with a higher rank) in
+ * two compressed sparse row structures: the forward one (edges outgoing from
+ * the node towards a higher ranked node, used by the "from" search) and the
+ * backward one (edges incoming to the node from a higher ranked node, used by
+ * the "to" search). The other node and the length of each edge are stored
+ * inline, so the query does not need to access the {@link Graph} or the
+ * {@link PreprocessedData} while relaxing. The edge ids (edges and shortcuts,
+ * see {@link PreprocessedData}) are kept for the route reconstruction.
+ *
+ * The search graph lives on the heap even if the CH data are memory-mapped
+ * (the mapped data are shared through the page cache, this copy is not), so it
+ * should be built once per process and shared among the algorithms.
+ *
+ * Immutable once built, can be shared among threads.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class ChSearchGraph {
+
+    private final int[] forwardOffsets;
+    private final int[] forwardNodes;
+    private final float[] forwardLengths;
+    private final int[] forwardEdges;
+    private final int[] backwardOffsets;
+    private final int[] backwardNodes;
+    private final float[] backwardLengths;
+    private final int[] backwardEdges;
+
+    /**
+     * Constructor, builds the search graph from the graph and its CH data
+     *
+     * @param graph the graph
+     * @param preprocessedData CH data for the given graph
+     */
+    public ChSearchGraph( Graph graph, PreprocessedData preprocessedData ) {
+        int nodeCount = graph.getNodeCount();
+        this.forwardOffsets = new int[nodeCount + 1];
+        this.backwardOffsets = new int[nodeCount + 1];
+        // count the upward edges
+        for ( int node = 0; node < nodeCount; node++ ) {
+            int rank = preprocessedData.getRank( node );
+            forwardOffsets[node + 1] = forwardOffsets[node] + countUpward( preprocessedData.getOutgoingEdgesIterator( node, graph ), node, rank, graph, preprocessedData );
+            backwardOffsets[node + 1] = backwardOffsets[node] + countUpward( preprocessedData.getIncomingEdgesIterator( node, graph ), node, rank, graph, preprocessedData );
+        }
+        this.forwardNodes = new int[forwardOffsets[nodeCount]];
+        this.forwardLengths = new float[forwardOffsets[nodeCount]];
+        this.forwardEdges = new int[forwardOffsets[nodeCount]];
+        this.backwardNodes = new int[backwardOffsets[nodeCount]];
+        this.backwardLengths = new float[backwardOffsets[nodeCount]];
+        this.backwardEdges = new int[backwardOffsets[nodeCount]];
+        // fill the upward edges
+        for ( int node = 0; node < nodeCount; node++ ) {
+            int rank = preprocessedData.getRank( node );
+            fillUpward( preprocessedData.getOutgoingEdgesIterator( node, graph ), node, rank, forwardOffsets[node], forwardNodes, forwardLengths, forwardEdges, graph, preprocessedData );
+            fillUpward( preprocessedData.getIncomingEdgesIterator( node, graph ), node, rank, backwardOffsets[node], backwardNodes, backwardLengths, backwardEdges, graph, preprocessedData );
+        }
+    }
+
+    /**
+     * Returns the first position of the forward upward edges of the given node
+     *
+     * @param node given node
+     * @return first position (inclusive)
+     */
+    public int getForwardBegin( int node ) {
+        return forwardOffsets[node];
+    }
+
+    /**
+     * Returns the last position of the forward upward edges of the given node
+     *
+     * @param node given node
+     * @return last position (exclusive)
+     */
+    public int getForwardEnd( int node ) {
+        return forwardOffsets[node + 1];
+    }
+
+    /**
+     * Returns the (higher ranked) target node of the forward edge at the given
+     * position
+     *
+     * @param position position of the edge
+     * @return target node
+     */
+    public int getForwardNode( int position ) {
+        return forwardNodes[position];
+    }
+
+    /**
+     * Returns the length of the forward edge at the given position
+     *
+     * @param position position of the edge
+     * @return length of the edge
+     */
+    public float getForwardLength( int position ) {
+        return forwardLengths[position];
+    }
+
+    /**
+     * Returns the id (edge or shortcut) of the forward edge at the given
+     * position
+     *
+     * @param position position of the edge
+     * @return id of the edge
+     */
+    public int getForwardEdge( int position ) {
+        return forwardEdges[position];
+    }
+
+    /**
+     * Returns the first position of the backward upward edges of the given
+     * node
+     *
+     * @param node given node
+     * @return first position (inclusive)
+     */
+    public int getBackwardBegin( int node ) {
+        return backwardOffsets[node];
+    }
+
+    /**
+     * Returns the last position of the backward upward edges of the given node
+     *
+     * @param node given node
+     * @return last position (exclusive)
+     */
+    public int getBackwardEnd( int node ) {
+        return backwardOffsets[node + 1];
+    }
+
+    /**
+     * Returns the (higher ranked) source node of the backward edge at the
+     * given position
+     *
+     * @param position position of the edge
+     * @return source node
+     */
+    public int getBackwardNode( int position ) {
+        return backwardNodes[position];
+    }
+
+    /**
+     * Returns the length of the backward edge at the given position
+     *
+     * @param position position of the edge
+     * @return length of the edge
+     */
+    public float getBackwardLength( int position ) {
+        return backwardLengths[position];
+    }
+
+    /**
+     * Returns the id (edge or shortcut) of the backward edge at the given
+     * position
+     *
+     * @param position position of the edge
+     * @return id of the edge
+     */
+    public int getBackwardEdge( int position ) {
+        return backwardEdges[position];
+    }
+
+    /**
+     * Returns amount of nodes
+     *
+     * @return amount of nodes
+     */
+    public int getNodeCount() {
+        return forwardOffsets.length - 1;
+    }
+
+    private static int countUpward( TIntIterator it, int node, int rank, Graph graph, PreprocessedData preprocessedData ) {
+        int count = 0;
+        while ( it.hasNext() ) {
+            int edge = it.next();
+            if ( preprocessedData.getRank( preprocessedData.getOtherNode( edge, node, graph ) ) > rank ) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static void fillUpward( TIntIterator it, int node, int rank, int position, int[] nodes, float[] lengths, int[] edges, Graph graph, PreprocessedData preprocessedData ) {
+        while ( it.hasNext() ) {
+            int edge = it.next();
+            int otherNode = preprocessedData.getOtherNode( edge, node, graph );
+            if ( preprocessedData.getRank( otherNode ) > rank ) {
+                nodes[position] = otherNode;
+                lengths[position] = preprocessedData.getLength( edge, graph );
+                edges[position] = edge;
+                position++;
+            }
+        }
+    }
+}
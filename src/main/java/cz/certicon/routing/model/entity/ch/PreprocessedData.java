@@ -83,6 +83,57 @@ public class PreprocessedData {
         this.startId = startId;
     }
 
+    /**
+     * Constructor
+     *
+     * @param ranks array of ranks for nodes: (node) -> rank
+     * @param incomingShortcuts 2D array of incoming shortcuts: (node, #) ->
+     * shortcut
+     * @param outgoingShortcuts 2D array of outgoing shortcuts: (node, #) ->
+     * shortcut
+     * @param sources array of sources: shortcut -> node
+     * @param targets array of targets: shortcut -> node
+     * @param startEdges array of start edges: shortcut -> edge
+     * @param endEdges array of end edges: shortcut -> edge
+     * @param lengths array of precomputed lengths: shortcut -> length
+     * @param startId startId for the given shortcuts, see {@link ChDataBuilder}
+     * for more details
+     */
+    public PreprocessedData( int[] ranks, int[][] incomingShortcuts, int[][] outgoingShortcuts, int[] sources, int[] targets, int[] startEdges, int[] endEdges, float[] lengths, long startId ) {
+        this.ranks = ranks;
+        this.incomingShortcuts = incomingShortcuts;
+        this.outgoingShortcuts = outgoingShortcuts;
+        this.sources = sources;
+        this.targets = targets;
+        this.startEdges = startEdges;
+        this.endEdges = endEdges;
+        this.lengths = lengths;
+        this.startId = startId;
+    }
+
+    /**
+     * Calculates lengths of all the shortcuts bottom-up in the shortcut order,
+     * each shortcut may therefore only consist of the edges and the preceding
+     * shortcuts (which holds for the data created by the
+     * {@link SimpleChDataBuilder}). Has to be called before the
+     * {@link #getLength(int, cz.certicon.routing.model.entity.Graph) getLength}
+     * is used for the shortcuts, unless the lengths were given to the
+     * constructor.
+     *
+     * @param graph graph the data were preprocessed upon
+     * @throws IllegalStateException thrown when a shortcut consists of a
+     * following shortcut
+     */
+    public void calculateLengths( Graph graph ) {
+        int edgeCount = graph.getEdgeCount();
+        for ( int shortcut = 0; shortcut < lengths.length; shortcut++ ) {
+            if ( startEdges[shortcut] >= edgeCount + shortcut || endEdges[shortcut] >= edgeCount + shortcut ) {
+                throw new IllegalStateException( "Shortcut #" + shortcut + " consists of a following shortcut: " + startEdges[shortcut] + " -> " + endEdges[shortcut] );
+            }
+            lengths[shortcut] = getLength( startEdges[shortcut], graph ) + getLength( endEdges[shortcut], graph );
+        }
+    }
+
     public void setRank( int node, int rank ) {
         ranks[node] = rank;
     }
@@ -206,13 +257,11 @@ public class PreprocessedData {
         if ( shortcut < graph.getEdgeCount() ) {
             return graph.getLength( shortcut );
         }
-        shortcut -= graph.getEdgeCount();
-        if ( lengths[shortcut] < 0 ) {
-            int start = startEdges[shortcut];
-            int end = endEdges[shortcut];
-            lengths[shortcut] = getLength( start, graph ) + getLength( end, graph );
+        float length = lengths[shortcut - graph.getEdgeCount()];
+        if ( length < 0 ) {
+            throw new IllegalStateException( "Shortcut lengths have not been calculated, see calculateLengths." );
         }
-        return lengths[shortcut];
+        return length;
     }
 
     public TIntIterator getIncomingEdgesIterator( int node, Graph graph ) {
@@ -236,15 +285,15 @@ public class PreprocessedData {
 
         @Override
         public boolean hasNext() { // ... see note at NeighbourListGraph
-            return position + 1 < graph.getIncomingEdges( node ).length + incomingShortcuts[node].length;
+            return position + 1 < graph.getIncomingEdgesCount( node ) + incomingShortcuts[node].length;
         }
 
         @Override
         public int next() {
-            if ( position + 1 < graph.getIncomingEdges( node ).length ) {
-                return graph.getIncomingEdges( node )[++position];
+            if ( position + 1 < graph.getIncomingEdgesCount( node ) ) {
+                return graph.getIncomingEdge( node, ++position );
             } else {
-                return incomingShortcuts[node][++position - graph.getIncomingEdges( node ).length] + graph.getEdgeCount();
+                return incomingShortcuts[node][++position - graph.getIncomingEdgesCount( node )] + graph.getEdgeCount();
             }
         }
 
@@ -268,15 +317,15 @@ public class PreprocessedData {
 
         @Override
         public boolean hasNext() { // see above, analogically
-            return position + 1 < graph.getOutgoingEdges( node ).length + outgoingShortcuts[node].length;
+            return position + 1 < graph.getOutgoingEdgesCount( node ) + outgoingShortcuts[node].length;
         }
 
         @Override
         public int next() {
-            if ( position + 1 < graph.getOutgoingEdges( node ).length ) {
-                return graph.getOutgoingEdges( node )[++position];
+            if ( position + 1 < graph.getOutgoingEdgesCount( node ) ) {
+                return graph.getOutgoingEdge( node, ++position );
             } else {
-                return outgoingShortcuts[node][++position - graph.getOutgoingEdges( node ).length] + graph.getEdgeCount();
+                return outgoingShortcuts[node][++position - graph.getOutgoingEdgesCount( node )] + graph.getEdgeCount();
             }
         }
 
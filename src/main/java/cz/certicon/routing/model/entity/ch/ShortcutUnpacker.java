@@ -0,0 +1,121 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.model.entity.ch;
+
+import cz.certicon.routing.model.entity.Graph;
+import gnu.trove.list.array.TIntArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Unpacks the shortcuts into the sequences of the original edges. The
+ * unpacking is iterative, using an explicit stack over the start and end edges
+ * of the shortcuts. Optionally, the expanded sequences of the unpacked
+ * (top-level) shortcuts are kept in a bounded LRU cache - the highest-level
+ * shortcuts appear in most of the long routes. Not thread-safe, each thread
+ * needs its own instance.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class ShortcutUnpacker {
+
+    private final Graph graph;
+    private final PreprocessedData preprocessedData;
+    private final TIntArrayList stack = new TIntArrayList();
+    private final TIntArrayList sequence = new TIntArrayList();
+    private final Map<Integer, int[]> cache;
+
+    /**
+     * Constructor, no cache
+     *
+     * @param graph graph the data were preprocessed upon
+     * @param preprocessedData CH data
+     */
+    public ShortcutUnpacker( Graph graph, PreprocessedData preprocessedData ) {
+        this( graph, preprocessedData, 0 );
+    }
+
+    /**
+     * Constructor
+     *
+     * @param graph graph the data were preprocessed upon
+     * @param preprocessedData CH data
+     * @param cacheSize maximal amount of the cached expanded shortcuts, 0
+     * disables the cache
+     */
+    public ShortcutUnpacker( Graph graph, PreprocessedData preprocessedData, final int cacheSize ) {
+        if ( cacheSize < 0 ) {
+            throw new IllegalArgumentException( "Cache size must not be negative: " + cacheSize );
+        }
+        this.graph = graph;
+        this.preprocessedData = preprocessedData;
+        if ( cacheSize > 0 ) {
+            this.cache = new LinkedHashMap<Integer, int[]>( 16, 0.75f, true ) {
+                @Override
+                protected boolean removeEldestEntry( Map.Entry<Integer, int[]> eldest ) {
+                    return size() > cacheSize;
+                }
+            };
+        } else {
+            this.cache = null;
+        }
+    }
+
+    /**
+     * Appends the original edges of the given edge or shortcut (offset by the
+     * edge count) to the output, in the order from its source to its target
+     *
+     * @param edge edge or shortcut
+     * @param output output list of the original edges
+     * @return amount of the appended edges
+     */
+    public int unpack( int edge, TIntArrayList output ) {
+        int edgeCount = graph.getEdgeCount();
+        if ( edge < edgeCount ) {
+            output.add( edge );
+            return 1;
+        }
+        if ( cache != null ) {
+            int[] edges = cache.get( edge );
+            if ( edges == null ) {
+                sequence.resetQuick();
+                expand( edge, sequence );
+                edges = sequence.toArray();
+                cache.put( edge, edges );
+            }
+            output.add( edges );
+            return edges.length;
+        }
+        int size = output.size();
+        expand( edge, output );
+        return output.size() - size;
+    }
+
+    /**
+     * Returns amount of the cached expanded shortcuts
+     *
+     * @return amount of the cached shortcuts
+     */
+    public int getCacheSize() {
+        return cache != null ? cache.size() : 0;
+    }
+
+    private void expand( int edge, TIntArrayList output ) {
+        int edgeCount = graph.getEdgeCount();
+        stack.resetQuick();
+        stack.add( edge );
+        while ( !stack.isEmpty() ) {
+            int current = stack.removeAt( stack.size() - 1 );
+            if ( current < edgeCount ) {
+                output.add( current );
+            } else {
+                // end edge first, the start edge is processed first then
+                stack.add( preprocessedData.getEndEdge( current - edgeCount ) );
+                stack.add( preprocessedData.getStartEdge( current - edgeCount ) );
+            }
+        }
+    }
+}
@@ -7,42 +7,40 @@ package cz.certicon.routing.model.entity.ch;
 
 import cz.certicon.routing.model.entity.DistanceType;
 import cz.certicon.routing.model.entity.Graph;
-import cz.certicon.routing.model.basic.Pair;
-import static cz.certicon.routing.utils.CollectionUtils.*;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import gnu.trove.list.array.TIntArrayList;
 
 /**
  * Simple implementation of the {@link ChDataBuilder} using the
- * {@link PreprocessedData} as a representation of CH data
+ * {@link PreprocessedData} as a representation of CH data. The shortcuts have
+ * to be added in the id order (consecutive ids, starting with the id of the
+ * first added shortcut), each shortcut may only refer to the edges and the
+ * previously added shortcuts. The shortcuts are stored in growable primitive
+ * arrays indexed by the id offset, their source and target nodes are resolved
+ * immediately, the incoming and outgoing shortcuts of each node are filled by
+ * a counting sort in the {@link #build()} (in the ascending order) and the
+ * shortcut lengths are calculated there bottom-up.
  *
  * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
  */
 public class SimpleChDataBuilder implements ChDataBuilder<PreprocessedData> {
 
+    private static final int[] EMPTY = new int[0];
+
     private final Graph graph;
     private final DistanceType distanceType;
 
     private final int[] ranks;
-    private final Map<Long, Pair<Long, Long>> shortcuts;
-    private final Map<Long, Integer> sourceMap;
-    private final Map<Long, Integer> targetMap;
-    private final long minId = Long.MAX_VALUE;
-    private final long maxId = -1;
-    private int counter;
+    private final TIntArrayList sources = new TIntArrayList();
+    private final TIntArrayList targets = new TIntArrayList();
+    private final TIntArrayList startEdges = new TIntArrayList();
+    private final TIntArrayList endEdges = new TIntArrayList();
+    private long firstShortcutId = -1;
     private long startId = 0;
-    private final Map<Long, Integer> shortcutIdMap = new HashMap<>();
 
     public SimpleChDataBuilder( Graph graph, DistanceType distanceType ) {
         this.graph = graph;
         this.distanceType = distanceType;
-        this.shortcuts = new HashMap<>();
-        this.sourceMap = new HashMap<>();
-        this.targetMap = new HashMap<>();
         this.ranks = new int[graph.getNodeCount()];
-        this.counter = 0;
-        this.shortcutIdMap.clear();
     }
 
     @Override
@@ -60,13 +58,17 @@ public class SimpleChDataBuilder implements ChDataBuilder<PreprocessedData> {
         if ( shortcutId == sourceEdgeId || shortcutId == targetEdgeId ) {
             throw new AssertionError( "shortcut #" + shortcutId + " = " + sourceEdgeId + " -> " + targetEdgeId );
         }
-//        if(shortcutId == 127945){
-//            throw new AssertionError( "shortcut #" + shortcutId + " = " + sourceEdgeId + " -> " + targetEdgeId );
-//        }
-        shortcuts.put( shortcutId, new Pair<>( sourceEdgeId, targetEdgeId ) );
-        shortcutIdMap.put( shortcutId, counter++ );
-        sourceMap.put( shortcutId, getSourceNode( shortcutId ) );
-        targetMap.put( shortcutId, getTargetNode( shortcutId ) );
+        if ( sources.isEmpty() ) {
+            firstShortcutId = shortcutId;
+        } else if ( shortcutId != firstShortcutId + sources.size() ) {
+            throw new IllegalArgumentException( "Shortcuts must be added in the id order: expected #" + ( firstShortcutId + sources.size() ) + ", got #" + shortcutId );
+        }
+        int startEdge = toEdge( sourceEdgeId );
+        int endEdge = toEdge( targetEdgeId );
+        startEdges.add( startEdge );
+        endEdges.add( endEdge );
+        sources.add( getSourceNode( startEdge ) );
+        targets.add( getTargetNode( endEdge ) );
     }
 
     @Override
@@ -77,104 +79,62 @@ public class SimpleChDataBuilder implements ChDataBuilder<PreprocessedData> {
     @Override
     public PreprocessedData build() {
         int nodeCount = graph.getNodeCount();
-        int shortcutCount = shortcuts.size();
+        int shortcutCount = sources.size();
+        int[] sourcesArray = sources.toArray();
+        int[] targetsArray = targets.toArray();
+        // counting sort: count, allocate, fill in the id order
+        int[] incomingCounts = new int[nodeCount];
+        int[] outgoingCounts = new int[nodeCount];
+        for ( int i = 0; i < shortcutCount; i++ ) {
+            outgoingCounts[sourcesArray[i]]++;
+            incomingCounts[targetsArray[i]]++;
+        }
         int[][] incomingShortcuts = new int[nodeCount][];
         int[][] outgoingShortcuts = new int[nodeCount][];
-        int[] sources = new int[shortcutCount];
-        int[] targets = new int[shortcutCount];
-
-        int[] startEdges = new int[shortcutCount];
-        int[] endEdges = new int[shortcutCount];
-
-        Map<Integer, List<Integer>> nodeOutgoing = new HashMap<>();
-        Map<Integer, List<Integer>> nodeIncoming = new HashMap<>();
-        for ( long shortcutId : shortcuts.keySet() ) {
-            int id = shortcutIdMap.get( shortcutId );
-            int source = getSourceNode( shortcutId );
-            int target = getTargetNode( shortcutId );
-//            System.out.println( "adding #" + id + " with: " + source + " -> " + target );
-            sources[id] = source;
-            targets[id] = target;
-            getList( nodeOutgoing, source ).add( id );
-            getList( nodeIncoming, target ).add( id );
+        for ( int node = 0; node < nodeCount; node++ ) {
+            incomingShortcuts[node] = incomingCounts[node] == 0 ? EMPTY : new int[incomingCounts[node]];
+            outgoingShortcuts[node] = outgoingCounts[node] == 0 ? EMPTY : new int[outgoingCounts[node]];
+            incomingCounts[node] = 0;
+            outgoingCounts[node] = 0;
         }
-        for ( long shortcutId : shortcuts.keySet() ) {
-            int id = shortcutIdMap.get( shortcutId );
-            Pair<Long, Long> p = shortcuts.get( shortcutId );
-//            System.out.println( "shortcut #" + shortcutId );
-//            System.out.println( "shortcut #" + id );
-            if ( graph.containsEdge( p.a ) ) {
-                int edge = graph.getEdgeByOrigId( p.a );
-                startEdges[id] = edge;
-//                System.out.println( "sedge = " + edge );
-            } else {
-                int shortcut = shortcutIdMap.get( p.a );
-                startEdges[id] = shortcut + graph.getEdgeCount();
-//                System.out.println( "sshortcut = " + shortcut );
-            }
-            if ( graph.containsEdge( p.b ) ) {
-                int edge = graph.getEdgeByOrigId( p.b );
-                endEdges[id] = edge;
-//                System.out.println( "eedge = " + edge );
-            } else {
-                int shortcut = shortcutIdMap.get( p.b );
-                endEdges[id] = shortcut + graph.getEdgeCount();
-//                System.out.println( "eshortcut = " + shortcut );
-            }
-
-        }
-        for ( Map.Entry<Integer, List<Integer>> entry : nodeOutgoing.entrySet() ) {
-            int node = entry.getKey();
-            List<Integer> outgoing = entry.getValue();
-            outgoingShortcuts[node] = toIntArray( outgoing );
-        }
-        for ( Map.Entry<Integer, List<Integer>> entry : nodeIncoming.entrySet() ) {
-            int node = entry.getKey();
-            List<Integer> incoming = entry.getValue();
-            incomingShortcuts[node] = toIntArray( incoming );
+        for ( int i = 0; i < shortcutCount; i++ ) {
+            int source = sourcesArray[i];
+            int target = targetsArray[i];
+            outgoingShortcuts[source][outgoingCounts[source]++] = i;
+            incomingShortcuts[target][incomingCounts[target]++] = i;
         }
-        for ( int i = 0; i < incomingShortcuts.length; i++ ) {
-            if ( incomingShortcuts[i] == null ) {
-                incomingShortcuts[i] = new int[0];
-            }
+        PreprocessedData data = new PreprocessedData( ranks, incomingShortcuts, outgoingShortcuts, sourcesArray, targetsArray, startEdges.toArray(), endEdges.toArray(), startId );
+        data.calculateLengths( graph );
+        return data;
+    }
+
+    /**
+     * Converts the edge/shortcut id into the edge (shortcut index offset by the
+     * edge count)
+     */
+    private int toEdge( long edgeId ) {
+        if ( graph.containsEdge( edgeId ) ) {
+            return graph.getEdgeByOrigId( edgeId );
         }
-        for ( int i = 0; i < outgoingShortcuts.length; i++ ) {
-            if ( outgoingShortcuts[i] == null ) {
-                outgoingShortcuts[i] = new int[0];
-            }
+        long shortcut = edgeId - firstShortcutId;
+        if ( sources.isEmpty() || shortcut < 0 || shortcut >= sources.size() ) {
+            throw new IllegalArgumentException( "Unknown edge or shortcut id: " + edgeId );
         }
-        return new PreprocessedData( ranks, incomingShortcuts, outgoingShortcuts, sources, targets, startEdges, endEdges, startId );
+        return (int) shortcut + graph.getEdgeCount();
     }
 
-    private int getSourceNode( long shortcutId ) {
-        Integer source = sourceMap.get( shortcutId );
-        if ( source == null ) {
-//            System.out.println( "#" + shortcutId + " - source is null" );
-            long sourceEdge = shortcuts.get( shortcutId ).a;
-//            System.out.println( "#" + shortcutId + " - source edge is = " + sourceEdge );
-            if ( shortcuts.containsKey( sourceEdge ) ) {
-                source = getSourceNode( sourceEdge );
-            } else {
-                source = graph.getSource( graph.getEdgeByOrigId( sourceEdge ) );
-            }
-            sourceMap.put( shortcutId, source );
+    private int getSourceNode( int edge ) {
+        if ( edge < graph.getEdgeCount() ) {
+            return graph.getSource( edge );
         }
-        return source;
+        return sources.get( edge - graph.getEdgeCount() );
     }
 
-    private int getTargetNode( long shortcutId ) {
-        Integer target = targetMap.get( shortcutId );
-        if ( target == null ) {
-//            System.out.println( "#" + shortcutId + " - target is null" );
-            long targetEdge = shortcuts.get( shortcutId ).b;
-            if ( shortcuts.containsKey( targetEdge ) ) {
-                target = getTargetNode( targetEdge );
-            } else {
-                target = graph.getTarget( graph.getEdgeByOrigId( targetEdge ) );
-            }
-            targetMap.put( shortcutId, target );
+    private int getTargetNode( int edge ) {
+        if ( edge < graph.getEdgeCount() ) {
+            return graph.getTarget( edge );
         }
-        return target;
+        return targets.get( edge - graph.getEdgeCount() );
     }
 
 }
@@ -9,14 +9,17 @@ import cz.certicon.routing.model.entity.DistanceType;
 import cz.certicon.routing.model.entity.Graph;
 import cz.certicon.routing.model.entity.neighbourlist.NeighbourlistGraph;
 import cz.certicon.routing.model.entity.GraphBuilder;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import cz.certicon.routing.utils.AdjacencyUtils;
 
 /**
- * Simple implementation of the {@link GraphBuilder} interface. Uses maps
- * internally.
+ * Simple implementation of the {@link GraphBuilder} interface. The edge
+ * endpoints are recorded in the graph's primitive arrays, the adjacency is
+ * created in the {@link #build()} method by counting (see
+ * {@link AdjacencyUtils}): the degrees of the nodes are counted, the edge
+ * arrays of the nodes are allocated with the exact sizes and each edge is
+ * placed once into them (ordered by the edge id for each node). No flat copy
+ * of the adjacency is created, so the peak memory is the final adjacency plus
+ * a few node-indexed arrays of a single direction.
  *
  * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
  */
@@ -24,8 +27,7 @@ public class SimpleGraphBuilder implements GraphBuilder<Graph> {
 
     private final Graph graph;
     private final DistanceType distanceType;
-    private final Map<Integer, List<Integer>> outgoingEdgesMap = new HashMap<>();
-    private final Map<Integer, List<Integer>> incomingEdgesMap = new HashMap<>();
+    private final int nodeCount;
     private int nodeCounter = 0;
     private int edgeCounter = 0;
 
@@ -39,10 +41,7 @@ public class SimpleGraphBuilder implements GraphBuilder<Graph> {
     public SimpleGraphBuilder( int nodeCount, int edgeCount, DistanceType distanceType ) {
         this.graph = new NeighbourlistGraph( nodeCount, edgeCount );
         this.distanceType = distanceType;
-        for ( int i = 0; i < nodeCount; i++ ) {
-            getEdgeList( incomingEdgesMap, i );
-            getEdgeList( outgoingEdgesMap, i );
-        }
+        this.nodeCount = nodeCount;
     }
 
     @Override
@@ -57,57 +56,22 @@ public class SimpleGraphBuilder implements GraphBuilder<Graph> {
     public void addEdge( long id, long dataId, long osmId, long sourceId, long targetId, double length, double speed, boolean isPaid ) {
 //        System.out.println( "adding edge: " + id + ", idx = " + edgeCounter + ", source = " + sourceId + ", target = " + targetId );
         graph.setEdgeOrigId( edgeCounter, id );
-        int source = graph.getNodeByOrigId( sourceId );
-        int target = graph.getNodeByOrigId( targetId );
-        getEdgeList( outgoingEdgesMap, source ).add( edgeCounter );
-        getEdgeList( incomingEdgesMap, target ).add( edgeCounter );
         graph.setLength( edgeCounter, (float) distanceType.calculateDistance( length, speed ) );
-        graph.setSource( edgeCounter, source );
-        graph.setTarget( edgeCounter, target );
+        graph.setSource( edgeCounter, graph.getNodeByOrigId( sourceId ) );
+        graph.setTarget( edgeCounter, graph.getNodeByOrigId( targetId ) );
         edgeCounter++;
     }
 
     @Override
     public Graph build() {
-        for ( Map.Entry<Integer, List<Integer>> entry : outgoingEdgesMap.entrySet() ) {
-            int nodeId = entry.getKey();
-            int[] outgoingEdgesArray = toArray( entry.getValue() );
-            graph.setOutgoingEdges( nodeId, outgoingEdgesArray );
-//            System.out.println( "outgoing edges for: " + nodeId + " = " + Arrays.toString( outgoingEdgesArray ) );
-        }
-        for ( Map.Entry<Integer, List<Integer>> entry : incomingEdgesMap.entrySet() ) {
-            int nodeId = entry.getKey();
-            int[] incomingEdgesArray = toArray( entry.getValue() );
-            graph.setIncomingEdges( nodeId, incomingEdgesArray );
-//            System.out.println( "incoming edges for: " + nodeId + " = " + Arrays.toString( incomingEdgesArray ) );
-        }
-        for ( int i = 0; i < nodeCounter; i++ ) {
-            if ( graph.getIncomingEdges( i ) == null ) {
-                graph.setIncomingEdges( i, new int[0] );
-            }
+        int[][] incomingEdges = AdjacencyUtils.createEdgeArrays( graph, AdjacencyUtils.calculateOffsets( graph, nodeCount, edgeCounter, true ), true );
+        for ( int node = 0; node < nodeCount; node++ ) {
+            graph.setIncomingEdges( node, incomingEdges[node] );
         }
-        for ( int i = 0; i < nodeCounter; i++ ) {
-            if ( graph.getOutgoingEdges( i ) == null ) {
-                graph.setOutgoingEdges( i, new int[0] );
-            }
+        int[][] outgoingEdges = AdjacencyUtils.createEdgeArrays( graph, AdjacencyUtils.calculateOffsets( graph, nodeCount, edgeCounter, false ), false );
+        for ( int node = 0; node < nodeCount; node++ ) {
+            graph.setOutgoingEdges( node, outgoingEdges[node] );
         }
         return graph;
     }
-
-    private List<Integer> getEdgeList( Map<Integer, List<Integer>> map, int node ) {
-        List<Integer> list = map.get( node );
-        if ( list == null ) {
-            list = new ArrayList<>();
-            map.put( node, list );
-        }
-        return list;
-    }
-
-    private int[] toArray( List<Integer> list ) {
-        int[] array = new int[list.size()];
-        for ( int i = 0; i < list.size(); i++ ) {
-            array[i] = list.get( i );
-        }
-        return array;
-    }
 }
@@ -0,0 +1,310 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.model.entity.csr;
+
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.utils.EffectiveUtils;
+import cz.certicon.routing.utils.efficient.BitArray;
+import gnu.trove.impl.Constants;
+import gnu.trove.iterator.TIntIterator;
+import gnu.trove.map.TLongIntMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+import java.util.Arrays;
+
+/**
+ * Implementation of the {@link Graph} interface. Uses compressed sparse row
+ * (CSR) adjacency - the edges of all the nodes are stored in a single flat
+ * array, the edges of the node N are stored at the positions [offsets[N],
+ * offsets[N + 1]). The adjacency is set at once via
+ * {@link #setAdjacency(int[], int[], int[], int[]) setAdjacency}, see
+ * {@link CsrGraphBuilder}. Use {@link #getOutgoingEdgesCount(int)} and
+ * {@link #getOutgoingEdge(int, int)} (resp. incoming) for iteration, the
+ * methods returning an array create a copy.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class CsrGraph implements Graph {
+
+    private static final long NO_ORIG_ID = Long.MIN_VALUE;
+    private static final int NO_ID = -1;
+
+    private final int edgeSources[];
+    private final int edgeTargets[];
+    private final float edgeLengths[];
+    private int[] incomingOffsets;
+    private int[] incomingEdges;
+    private int[] outgoingOffsets;
+    private int[] outgoingEdges;
+    private final float[] nodeLatitudes;
+    private final float[] nodeLongitudes;
+    private final long[] nodeOrigIds;
+    private final long[] edgeOrigIds;
+
+    private final TLongIntMap fromOrigNodesMap;
+    private final TLongIntMap fromOrigEdgesMap;
+
+    public CsrGraph( int nodeCount, int edgeCount ) {
+        this.edgeSources = new int[edgeCount];
+        this.edgeTargets = new int[edgeCount];
+        this.edgeLengths = new float[edgeCount];
+        this.nodeLatitudes = new float[nodeCount];
+        this.nodeLongitudes = new float[nodeCount];
+        this.nodeOrigIds = new long[nodeCount];
+        this.edgeOrigIds = new long[edgeCount];
+        this.incomingOffsets = new int[nodeCount + 1];
+        this.outgoingOffsets = new int[nodeCount + 1];
+        this.incomingEdges = new int[0];
+        this.outgoingEdges = new int[0];
+        this.fromOrigEdgesMap = new TLongIntHashMap( edgeCount, Constants.DEFAULT_LOAD_FACTOR, NO_ORIG_ID, NO_ID );
+        this.fromOrigNodesMap = new TLongIntHashMap( nodeCount, Constants.DEFAULT_LOAD_FACTOR, NO_ORIG_ID, NO_ID );
+    }
+
+    /**
+     * Sets the complete adjacency of the graph. The edges of the node N are
+     * stored in the edges array at the positions [offsets[N], offsets[N + 1]).
+     * The arrays are not copied.
+     *
+     * @param incomingOffsets offsets to the incoming edges array, nodeCount + 1
+     * long
+     * @param incomingEdges incoming edges of all the nodes
+     * @param outgoingOffsets offsets to the outgoing edges array, nodeCount + 1
+     * long
+     * @param outgoingEdges outgoing edges of all the nodes
+     */
+    public void setAdjacency( int[] incomingOffsets, int[] incomingEdges, int[] outgoingOffsets, int[] outgoingEdges ) {
+        int nodeCount = getNodeCount();
+        if ( incomingOffsets.length != nodeCount + 1 || outgoingOffsets.length != nodeCount + 1 ) {
+            throw new IllegalArgumentException( "Offset arrays must have nodeCount + 1 = " + ( nodeCount + 1 ) + " elements." );
+        }
+        if ( incomingOffsets[nodeCount] != incomingEdges.length || outgoingOffsets[nodeCount] != outgoingEdges.length ) {
+            throw new IllegalArgumentException( "The last offset must be equal to the amount of edges." );
+        }
+        this.incomingOffsets = incomingOffsets;
+        this.incomingEdges = incomingEdges;
+        this.outgoingOffsets = outgoingOffsets;
+        this.outgoingEdges = outgoingEdges;
+    }
+
+    @Override
+    public void setSource( int edge, int source ) {
+        edgeSources[edge] = source;
+    }
+
+    @Override
+    public void setTarget( int edge, int target ) {
+        edgeTargets[edge] = target;
+    }
+
+    @Override
+    public void setLength( int edge, float length ) {
+        edgeLengths[edge] = length;
+    }
+
+    @Override
+    public void setIncomingEdges( int node, int[] incomingEdges ) {
+        throw new UnsupportedOperationException( "CsrGraph does not support per-node adjacency, use setAdjacency." );
+    }
+
+    @Override
+    public void setOutgoingEdges( int node, int[] outgoingEdges ) {
+        throw new UnsupportedOperationException( "CsrGraph does not support per-node adjacency, use setAdjacency." );
+    }
+
+    @Override
+    public void resetNodePredecessorArray( int[] nodePredecessors ) {
+        EffectiveUtils.fillArray( nodePredecessors, PREDECESSOR_DEFAULT );
+    }
+
+    @Override
+    public void resetNodeDistanceArray( float[] nodeDistances ) {
+        EffectiveUtils.fillArray( nodeDistances, DISTANCE_DEFAULT );
+    }
+
+    @Override
+    public void resetNodeClosedArray( BitArray nodeClosed ) {
+        nodeClosed.clear();
+    }
+
+    @Override
+    public int[] getIncomingEdges( int node ) {
+        return Arrays.copyOfRange( incomingEdges, incomingOffsets[node], incomingOffsets[node + 1] );
+    }
+
+    @Override
+    public int[] getOutgoingEdges( int node ) {
+        return Arrays.copyOfRange( outgoingEdges, outgoingOffsets[node], outgoingOffsets[node + 1] );
+    }
+
+    @Override
+    public int getIncomingEdgesCount( int node ) {
+        return incomingOffsets[node + 1] - incomingOffsets[node];
+    }
+
+    @Override
+    public int getIncomingEdge( int node, int index ) {
+        return incomingEdges[incomingOffsets[node] + index];
+    }
+
+    @Override
+    public int getOutgoingEdgesCount( int node ) {
+        return outgoingOffsets[node + 1] - outgoingOffsets[node];
+    }
+
+    @Override
+    public int getOutgoingEdge( int node, int index ) {
+        return outgoingEdges[outgoingOffsets[node] + index];
+    }
+
+    @Override
+    public int getSource( int edge ) {
+        return edgeSources[edge];
+    }
+
+    @Override
+    public int getTarget( int edge ) {
+        return edgeTargets[edge];
+    }
+
+    @Override
+    public float getLength( int edge ) {
+        return edgeLengths[edge];
+    }
+
+    @Override
+    public long getEdgeOrigId( int edge ) {
+        return edgeOrigIds[edge];
+    }
+
+    @Override
+    public long getNodeOrigId( int node ) {
+        return nodeOrigIds[node];
+    }
+
+    @Override
+    public void setEdgeOrigId( int edge, long id ) {
+        edgeOrigIds[edge] = id;
+        fromOrigEdgesMap.put( id, edge );
+    }
+
+    @Override
+    public void setNodeOrigId( int node, long id ) {
+        nodeOrigIds[node] = id;
+        fromOrigNodesMap.put( id, node );
+    }
+
+    @Override
+    public int getNodeByOrigId( long nodeId ) {
+        int node = fromOrigNodesMap.get( nodeId );
+        if ( node == NO_ID ) {
+            throw new IllegalArgumentException( "Unknown node id: " + nodeId );
+        }
+        return node;
+    }
+
+    @Override
+    public int getEdgeByOrigId( long edgeId ) {
+        int edge = fromOrigEdgesMap.get( edgeId );
+        if ( edge == NO_ID ) {
+            throw new IllegalArgumentException( "Unknown edge id: " + edgeId );
+        }
+        return edge;
+    }
+
+    @Override
+    public int getNodeCount() {
+        return nodeOrigIds.length;
+    }
+
+    @Override
+    public int getEdgeCount() {
+        return edgeOrigIds.length;
+    }
+
+    @Override
+    public int getOtherNode( int edge, int node ) {
+        int target = edgeTargets[edge];
+        if ( target == node ) {
+            return edgeSources[edge];
+        }
+        return target;
+    }
+
+    @Override
+    public TIntIterator getIncomingEdgesIterator( int node ) {
+        return new RangeIterator( incomingEdges, incomingOffsets[node], incomingOffsets[node + 1] );
+    }
+
+    @Override
+    public TIntIterator getOutgoingEdgesIterator( int node ) {
+        return new RangeIterator( outgoingEdges, outgoingOffsets[node], outgoingOffsets[node + 1] );
+    }
+
+    @Override
+    public boolean containsEdge( long edgeOrigId ) {
+        return fromOrigEdgesMap.containsKey( edgeOrigId );
+    }
+
+    @Override
+    public boolean containsNode( long nodeOrigId ) {
+        return fromOrigNodesMap.containsKey( nodeOrigId );
+    }
+
+    @Override
+    public boolean isValidPredecessor( int predecessor ) {
+        return predecessor != PREDECESSOR_DEFAULT;
+    }
+
+    @Override
+    public void setCoordinate( int node, float latitude, float longitude ) {
+        nodeLatitudes[node] = latitude;
+        nodeLongitudes[node] = longitude;
+    }
+
+    @Override
+    public float getLatitude( int node ) {
+        return nodeLatitudes[node];
+    }
+
+    @Override
+    public float getLongitude( int node ) {
+        return nodeLongitudes[node];
+    }
+
+    @Override
+    public int getNodeDegree( int node ) {
+        return getOutgoingEdgesCount( node ) + getIncomingEdgesCount( node );
+    }
+
+    private static class RangeIterator implements TIntIterator {
+
+        private final int[] edges;
+        private final int end;
+        private int position;
+
+        public RangeIterator( int[] edges, int begin, int end ) {
+            this.edges = edges;
+            this.end = end;
+            this.position = begin - 1;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return position + 1 < end;
+        }
+
+        @Override
+        public int next() {
+            return edges[++position];
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException( "Not supported yet." );
+        }
+
+    }
+
+}
@@ -0,0 +1,69 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.model.entity.csr;
+
+import cz.certicon.routing.model.entity.DistanceType;
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.GraphBuilder;
+import cz.certicon.routing.utils.AdjacencyUtils;
+
+/**
+ * {@link GraphBuilder} creating the {@link CsrGraph}. Accepts the same input as
+ * {@link cz.certicon.routing.model.entity.common.SimpleGraphBuilder}, the
+ * adjacency is created in the {@link #build()} method by counting the degrees
+ * and placing the edges into the flat arrays (ordered by the edge id for each
+ * node), see {@link AdjacencyUtils}.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class CsrGraphBuilder implements GraphBuilder<Graph> {
+
+    private final CsrGraph graph;
+    private final DistanceType distanceType;
+    private final int nodeCount;
+    private final int edgeCount;
+    private int nodeCounter = 0;
+    private int edgeCounter = 0;
+
+    /**
+     * Constructor of {@link CsrGraphBuilder}
+     *
+     * @param nodeCount amount of nodes
+     * @param edgeCount amount of edges
+     * @param distanceType distance type (metric)
+     */
+    public CsrGraphBuilder( int nodeCount, int edgeCount, DistanceType distanceType ) {
+        this.graph = new CsrGraph( nodeCount, edgeCount );
+        this.distanceType = distanceType;
+        this.nodeCount = nodeCount;
+        this.edgeCount = edgeCount;
+    }
+
+    @Override
+    public void addNode( long id, long dataId, long osmId, double latitude, double longitude ) {
+        graph.setNodeOrigId( nodeCounter, id );
+        graph.setCoordinate( nodeCounter, (float) latitude, (float) longitude );
+        nodeCounter++;
+    }
+
+    @Override
+    public void addEdge( long id, long dataId, long osmId, long sourceId, long targetId, double length, double speed, boolean isPaid ) {
+        graph.setEdgeOrigId( edgeCounter, id );
+        graph.setLength( edgeCounter, (float) distanceType.calculateDistance( length, speed ) );
+        graph.setSource( edgeCounter, graph.getNodeByOrigId( sourceId ) );
+        graph.setTarget( edgeCounter, graph.getNodeByOrigId( targetId ) );
+        edgeCounter++;
+    }
+
+    @Override
+    public Graph build() {
+        int[] incomingOffsets = AdjacencyUtils.calculateOffsets( graph, nodeCount, edgeCount, true );
+        int[] outgoingOffsets = AdjacencyUtils.calculateOffsets( graph, nodeCount, edgeCount, false );
+        graph.setAdjacency( incomingOffsets, AdjacencyUtils.createEdges( graph, incomingOffsets, true ), outgoingOffsets, AdjacencyUtils.createEdges( graph, outgoingOffsets, false ) );
+        return graph;
+    }
+
+}
@@ -0,0 +1,36 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.model.entity.csr;
+
+import cz.certicon.routing.model.entity.DistanceType;
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.GraphBuilder;
+import cz.certicon.routing.model.entity.GraphBuilderFactory;
+
+/**
+ * {@link GraphBuilderFactory} creating the {@link CsrGraphBuilder}.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class CsrGraphBuilderFactory implements GraphBuilderFactory<Graph> {
+
+    private final DistanceType distanceType;
+
+    /**
+     * Constructor of {@link CsrGraphBuilderFactory}
+     *
+     * @param distanceType metric
+     */
+    public CsrGraphBuilderFactory( DistanceType distanceType ) {
+        this.distanceType = distanceType;
+    }
+
+    @Override
+    public GraphBuilder<Graph> createGraphBuilder( int nodeCount, int edgeCount ) {
+        return new CsrGraphBuilder( nodeCount, edgeCount, distanceType );
+    }
+
+}
@@ -8,9 +8,10 @@ package cz.certicon.routing.model.entity.neighbourlist;
 import cz.certicon.routing.model.entity.Graph;
 import cz.certicon.routing.utils.EffectiveUtils;
 import cz.certicon.routing.utils.efficient.BitArray;
+import gnu.trove.impl.Constants;
 import gnu.trove.iterator.TIntIterator;
-import java.util.HashMap;
-import java.util.Map;
+import gnu.trove.map.TLongIntMap;
+import gnu.trove.map.hash.TLongIntHashMap;
 
 /**
  * Implementation of the {@link Graph} interface. Uses neighbor list - adjacency list.
@@ -19,6 +20,9 @@ import java.util.Map;
  */
 public class NeighbourlistGraph implements Graph {
 
+    private static final long NO_ORIG_ID = Long.MIN_VALUE;
+    private static final int NO_ID = -1;
+
     private final int edgeSources[];
     private final int edgeTargets[];
     private final float edgeLengths[];
@@ -32,8 +36,8 @@ public class NeighbourlistGraph implements Graph {
     private final long[] nodeOrigIds;
     private final long[] edgeOrigIds;
 
-    private final Map<Long, Integer> fromOrigNodesMap;
-    private final Map<Long, Integer> fromOrigEdgesMap;
+    private final TLongIntMap fromOrigNodesMap;
+    private final TLongIntMap fromOrigEdgesMap;
 
     public NeighbourlistGraph( int nodeCount, int edgeCount ) {
         this.edgeSources = new int[edgeCount];
@@ -48,8 +52,8 @@ public class NeighbourlistGraph implements Graph {
         this.outgoingEdges = new int[nodeCount][];
         this.nodeOrigIds = new long[nodeCount];
         this.edgeOrigIds = new long[edgeCount];
-        this.fromOrigEdgesMap = new HashMap<>();
-        this.fromOrigNodesMap = new HashMap<>();
+        this.fromOrigEdgesMap = new TLongIntHashMap( edgeCount, Constants.DEFAULT_LOAD_FACTOR, NO_ORIG_ID, NO_ID );
+        this.fromOrigNodesMap = new TLongIntHashMap( nodeCount, Constants.DEFAULT_LOAD_FACTOR, NO_ORIG_ID, NO_ID );
         EffectiveUtils.fillArray( nodePredecessorsPrototype, PREDECESSOR_DEFAULT );
         EffectiveUtils.fillArray( nodeDistancesPrototype, DISTANCE_DEFAULT );
 //        EffectiveUtils.fillArray( nodeClosedPrototype, CLOSED_DEFAULT );
@@ -105,6 +109,26 @@ public class NeighbourlistGraph implements Graph {
         return outgoingEdges[node];
     }
 
+    @Override
+    public int getIncomingEdgesCount( int node ) {
+        return incomingEdges[node].length;
+    }
+
+    @Override
+    public int getIncomingEdge( int node, int index ) {
+        return incomingEdges[node][index];
+    }
+
+    @Override
+    public int getOutgoingEdgesCount( int node ) {
+        return outgoingEdges[node].length;
+    }
+
+    @Override
+    public int getOutgoingEdge( int node, int index ) {
+        return outgoingEdges[node][index];
+    }
+
     @Override
     public int getSource( int edge ) {
         return edgeSources[edge];
@@ -144,12 +168,20 @@ public class NeighbourlistGraph implements Graph {
 
     @Override
     public int getNodeByOrigId( long nodeId ) {
-        return fromOrigNodesMap.get( nodeId );
+        int node = fromOrigNodesMap.get( nodeId );
+        if ( node == NO_ID ) {
+            throw new IllegalArgumentException( "Unknown node id: " + nodeId );
+        }
+        return node;
     }
 
     @Override
     public int getEdgeByOrigId( long edgeId ) {
-        return fromOrigEdgesMap.get( edgeId );
+        int edge = fromOrigEdgesMap.get( edgeId );
+        if ( edge == NO_ID ) {
+            throw new IllegalArgumentException( "Unknown edge id: " + edgeId );
+        }
+        return edge;
     }
 
     @Override
@@ -0,0 +1,94 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.utils;
+
+import cz.certicon.routing.model.entity.Graph;
+
+/**
+ * Utility class building the adjacency of a graph from its edge endpoints by
+ * counting: the degrees of the nodes are counted and prefix-summed into the
+ * offsets, then each edge is placed once at the position of its node. The
+ * edges of each node are ordered by the edge id. Used by the graph builders,
+ * either for a flat compressed sparse row layout or for per-node arrays.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class AdjacencyUtils {
+
+    private static final int[] EMPTY = new int[0];
+
+    /**
+     * Calculates the offsets of the edges of each node in the compressed
+     * sparse row layout
+     *
+     * @param graph graph with the edge endpoints set
+     * @param nodeCount amount of nodes
+     * @param edgeCount amount of edges
+     * @param incoming true for the incoming edges (by target), false for the
+     * outgoing edges (by source)
+     * @return array of nodeCount + 1 offsets, the edges of the node n lie in
+     * [offsets[n], offsets[n + 1])
+     */
+    public static int[] calculateOffsets( Graph graph, int nodeCount, int edgeCount, boolean incoming ) {
+        int[] offsets = new int[nodeCount + 1];
+        for ( int edge = 0; edge < edgeCount; edge++ ) {
+            offsets[( incoming ? graph.getTarget( edge ) : graph.getSource( edge ) ) + 1]++;
+        }
+        for ( int node = 0; node < nodeCount; node++ ) {
+            offsets[node + 1] += offsets[node];
+        }
+        return offsets;
+    }
+
+    /**
+     * Places the edges into a flat array by their nodes
+     *
+     * @param graph graph with the edge endpoints set
+     * @param offsets offsets calculated by
+     * {@link #calculateOffsets(Graph, int, int, boolean)}
+     * @param incoming the same direction as for the offsets
+     * @return array of the edges, the edges of the node n lie in [offsets[n],
+     * offsets[n + 1])
+     */
+    public static int[] createEdges( Graph graph, int[] offsets, boolean incoming ) {
+        int nodeCount = offsets.length - 1;
+        int edgeCount = offsets[nodeCount];
+        int[] edges = new int[edgeCount];
+        int[] positions = new int[nodeCount];
+        System.arraycopy( offsets, 0, positions, 0, nodeCount );
+        for ( int edge = 0; edge < edgeCount; edge++ ) {
+            edges[positions[incoming ? graph.getTarget( edge ) : graph.getSource( edge )]++] = edge;
+        }
+        return edges;
+    }
+
+    /**
+     * Places the edges directly into a separate array for each node (of the
+     * exact size), no flat array is created in between
+     *
+     * @param graph graph with the edge endpoints set
+     * @param offsets offsets calculated by
+     * {@link #calculateOffsets(Graph, int, int, boolean)}
+     * @param incoming the same direction as for the offsets
+     * @return array of the edge arrays indexed by node, a shared empty array
+     * for the nodes without edges
+     */
+    public static int[][] createEdgeArrays( Graph graph, int[] offsets, boolean incoming ) {
+        int nodeCount = offsets.length - 1;
+        int edgeCount = offsets[nodeCount];
+        int[][] edges = new int[nodeCount][];
+        for ( int node = 0; node < nodeCount; node++ ) {
+            int degree = offsets[node + 1] - offsets[node];
+            edges[node] = degree == 0 ? EMPTY : new int[degree];
+        }
+        int[] positions = new int[nodeCount];
+        for ( int edge = 0; edge < edgeCount; edge++ ) {
+            int node = incoming ? graph.getTarget( edge ) : graph.getSource( edge );
+            edges[node][positions[node]++] = edge;
+        }
+        return edges;
+    }
+}
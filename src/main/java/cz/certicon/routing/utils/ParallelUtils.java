@@ -0,0 +1,95 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * Utility class for the data-parallel phases of the algorithms and the
+ * preprocessing: a range of indices is split into contiguous chunks, each
+ * chunk runs as a single task on the given executor and the calling thread
+ * waits for all of them. The executor is never shut down here, its lifecycle
+ * belongs to the caller.
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class ParallelUtils {
+
+    /**
+     * Splits the indices [0, count) into min(chunkCount, count) contiguous
+     * chunks of (almost) equal size, runs them on the executor and waits for
+     * all of them. A single chunk (or no executor) runs directly in the
+     * calling thread. When a chunk fails (or the waiting is interrupted), the
+     * chunks not yet finished are cancelled.
+     *
+     * @param executor executor running the chunks, null for the calling thread
+     * @param chunkCount maximal amount of chunks, positive
+     * @param count amount of indices
+     * @param task task run for each chunk
+     * @throws IllegalStateException thrown when a chunk fails (with the
+     * original cause) or when interrupted while waiting
+     */
+    public static void executeInRanges( ExecutorService executor, int chunkCount, int count, final RangeTask task ) {
+        if ( chunkCount < 1 ) {
+            throw new IllegalArgumentException( "Amount of chunks must be positive: " + chunkCount );
+        }
+        if ( count == 0 ) {
+            return;
+        }
+        final int chunks = Math.min( chunkCount, count );
+        if ( executor == null || chunks == 1 ) {
+            task.run( 0, 0, count );
+            return;
+        }
+        List<Future<?>> futures = new ArrayList<>( chunks );
+        try {
+            for ( int chunk = 0; chunk < chunks; chunk++ ) {
+                final int index = chunk;
+                final int begin = (int) ( (long) count * chunk / chunks );
+                final int end = (int) ( (long) count * ( chunk + 1 ) / chunks );
+                futures.add( executor.submit( new Runnable() {
+                    @Override
+                    public void run() {
+                        task.run( index, begin, end );
+                    }
+                } ) );
+            }
+            for ( Future<?> future : futures ) {
+                future.get();
+            }
+        } catch ( InterruptedException ex ) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException( "Interrupted while waiting for the parallel tasks.", ex );
+        } catch ( ExecutionException ex ) {
+            throw new IllegalStateException( "Parallel task failed.", ex.getCause() );
+        } finally {
+            for ( Future<?> future : futures ) {
+                future.cancel( true );
+            }
+        }
+    }
+
+    /**
+     * Task run for a contiguous range of indices
+     */
+    public interface RangeTask {
+
+        /**
+         * Processes the indices [begin, end)
+         *
+         * @param chunk index of the chunk, [0, chunkCount) - allows using a
+         * per-chunk state (e.g. a search), as no two chunks run concurrently
+         * with the same index
+         * @param begin first index, inclusive
+         * @param end last index, exclusive
+         */
+        void run( int chunk, int begin, int end );
+    }
+}
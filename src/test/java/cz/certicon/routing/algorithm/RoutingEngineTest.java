@@ -0,0 +1,228 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.algorithm;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import cz.certicon.routing.application.algorithm.Route;
+import cz.certicon.routing.application.algorithm.RouteNotFoundException;
+import cz.certicon.routing.application.algorithm.RoutingAlgorithm;
+import cz.certicon.routing.application.algorithm.RoutingAlgorithmFactory;
+import cz.certicon.routing.application.algorithm.RoutingEngine;
+import cz.certicon.routing.application.algorithm.algorithms.DijkstraRoutingAlgorithm;
+import cz.certicon.routing.application.algorithm.common.SimpleRouteBuilder;
+import cz.certicon.routing.model.basic.Pair;
+import cz.certicon.routing.model.entity.Coordinate;
+import cz.certicon.routing.model.entity.DistanceType;
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.GraphBuilder;
+import cz.certicon.routing.model.entity.common.SimpleGraphBuilder;
+import cz.certicon.routing.utils.CoordinateUtils;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class RoutingEngineTest {
+
+    public RoutingEngineTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of routeAsync method, of class RoutingEngine.
+     */
+    @Test
+    public void testRouteAsync() throws RouteNotFoundException, InterruptedException, ExecutionException {
+        System.out.println( "routeAsync" );
+        final Graph graph = createGraph();
+        DijkstraRoutingAlgorithm reference = new DijkstraRoutingAlgorithm( graph );
+        List<String> expected = new ArrayList<>();
+        List<ListenableFuture<Route>> futures = new ArrayList<>();
+        try ( RoutingEngine<Graph> engine = new RoutingEngine<>( new RoutingAlgorithmFactory<Graph>() {
+            @Override
+            public RoutingAlgorithm<Graph> createRoutingAlgorithm() {
+                return new DijkstraRoutingAlgorithm( graph );
+            }
+        }, 3 ) ) {
+            for ( int repeat = 0; repeat < 10; repeat++ ) {
+                for ( int source = 0; source < graph.getNodeCount(); source++ ) {
+                    for ( int target = 0; target < graph.getNodeCount(); target++ ) {
+                        if ( source != target ) {
+                            expected.add( toString( reference.route( new SimpleRouteBuilder(), map( source ), map( target ) ) ) );
+                            futures.add( engine.routeAsync( new SimpleRouteBuilder(), map( source ), map( target ) ) );
+                        }
+                    }
+                }
+            }
+            for ( int i = 0; i < futures.size(); i++ ) {
+                assertEquals( expected.get( i ), toString( futures.get( i ).get() ) );
+            }
+            assertEquals( expected.get( 0 ), toString( engine.route( new SimpleRouteBuilder(), map( 0 ), map( 1 ) ) ) );
+        }
+    }
+
+    /**
+     * Test of route method with a failing factory, of class RoutingEngine.
+     */
+    @Test
+    public void testRoute_failedCreation() throws RouteNotFoundException {
+        System.out.println( "route_failedCreation" );
+        final Graph graph = createGraph();
+        final AtomicInteger attempts = new AtomicInteger();
+        try ( RoutingEngine<Graph> engine = new RoutingEngine<>( new RoutingAlgorithmFactory<Graph>() {
+            @Override
+            public RoutingAlgorithm<Graph> createRoutingAlgorithm() {
+                if ( attempts.incrementAndGet() <= 2 ) {
+                    throw new IllegalStateException( "Creation failed." );
+                }
+                return new DijkstraRoutingAlgorithm( graph );
+            }
+        }, 1 ) ) {
+            for ( int i = 0; i < 2; i++ ) {
+                try {
+                    engine.route( new SimpleRouteBuilder(), map( 0 ), map( 1 ) );
+                    fail( "Creation should have failed." );
+                } catch ( IllegalStateException ex ) {
+                }
+            }
+            // the failed creations must not occupy the pool
+            assertEquals( toString( new DijkstraRoutingAlgorithm( graph ).route( new SimpleRouteBuilder(), map( 0 ), map( 1 ) ) ), toString( engine.route( new SimpleRouteBuilder(), map( 0 ), map( 1 ) ) ) );
+        }
+    }
+
+    /**
+     * Test of route method with a caller waiting while the creation fails for
+     * another caller, of class RoutingEngine.
+     */
+    @Test
+    public void testRoute_failedCreationWhileWaiting() throws RouteNotFoundException, InterruptedException, ExecutionException, TimeoutException {
+        System.out.println( "route_failedCreationWhileWaiting" );
+        final Graph graph = createGraph();
+        final AtomicInteger attempts = new AtomicInteger();
+        final CountDownLatch creating = new CountDownLatch( 1 );
+        final CountDownLatch fail = new CountDownLatch( 1 );
+        ExecutorService executor = Executors.newFixedThreadPool( 2 );
+        try ( final RoutingEngine<Graph> engine = new RoutingEngine<>( new RoutingAlgorithmFactory<Graph>() {
+            @Override
+            public RoutingAlgorithm<Graph> createRoutingAlgorithm() {
+                if ( attempts.incrementAndGet() == 1 ) {
+                    creating.countDown();
+                    try {
+                        fail.await();
+                    } catch ( InterruptedException ex ) {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new IllegalStateException( "Creation failed." );
+                }
+                return new DijkstraRoutingAlgorithm( graph );
+            }
+        }, 1 ) ) {
+            Callable<Route> query = new Callable<Route>() {
+                @Override
+                public Route call() throws Exception {
+                    return engine.route( new SimpleRouteBuilder(), map( 0 ), map( 1 ) );
+                }
+            };
+            Future<Route> failing = executor.submit( query );
+            creating.await();
+            // the second caller waits for the only slot, held by the failing creation
+            Future<Route> waiting = executor.submit( query );
+            // give the second caller time to block
+            Thread.sleep( 100 );
+            fail.countDown();
+            try {
+                failing.get( 10, TimeUnit.SECONDS );
+                fail( "Creation should have failed." );
+            } catch ( ExecutionException ex ) {
+                assertTrue( ex.getCause() instanceof IllegalStateException );
+            }
+            String expected = toString( new DijkstraRoutingAlgorithm( graph ).route( new SimpleRouteBuilder(), map( 0 ), map( 1 ) ) );
+            assertEquals( expected, toString( waiting.get( 10, TimeUnit.SECONDS ) ) );
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Map<Integer, Float> map( int node ) {
+        Map<Integer, Float> map = new HashMap<>();
+        map.put( node, 0F );
+        return map;
+    }
+
+    private String toString( Route route ) {
+        StringBuilder sb = new StringBuilder();
+        Iterator<Pair<Long, Boolean>> edgeIterator = route.getEdgeIterator();
+        while ( edgeIterator.hasNext() ) {
+            sb.append( edgeIterator.next().a ).append( " " );
+        }
+        return sb.toString();
+    }
+
+    private Graph createGraph() {
+        GraphBuilder<Graph> graphBuilder = new SimpleGraphBuilder( 6, 12, DistanceType.LENGTH );
+        Coordinate a = new Coordinate( 50.1001831, 14.3856114 );
+        Coordinate b = new Coordinate( 50.1002725, 14.3872906 );
+        Coordinate c = new Coordinate( 50.1018347, 14.3857995 );
+        Coordinate d = new Coordinate( 50.1017039, 14.3871028 );
+        Coordinate e = new Coordinate( 50.1002828, 14.3878056 );
+        Coordinate f = new Coordinate( 50.1016489, 14.3876339 );
+        graphBuilder.addNode( 1, 1, 1, 50.1001831, 14.3856114 );
+        graphBuilder.addNode( 2, 2, 2, 50.1002725, 14.3872906 );
+        graphBuilder.addNode( 3, 3, 3, 50.1018347, 14.3857995 );
+        graphBuilder.addNode( 4, 4, 4, 50.1017039, 14.3871028 );
+        graphBuilder.addNode( 5, 5, 5, 50.1002828, 14.3878056 );
+        graphBuilder.addNode( 6, 6, 6, 50.1016489, 14.3876339 );
+        graphBuilder.addEdge( 1, 1, 1, 1, 2, CoordinateUtils.calculateDistance( a, b ), 50, false );
+        graphBuilder.addEdge( 2, 2, 2, 2, 1, CoordinateUtils.calculateDistance( b, a ), 50, false );
+        graphBuilder.addEdge( 3, 3, 3, 1, 3, CoordinateUtils.calculateDistance( a, c ), 50, false );
+        graphBuilder.addEdge( 4, 4, 4, 3, 1, CoordinateUtils.calculateDistance( c, a ), 50, false );
+        graphBuilder.addEdge( 5, 5, 5, 4, 2, CoordinateUtils.calculateDistance( d, b ), 50, false );
+        graphBuilder.addEdge( 6, 6, 6, 3, 4, CoordinateUtils.calculateDistance( c, d ), 50, false );
+        graphBuilder.addEdge( 7, 7, 7, 4, 3, CoordinateUtils.calculateDistance( d, c ), 50, false );
+        graphBuilder.addEdge( 8, 8, 8, 2, 5, CoordinateUtils.calculateDistance( b, e ), 50, false );
+        graphBuilder.addEdge( 9, 9, 9, 5, 2, CoordinateUtils.calculateDistance( e, b ), 50, false );
+        graphBuilder.addEdge( 10, 10, 10, 4, 6, CoordinateUtils.calculateDistance( d, f ), 50, false );
+        graphBuilder.addEdge( 11, 11, 11, 6, 4, CoordinateUtils.calculateDistance( f, d ), 50, false );
+        graphBuilder.addEdge( 12, 12, 12, 5, 6, CoordinateUtils.calculateDistance( e, f ), 50, false );
+        return graphBuilder.build();
+    }
+
+}
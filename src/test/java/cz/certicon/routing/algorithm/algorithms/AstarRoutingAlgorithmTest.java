@@ -103,6 +103,7 @@ public class AstarRoutingAlgorithmTest {
                     Route result = instance.route( new SimpleRouteBuilder(), from, to );
                     System.out.println( toString( graph, result ) );
                     assertEquals( toString( graph, expResult ), toString( graph, result ) );
+                    assertEquals( optimalAlgorithm.calculateDistance( from, to ), instance.calculateDistance( from, to ), 10E-3 );
                 }
             }
         }
@@ -0,0 +1,85 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.algorithm.algorithms;
+
+import cz.certicon.routing.application.algorithm.RouteNotFoundException;
+import cz.certicon.routing.application.algorithm.algorithms.BidirectionalAltRoutingAlgorithm;
+import cz.certicon.routing.application.algorithm.algorithms.DijkstraRoutingAlgorithm;
+import cz.certicon.routing.application.algorithm.common.SimpleRouteBuilder;
+import cz.certicon.routing.application.algorithm.preprocessing.alt.LandmarkPreprocessor;
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.alt.LandmarkData;
+import cz.certicon.routing.utils.GridGraphTestUtils;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class BidirectionalAltRoutingAlgorithmTest {
+
+    private final Graph graph;
+    private final LandmarkData data;
+
+    public BidirectionalAltRoutingAlgorithmTest() {
+        graph = GridGraphTestUtils.createGrid();
+        data = new LandmarkPreprocessor().preprocess( graph, 3 );
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of route and calculateDistance methods, of class BidirectionalAltRoutingAlgorithm.
+     */
+    @Test
+    public void testRoute() throws RouteNotFoundException {
+        System.out.println( "route" );
+        DijkstraRoutingAlgorithm optimalAlgorithm = new DijkstraRoutingAlgorithm( graph );
+        BidirectionalAltRoutingAlgorithm instance = new BidirectionalAltRoutingAlgorithm( graph, data );
+        for ( int i = 0; i < graph.getNodeCount(); i++ ) {
+            for ( int j = 0; j < graph.getNodeCount(); j++ ) {
+                if ( i != j ) {
+                    Map<Integer, Float> from = new HashMap<>();
+                    from.put( i, 0F );
+                    Map<Integer, Float> to = new HashMap<>();
+                    to.put( j, 0F );
+                    float expResult = optimalAlgorithm.calculateDistance( from, to );
+                    assertEquals( expResult, instance.calculateDistance( from, to ), 10E-3 );
+                    assertEquals( expResult, GridGraphTestUtils.getLength( graph, instance.route( new SimpleRouteBuilder(), from, to ) ), 10E-3 );
+                }
+            }
+        }
+        // multiple sources and targets with initial distances
+        Map<Integer, Float> from = new HashMap<>();
+        from.put( 0, 10F );
+        from.put( 1, 0F );
+        Map<Integer, Float> to = new HashMap<>();
+        to.put( 34, 5F );
+        to.put( 35, 0F );
+        assertEquals( optimalAlgorithm.calculateDistance( from, to ), instance.calculateDistance( from, to ), 10E-3 );
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.algorithm.algorithms;
+
+import cz.certicon.routing.application.algorithm.RouteNotFoundException;
+import cz.certicon.routing.application.algorithm.algorithms.ContractionHierarchiesManyToManyAlgorithm;
+import cz.certicon.routing.application.algorithm.algorithms.DijkstraRoutingAlgorithm;
+import cz.certicon.routing.application.algorithm.datastructures.JgraphtFibonacciDataStructureFactory;
+import cz.certicon.routing.application.algorithm.preprocessing.ch.ContractionHierarchiesPreprocessor;
+import cz.certicon.routing.model.entity.DistanceType;
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.ch.ChSearchGraph;
+import cz.certicon.routing.model.entity.ch.PreprocessedData;
+import cz.certicon.routing.model.entity.ch.SimpleChDataBuilder;
+import cz.certicon.routing.utils.GridGraphTestUtils;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class ContractionHierarchiesManyToManyAlgorithmTest {
+
+    private final Graph graph;
+    private final PreprocessedData data;
+
+    public ContractionHierarchiesManyToManyAlgorithmTest() {
+        graph = GridGraphTestUtils.createGrid();
+        data = new ContractionHierarchiesPreprocessor().preprocess( new SimpleChDataBuilder( graph, DistanceType.LENGTH ), graph, DistanceType.LENGTH, graph.getEdgeCount() + 1 );
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of calculateDistances method, of class
+     * ContractionHierarchiesManyToManyAlgorithm.
+     */
+    @Test
+    public void testCalculateDistances() throws RouteNotFoundException {
+        System.out.println( "calculateDistances" );
+        List<Map<Integer, Float>> from = new ArrayList<>();
+        List<Map<Integer, Float>> to = new ArrayList<>();
+        for ( int node = 0; node < graph.getNodeCount(); node++ ) {
+            Map<Integer, Float> point = new HashMap<>();
+            point.put( node, 0F );
+            if ( node % 2 == 0 ) {
+                from.add( point );
+            } else {
+                to.add( point );
+            }
+        }
+        // a point with two nodes and non-zero initial distances
+        Map<Integer, Float> point = new HashMap<>();
+        point.put( 0, 5F );
+        point.put( 1, 3F );
+        to.add( point );
+        DijkstraRoutingAlgorithm optimalAlgorithm = new DijkstraRoutingAlgorithm( graph );
+        ContractionHierarchiesManyToManyAlgorithm instance = new ContractionHierarchiesManyToManyAlgorithm( graph, data );
+        float[][] result = instance.calculateDistances( from, to );
+        assertEquals( from.size(), result.length );
+        for ( int i = 0; i < from.size(); i++ ) {
+            assertEquals( to.size(), result[i].length );
+            for ( int j = 0; j < to.size(); j++ ) {
+                assertEquals( optimalAlgorithm.calculateDistance( from.get( i ), to.get( j ) ), result[i][j], 10E-3 );
+            }
+        }
+        ExecutorService executor = Executors.newFixedThreadPool( 3 );
+        try {
+            ContractionHierarchiesManyToManyAlgorithm parallelInstance = new ContractionHierarchiesManyToManyAlgorithm( graph, new ChSearchGraph( graph, data ), new JgraphtFibonacciDataStructureFactory<Integer>(), executor, 3 );
+            // the second call reuses the searches of the executor threads
+            for ( int k = 0; k < 2; k++ ) {
+                float[][] parallelResult = parallelInstance.calculateDistances( from, to );
+                for ( int i = 0; i < from.size(); i++ ) {
+                    assertArrayEquals( result[i], parallelResult[i], 0 );
+                }
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
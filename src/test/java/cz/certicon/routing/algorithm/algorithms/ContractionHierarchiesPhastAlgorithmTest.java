@@ -0,0 +1,101 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.algorithm.algorithms;
+
+import cz.certicon.routing.application.algorithm.RouteNotFoundException;
+import cz.certicon.routing.application.algorithm.algorithms.ContractionHierarchiesPhastAlgorithm;
+import cz.certicon.routing.application.algorithm.algorithms.DijkstraRoutingAlgorithm;
+import cz.certicon.routing.application.algorithm.preprocessing.ch.ContractionHierarchiesPreprocessor;
+import cz.certicon.routing.model.entity.DistanceType;
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.ch.PreprocessedData;
+import cz.certicon.routing.model.entity.ch.SimpleChDataBuilder;
+import cz.certicon.routing.utils.GridGraphTestUtils;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class ContractionHierarchiesPhastAlgorithmTest {
+
+    private final Graph graph;
+    private final PreprocessedData data;
+
+    public ContractionHierarchiesPhastAlgorithmTest() {
+        graph = GridGraphTestUtils.createGrid();
+        data = new ContractionHierarchiesPreprocessor().preprocess( new SimpleChDataBuilder( graph, DistanceType.LENGTH ), graph, DistanceType.LENGTH, graph.getEdgeCount() + 1 );
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of calculateDistances method, of class
+     * ContractionHierarchiesPhastAlgorithm.
+     */
+    @Test
+    public void testCalculateDistances() throws RouteNotFoundException {
+        System.out.println( "calculateDistances" );
+        DijkstraRoutingAlgorithm optimalAlgorithm = new DijkstraRoutingAlgorithm( graph );
+        ContractionHierarchiesPhastAlgorithm instance = new ContractionHierarchiesPhastAlgorithm( graph, data );
+        for ( int source = 0; source < graph.getNodeCount(); source++ ) {
+            Map<Integer, Float> from = new HashMap<>();
+            from.put( source, 0F );
+            float[] result = instance.calculateDistances( from );
+            assertEquals( graph.getNodeCount(), result.length );
+            for ( int target = 0; target < graph.getNodeCount(); target++ ) {
+                Map<Integer, Float> to = new HashMap<>();
+                to.put( target, 0F );
+                assertEquals( optimalAlgorithm.calculateDistance( from, to ), result[target], 10E-3 );
+            }
+        }
+    }
+
+    /**
+     * Test of calculateDistances method with multiple sources, of class
+     * ContractionHierarchiesPhastAlgorithm.
+     */
+    @Test
+    public void testCalculateDistances_batch() {
+        System.out.println( "calculateDistances_batch" );
+        List<Map<Integer, Float>> from = new ArrayList<>();
+        for ( int node = 0; node < graph.getNodeCount(); node += 5 ) {
+            Map<Integer, Float> point = new HashMap<>();
+            point.put( node, 0F );
+            point.put( ( node + 1 ) % graph.getNodeCount(), 2F );
+            from.add( point );
+        }
+        ContractionHierarchiesPhastAlgorithm instance = new ContractionHierarchiesPhastAlgorithm( graph, data );
+        float[][] result = instance.calculateDistances( from );
+        assertEquals( from.size(), result.length );
+        for ( int i = 0; i < from.size(); i++ ) {
+            assertArrayEquals( instance.calculateDistances( from.get( i ) ), result[i], 0 );
+        }
+    }
+}
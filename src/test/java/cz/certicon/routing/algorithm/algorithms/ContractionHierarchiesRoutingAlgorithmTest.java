@@ -6,6 +6,7 @@
 package cz.certicon.routing.algorithm.algorithms;
 
 import cz.certicon.routing.application.algorithm.algorithms.ContractionHierarchiesRoutingAlgorithm;
+import cz.certicon.routing.application.algorithm.algorithms.DijkstraRoutingAlgorithm;
 import cz.certicon.routing.application.algorithm.Route;
 import cz.certicon.routing.application.algorithm.RouteBuilder;
 import cz.certicon.routing.application.algorithm.RouteNotFoundException;
@@ -61,48 +62,11 @@ public class ContractionHierarchiesRoutingAlgorithmTest {
     @Test
     public void testRoute() throws RouteNotFoundException {
         System.out.println( "route" );
-        GraphBuilder<Graph> graphBuilder = new SimpleGraphBuilder( 6, 12, DistanceType.LENGTH );
-        Coordinate a = new Coordinate( 50.1001831, 14.3856114 );
-        Coordinate b = new Coordinate( 50.1002725, 14.3872906 );
-        Coordinate c = new Coordinate( 50.1018347, 14.3857995 );
-        Coordinate d = new Coordinate( 50.1017039, 14.3871028 );
-        Coordinate e = new Coordinate( 50.1002828, 14.3878056 );
-        Coordinate f = new Coordinate( 50.1016489, 14.3876339 );
-        graphBuilder.addNode( 1, 1, 1, 50.1001831, 14.3856114 );
-        graphBuilder.addNode( 2, 2, 2, 50.1002725, 14.3872906 );
-        graphBuilder.addNode( 3, 3, 3, 50.1018347, 14.3857995 );
-        graphBuilder.addNode( 4, 4, 4, 50.1017039, 14.3871028 );
-        graphBuilder.addNode( 5, 5, 5, 50.1002828, 14.3878056 );
-        graphBuilder.addNode( 6, 6, 6, 50.1016489, 14.3876339 );
-        graphBuilder.addEdge( 1, 1, 1, 1, 2, CoordinateUtils.calculateDistance( a, b ), 50, false );
-        graphBuilder.addEdge( 2, 2, 2, 2, 1, CoordinateUtils.calculateDistance( b, a ), 50, false );
-        graphBuilder.addEdge( 3, 3, 3, 1, 3, CoordinateUtils.calculateDistance( a, c ), 50, false );
-        graphBuilder.addEdge( 4, 4, 4, 3, 1, CoordinateUtils.calculateDistance( c, a ), 50, false );
-        graphBuilder.addEdge( 5, 5, 5, 4, 2, CoordinateUtils.calculateDistance( d, b ), 50, false );
-        graphBuilder.addEdge( 6, 6, 6, 3, 4, CoordinateUtils.calculateDistance( c, d ), 50, false );
-        graphBuilder.addEdge( 7, 7, 7, 4, 3, CoordinateUtils.calculateDistance( d, c ), 50, false );
-        graphBuilder.addEdge( 8, 8, 8, 2, 5, CoordinateUtils.calculateDistance( b, e ), 50, false );
-        graphBuilder.addEdge( 9, 9, 9, 5, 2, CoordinateUtils.calculateDistance( e, b ), 50, false );
-        graphBuilder.addEdge( 10, 10, 10, 4, 6, CoordinateUtils.calculateDistance( d, f ), 50, false );
-        graphBuilder.addEdge( 11, 11, 11, 6, 4, CoordinateUtils.calculateDistance( f, d ), 50, false );
-        graphBuilder.addEdge( 12, 12, 12, 5, 6, CoordinateUtils.calculateDistance( e, f ), 50, false );
-        Graph graph = graphBuilder.build();
+        Graph graph = createGraph();
         for ( int i = 0; i < graph.getEdgeCount(); i++ ) {
             System.out.println( "length[" + i + "]: " + graph.getLength( i ) );
         }
-        SimpleChDataBuilder pdBuilder = new SimpleChDataBuilder( graph, DistanceType.LENGTH );
-        pdBuilder.setRank( 1, 1 );
-        pdBuilder.setRank( 2, 2 );
-        pdBuilder.setRank( 3, 6 );
-        pdBuilder.setRank( 4, 4 );
-        pdBuilder.setRank( 5, 5 );
-        pdBuilder.setRank( 6, 3 );
-        pdBuilder.addShortcut( 13, 2, 3 );
-        pdBuilder.addShortcut( 14, 5, 8 );
-        pdBuilder.addShortcut( 15, 12, 11 );
-        pdBuilder.addShortcut( 16, 6, 14 );
-        pdBuilder.addShortcut( 17, 15, 7 );
-        PreprocessedData preprocessedData = pdBuilder.build();
+        PreprocessedData preprocessedData = createPreprocessedData( graph );
         RoutingAlgorithm<Graph> instance = new ContractionHierarchiesRoutingAlgorithm( graph, preprocessedData );
         RouteBuilder<Route, Graph> routeBuilder = new SimpleRouteBuilder();
         routeBuilder.setSourceNode( graph, 1 );
@@ -130,6 +94,46 @@ public class ContractionHierarchiesRoutingAlgorithmTest {
         result = instance.route( routeBuilder, from, to );
 
         assertEquals( toString( graph, expResult ), toString( graph, result ) );
+
+        // stall-on-demand must not change the results
+        ContractionHierarchiesRoutingAlgorithm stallingInstance = new ContractionHierarchiesRoutingAlgorithm( graph, preprocessedData );
+        stallingInstance.setStallOnDemand( true );
+        for ( int source = 0; source < graph.getNodeCount(); source++ ) {
+            for ( int target = 0; target < graph.getNodeCount(); target++ ) {
+                if ( source != target ) {
+                    from = new HashMap<>();
+                    from.put( source, 0F );
+                    to = new HashMap<>();
+                    to.put( target, 0F );
+                    assertEquals( toString( graph, instance.route( new SimpleRouteBuilder(), from, to ) ), toString( graph, stallingInstance.route( new SimpleRouteBuilder(), from, to ) ) );
+                }
+            }
+        }
+    }
+
+    /**
+     * Test of calculateDistance method, of class
+     * ContractionHierarchiesRoutingAlgorithm.
+     */
+    @Test
+    public void testCalculateDistance() throws RouteNotFoundException {
+        System.out.println( "calculateDistance" );
+        Graph graph = createGraph();
+        PreprocessedData preprocessedData = createPreprocessedData( graph );
+        DijkstraRoutingAlgorithm optimalAlgorithm = new DijkstraRoutingAlgorithm( graph );
+        ContractionHierarchiesRoutingAlgorithm instance = new ContractionHierarchiesRoutingAlgorithm( graph, preprocessedData );
+        for ( int source = 0; source < graph.getNodeCount(); source++ ) {
+            for ( int target = 0; target < graph.getNodeCount(); target++ ) {
+                if ( source != target ) {
+                    Map<Integer, Float> from = new HashMap<>();
+                    from.put( source, 0F );
+                    Map<Integer, Float> to = new HashMap<>();
+                    to.put( target, 0F );
+                    assertEquals( optimalAlgorithm.calculateDistance( from, to ), instance.calculateDistance( from, to ), 10E-3 );
+                    assertTrue( instance.getMeetingNode() >= 0 );
+                }
+            }
+        }
     }
 
     public String toString( Graph graph, Route route ) {
@@ -150,4 +154,49 @@ public class ContractionHierarchiesRoutingAlgorithmTest {
         sb.append( ")" );
         return sb.toString();
     }
+
+    private Graph createGraph() {
+        GraphBuilder<Graph> graphBuilder = new SimpleGraphBuilder( 6, 12, DistanceType.LENGTH );
+        Coordinate a = new Coordinate( 50.1001831, 14.3856114 );
+        Coordinate b = new Coordinate( 50.1002725, 14.3872906 );
+        Coordinate c = new Coordinate( 50.1018347, 14.3857995 );
+        Coordinate d = new Coordinate( 50.1017039, 14.3871028 );
+        Coordinate e = new Coordinate( 50.1002828, 14.3878056 );
+        Coordinate f = new Coordinate( 50.1016489, 14.3876339 );
+        graphBuilder.addNode( 1, 1, 1, 50.1001831, 14.3856114 );
+        graphBuilder.addNode( 2, 2, 2, 50.1002725, 14.3872906 );
+        graphBuilder.addNode( 3, 3, 3, 50.1018347, 14.3857995 );
+        graphBuilder.addNode( 4, 4, 4, 50.1017039, 14.3871028 );
+        graphBuilder.addNode( 5, 5, 5, 50.1002828, 14.3878056 );
+        graphBuilder.addNode( 6, 6, 6, 50.1016489, 14.3876339 );
+        graphBuilder.addEdge( 1, 1, 1, 1, 2, CoordinateUtils.calculateDistance( a, b ), 50, false );
+        graphBuilder.addEdge( 2, 2, 2, 2, 1, CoordinateUtils.calculateDistance( b, a ), 50, false );
+        graphBuilder.addEdge( 3, 3, 3, 1, 3, CoordinateUtils.calculateDistance( a, c ), 50, false );
+        graphBuilder.addEdge( 4, 4, 4, 3, 1, CoordinateUtils.calculateDistance( c, a ), 50, false );
+        graphBuilder.addEdge( 5, 5, 5, 4, 2, CoordinateUtils.calculateDistance( d, b ), 50, false );
+        graphBuilder.addEdge( 6, 6, 6, 3, 4, CoordinateUtils.calculateDistance( c, d ), 50, false );
+        graphBuilder.addEdge( 7, 7, 7, 4, 3, CoordinateUtils.calculateDistance( d, c ), 50, false );
+        graphBuilder.addEdge( 8, 8, 8, 2, 5, CoordinateUtils.calculateDistance( b, e ), 50, false );
+        graphBuilder.addEdge( 9, 9, 9, 5, 2, CoordinateUtils.calculateDistance( e, b ), 50, false );
+        graphBuilder.addEdge( 10, 10, 10, 4, 6, CoordinateUtils.calculateDistance( d, f ), 50, false );
+        graphBuilder.addEdge( 11, 11, 11, 6, 4, CoordinateUtils.calculateDistance( f, d ), 50, false );
+        graphBuilder.addEdge( 12, 12, 12, 5, 6, CoordinateUtils.calculateDistance( e, f ), 50, false );
+        return graphBuilder.build();
+    }
+
+    private PreprocessedData createPreprocessedData( Graph graph ) {
+        SimpleChDataBuilder pdBuilder = new SimpleChDataBuilder( graph, DistanceType.LENGTH );
+        pdBuilder.setRank( 1, 1 );
+        pdBuilder.setRank( 2, 2 );
+        pdBuilder.setRank( 3, 6 );
+        pdBuilder.setRank( 4, 4 );
+        pdBuilder.setRank( 5, 5 );
+        pdBuilder.setRank( 6, 3 );
+        pdBuilder.addShortcut( 13, 2, 3 );
+        pdBuilder.addShortcut( 14, 5, 8 );
+        pdBuilder.addShortcut( 15, 12, 11 );
+        pdBuilder.addShortcut( 16, 6, 14 );
+        pdBuilder.addShortcut( 17, 15, 7 );
+        return pdBuilder.build();
+    }
 }
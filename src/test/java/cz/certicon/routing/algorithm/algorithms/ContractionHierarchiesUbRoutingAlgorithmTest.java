@@ -131,6 +131,21 @@ public class ContractionHierarchiesUbRoutingAlgorithmTest {
 
         assertEquals( toString( graph, expResult ), toString( graph, result ) );
 
+
+        // stall-on-demand must not change the results
+        ContractionHierarchiesUbRoutingAlgorithm stallingInstance = new ContractionHierarchiesUbRoutingAlgorithm( graph, preprocessedData );
+        stallingInstance.setStallOnDemand( true );
+        for ( int source = 0; source < graph.getNodeCount(); source++ ) {
+            for ( int target = 0; target < graph.getNodeCount(); target++ ) {
+                if ( source != target ) {
+                    from = new HashMap<>();
+                    from.put( source, 0F );
+                    to = new HashMap<>();
+                    to.put( target, 0F );
+                    assertEquals( toString( graph, instance.route( new SimpleRouteBuilder(), from, to ) ), toString( graph, stallingInstance.route( new SimpleRouteBuilder(), from, to ) ) );
+                }
+            }
+        }
     }
 
     public String toString( Graph graph, Route route ) {
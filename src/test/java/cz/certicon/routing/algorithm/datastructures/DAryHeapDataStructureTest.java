@@ -0,0 +1,138 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.algorithm.datastructures;
+
+import cz.certicon.routing.application.algorithm.NodeDataStructure;
+import cz.certicon.routing.application.algorithm.datastructures.DAryHeapDataStructure;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class DAryHeapDataStructureTest {
+
+    public DAryHeapDataStructureTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of extractMin method, of class DAryHeapDataStructure.
+     */
+    @Test
+    public void testExtractMin() {
+        System.out.println( "extractMin" );
+        NodeDataStructure<Integer> instance = new DAryHeapDataStructure( 10 );
+        instance.add( 3, 5.0 );
+        instance.add( 7, 1.0 );
+        instance.add( 1, 3.0 );
+        instance.add( 9, 4.0 );
+        assertEquals( 1.0, instance.minValue(), 0.0 );
+        assertEquals( 7, (int) instance.extractMin() );
+        assertEquals( 1, (int) instance.extractMin() );
+        assertEquals( 9, (int) instance.extractMin() );
+        assertEquals( 3, (int) instance.extractMin() );
+        assertTrue( instance.isEmpty() );
+    }
+
+    /**
+     * Test of notifyDataChange method, of class DAryHeapDataStructure.
+     */
+    @Test
+    public void testNotifyDataChange() {
+        System.out.println( "notifyDataChange" );
+        NodeDataStructure<Integer> instance = new DAryHeapDataStructure( 10, 2 );
+        instance.add( 0, 5.0 );
+        instance.add( 1, 6.0 );
+        instance.add( 2, 7.0 );
+        instance.notifyDataChange( 2, 1.0 );
+        instance.notifyDataChange( 0, 8.0 );
+        instance.notifyDataChange( 4, 2.0 );
+        assertEquals( 4, instance.size() );
+        assertTrue( instance.contains( 4 ) );
+        assertEquals( 2, (int) instance.extractMin() );
+        assertEquals( 4, (int) instance.extractMin() );
+        assertEquals( 1, (int) instance.extractMin() );
+        assertEquals( 0, (int) instance.extractMin() );
+        assertFalse( instance.contains( 0 ) );
+    }
+
+    /**
+     * Randomized comparison against a trivial minimum search
+     */
+    @Test
+    public void testRandomOperations() {
+        System.out.println( "randomOperations" );
+        int nodeCount = 200;
+        Random random = new Random( 42 );
+        for ( int arity = 2; arity <= 8; arity++ ) {
+            NodeDataStructure<Integer> instance = new DAryHeapDataStructure( nodeCount, arity );
+            float[] values = new float[nodeCount];
+            Arrays.fill( values, -1 );
+            for ( int i = 0; i < 5000; i++ ) {
+                int node = random.nextInt( nodeCount );
+                int operation = random.nextInt( 4 );
+                if ( operation == 0 ) {
+                    instance.remove( node );
+                    values[node] = -1;
+                } else if ( operation == 1 && !instance.isEmpty() ) {
+                    int min = instance.extractMin();
+                    for ( int j = 0; j < nodeCount; j++ ) {
+                        assertTrue( values[j] < 0 || values[min] <= values[j] );
+                    }
+                    values[min] = -1;
+                } else {
+                    float value = random.nextInt( 1000 );
+                    instance.notifyDataChange( node, value );
+                    values[node] = value;
+                }
+                int size = 0;
+                for ( int j = 0; j < nodeCount; j++ ) {
+                    if ( values[j] >= 0 ) {
+                        size++;
+                    }
+                }
+                assertEquals( size, instance.size() );
+            }
+            int count = 0;
+            Iterator<Integer> it = instance.iterator();
+            while ( it.hasNext() ) {
+                assertTrue( values[it.next()] >= 0 );
+                count++;
+            }
+            assertEquals( instance.size(), count );
+            instance.clear();
+            assertTrue( instance.isEmpty() );
+            for ( int j = 0; j < nodeCount; j++ ) {
+                assertFalse( instance.contains( j ) );
+            }
+        }
+    }
+
+}
@@ -0,0 +1,111 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.algorithm.preprocessing.alt;
+
+import cz.certicon.routing.application.algorithm.preprocessing.alt.LandmarkPreprocessor;
+import cz.certicon.routing.application.algorithm.preprocessing.alt.LandmarkSelectionStrategy;
+import cz.certicon.routing.application.algorithm.preprocessing.alt.OneToAllDijkstra;
+import cz.certicon.routing.application.algorithm.preprocessing.alt.strategies.AvoidLandmarkSelectionStrategy;
+import cz.certicon.routing.application.algorithm.preprocessing.alt.strategies.FarthestLandmarkSelectionStrategy;
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.alt.LandmarkData;
+import cz.certicon.routing.utils.GridGraphTestUtils;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class LandmarkPreprocessorTest {
+
+    private static final int LANDMARK_COUNT = 4;
+
+    private final Graph graph;
+
+    public LandmarkPreprocessorTest() {
+        graph = GridGraphTestUtils.createGrid();
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of preprocess method with the avoid strategy, of class
+     * LandmarkPreprocessor.
+     */
+    @Test
+    public void testPreprocess_avoid() {
+        System.out.println( "preprocess_avoid" );
+        assertLandmarkData( new AvoidLandmarkSelectionStrategy( new Random( 7 ) ) );
+    }
+
+    /**
+     * Test of preprocess method with the farthest strategy, of class
+     * LandmarkPreprocessor.
+     */
+    @Test
+    public void testPreprocess_farthest() {
+        System.out.println( "preprocess_farthest" );
+        assertLandmarkData( new FarthestLandmarkSelectionStrategy( new Random( 7 ) ) );
+    }
+
+    private void assertLandmarkData( LandmarkSelectionStrategy strategy ) {
+        LandmarkPreprocessor instance = new LandmarkPreprocessor();
+        instance.setLandmarkSelectionStrategy( strategy );
+        LandmarkData result = instance.preprocess( graph, LANDMARK_COUNT );
+        assertEquals( LANDMARK_COUNT, result.getLandmarkCount() );
+        assertEquals( graph.getNodeCount(), result.getNodeCount() );
+        Set<Integer> landmarks = new HashSet<>();
+        for ( int i = 0; i < LANDMARK_COUNT; i++ ) {
+            landmarks.add( result.getLandmark( i ) );
+        }
+        assertEquals( LANDMARK_COUNT, landmarks.size() );
+        OneToAllDijkstra dijkstra = new OneToAllDijkstra( graph );
+        for ( int source = 0; source < graph.getNodeCount(); source++ ) {
+            dijkstra.calculate( source, true );
+            for ( int target = 0; target < graph.getNodeCount(); target++ ) {
+                assertTrue( result.getLowerBound( source, target ) <= dijkstra.getDistance( target ) + 10E-3 );
+            }
+        }
+        for ( int i = 0; i < LANDMARK_COUNT; i++ ) {
+            dijkstra.calculate( result.getLandmark( i ), true );
+            for ( int node = 0; node < graph.getNodeCount(); node++ ) {
+                assertEquals( dijkstra.getDistance( node ), result.getForwardDistance( node, i ), 0 );
+            }
+            dijkstra.calculate( result.getLandmark( i ), false );
+            for ( int node = 0; node < graph.getNodeCount(); node++ ) {
+                assertEquals( dijkstra.getDistance( node ), result.getBackwardDistance( node, i ), 0 );
+            }
+        }
+        // the tables computed during the selection equal the tables of the selected landmarks
+        int[] selected = new int[LANDMARK_COUNT];
+        for ( int i = 0; i < LANDMARK_COUNT; i++ ) {
+            selected[i] = result.getLandmark( i );
+        }
+        assertEquals( instance.preprocess( graph, selected ), result );
+    }
+}
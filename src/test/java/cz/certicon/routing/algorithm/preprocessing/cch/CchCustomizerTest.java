@@ -0,0 +1,104 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.algorithm.preprocessing.cch;
+
+import cz.certicon.routing.application.algorithm.RouteNotFoundException;
+import cz.certicon.routing.application.algorithm.algorithms.ContractionHierarchiesRoutingAlgorithm;
+import cz.certicon.routing.application.algorithm.algorithms.DijkstraRoutingAlgorithm;
+import cz.certicon.routing.application.algorithm.common.SimpleRouteBuilder;
+import cz.certicon.routing.application.algorithm.preprocessing.cch.CchCustomizer;
+import cz.certicon.routing.application.algorithm.preprocessing.cch.CchPreprocessor;
+import cz.certicon.routing.model.entity.DistanceType;
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.cch.CchTopology;
+import cz.certicon.routing.model.entity.ch.PreprocessedData;
+import cz.certicon.routing.model.entity.ch.SimpleChDataBuilder;
+import cz.certicon.routing.utils.GridGraphTestUtils;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class CchCustomizerTest {
+
+    public CchCustomizerTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of customize method, of class CchCustomizer.
+     */
+    @Test
+    public void testCustomize() throws RouteNotFoundException {
+        System.out.println( "customize" );
+        Graph graph = GridGraphTestUtils.createGrid();
+        CchTopology topology = new CchPreprocessor().preprocess( graph );
+        assertEquals( graph.getNodeCount(), topology.getNodeCount() );
+        CchCustomizer instance = new CchCustomizer();
+        PreprocessedData data = instance.customize( new SimpleChDataBuilder( graph, DistanceType.LENGTH ), graph, topology, graph.getEdgeCount() + 1 );
+        assertDistances( graph, data );
+    }
+
+    /**
+     * Test of customize method with a different metric of the same topology,
+     * of class CchCustomizer.
+     */
+    @Test
+    public void testCustomize_metricChange() throws RouteNotFoundException {
+        System.out.println( "customize_metricChange" );
+        Graph graph = GridGraphTestUtils.createGrid();
+        CchTopology topology = new CchPreprocessor().preprocess( graph );
+        Graph changedGraph = GridGraphTestUtils.createGrid( GridGraphTestUtils.DEFAULT_SIZE, DistanceType.LENGTH, new Random( 7 ) );
+        CchCustomizer instance = new CchCustomizer();
+        instance.setThreads( 3 );
+        PreprocessedData data = instance.customize( new SimpleChDataBuilder( changedGraph, DistanceType.LENGTH ), changedGraph, topology, changedGraph.getEdgeCount() + 1 );
+        assertDistances( changedGraph, data );
+        PreprocessedData sequentialData = new CchCustomizer().customize( new SimpleChDataBuilder( changedGraph, DistanceType.LENGTH ), changedGraph, topology, changedGraph.getEdgeCount() + 1 );
+        assertEquals( sequentialData, data );
+    }
+
+    private void assertDistances( Graph graph, PreprocessedData data ) throws RouteNotFoundException {
+        DijkstraRoutingAlgorithm optimalAlgorithm = new DijkstraRoutingAlgorithm( graph );
+        ContractionHierarchiesRoutingAlgorithm algorithm = new ContractionHierarchiesRoutingAlgorithm( graph, data );
+        for ( int source = 0; source < graph.getNodeCount(); source++ ) {
+            for ( int target = 0; target < graph.getNodeCount(); target++ ) {
+                Map<Integer, Float> from = new HashMap<>();
+                from.put( source, 0F );
+                Map<Integer, Float> to = new HashMap<>();
+                to.put( target, 0F );
+                float expected = optimalAlgorithm.calculateDistance( from, to );
+                assertEquals( expected, algorithm.calculateDistance( from, to ), 10E-3 );
+                if ( source != target ) {
+                    assertEquals( expected, GridGraphTestUtils.getLength( graph, algorithm.route( new SimpleRouteBuilder(), from, to ) ), 10E-3 );
+                }
+            }
+        }
+    }
+}
@@ -6,6 +6,10 @@
 package cz.certicon.routing.algorithm.preprocessing.ch;
 
 import cz.certicon.routing.application.algorithm.preprocessing.ch.ContractionHierarchiesPreprocessor;
+import cz.certicon.routing.application.algorithm.preprocessing.ch.calculators.BasicEdgeDifferenceCalculator;
+import cz.certicon.routing.application.algorithm.preprocessing.ch.calculators.WeightedEdgeDifferenceCalculator;
+import cz.certicon.routing.application.algorithm.preprocessing.ch.strategies.LazyRecalculationStrategy;
+import cz.certicon.routing.application.algorithm.preprocessing.ch.strategies.NeighboursOnlyRecalculationStrategy;
 import cz.certicon.routing.application.algorithm.Route;
 import cz.certicon.routing.application.algorithm.RouteNotFoundException;
 import cz.certicon.routing.application.algorithm.algorithms.ContractionHierarchiesUbRoutingAlgorithm;
@@ -21,10 +25,12 @@ import cz.certicon.routing.model.entity.Coordinate;
 import cz.certicon.routing.model.entity.GraphBuilder;
 import cz.certicon.routing.model.entity.ch.ChDataBuilder;
 import cz.certicon.routing.utils.CoordinateUtils;
+import cz.certicon.routing.utils.GridGraphTestUtils;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.Random;
 import org.junit.After;
 import org.junit.AfterClass;
 import org.junit.Before;
@@ -140,6 +146,112 @@ public class ContractionHierarchiesPreprocessorTest {
 //        fail();
     }
 
+    /**
+     * Test of setWitnessSearchLimits method, of class
+     * ContractionHierarchiesPreprocessor. Limited witness searches may only add
+     * shortcuts, the hierarchy has to stay valid.
+     */
+    @Test
+    public void testSetWitnessSearchLimits() throws RouteNotFoundException {
+        System.out.println( "setWitnessSearchLimits" );
+        DistanceType distanceType = DistanceType.LENGTH;
+        ContractionHierarchiesPreprocessor instance = new ContractionHierarchiesPreprocessor();
+        instance.setWitnessSearchLimits( 1, 2 );
+        PreprocessedData preprocessedData = instance.preprocess( new SimpleChDataBuilder( graph, distanceType ), graph, distanceType, 12L );
+        DijkstraRoutingAlgorithm optimalAlgorithm = new DijkstraRoutingAlgorithm( graph );
+        ContractionHierarchiesUbRoutingAlgorithm chAlgorithm = new ContractionHierarchiesUbRoutingAlgorithm( graph, preprocessedData );
+        for ( int i = 0; i < 6; i++ ) {
+            for ( int j = 0; j < 6; j++ ) {
+                if ( i != j ) {
+                    Map<Integer, Float> from = new HashMap<>();
+                    from.put( i, 0F );
+                    Map<Integer, Float> to = new HashMap<>();
+                    to.put( j, 0F );
+                    Route expResult = optimalAlgorithm.route( new SimpleRouteBuilder(), from, to );
+                    Route result = chAlgorithm.route( new SimpleRouteBuilder(), from, to );
+                    assertEquals( toString( graph, expResult ), toString( graph, result ) );
+                }
+            }
+        }
+    }
+
+    /**
+     * Test of setThreads method, of class ContractionHierarchiesPreprocessor.
+     * The parallel contraction has to produce a valid hierarchy independent of
+     * the amount of threads.
+     */
+    @Test
+    public void testSetThreads() throws RouteNotFoundException {
+        System.out.println( "setThreads" );
+        DistanceType distanceType = DistanceType.LENGTH;
+        Graph grid = GridGraphTestUtils.createGrid( 8, distanceType, new Random( 42 ) );
+        long startId = grid.getEdgeCount() + 1;
+        ContractionHierarchiesPreprocessor instance = new ContractionHierarchiesPreprocessor();
+        instance.setThreads( 2 );
+        PreprocessedData preprocessedData = instance.preprocess( new SimpleChDataBuilder( grid, distanceType ), grid, distanceType, startId );
+        instance.setThreads( 4 );
+        assertEquals( preprocessedData, instance.preprocess( new SimpleChDataBuilder( grid, distanceType ), grid, distanceType, startId ) );
+        assertShortestDistances( grid, preprocessedData );
+    }
+
+    /**
+     * Test of preprocess method with the lazy updates, of class
+     * ContractionHierarchiesPreprocessor.
+     */
+    @Test
+    public void testPreprocess_lazyRecalculation() throws RouteNotFoundException {
+        System.out.println( "preprocess_lazyRecalculation" );
+        DistanceType distanceType = DistanceType.LENGTH;
+        Graph grid = GridGraphTestUtils.createGrid( 8, distanceType, new Random( 42 ) );
+        ContractionHierarchiesPreprocessor instance = new ContractionHierarchiesPreprocessor( new LazyRecalculationStrategy() );
+        PreprocessedData preprocessedData = instance.preprocess( new SimpleChDataBuilder( grid, distanceType ), grid, distanceType, grid.getEdgeCount() + 1 );
+        assertShortestDistances( grid, preprocessedData );
+        // a reused preprocessor starts from scratch
+        assertEquals( preprocessedData, instance.preprocess( new SimpleChDataBuilder( grid, distanceType ), grid, distanceType, grid.getEdgeCount() + 1 ) );
+        // switching back to an eager strategy restores the default extraction
+        instance.setNodeRecalculationStrategy( new NeighboursOnlyRecalculationStrategy() );
+        assertEquals( new ContractionHierarchiesPreprocessor().preprocess( new SimpleChDataBuilder( grid, distanceType ), grid, distanceType, grid.getEdgeCount() + 1 ),
+                instance.preprocess( new SimpleChDataBuilder( grid, distanceType ), grid, distanceType, grid.getEdgeCount() + 1 ) );
+    }
+
+    /**
+     * Test of preprocess method with the weighted priority, of class
+     * ContractionHierarchiesPreprocessor.
+     */
+    @Test
+    public void testPreprocess_weightedEdgeDifference() throws RouteNotFoundException {
+        System.out.println( "preprocess_weightedEdgeDifference" );
+        DistanceType distanceType = DistanceType.LENGTH;
+        Graph grid = GridGraphTestUtils.createGrid( 8, distanceType, new Random( 42 ) );
+        ContractionHierarchiesPreprocessor instance = new ContractionHierarchiesPreprocessor();
+        instance.setEdgeDifferenceCalculator( new WeightedEdgeDifferenceCalculator() );
+        PreprocessedData preprocessedData = instance.preprocess( new SimpleChDataBuilder( grid, distanceType ), grid, distanceType, grid.getEdgeCount() + 1 );
+        assertShortestDistances( grid, preprocessedData );
+        // the weighted priority should not produce more shortcuts than the basic edge difference
+        ContractionHierarchiesPreprocessor basicInstance = new ContractionHierarchiesPreprocessor();
+        basicInstance.setEdgeDifferenceCalculator( new BasicEdgeDifferenceCalculator() );
+        PreprocessedData basicPreprocessedData = basicInstance.preprocess( new SimpleChDataBuilder( grid, distanceType ), grid, distanceType, grid.getEdgeCount() + 1 );
+        assertTrue( preprocessedData.getShortcutCount() <= basicPreprocessedData.getShortcutCount() );
+    }
+
+    private void assertShortestDistances( Graph grid, PreprocessedData preprocessedData ) throws RouteNotFoundException {
+        DijkstraRoutingAlgorithm optimalAlgorithm = new DijkstraRoutingAlgorithm( grid );
+        ContractionHierarchiesUbRoutingAlgorithm chAlgorithm = new ContractionHierarchiesUbRoutingAlgorithm( grid, preprocessedData );
+        for ( int i = 0; i < grid.getNodeCount(); i++ ) {
+            for ( int j = 0; j < grid.getNodeCount(); j++ ) {
+                if ( i != j ) {
+                    Map<Integer, Float> from = new HashMap<>();
+                    from.put( i, 0F );
+                    Map<Integer, Float> to = new HashMap<>();
+                    to.put( j, 0F );
+                    Route expResult = optimalAlgorithm.route( new SimpleRouteBuilder(), from, to );
+                    Route result = chAlgorithm.route( new SimpleRouteBuilder(), from, to );
+                    assertEquals( GridGraphTestUtils.getLength( grid, expResult ), GridGraphTestUtils.getLength( grid, result ), 10E-3 );
+                }
+            }
+        }
+    }
+
     /**
      * Test of preprocess method, of class ContractionHierarchiesPreprocessor.
      */
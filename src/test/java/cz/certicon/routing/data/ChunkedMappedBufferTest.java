@@ -0,0 +1,90 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.data;
+
+import java.io.File;
+import java.io.IOException;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class ChunkedMappedBufferTest {
+
+    // small chunks, so that the values span several of them
+    private static final int CHUNK_SIZE = 16;
+
+    public ChunkedMappedBufferTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of create and open methods, of class ChunkedMappedBuffer.
+     */
+    @Test
+    public void testCreateOpen() throws IOException {
+        System.out.println( "createOpen" );
+        File file = File.createTempFile( "chunked", ".bin" );
+        file.deleteOnExit();
+        // 8 longs + 9 ints + 9 floats = 136 bytes, the last chunk is partial
+        long size = 8 * 8 + 9 * 4 + 9 * 4;
+        ChunkedMappedBuffer instance = ChunkedMappedBuffer.create( file, size, CHUNK_SIZE );
+        for ( int i = 0; i < 8; i++ ) {
+            instance.putLong( Long.MAX_VALUE - i );
+        }
+        for ( int i = 0; i < 9; i++ ) {
+            instance.putInt( -i );
+        }
+        for ( int i = 0; i < 9; i++ ) {
+            instance.putFloat( i / 2F );
+        }
+        instance.force();
+        ChunkedMappedBuffer result = ChunkedMappedBuffer.open( file, CHUNK_SIZE );
+        assertEquals( size, result.size() );
+        for ( int i = 0; i < 8; i++ ) {
+            assertEquals( Long.MAX_VALUE - i, result.getLong( 8L * i ) );
+        }
+        for ( int i = 0; i < 9; i++ ) {
+            assertEquals( -i, result.getInt( 64 + 4L * i ) );
+            assertEquals( i / 2F, result.getFloat( 100 + 4L * i ), 0 );
+        }
+        assertEquals( instance, result );
+        assertEquals( instance.hashCode(), result.hashCode() );
+    }
+
+    /**
+     * Test of open method with an invalid chunk size, of class
+     * ChunkedMappedBuffer.
+     */
+    @Test( expected = IllegalArgumentException.class )
+    public void testOpen_invalidChunkSize() throws IOException {
+        System.out.println( "open_invalidChunkSize" );
+        File file = File.createTempFile( "chunked", ".bin" );
+        file.deleteOnExit();
+        ChunkedMappedBuffer.open( file, 24 );
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.data.alt;
+
+import cz.certicon.routing.application.algorithm.preprocessing.alt.LandmarkPreprocessor;
+import cz.certicon.routing.model.entity.DistanceType;
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.GraphBuilder;
+import cz.certicon.routing.model.entity.alt.LandmarkData;
+import cz.certicon.routing.model.entity.common.SimpleGraphBuilder;
+import java.io.File;
+import java.io.IOException;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class LandmarkFileTest {
+
+    private final Graph graph;
+    private final LandmarkData data;
+
+    public LandmarkFileTest() {
+        GraphBuilder<Graph> graphBuilder = new SimpleGraphBuilder( 4, 5, DistanceType.LENGTH );
+        graphBuilder.addNode( 1, 1, 1, 50.0, 14.0 );
+        graphBuilder.addNode( 2, 2, 2, 50.0, 14.001 );
+        graphBuilder.addNode( 3, 3, 3, 50.001, 14.001 );
+        graphBuilder.addNode( 4, 4, 4, 50.001, 14.0 );
+        graphBuilder.addEdge( 1, 1, 1, 1, 2, 10, 50, false );
+        graphBuilder.addEdge( 2, 2, 2, 2, 3, 20, 50, false );
+        graphBuilder.addEdge( 3, 3, 3, 3, 4, 30, 50, false );
+        graphBuilder.addEdge( 4, 4, 4, 4, 1, 40, 50, false );
+        graphBuilder.addEdge( 5, 5, 5, 1, 3, 25, 50, false );
+        graph = graphBuilder.build();
+        data = new LandmarkPreprocessor().preprocess( graph, new int[]{ 0, 2 } );
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of write and read methods, of class LandmarkFile.
+     */
+    @Test
+    public void testWriteRead() throws IOException {
+        System.out.println( "writeRead" );
+        File file = File.createTempFile( "landmarks", ".bin" );
+        file.deleteOnExit();
+        LandmarkFile instance = new LandmarkFile( file );
+        instance.write( data, DistanceType.LENGTH );
+        LandmarkData result = instance.read( graph, DistanceType.LENGTH );
+        assertEquals( data, result );
+        assertEquals( 25, result.getForwardDistance( 2, 0 ), 0 );
+        assertEquals( 70, result.getForwardDistance( 0, 1 ), 0 );
+        assertEquals( 25, result.getLowerBound( 0, 2 ), 0 );
+    }
+
+    /**
+     * Test of read method with a different graph, of class LandmarkFile.
+     */
+    @Test( expected = IOException.class )
+    public void testRead_mismatch() throws IOException {
+        System.out.println( "read_mismatch" );
+        File file = File.createTempFile( "landmarks", ".bin" );
+        file.deleteOnExit();
+        LandmarkFile instance = new LandmarkFile( file );
+        instance.write( data, DistanceType.LENGTH );
+        GraphBuilder<Graph> graphBuilder = new SimpleGraphBuilder( 1, 0, DistanceType.LENGTH );
+        graphBuilder.addNode( 1, 1, 1, 50.0, 14.0 );
+        instance.read( graphBuilder.build(), DistanceType.LENGTH );
+    }
+
+    /**
+     * Test of read method with a different distance type, of class
+     * LandmarkFile.
+     */
+    @Test( expected = IOException.class )
+    public void testRead_distanceTypeMismatch() throws IOException {
+        System.out.println( "read_distanceTypeMismatch" );
+        File file = File.createTempFile( "landmarks", ".bin" );
+        file.deleteOnExit();
+        LandmarkFile instance = new LandmarkFile( file );
+        instance.write( data, DistanceType.LENGTH );
+        instance.read( graph, DistanceType.TIME );
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.data.ch.binary;
+
+import cz.certicon.routing.application.algorithm.preprocessing.ch.ContractionHierarchiesPreprocessor;
+import cz.certicon.routing.data.ch.NotPreprocessedException;
+import cz.certicon.routing.model.entity.DistanceType;
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.ch.PreprocessedData;
+import cz.certicon.routing.model.entity.ch.SimpleChDataBuilder;
+import cz.certicon.routing.utils.GridGraphTestUtils;
+import gnu.trove.iterator.TIntIterator;
+import java.io.File;
+import java.io.IOException;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class BinaryContractionHierarchiesFileTest {
+
+    private final Graph graph;
+    private final PreprocessedData data;
+
+    public BinaryContractionHierarchiesFileTest() {
+        graph = GridGraphTestUtils.createGrid();
+        data = new ContractionHierarchiesPreprocessor().preprocess( new SimpleChDataBuilder( graph, DistanceType.LENGTH ), graph, DistanceType.LENGTH, graph.getEdgeCount() + 1 );
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of write and read methods, of class
+     * BinaryContractionHierarchiesFile.
+     */
+    @Test
+    public void testWriteRead() throws IOException, NotPreprocessedException {
+        System.out.println( "writeRead" );
+        File file = File.createTempFile( "ch_data", ".bin" );
+        file.deleteOnExit();
+        BinaryContractionHierarchiesFile instance = new BinaryContractionHierarchiesFile( file );
+        instance.write( data, graph, DistanceType.LENGTH );
+        MappedPreprocessedData result = instance.read( graph, DistanceType.LENGTH );
+        assertEquals( DistanceType.LENGTH, result.getDistanceType() );
+        assertEquals( data.getStartId(), result.getStartId() );
+        assertArrayEquals( data.getRanks(), result.getRanks() );
+        assertArrayEquals( data.getSources(), result.getSources() );
+        assertArrayEquals( data.getTargets(), result.getTargets() );
+        assertEquals( data.getShortcutCount(), result.getShortcutCount() );
+        for ( int i = 0; i < data.getShortcutCount(); i++ ) {
+            assertEquals( data.getStartEdge( i ), result.getStartEdge( i ) );
+            assertEquals( data.getEndEdge( i ), result.getEndEdge( i ) );
+            assertEquals( data.getLength( graph.getEdgeCount() + i, graph ), result.getLength( graph.getEdgeCount() + i, graph ), 10E-6 );
+        }
+        for ( int node = 0; node < graph.getNodeCount(); node++ ) {
+            assertArrayEquals( data.getIncomingShortcuts( node ), result.getIncomingShortcuts( node ) );
+            assertArrayEquals( data.getOutgoingShortcuts( node ), result.getOutgoingShortcuts( node ) );
+            assertIteratorEquals( data.getIncomingEdgesIterator( node, graph ), result.getIncomingEdgesIterator( node, graph ) );
+            assertIteratorEquals( data.getOutgoingEdgesIterator( node, graph ), result.getOutgoingEdgesIterator( node, graph ) );
+        }
+        assertEquals( result, instance.read() );
+    }
+
+    /**
+     * Test of read method with a missing file, of class
+     * BinaryContractionHierarchiesFile.
+     */
+    @Test( expected = NotPreprocessedException.class )
+    public void testRead_missing() throws IOException, NotPreprocessedException {
+        System.out.println( "read_missing" );
+        File file = File.createTempFile( "ch_data", ".bin" );
+        file.delete();
+        new BinaryContractionHierarchiesFile( file ).read();
+    }
+
+    /**
+     * Test of setters, of class MappedPreprocessedData.
+     */
+    @Test( expected = UnsupportedOperationException.class )
+    public void testReadOnly() throws IOException, NotPreprocessedException {
+        System.out.println( "readOnly" );
+        File file = File.createTempFile( "ch_data", ".bin" );
+        file.deleteOnExit();
+        BinaryContractionHierarchiesFile instance = new BinaryContractionHierarchiesFile( file );
+        instance.write( data, graph, DistanceType.LENGTH );
+        instance.read().setRank( 0, 1 );
+    }
+
+    private void assertIteratorEquals( TIntIterator expected, TIntIterator result ) {
+        while ( expected.hasNext() ) {
+            assertTrue( result.hasNext() );
+            assertEquals( expected.next(), result.next() );
+        }
+        assertFalse( result.hasNext() );
+    }
+}
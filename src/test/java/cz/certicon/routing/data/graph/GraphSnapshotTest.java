@@ -0,0 +1,129 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.data.graph;
+
+import cz.certicon.routing.model.entity.DistanceType;
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.common.SimpleGraphBuilder;
+import cz.certicon.routing.utils.GridGraphTestUtils;
+import gnu.trove.iterator.TIntIterator;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class GraphSnapshotTest {
+
+    private static final int SIZE = 5;
+
+    private final Graph graph;
+
+    public GraphSnapshotTest() {
+        // ids in reversed order to exercise the sorted indices
+        graph = GridGraphTestUtils.createGrid( new SimpleGraphBuilder( GridGraphTestUtils.getNodeCount( SIZE ), GridGraphTestUtils.getEdgeCount( SIZE ), DistanceType.LENGTH ), SIZE, new Random( 42 ), true );
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of write and read methods, of class GraphSnapshot.
+     */
+    @Test
+    public void testWriteRead() throws IOException {
+        System.out.println( "writeRead" );
+        File file = File.createTempFile( "graph_snapshot", ".bin" );
+        file.deleteOnExit();
+        GraphSnapshot instance = new GraphSnapshot( file );
+        instance.write( graph, DistanceType.LENGTH );
+        MappedGraph result = instance.read( DistanceType.LENGTH );
+        assertEquals( graph.getNodeCount(), result.getNodeCount() );
+        assertEquals( graph.getEdgeCount(), result.getEdgeCount() );
+        for ( int node = 0; node < graph.getNodeCount(); node++ ) {
+            assertEquals( graph.getNodeOrigId( node ), result.getNodeOrigId( node ) );
+            assertEquals( node, result.getNodeByOrigId( graph.getNodeOrigId( node ) ) );
+            assertEquals( graph.getLatitude( node ), result.getLatitude( node ), 0 );
+            assertEquals( graph.getLongitude( node ), result.getLongitude( node ), 0 );
+            assertEquals( graph.getNodeDegree( node ), result.getNodeDegree( node ) );
+            assertArrayEquals( graph.getIncomingEdges( node ), result.getIncomingEdges( node ) );
+            assertArrayEquals( graph.getOutgoingEdges( node ), result.getOutgoingEdges( node ) );
+            assertIteratorEquals( graph.getIncomingEdgesIterator( node ), result.getIncomingEdgesIterator( node ) );
+            assertIteratorEquals( graph.getOutgoingEdgesIterator( node ), result.getOutgoingEdgesIterator( node ) );
+        }
+        for ( int edge = 0; edge < graph.getEdgeCount(); edge++ ) {
+            assertEquals( graph.getEdgeOrigId( edge ), result.getEdgeOrigId( edge ) );
+            assertEquals( edge, result.getEdgeByOrigId( graph.getEdgeOrigId( edge ) ) );
+            assertEquals( graph.getSource( edge ), result.getSource( edge ) );
+            assertEquals( graph.getTarget( edge ), result.getTarget( edge ) );
+            assertEquals( graph.getLength( edge ), result.getLength( edge ), 0 );
+        }
+        assertFalse( result.containsNode( graph.getNodeCount() + 1 ) );
+        assertFalse( result.containsEdge( graph.getEdgeCount() + 1 ) );
+    }
+
+    /**
+     * Test of read method with a different distance type, of class
+     * GraphSnapshot.
+     */
+    @Test( expected = IOException.class )
+    public void testRead_distanceType() throws IOException {
+        System.out.println( "read_distanceType" );
+        File file = File.createTempFile( "graph_snapshot", ".bin" );
+        file.deleteOnExit();
+        GraphSnapshot instance = new GraphSnapshot( file );
+        instance.write( graph, DistanceType.LENGTH );
+        instance.read( DistanceType.TIME );
+    }
+
+    /**
+     * Test of read method with a corrupt header, of class GraphSnapshot.
+     */
+    @Test( expected = IOException.class )
+    public void testRead_corruptHeader() throws IOException {
+        System.out.println( "read_corruptHeader" );
+        File file = File.createTempFile( "graph_snapshot", ".bin" );
+        file.deleteOnExit();
+        GraphSnapshot instance = new GraphSnapshot( file );
+        instance.write( graph, DistanceType.LENGTH );
+        try ( RandomAccessFile randomAccessFile = new RandomAccessFile( file, "rw" ) ) {
+            // edge count, whose byte offsets overflow an int (little-endian)
+            randomAccessFile.seek( MappedGraph.EDGE_COUNT_OFFSET );
+            randomAccessFile.writeInt( Integer.reverseBytes( 0x20000000 ) );
+        }
+        instance.read();
+    }
+
+    private void assertIteratorEquals( TIntIterator expected, TIntIterator result ) {
+        while ( expected.hasNext() ) {
+            assertTrue( result.hasNext() );
+            assertEquals( expected.next(), result.next() );
+        }
+        assertFalse( result.hasNext() );
+    }
+}
@@ -0,0 +1,107 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.model.entity.ch;
+
+import cz.certicon.routing.application.algorithm.preprocessing.ch.ContractionHierarchiesPreprocessor;
+import cz.certicon.routing.model.entity.DistanceType;
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.utils.GridGraphTestUtils;
+import gnu.trove.list.array.TIntArrayList;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class ShortcutUnpackerTest {
+
+    private final Graph graph;
+    private final PreprocessedData data;
+
+    public ShortcutUnpackerTest() {
+        graph = GridGraphTestUtils.createGrid();
+        data = new ContractionHierarchiesPreprocessor().preprocess( new SimpleChDataBuilder( graph, DistanceType.LENGTH ), graph, DistanceType.LENGTH, graph.getEdgeCount() + 1 );
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of unpack method, of class ShortcutUnpacker.
+     */
+    @Test
+    public void testUnpack() {
+        System.out.println( "unpack" );
+        ShortcutUnpacker instance = new ShortcutUnpacker( graph, data );
+        assertTrue( data.getShortcutCount() > 0 );
+        for ( int edge = 0; edge < graph.getEdgeCount() + data.getShortcutCount(); edge++ ) {
+            TIntArrayList expResult = new TIntArrayList();
+            unpackRecursively( edge, expResult );
+            TIntArrayList result = new TIntArrayList();
+            result.add( -1 );
+            assertEquals( expResult.size(), instance.unpack( edge, result ) );
+            assertEquals( expResult, result.subList( 1, result.size() ) );
+            // consecutive edges, total length
+            float length = 0;
+            for ( int i = 0; i < expResult.size(); i++ ) {
+                if ( i > 0 ) {
+                    assertEquals( graph.getTarget( expResult.get( i - 1 ) ), graph.getSource( expResult.get( i ) ) );
+                }
+                length += graph.getLength( expResult.get( i ) );
+            }
+            assertEquals( data.getLength( edge, graph ), length, 10E-3 );
+        }
+    }
+
+    /**
+     * Test of unpack method with the cache, of class ShortcutUnpacker.
+     */
+    @Test
+    public void testUnpack_cache() {
+        System.out.println( "unpack_cache" );
+        int cacheSize = 3;
+        ShortcutUnpacker instance = new ShortcutUnpacker( graph, data, cacheSize );
+        for ( int repeat = 0; repeat < 2; repeat++ ) {
+            for ( int shortcut = 0; shortcut < data.getShortcutCount(); shortcut++ ) {
+                int edge = graph.getEdgeCount() + shortcut;
+                TIntArrayList expResult = new TIntArrayList();
+                unpackRecursively( edge, expResult );
+                TIntArrayList result = new TIntArrayList();
+                instance.unpack( edge, result );
+                assertEquals( expResult, result );
+                assertTrue( instance.getCacheSize() <= cacheSize );
+            }
+        }
+        assertEquals( Math.min( cacheSize, data.getShortcutCount() ), instance.getCacheSize() );
+    }
+
+    private void unpackRecursively( int edge, TIntArrayList output ) {
+        if ( edge < graph.getEdgeCount() ) {
+            output.add( edge );
+        } else {
+            unpackRecursively( data.getStartEdge( edge - graph.getEdgeCount() ), output );
+            unpackRecursively( data.getEndEdge( edge - graph.getEdgeCount() ), output );
+        }
+    }
+}
@@ -102,6 +102,18 @@ public class SimpleChDataBuilderTest {
         assertEquals( toString( new int[]{ 0 } ), toString( build.getOutgoingShortcuts( 3 ) ) );
     }
 
+    /**
+     * Test of addShortcut method with a shortcut out of the id order, of class
+     * SimpleChDataBuilder.
+     */
+    @Test( expected = IllegalArgumentException.class )
+    public void testAddShortcut_outOfOrder() {
+        System.out.println( "addShortcut_outOfOrder" );
+        SimpleChDataBuilder instance = new SimpleChDataBuilder( graph, DistanceType.LENGTH );
+        instance.addShortcut( 14, 5, 8 );
+        instance.addShortcut( 16, 6, 14 );
+    }
+
     /**
      * Test of getDistanceTypeIntValue method, of class SimpleChDataBuilder.
      */
@@ -133,8 +145,8 @@ public class SimpleChDataBuilderTest {
 
         PreprocessedData expResult = new PreprocessedData(
                 new int[]{ 1, 2, 6, 4, 5, 3 },
-                new int[][]{ {}, {}, { 4, 0 }, { 2 }, { 3, 1 }, {} },
-                new int[][]{ {}, { 0 }, { 3 }, { 1 }, { 4, 2 }, {} },
+                new int[][]{ {}, {}, { 0, 4 }, { 2 }, { 1, 3 }, {} },
+                new int[][]{ {}, { 0 }, { 3 }, { 1 }, { 2, 4 }, {} },
                 new int[]{ 1, 3, 4, 2, 4 },
                 new int[]{ 2, 4, 3, 4, 2 },
                 new int[]{ 1, 4, 11, 5, 14 },
@@ -145,6 +157,22 @@ public class SimpleChDataBuilderTest {
         assertEquals( expResult, result );
     }
 
+    /**
+     * Test of build method (shortcut lengths), of class SimpleChDataBuilder.
+     */
+    @Test
+    public void testBuild_lengths() {
+        System.out.println( "build_lengths" );
+        SimpleChDataBuilder pdBuilder = new SimpleChDataBuilder( graph, DistanceType.LENGTH );
+        pdBuilder.addShortcut( 13, 5, 8 );
+        pdBuilder.addShortcut( 14, 6, 13 );
+        PreprocessedData result = pdBuilder.build();
+        int edgeCount = graph.getEdgeCount();
+        float first = graph.getLength( graph.getEdgeByOrigId( 5 ) ) + graph.getLength( graph.getEdgeByOrigId( 8 ) );
+        assertEquals( first, result.getLength( edgeCount, graph ), 10E-6 );
+        assertEquals( graph.getLength( graph.getEdgeByOrigId( 6 ) ) + first, result.getLength( edgeCount + 1, graph ), 10E-6 );
+    }
+
     public String toString( int[] array ) {
         return Arrays.toString( array );
     }
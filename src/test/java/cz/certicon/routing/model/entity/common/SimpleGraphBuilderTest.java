@@ -0,0 +1,85 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.model.entity.common;
+
+import cz.certicon.routing.model.entity.DistanceType;
+import cz.certicon.routing.model.entity.Graph;
+import java.util.Random;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class SimpleGraphBuilderTest {
+
+    private static final int NODE_COUNT = 50;
+    private static final int EDGE_COUNT = 200;
+
+    public SimpleGraphBuilderTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of build method, of class SimpleGraphBuilder.
+     */
+    @Test
+    public void testBuild() {
+        System.out.println( "build" );
+        Graph result = createGraph();
+        int incoming = 0;
+        int outgoing = 0;
+        for ( int node = 0; node < NODE_COUNT; node++ ) {
+            int[] incomingEdges = result.getIncomingEdges( node );
+            int[] outgoingEdges = result.getOutgoingEdges( node );
+            for ( int i = 0; i < incomingEdges.length; i++ ) {
+                assertEquals( node, result.getTarget( incomingEdges[i] ) );
+                assertTrue( i == 0 || incomingEdges[i - 1] < incomingEdges[i] );
+            }
+            for ( int i = 0; i < outgoingEdges.length; i++ ) {
+                assertEquals( node, result.getSource( outgoingEdges[i] ) );
+                assertTrue( i == 0 || outgoingEdges[i - 1] < outgoingEdges[i] );
+            }
+            incoming += incomingEdges.length;
+            outgoing += outgoingEdges.length;
+        }
+        assertEquals( EDGE_COUNT, incoming );
+        assertEquals( EDGE_COUNT, outgoing );
+    }
+
+    private Graph createGraph() {
+        Random random = new Random( 42 );
+        SimpleGraphBuilder graphBuilder = new SimpleGraphBuilder( NODE_COUNT, EDGE_COUNT, DistanceType.LENGTH );
+        for ( int i = 0; i < NODE_COUNT; i++ ) {
+            graphBuilder.addNode( i + 1, i + 1, i + 1, 50.0 + i * 0.001, 14.0 );
+        }
+        for ( int i = 0; i < EDGE_COUNT; i++ ) {
+            graphBuilder.addEdge( i + 1, i + 1, i + 1, 1 + random.nextInt( NODE_COUNT ), 1 + random.nextInt( NODE_COUNT ), 1 + random.nextInt( 100 ), 50, false );
+        }
+        return graphBuilder.build();
+    }
+
+}
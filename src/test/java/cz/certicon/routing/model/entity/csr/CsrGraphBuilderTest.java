@@ -0,0 +1,115 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.model.entity.csr;
+
+import cz.certicon.routing.model.entity.Coordinate;
+import cz.certicon.routing.model.entity.DistanceType;
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.GraphBuilder;
+import cz.certicon.routing.model.entity.common.SimpleGraphBuilder;
+import cz.certicon.routing.utils.CoordinateUtils;
+import gnu.trove.iterator.TIntIterator;
+import java.util.Arrays;
+import org.junit.After;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class CsrGraphBuilderTest {
+
+    public CsrGraphBuilderTest() {
+    }
+
+    @BeforeClass
+    public static void setUpClass() {
+    }
+
+    @AfterClass
+    public static void tearDownClass() {
+    }
+
+    @Before
+    public void setUp() {
+    }
+
+    @After
+    public void tearDown() {
+    }
+
+    /**
+     * Test of build method, of class CsrGraphBuilder.
+     */
+    @Test
+    public void testBuild() {
+        System.out.println( "build" );
+        Graph expected = createGraph( new SimpleGraphBuilder( 6, 12, DistanceType.LENGTH ) );
+        Graph result = createGraph( new CsrGraphBuilder( 6, 12, DistanceType.LENGTH ) );
+        assertEquals( expected.getNodeCount(), result.getNodeCount() );
+        assertEquals( expected.getEdgeCount(), result.getEdgeCount() );
+        for ( int edge = 0; edge < expected.getEdgeCount(); edge++ ) {
+            assertEquals( expected.getSource( edge ), result.getSource( edge ) );
+            assertEquals( expected.getTarget( edge ), result.getTarget( edge ) );
+            assertEquals( expected.getLength( edge ), result.getLength( edge ), 0 );
+            assertEquals( expected.getEdgeOrigId( edge ), result.getEdgeOrigId( edge ) );
+        }
+        for ( int node = 0; node < expected.getNodeCount(); node++ ) {
+            assertEquals( expected.getNodeDegree( node ), result.getNodeDegree( node ) );
+            assertEquals( sorted( expected.getIncomingEdges( node ) ), sorted( result.getIncomingEdges( node ) ) );
+            assertEquals( sorted( expected.getOutgoingEdges( node ) ), sorted( result.getOutgoingEdges( node ) ) );
+            int[] outgoing = new int[result.getOutgoingEdgesCount( node )];
+            int i = 0;
+            TIntIterator it = result.getOutgoingEdgesIterator( node );
+            while ( it.hasNext() ) {
+                int edge = it.next();
+                assertEquals( result.getOutgoingEdge( node, i ), edge );
+                outgoing[i++] = edge;
+            }
+            assertEquals( outgoing.length, i );
+            assertEquals( sorted( expected.getOutgoingEdges( node ) ), sorted( outgoing ) );
+        }
+    }
+
+    private String sorted( int[] array ) {
+        int[] copy = Arrays.copyOf( array, array.length );
+        Arrays.sort( copy );
+        return Arrays.toString( copy );
+    }
+
+    private Graph createGraph( GraphBuilder<Graph> graphBuilder ) {
+        Coordinate a = new Coordinate( 50.1001831, 14.3856114 );
+        Coordinate b = new Coordinate( 50.1002725, 14.3872906 );
+        Coordinate c = new Coordinate( 50.1018347, 14.3857995 );
+        Coordinate d = new Coordinate( 50.1017039, 14.3871028 );
+        Coordinate e = new Coordinate( 50.1002828, 14.3878056 );
+        Coordinate f = new Coordinate( 50.1016489, 14.3876339 );
+        graphBuilder.addNode( 1, 1, 1, 50.1001831, 14.3856114 );
+        graphBuilder.addNode( 2, 2, 2, 50.1002725, 14.3872906 );
+        graphBuilder.addNode( 3, 3, 3, 50.1018347, 14.3857995 );
+        graphBuilder.addNode( 4, 4, 4, 50.1017039, 14.3871028 );
+        graphBuilder.addNode( 5, 5, 5, 50.1002828, 14.3878056 );
+        graphBuilder.addNode( 6, 6, 6, 50.1016489, 14.3876339 );
+        graphBuilder.addEdge( 1, 1, 1, 1, 2, CoordinateUtils.calculateDistance( a, b ), 50, false );
+        graphBuilder.addEdge( 2, 2, 2, 2, 1, CoordinateUtils.calculateDistance( b, a ), 50, false );
+        graphBuilder.addEdge( 3, 3, 3, 1, 3, CoordinateUtils.calculateDistance( a, c ), 50, false );
+        graphBuilder.addEdge( 4, 4, 4, 3, 1, CoordinateUtils.calculateDistance( c, a ), 50, false );
+        graphBuilder.addEdge( 5, 5, 5, 4, 2, CoordinateUtils.calculateDistance( d, b ), 50, false );
+        graphBuilder.addEdge( 6, 6, 6, 3, 4, CoordinateUtils.calculateDistance( c, d ), 50, false );
+        graphBuilder.addEdge( 7, 7, 7, 4, 3, CoordinateUtils.calculateDistance( d, c ), 50, false );
+        graphBuilder.addEdge( 8, 8, 8, 2, 5, CoordinateUtils.calculateDistance( b, e ), 50, false );
+        graphBuilder.addEdge( 9, 9, 9, 5, 2, CoordinateUtils.calculateDistance( e, b ), 50, false );
+        graphBuilder.addEdge( 10, 10, 10, 4, 6, CoordinateUtils.calculateDistance( d, f ), 50, false );
+        graphBuilder.addEdge( 11, 11, 11, 6, 4, CoordinateUtils.calculateDistance( f, d ), 50, false );
+        graphBuilder.addEdge( 12, 12, 12, 5, 6, CoordinateUtils.calculateDistance( e, f ), 50, false );
+        return graphBuilder.build();
+    }
+
+}
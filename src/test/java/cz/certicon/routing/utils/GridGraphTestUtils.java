@@ -0,0 +1,137 @@
+/*
+ * To change this license header, choose License Headers in Project Properties.
+ * To change this template file, choose Tools | Templates
+ * and open the template in the editor.
+ */
+package cz.certicon.routing.utils;
+
+import cz.certicon.routing.application.algorithm.Route;
+import cz.certicon.routing.model.basic.Pair;
+import cz.certicon.routing.model.entity.DistanceType;
+import cz.certicon.routing.model.entity.Graph;
+import cz.certicon.routing.model.entity.GraphBuilder;
+import cz.certicon.routing.model.entity.common.SimpleGraphBuilder;
+import java.util.Iterator;
+import java.util.Random;
+
+/**
+ * Shared test fixture: a square grid of nodes connected by directed edges in
+ * both directions with random integer lengths from [1, 100].
+ *
+ * @author Michael Blaha {@literal <michael.blaha@certicon.cz>}
+ */
+public class GridGraphTestUtils {
+
+    /**
+     * Default size of the grid side
+     */
+    public static final int DEFAULT_SIZE = 6;
+
+    /**
+     * Default seed of the edge lengths
+     */
+    public static final long DEFAULT_SEED = 42;
+
+    private GridGraphTestUtils() {
+    }
+
+    /**
+     * Creates the default grid ({@link #DEFAULT_SIZE}, {@link #DEFAULT_SEED},
+     * {@link DistanceType#LENGTH})
+     *
+     * @return the grid graph
+     */
+    public static Graph createGrid() {
+        return createGrid( DEFAULT_SIZE, DistanceType.LENGTH, new Random( DEFAULT_SEED ) );
+    }
+
+    /**
+     * Creates a grid graph with node and edge ids starting at 1
+     *
+     * @param size amount of nodes of the grid side
+     * @param distanceType metric of the graph
+     * @param random source of the edge lengths
+     * @return the grid graph
+     */
+    public static Graph createGrid( int size, DistanceType distanceType, Random random ) {
+        return createGrid( new SimpleGraphBuilder( getNodeCount( size ), getEdgeCount( size ), distanceType ), size, random, false );
+    }
+
+    /**
+     * Creates a grid graph via the given builder. The node ids are 1 to node
+     * count and the edge ids 1 to edge count, either in the order of insertion
+     * or reversed.
+     *
+     * @param <T> graph type
+     * @param graphBuilder builder created for {@link #getNodeCount(int)} nodes
+     * and {@link #getEdgeCount(int)} edges
+     * @param size amount of nodes of the grid side
+     * @param random source of the edge lengths
+     * @param reversedIds true to assign the ids in the descending order
+     * @return the grid graph
+     */
+    public static <T> T createGrid( GraphBuilder<T> graphBuilder, int size, Random random, boolean reversedIds ) {
+        int nodeCount = getNodeCount( size );
+        int edgeCount = getEdgeCount( size );
+        for ( int i = 0; i < nodeCount; i++ ) {
+            long id = reversedIds ? nodeCount - i : i + 1;
+            graphBuilder.addNode( id, id, id, 50.0 + ( i / size ) * 0.001, 14.0 + ( i % size ) * 0.001 );
+        }
+        long edgeId = reversedIds ? edgeCount : 1;
+        long step = reversedIds ? -1 : 1;
+        for ( int i = 0; i < nodeCount; i++ ) {
+            long source = reversedIds ? nodeCount - i : i + 1;
+            if ( i % size < size - 1 ) {
+                long target = source + step;
+                graphBuilder.addEdge( edgeId, edgeId, edgeId, source, target, 1 + random.nextInt( 100 ), 50, false );
+                edgeId += step;
+                graphBuilder.addEdge( edgeId, edgeId, edgeId, target, source, 1 + random.nextInt( 100 ), 50, false );
+                edgeId += step;
+            }
+            if ( i / size < size - 1 ) {
+                long target = source + step * size;
+                graphBuilder.addEdge( edgeId, edgeId, edgeId, source, target, 1 + random.nextInt( 100 ), 50, false );
+                edgeId += step;
+                graphBuilder.addEdge( edgeId, edgeId, edgeId, target, source, 1 + random.nextInt( 100 ), 50, false );
+                edgeId += step;
+            }
+        }
+        return graphBuilder.build();
+    }
+
+    /**
+     * Returns amount of nodes of the grid
+     *
+     * @param size amount of nodes of the grid side
+     * @return amount of nodes
+     */
+    public static int getNodeCount( int size ) {
+        return size * size;
+    }
+
+    /**
+     * Returns amount of edges of the grid
+     *
+     * @param size amount of nodes of the grid side
+     * @return amount of edges
+     */
+    public static int getEdgeCount( int size ) {
+        return 4 * size * ( size - 1 );
+    }
+
+    /**
+     * Sums the lengths of the edges of the route
+     *
+     * @param graph the graph of the route
+     * @param route the route
+     * @return length of the route
+     */
+    public static float getLength( Graph graph, Route route ) {
+        float length = 0;
+        Iterator<Pair<Long, Boolean>> edgeIterator = route.getEdgeIterator();
+        while ( edgeIterator.hasNext() ) {
+            length += graph.getLength( graph.getEdgeByOrigId( edgeIterator.next().a ) );
+        }
+        return length;
+    }
+}